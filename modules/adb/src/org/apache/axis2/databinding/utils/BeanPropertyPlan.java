@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.databinding.utils;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.axis2.classloader.BeanInfoCache;
+import org.apache.axis2.databinding.typemapping.SimpleTypeMapper;
+
+/**
+ * The properties of a bean class as used by {@link BeanUtil}, resolved once per class. For
+ * every property the plan holds the getter and setter as {@link MethodHandle}s together with
+ * the type checks BeanUtil would otherwise repeat for every property of every message, so
+ * that serializing and deserializing a bean only costs one lookup of the plan per object.
+ * <p>
+ * Plans are stored in a {@link ClassValue}, which does not prevent the bean classes (and
+ * their class loaders) from being garbage collected when a service is undeployed.
+ */
+final class BeanPropertyPlan {
+
+    /**
+     * A single bean property.
+     */
+    static final class Property {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final int index;
+        private final PropertyDescriptor descriptor;
+        private final String name;
+        private final Class<?> type;
+        private final Type genericType;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        final boolean simpleType;
+        final boolean domDocument;
+        final boolean collection;
+        final boolean hashSet;
+        final boolean map;
+        final boolean dataHandler;
+        final boolean enumType;
+
+        Property(Class<?> beanClass, int index, PropertyDescriptor descriptor) {
+            this.index = index;
+            this.descriptor = descriptor;
+            this.name = descriptor.getName();
+            this.type = descriptor.getPropertyType();
+
+            Method readMethod = descriptor.getReadMethod();
+            Method writeMethod = descriptor.getWriteMethod();
+            this.genericType = readMethod == null ? null : readMethod.getGenericReturnType();
+            if (readMethod == null && type == Boolean.class && writeMethod != null) {
+                // java.beans only accepts isXxx() for primitive booleans
+                String writeMethodName = writeMethod.getName();
+                try {
+                    readMethod = new PropertyDescriptor(name, beanClass,
+                            "is" + writeMethodName.substring(3), writeMethodName).getReadMethod();
+                } catch (IntrospectionException e) {
+                    // The property is not readable
+                }
+            }
+            this.getter = readMethod == null ? null : unreflect(readMethod, GETTER_TYPE);
+            this.setter = writeMethod == null ? null : unreflect(writeMethod, SETTER_TYPE);
+
+            this.simpleType = type != null && SimpleTypeMapper.isSimpleType(type);
+            this.domDocument = type != null && SimpleTypeMapper.isDomDocument(type);
+            this.collection = type != null && SimpleTypeMapper.isCollection(type);
+            this.hashSet = type != null && SimpleTypeMapper.isHashSet(type);
+            this.map = type != null && SimpleTypeMapper.isMap(type);
+            this.dataHandler = type != null && SimpleTypeMapper.isDataHandler(type);
+            this.enumType = type != null && SimpleTypeMapper.isEnum(type);
+        }
+
+        private static MethodHandle unreflect(Method method, MethodType type) {
+            method.setAccessible(true);
+            try {
+                return MethodHandles.lookup().unreflect(method).asType(type);
+            } catch (IllegalAccessException e) {
+                // Can't happen after setAccessible(true)
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * @return the position of the property in {@link BeanPropertyPlan#getProperties()}
+         */
+        int getIndex() {
+            return index;
+        }
+
+        PropertyDescriptor getDescriptor() {
+            return descriptor;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return the generic return type of the read method, or null if the property has
+         *         no read method
+         */
+        Type getGenericType() {
+            return genericType;
+        }
+
+        boolean isReadable() {
+            return getter != null;
+        }
+
+        boolean isWritable() {
+            return setter != null;
+        }
+
+        /**
+         * Read the property. Exceptions thrown by the getter are wrapped in an
+         * InvocationTargetException, as with {@link Method#invoke(Object, Object...)}.
+         */
+        Object get(Object bean) throws InvocationTargetException {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        /**
+         * Write the property. Exceptions thrown by the setter are wrapped in an
+         * InvocationTargetException, as with {@link Method#invoke(Object, Object...)}.
+         */
+        void set(Object bean, Object value) throws InvocationTargetException {
+            if (value == null && type.isPrimitive()) {
+                // Method.invoke() reports this as an IllegalArgumentException
+                throw new IllegalArgumentException("Can't set primitive property '" + name
+                        + "' to null");
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+    }
+
+    private static final ClassValue<BeanPropertyPlan> allProperties = new ClassValue<BeanPropertyPlan>() {
+        @Override
+        protected BeanPropertyPlan computeValue(Class<?> beanClass) {
+            return create(beanClass, null);
+        }
+    };
+
+    private static final ClassValue<BeanPropertyPlan> declaredProperties = new ClassValue<BeanPropertyPlan>() {
+        @Override
+        protected BeanPropertyPlan computeValue(Class<?> beanClass) {
+            return create(beanClass, beanClass.getSuperclass());
+        }
+    };
+
+    private final Property[] properties;
+    private final Map<String, Property> propertiesByName;
+    private final Map<String, Property> propertiesByNameIgnoreCase;
+
+    private BeanPropertyPlan(Class<?> beanClass, BeanInfo beanInfo) {
+        PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
+        properties = new Property[descriptors.length];
+        Map<String, Property> byName = new HashMap<String, Property>();
+        Map<String, Property> byNameIgnoreCase = new TreeMap<String, Property>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < descriptors.length; i++) {
+            Property property = new Property(beanClass, i, descriptors[i]);
+            properties[i] = property;
+            byName.put(property.getName(), property);
+            byNameIgnoreCase.put(property.getName(), property);
+        }
+        propertiesByName = Collections.unmodifiableMap(byName);
+        propertiesByNameIgnoreCase = Collections.unmodifiableMap(byNameIgnoreCase);
+    }
+
+    private static BeanPropertyPlan create(Class<?> beanClass, Class<?> stopClass) {
+        try {
+            return new BeanPropertyPlan(beanClass, BeanInfoCache.getCachedBeanInfo(beanClass, stopClass));
+        } catch (IntrospectionException e) {
+            throw new PlanException(e);
+        }
+    }
+
+    /**
+     * Get the plan covering all the properties of the given class.
+     */
+    static BeanPropertyPlan getPlan(Class<?> beanClass) throws IntrospectionException {
+        try {
+            return allProperties.get(beanClass);
+        } catch (PlanException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get the plan covering only the properties introduced by the given class, i.e. not the
+     * ones inherited from its superclass.
+     */
+    static BeanPropertyPlan getDeclaredPlan(Class<?> beanClass) throws IntrospectionException {
+        try {
+            return declaredProperties.get(beanClass);
+        } catch (PlanException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the properties in the order reported by the bean introspector
+     */
+    Property[] getProperties() {
+        return properties;
+    }
+
+    Property getProperty(String name) {
+        return propertiesByName.get(name);
+    }
+
+    Property getPropertyIgnoreCase(String name) {
+        return propertiesByNameIgnoreCase.get(name);
+    }
+
+    /**
+     * Carries an IntrospectionException out of {@link ClassValue#computeValue(Class)}.
+     */
+    private static final class PlanException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        PlanException(IntrospectionException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IntrospectionException getCause() {
+            return (IntrospectionException) super.getCause();
+        }
+    }
+}
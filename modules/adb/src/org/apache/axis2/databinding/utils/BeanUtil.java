@@ -20,9 +20,7 @@
 package org.apache.axis2.databinding.utils;
 
 
-import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -30,7 +28,6 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -57,7 +54,6 @@ import javax.xml.stream.XMLStreamReader;
 import org.apache.axiom.om.*;
 import org.apache.axiom.util.base64.Base64Utils;
 import org.apache.axis2.AxisFault;
-import org.apache.axis2.classloader.BeanInfoCache;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.databinding.typemapping.SimpleTypeMapper;
 import org.apache.axis2.databinding.utils.reader.ADBXMLStreamReaderImpl;
@@ -110,15 +106,6 @@ public class BeanUtil {
         return name;
     }
 
-
-    private static BeanInfo getBeanInfo(Class beanClass, Class beanSuperclass) throws IntrospectionException {
-        return BeanInfoCache.getCachedBeanInfo(beanClass, beanSuperclass);
-    }
-
-    private static BeanInfo getBeanInfo(Class beanClass) throws IntrospectionException {
-        return getBeanInfo(beanClass, null);
-    }
-
     private static List<Object> getPropertyQnameList(Object beanObject,
                                                      Class<?> beanClass,
                                                      QName beanName,
@@ -158,47 +145,29 @@ public class BeanUtil {
             if (axisService != null && axisService.getExcludeInfo() != null) {
                 beanExcludeInfo = axisService.getExcludeInfo().getBeanExcludeInfoForClass(beanClass.getName());
             }
-            BeanInfo beanInfo = getBeanInfo(beanClass, beanClass.getSuperclass());
-            PropertyDescriptor[] properties = beanInfo.getPropertyDescriptors();
-            for (PropertyDescriptor property : properties) {
+            BeanPropertyPlan plan = BeanPropertyPlan.getDeclaredPlan(beanClass);
+            for (BeanPropertyPlan.Property property : plan.getProperties()) {
                 String propertyName = property.getName();
-                Class<?> ptype = property.getPropertyType();
+                Class<?> ptype = property.getType();
                 if (propertyName.equals("class") ||
                     beanExcludeInfo != null && beanExcludeInfo.isExcludedProperty(propertyName) || ptype == null) {
                     continue;
                 }
 
-                Method readMethod = property.getReadMethod();
-                if (readMethod == null) {
-                    Class propertyType = property.getPropertyType();
-                    if (propertyType == java.lang.Boolean.class) {
-                        Method writeMethod = property.getWriteMethod();
-                        if (writeMethod != null) {
-                            String tmpWriteMethodName = writeMethod.getName();
-                            PropertyDescriptor tmpPropDesc =
-                                    new PropertyDescriptor(property.getName(),
-                                            beanObject.getClass(),
-                                            "is" + tmpWriteMethodName.substring(3),
-                                            tmpWriteMethodName);
-                            readMethod = tmpPropDesc.getReadMethod();
-                        }
-                    }
-                }
                 Object value;
-                if (readMethod != null) {
-                    readMethod.setAccessible(true);
-                    value = readMethod.invoke(beanObject);
+                if (property.isReadable()) {
+                    value = property.get(beanObject);
                 } else {
                     throw new AxisFault("Property '" + propertyName + "' in bean class '"
                                         + beanClass.getName() + "'is not readable.");
                 }
 
-                if (SimpleTypeMapper.isSimpleType(ptype)) {
+                if (property.simpleType) {
                     addTypeQname(elemntNameSpace, propertyQnameValueList, property,
                                  beanName, processingDocLitBare);
                     propertyQnameValueList.add(
                             value == null ? null : SimpleTypeMapper.getStringValue(value));
-                } else if(SimpleTypeMapper.isDomDocument(ptype)){
+                } else if(property.domDocument){
                     addTypeQname(elemntNameSpace, propertyQnameValueList, property,
                             beanName, processingDocLitBare);
                     OMFactory fac = OMAbstractFactory.getOMFactory();
@@ -282,13 +251,13 @@ public class BeanUtil {
                             propertyQnameValueList.add(value);
                         }
                     }
-                } else  if (SimpleTypeMapper.isCollection(ptype) && value != null) { 
+                } else  if (property.collection && value != null) { 
                     if (typeTable != null) {
                         OMFactory fac = OMAbstractFactory.getOMFactory();
                         QName qNamefortheType = null;
                         qNamefortheType = (QName) typeTable
                                 .getComplexSchemaMap().get(getClassName(beanClass));
-                        Type genericType = property.getReadMethod().getGenericReturnType();
+                        Type genericType = property.getGenericType();
                         OMElement collection = BeanUtil.getCollectionElement(
                                 fac, genericType,
                                 (Collection) value, propertyName,null,
@@ -328,7 +297,7 @@ public class BeanUtil {
                         }
                     }
                     
-                } else if (SimpleTypeMapper.isMap(ptype) && value != null) {
+                } else if (property.map && value != null) {
                     OMFactory fac = OMAbstractFactory.getOMFactory();
                     QName qNamefortheType = (QName) typeTable
                             .getComplexSchemaMap().get(getClassName(beanClass));
@@ -346,7 +315,7 @@ public class BeanUtil {
                     addTypeQname(elemntNameSpace, propertyQnameValueList,
                             property, beanName, processingDocLitBare);
                     propertyQnameValueList.add(map);
-                } else if (SimpleTypeMapper.isEnum(ptype)){
+                } else if (property.enumType){
                     addTypeQname(elemntNameSpace, propertyQnameValueList, property,
                                  beanName, processingDocLitBare);
                     propertyQnameValueList.add(
@@ -403,14 +372,12 @@ public class BeanUtil {
             throw new RuntimeException(e);
         } catch (java.lang.reflect.InvocationTargetException e) {
             throw new RuntimeException(e);
-        } catch (java.lang.IllegalAccessException e) {
-            throw new RuntimeException(e);
         }
     }
 
     private static void addTypeQname(QName elemntNameSpace,
                                      List<Object> propertyQnameValueList,
-                                     PropertyDescriptor propDesc,
+                                     BeanPropertyPlan.Property propDesc,
                                      QName beanName,
                                      boolean processingDocLitBare) {
         if (elemntNameSpace != null) {
@@ -542,25 +509,12 @@ public class BeanUtil {
                     return beanElement.getFirstOMChild();
                 }
 
-                //use a comaprator to ignore the case of the bean element
+                //the plan looks up properties ignoring the case of the bean element
                 //names eg. if the property descriptor is getServiceName it
                 //should accept child element with ServiceName as well.
-                //but currently accepts only serviceName
-                Comparator comparator = new Comparator() {
-                    public int compare(Object o1, Object o2) {
-                        String string1 = (String) o1;
-                        String string2 = (String) o2;
-                        return string1.compareToIgnoreCase(string2);
-                    }
-                };
-                Map<String, PropertyDescriptor> properties = new TreeMap<String, PropertyDescriptor>(comparator);
-
-
-                BeanInfo beanInfo = getBeanInfo(beanClass);
-                PropertyDescriptor[] propDescs = beanInfo.getPropertyDescriptors();
-                for (PropertyDescriptor proprty : propDescs) {
-                    properties.put(proprty.getName(), proprty);
-                }
+                BeanPropertyPlan plan = BeanPropertyPlan.getPlan(beanClass);
+                //each property is only set from the first matching element
+                boolean[] processed = new boolean[plan.getProperties().length];
                 Iterator elements = beanElement.getChildren();
                 beanObj = objectSupplier.getObject(beanClass);
                 while (elements.hasNext()) {
@@ -580,9 +534,10 @@ public class BeanUtil {
                     // if parts/@href != null then need to find element with id and deserialize.
                     // before that first check whether we already have it in the hashtable
                     String partsLocalName = parts.getLocalName();
-                    PropertyDescriptor prty = properties.remove(partsLocalName);
-                    if (prty != null) {
-                        Class parameters = prty.getPropertyType();
+                    BeanPropertyPlan.Property prty = plan.getPropertyIgnoreCase(partsLocalName);
+                    if (prty != null && !processed[prty.getIndex()]) {
+                        processed[prty.getIndex()] = true;
+                        Class parameters = prty.getType();
                         if (prty.getName().equals("class"))
                             continue;
 
@@ -597,23 +552,23 @@ public class BeanUtil {
                         if (isNil) {
                             partObj = null;
                         } else {
-                            if (SimpleTypeMapper.isSimpleType(parameters)) {
+                            if (prty.simpleType) {
                                 partObj = SimpleTypeMapper.getSimpleTypeObject(parameters, parts);
-                            } else if (SimpleTypeMapper.isHashSet(parameters)) {
+                            } else if (prty.hashSet) {
                                 partObj = SimpleTypeMapper.getHashSet((OMElement)
                                         parts.getParent(), prty.getName());
-                            } else if (SimpleTypeMapper.isCollection(parameters)) {
-                                Type type = prty.getReadMethod().getGenericReturnType();
+                            } else if (prty.collection) {
+                                Type type = prty.getGenericType();
                                 partObj = processGenericCollection(parts, type, null, objectSupplier);  
 
-                            } else if (SimpleTypeMapper.isDataHandler(parameters)) {
+                            } else if (prty.dataHandler) {
                                 partObj = SimpleTypeMapper.getDataHandler(parts);
                             } else if (parameters.isArray()) {
                                 partObj = deserialize(parameters, (OMElement) parts.getParent(),
                                                       objectSupplier, prty.getName());
-                            } else if (SimpleTypeMapper.isMap(parameters)){
+                            } else if (prty.map){
                                 partObj = null;
-                                final Type type = prty.getReadMethod().getGenericReturnType();
+                                final Type type = prty.getGenericType();
                                 if (type instanceof ParameterizedType) {
                                     ParameterizedType aType = (ParameterizedType) type;
                                     Type[] parameterArgTypes = aType.getActualTypeArguments();
@@ -624,24 +579,19 @@ public class BeanUtil {
                                     partObj = processGenericsMapElement(parameterArgTypes
                                              , (OMElement) parts.getParent(), null, parts.getChildren(), objectSupplier, beanClass);
                                 }
-                            }else if (SimpleTypeMapper.isEnum(parameters)) {
+                            }else if (prty.enumType) {
                                 partObj =processEnumObject(parameters , parts);
                             } else {
                                 partObj = deserialize(parameters, parts, objectSupplier, null);
                             }
                         }
-                        Object[] parms = new Object[]{partObj};
-                        Method writeMethod = prty.getWriteMethod();
-                        if (writeMethod != null) {
-                            writeMethod.setAccessible(true);
-                            writeMethod.invoke(beanObj, parms);
+                        if (prty.isWritable()) {
+                            prty.set(beanObj, partObj);
                         }
                     }
                 }
                 return beanObj;
             }
-        } catch (IllegalAccessException e) {
-            throw new AxisFault("IllegalAccessException : " + e);
         } catch (InvocationTargetException e) {
             throw new AxisFault("InvocationTargetException : " + e);
         } catch (IntrospectionException e) {
@@ -659,12 +609,7 @@ public class BeanUtil {
                                      ObjectSupplier objectSupplier) throws AxisFault {
         Object beanObj;
         try {
-            HashMap<String, PropertyDescriptor> properties = new HashMap<String, PropertyDescriptor>();
-            BeanInfo beanInfo = getBeanInfo(beanClass);
-            PropertyDescriptor[] propDescs = beanInfo.getPropertyDescriptors();
-            for (PropertyDescriptor proprty : propDescs) {
-                properties.put(proprty.getName(), proprty);
-            }
+            BeanPropertyPlan plan = BeanPropertyPlan.getPlan(beanClass);
 
             beanObj = objectSupplier.getObject(beanClass);
             Iterator elements = beanElement.getChildren();
@@ -677,10 +622,10 @@ public class BeanUtil {
                     continue;
                 }
                 String partsLocalName = parts.getLocalName();
-                PropertyDescriptor prty = properties.get(
+                BeanPropertyPlan.Property prty = plan.getProperty(
                         partsLocalName.toLowerCase());
                 if (prty != null) {
-                    Class parameters = prty.getPropertyType();
+                    Class parameters = prty.getType();
                     if (prty.getName().equals("class"))
                         continue;
                     Object partObj;
@@ -697,16 +642,11 @@ public class BeanUtil {
                             partObj = deserialize(parameters, parts, objectSupplier, null);
                         }
                     }
-                    Object[] parms = new Object[]{partObj};
-                    Method writeMethod = prty.getWriteMethod();
-                    if (writeMethod != null) {
-                        writeMethod.setAccessible(true);
-                        writeMethod.invoke(beanObj, parms);
+                    if (prty.isWritable()) {
+                        prty.set(beanObj, partObj);
                     }
                 }
             }
-        } catch (IllegalAccessException e) {
-            throw new AxisFault("IllegalAccessException : " + e);
         } catch (InvocationTargetException e) {
             throw new AxisFault("InvocationTargetException : " + e);
         } catch (IntrospectionException e) {
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.databinding.utils;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axis2.engine.DefaultObjectSupplier;
+
+public class BeanPropertyPlanTest extends TestCase {
+
+    public static class Base {
+        private String id;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+
+    public static class Bean extends Base {
+        private String name;
+        private int count;
+        private Boolean active;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public Boolean isActive() {
+            return active;
+        }
+
+        public void setActive(Boolean active) {
+            this.active = active;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    public void testDeclaredPlan() throws Exception {
+        BeanPropertyPlan plan = BeanPropertyPlan.getDeclaredPlan(Bean.class);
+        assertNull(plan.getProperty("id"));
+        assertNotNull(BeanPropertyPlan.getPlan(Bean.class).getProperty("id"));
+        assertSame(plan, BeanPropertyPlan.getDeclaredPlan(Bean.class));
+    }
+
+    public void testAccessors() throws Exception {
+        BeanPropertyPlan plan = BeanPropertyPlan.getPlan(Bean.class);
+        Bean bean = new Bean();
+
+        BeanPropertyPlan.Property count = plan.getProperty("count");
+        assertTrue(count.simpleType);
+        count.set(bean, 3);
+        assertEquals(3, bean.getCount());
+        assertEquals(3, count.get(bean));
+
+        // Boolean properties with an isXxx() getter are readable
+        BeanPropertyPlan.Property active = plan.getProperty("active");
+        assertTrue(active.isReadable());
+        bean.setActive(Boolean.TRUE);
+        assertEquals(Boolean.TRUE, active.get(bean));
+
+        BeanPropertyPlan.Property broken = plan.getProperty("broken");
+        assertFalse(broken.isWritable());
+        try {
+            broken.get(bean);
+            fail("Expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    public void testPrimitiveSetToNull() throws Exception {
+        try {
+            BeanPropertyPlan.getPlan(Bean.class).getProperty("count").set(new Bean(), null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    public void testDeserialize() throws Exception {
+        OMFactory factory = OMAbstractFactory.getOMFactory();
+        OMElement element = factory.createOMElement(new QName("bean"));
+        factory.createOMElement(new QName("ID"), element).setText("1");
+        factory.createOMElement(new QName("name"), element).setText("first");
+        factory.createOMElement(new QName("Name"), element).setText("second");
+        factory.createOMElement(new QName("count"), element).setText("42");
+
+        Bean bean = (Bean) BeanUtil.deserialize(Bean.class, element, new DefaultObjectSupplier(), null);
+        assertEquals("1", bean.getId());
+        // Only the first matching element is used
+        assertEquals("first", bean.getName());
+        assertEquals(42, bean.getCount());
+    }
+}
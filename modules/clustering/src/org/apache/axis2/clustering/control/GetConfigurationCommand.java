@@ -66,6 +66,10 @@ public class GetConfigurationCommand extends ControlCommand {
         return serviceGroupNames;
     }
 
+    public void setServiceGroupNames(String[] serviceGroupNames) {
+        this.serviceGroupNames = serviceGroupNames;
+    }
+
     public String toString() {
         return "GetConfigurationCommand";
     }
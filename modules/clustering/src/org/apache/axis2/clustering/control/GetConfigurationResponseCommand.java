@@ -109,6 +109,10 @@ public class GetConfigurationResponseCommand extends ControlCommand {
         }
     }
 
+    public String[] getServiceGroups() {
+        return serviceGroups;
+    }
+
     public void setServiceGroups(String[] serviceGroups) {
         this.serviceGroups = serviceGroups;
     }
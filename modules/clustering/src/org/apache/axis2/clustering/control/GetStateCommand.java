@@ -92,6 +92,10 @@ public class GetStateCommand extends ControlCommand {
         return commands;
     }
 
+    public void setCommands(StateClusteringCommand[] commands) {
+        this.commands = commands;
+    }
+
     public String toString() {
         return "GetStateCommand";
     }
@@ -52,6 +52,10 @@ public class GetStateResponseCommand extends ControlCommand {
         }
     }
 
+    public StateClusteringCommand[] getCommands() {
+        return commands;
+    }
+
     public void setCommands(StateClusteringCommand[] commands) {
         this.commands = commands;
     }
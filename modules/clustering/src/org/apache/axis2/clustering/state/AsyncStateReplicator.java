@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.state;
+
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.tribes.ChannelSender;
+import org.apache.axis2.context.AbstractContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Replicates context state in the background, so that request threads do not have to wait
+ * until every member of the group has acknowledged each update.
+ * <p>
+ * Updated contexts are queued, and a dedicated thread sends everything queued during the last
+ * flush interval to the group as a single {@link StateClusteringCommandCollection}.  A context
+ * which is updated several times within one interval is only replicated once; its property
+ * differences are collected when the batch is built, so the latest values are sent.  Removals
+ * and custom commands are sent in the order they were queued, and a removal cancels any pending
+ * update of the same context.
+ * <p>
+ * At most <code>maxPending</code> entries are queued.  When the queue is full, callers block
+ * until the replicator thread has taken the current batch.
+ */
+public class AsyncStateReplicator {
+
+    private static final Log log = LogFactory.getLog(AsyncStateReplicator.class);
+
+    private final ChannelSender sender;
+    private final Map excludedReplicationPatterns;
+    private final int maxPending;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Queued work, in order.  Contexts are turned into update commands when the batch is built;
+     * everything else is a StateClusteringCommand.
+     */
+    private LinkedHashSet<Object> pending = new LinkedHashSet<Object>();
+    private long oldestPendingTime;
+    private boolean shutdown;
+
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong commandsSent = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastBatchLag;
+    private volatile long maxBatchLag;
+
+    /**
+     * @param sender                      the sender used to send the batches to the group
+     * @param excludedReplicationPatterns the property patterns to be excluded from replication
+     * @param flushInterval               the time, in milliseconds, updates are collected before
+     *                                    being sent
+     * @param maxPending                  the maximum number of queued contexts and commands
+     */
+    public AsyncStateReplicator(ChannelSender sender,
+                                Map excludedReplicationPatterns,
+                                long flushInterval,
+                                int maxPending) {
+        if (flushInterval <= 0 || maxPending <= 0) {
+            throw new IllegalArgumentException("flushInterval and maxPending must be positive");
+        }
+        this.sender = sender;
+        this.excludedReplicationPatterns = excludedReplicationPatterns;
+        this.maxPending = maxPending;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "AsyncStateReplicator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    flush();
+                } catch (Throwable t) {
+                    log.error("Unexpected error while replicating state", t);
+                }
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue the property differences of the given context for replication.
+     *
+     * @param context the updated context
+     * @throws ClusteringFault if the calling thread is interrupted while waiting for space
+     */
+    public void updateContext(AbstractContext context) throws ClusteringFault {
+        enqueue(context, null);
+    }
+
+    /**
+     * Queue a custom command for replication.
+     *
+     * @param command the command
+     * @throws ClusteringFault if the calling thread is interrupted while waiting for space
+     */
+    public void replicateState(StateClusteringCommand command) throws ClusteringFault {
+        enqueue(command, null);
+    }
+
+    /**
+     * Queue the removal of a context.  Any pending update of that context is dropped.
+     *
+     * @param command the command which removes the context on the other members
+     * @param context the removed context
+     * @throws ClusteringFault if the calling thread is interrupted while waiting for space
+     */
+    public void removeContext(StateClusteringCommand command,
+                              AbstractContext context) throws ClusteringFault {
+        enqueue(command, context);
+    }
+
+    private void enqueue(Object item, AbstractContext removed) throws ClusteringFault {
+        lock.lock();
+        try {
+            if (removed != null) {
+                pending.remove(removed);
+            }
+            if (pending.contains(item)) {
+                // Already queued; the latest differences are picked up when the batch is built
+                return;
+            }
+            while (!shutdown && pending.size() >= maxPending) {
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ClusteringFault("Interrupted while waiting to replicate state");
+                }
+            }
+            if (!shutdown) {
+                if (pending.isEmpty()) {
+                    oldestPendingTime = System.currentTimeMillis();
+                }
+                pending.add(item);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // The replicator thread is gone; send from the caller
+        sendNow(item);
+    }
+
+    private void sendNow(Object item) throws ClusteringFault {
+        StateClusteringCommand command = toCommand(item);
+        if (command != null) {
+            sender.sendToGroup(command);
+        }
+    }
+
+    /**
+     * Send everything which is currently queued.  This is called periodically by the replicator
+     * thread.
+     */
+    public void flush() {
+        LinkedHashSet<Object> batch;
+        long batchStart;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            batchStart = oldestPendingTime;
+            pending = new LinkedHashSet<Object>();
+            oldestPendingTime = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        List<StateClusteringCommand> commands =
+                new ArrayList<StateClusteringCommand>(batch.size());
+        for (Object item : batch) {
+            StateClusteringCommand command = toCommand(item);
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+        StateClusteringCommand command = commands.size() == 1 ? commands.get(0) :
+                                         new StateClusteringCommandCollection(commands);
+        try {
+            sender.sendToGroup(command);
+            batchesSent.incrementAndGet();
+            commandsSent.addAndGet(commands.size());
+        } catch (ClusteringFault e) {
+            failedBatches.incrementAndGet();
+            log.error("Could not replicate " + commands.size() + " state updates", e);
+        }
+
+        long lag = System.currentTimeMillis() - batchStart;
+        lastBatchLag = lag;
+        if (lag > maxBatchLag) {
+            maxBatchLag = lag;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Replicated " + commands.size() + " state updates, lag " + lag + " ms");
+        }
+    }
+
+    private StateClusteringCommand toCommand(Object item) {
+        if (item instanceof AbstractContext) {
+            AbstractContext context = (AbstractContext) item;
+            synchronized (context) {
+                return StateClusteringCommandFactory.getUpdateCommand(context,
+                                                                      excludedReplicationPatterns,
+                                                                      false);
+            }
+        }
+        return (StateClusteringCommand) item;
+    }
+
+    /**
+     * Stop the replicator thread and send whatever is still queued from the calling thread.
+     * Updates queued after this call are sent immediately.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        lock.lock();
+        try {
+            shutdown = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        // Anything queued between the final flush and setting the flag
+        flush();
+    }
+
+    /**
+     * @return the number of contexts and commands waiting to be replicated
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the time, in milliseconds, the oldest queued update has been waiting, or 0 if
+     *         nothing is queued
+     */
+    public long getReplicationLag() {
+        lock.lock();
+        try {
+            return oldestPendingTime == 0 ? 0 : System.currentTimeMillis() - oldestPendingTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the time, in milliseconds, between the first update of the last batch being queued
+     *         and the batch being sent to the group
+     */
+    public long getLastBatchLag() {
+        return lastBatchLag;
+    }
+
+    /**
+     * @return the highest value of {@link #getLastBatchLag()} seen so far
+     */
+    public long getMaxBatchLag() {
+        return maxBatchLag;
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    public long getCommandsSent() {
+        return commandsSent.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+}
@@ -29,6 +29,8 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.context.ServiceGroupContext;
 import org.apache.axis2.description.Parameter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -40,21 +42,113 @@ import java.util.Map;
  */
 public class DefaultStateManager implements StateManager {
 
+    private static final Log log = LogFactory.getLog(DefaultStateManager.class);
+
+    /**
+     * If set to true, context updates are replicated in the background by an
+     * {@link AsyncStateReplicator} instead of on the thread which updated the context
+     */
+    public static final String ASYNC_REPLICATION = "asyncReplication";
+
+    /**
+     * The time, in milliseconds, updates are collected before being sent in one batch
+     */
+    public static final String REPLICATION_FLUSH_INTERVAL = "replicationFlushInterval";
+
+    /**
+     * The maximum number of contexts and commands waiting to be replicated before updating
+     * threads have to wait
+     */
+    public static final String MAX_PENDING_REPLICATIONS = "maxPendingReplications";
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 20;
+    private static final int DEFAULT_MAX_PENDING = 1000;
+
     private final Map<String, Parameter> parameters = new HashMap<String, Parameter>();
 
     private ChannelSender sender;
 
+    private AsyncStateReplicator replicator;
+
     private final Map<String, List> excludedReplicationPatterns = new HashMap<String, List>();
 
     //TODO: Try to use an interface
-    public void setSender(ChannelSender sender) {
+    public synchronized void setSender(ChannelSender sender) {
         this.sender = sender;
+        if (replicator != null) {
+            replicator.shutdown();
+            replicator = null;
+        }
+        if (sender != null && isAsyncReplication()) {
+            long flushInterval = getLongParameter(REPLICATION_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+            int maxPending = (int) getLongParameter(MAX_PENDING_REPLICATIONS, DEFAULT_MAX_PENDING);
+            replicator = new AsyncStateReplicator(sender, excludedReplicationPatterns,
+                                                  flushInterval, maxPending);
+            if (log.isDebugEnabled()) {
+                log.debug("Replicating state asynchronously, flush interval " + flushInterval +
+                          " ms, at most " + maxPending + " pending replications");
+            }
+        }
+    }
+
+    private boolean isAsyncReplication() {
+        Parameter param = getParameter(ASYNC_REPLICATION);
+        return param != null && Boolean.parseBoolean(String.valueOf(param.getValue()).trim());
+    }
+
+    private long getLongParameter(String name, long defaultValue) {
+        Parameter param = getParameter(name);
+        if (param == null || param.getValue() == null) {
+            return defaultValue;
+        }
+        try {
+            long value = Long.parseLong(String.valueOf(param.getValue()).trim());
+            return value > 0 ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value for parameter " + name + ": " + param.getValue());
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return the AsyncStateReplicator, or null if state is replicated synchronously
+     */
+    public synchronized AsyncStateReplicator getReplicator() {
+        return replicator;
+    }
+
+    /**
+     * @return the time, in milliseconds, the oldest update still waiting to be replicated has
+     *         been waiting; always 0 when state is replicated synchronously
+     */
+    public long getReplicationLag() {
+        AsyncStateReplicator replicator = getReplicator();
+        return replicator == null ? 0 : replicator.getReplicationLag();
+    }
+
+    /**
+     * Send any state updates which are waiting to be replicated and stop the replicator thread.
+     */
+    public void shutdown() {
+        AsyncStateReplicator replicator;
+        synchronized (this) {
+            replicator = this.replicator;
+            this.replicator = null;
+        }
+        if (replicator != null) {
+            replicator.shutdown();
+        }
     }
 
     public DefaultStateManager() {
     }
 
     public void updateContext(AbstractContext context) throws ClusteringFault {
+        AsyncStateReplicator replicator = getReplicator();
+        if (replicator != null) {
+            replicator.updateContext(context);
+            return;
+        }
         StateClusteringCommand cmd =
                 StateClusteringCommandFactory.getUpdateCommand(context,
                                                                  excludedReplicationPatterns,
@@ -69,11 +163,23 @@ public class DefaultStateManager implements StateManager {
         StateClusteringCommand cmd =
                 StateClusteringCommandFactory.getUpdateCommand(context, propertyNames);
         if (cmd != null) {
-            sender.sendToGroup(cmd);
+            AsyncStateReplicator replicator = getReplicator();
+            if (replicator != null) {
+                replicator.replicateState(cmd);
+            } else {
+                sender.sendToGroup(cmd);
+            }
         }
     }
 
     public void updateContexts(AbstractContext[] contexts) throws ClusteringFault {
+        AsyncStateReplicator replicator = getReplicator();
+        if (replicator != null) {
+            for (AbstractContext context : contexts) {
+                replicator.updateContext(context);
+            }
+            return;
+        }
         StateClusteringCommandCollection cmd =
                 StateClusteringCommandFactory.getCommandCollection(contexts,
                                                                    excludedReplicationPatterns);
@@ -83,12 +189,22 @@ public class DefaultStateManager implements StateManager {
     }
 
     public void replicateState(StateClusteringCommand command) throws ClusteringFault {
-        sender.sendToGroup(command);
+        AsyncStateReplicator replicator = getReplicator();
+        if (replicator != null) {
+            replicator.replicateState(command);
+        } else {
+            sender.sendToGroup(command);
+        }
     }
 
     public void removeContext(AbstractContext context) throws ClusteringFault {
         StateClusteringCommand cmd = StateClusteringCommandFactory.getRemoveCommand(context);
-        sender.sendToGroup(cmd);
+        AsyncStateReplicator replicator = getReplicator();
+        if (replicator != null) {
+            replicator.removeContext(cmd, context);
+        } else {
+            sender.sendToGroup(cmd);
+        }
     }
 
     public boolean isContextClusterable(AbstractContext context) {
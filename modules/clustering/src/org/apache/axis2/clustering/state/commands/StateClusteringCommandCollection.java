@@ -43,6 +43,10 @@ public class StateClusteringCommandCollection extends StateClusteringCommand {
         }
     }
 
+    public List<StateClusteringCommand> getCommands() {
+        return commands;
+    }
+
     public boolean isEmpty(){
         return commands != null && commands.isEmpty();
     }
@@ -23,7 +23,9 @@ import org.apache.axis2.clustering.state.PropertyUpdater;
 import org.apache.axis2.clustering.state.StateClusteringCommand;
 import org.apache.axis2.context.PropertyDifference;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 
@@ -40,6 +42,17 @@ public abstract class UpdateStateCommand extends StateClusteringCommand {
         return propertyUpdater.getProperties().isEmpty();
     }
 
+    /**
+     * @return the property differences carried by this command, keyed by property name
+     */
+    public Map<String, PropertyDifference> getProperties() {
+        Map properties = propertyUpdater.getProperties();
+        if (properties == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+
     public void addProperty(PropertyDifference diff) {
         if (propertyUpdater.getProperties() == null) {
             propertyUpdater.setProperties(new HashMap());
@@ -24,82 +24,209 @@ import org.apache.catalina.tribes.group.ChannelInterceptorBase;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Message interceptor for handling at-most-once message processing semantics
+ * <p>
+ * The IDs of received messages are remembered for {@link #TIMEOUT} milliseconds.  They are
+ * spread over a number of independently locked shards, and within each shard they are kept in
+ * a ring of time buckets.  When a bucket gets older than the timeout it is dropped as a whole,
+ * so expiry does not require scanning the remembered IDs, and there is no cleanup thread.
+ * <p>
+ * The number of remembered IDs is bounded.  When a shard is full, its oldest bucket is dropped
+ * before the timeout is reached; {@link #getEvictedMessageCount()} reports how many IDs were
+ * forgotten early this way.
  */
 public final class AtMostOnceInterceptor extends ChannelInterceptorBase {
 
     private static Log log = LogFactory.getLog(AtMostOnceInterceptor.class);
-    private static final Map<MessageId, Long> receivedMessages =
-            new HashMap<MessageId, Long>();
 
     /**
-     * The time a message lives in the receivedMessages Map
+     * The time a message ID is remembered
      */
     private static final int TIMEOUT = 5 * 60 * 1000;
 
+    /**
+     * The number of time buckets the timeout is split into
+     */
+    private static final int BUCKETS = 10;
+
+    /**
+     * The maximum number of message IDs remembered
+     */
+    private static final int MAX_MESSAGES = 1000000;
+
+    private static final int SHARDS = 16;
+
+    private final Shard[] shards;
+    private final long bucketInterval;
+
+    private final AtomicLong duplicatesDropped = new AtomicLong();
+    private final AtomicLong evictedMessages = new AtomicLong();
+
     public AtMostOnceInterceptor() {
-        Thread cleanupThread = new Thread(new MessageCleanupTask());
-        cleanupThread.setPriority(Thread.MIN_PRIORITY);
-        cleanupThread.start();
+        this(TIMEOUT, BUCKETS, MAX_MESSAGES);
+    }
+
+    /**
+     * @param timeout     the time, in milliseconds, a message ID is remembered
+     * @param buckets     the number of time buckets the timeout is split into
+     * @param maxMessages the maximum number of message IDs remembered
+     */
+    AtMostOnceInterceptor(long timeout, int buckets, int maxMessages) {
+        if (timeout <= 0 || buckets <= 0 || maxMessages < SHARDS) {
+            throw new IllegalArgumentException("Invalid at-most-once window: timeout=" + timeout +
+                                               ", buckets=" + buckets +
+                                               ", maxMessages=" + maxMessages);
+        }
+        // One more bucket than the timeout needs, for the partially filled current bucket
+        bucketInterval = Math.max(1, timeout / buckets);
+        shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(buckets + 1, maxMessages / SHARDS);
+        }
     }
 
     public void messageReceived(ChannelMessage msg) {
         if (okToProcess(msg.getOptions())) {
-            synchronized (receivedMessages) {
-                MessageId msgId = new MessageId(msg.getUniqueId());
-                if (receivedMessages.get(msgId) == null) {  // If it is a new message, keep track of it
-                    receivedMessages.put(msgId, System.currentTimeMillis());
-                    super.messageReceived(msg);
-                } else {  // If it is a duplicate message, discard it. i.e. dont call super.messageReceived
-                    log.info("Duplicate message received from " + TribesUtil.getName(msg.getAddress()));
-                }
+            if (!isDuplicate(msg.getUniqueId(), System.currentTimeMillis())) {
+                super.messageReceived(msg);
+            } else {  // If it is a duplicate message, discard it. i.e. dont call super.messageReceived
+                log.info("Duplicate message received from " + TribesUtil.getName(msg.getAddress()));
             }
         } else {
             super.messageReceived(msg);
         }
     }
 
-    private static class MessageCleanupTask implements Runnable {
+    /**
+     * Check whether a message with the given ID was already received, and remember the ID if
+     * it was not.
+     *
+     * @param uniqueId the unique ID of the message
+     * @param now      the current time in milliseconds
+     * @return true if the message is a duplicate
+     */
+    boolean isDuplicate(byte[] uniqueId, long now) {
+        MessageId msgId = new MessageId(uniqueId);
+        Shard shard = shards[(msgId.hashCode() & 0x7FFFFFFF) % shards.length];
+        boolean duplicate;
+        synchronized (shard) {
+            duplicate = shard.add(msgId, now / bucketInterval);
+        }
+        if (duplicate) {
+            duplicatesDropped.incrementAndGet();
+        }
+        return duplicate;
+    }
+
+    /**
+     * @return the number of duplicate messages which were discarded
+     */
+    public long getDuplicatesDropped() {
+        return duplicatesDropped.get();
+    }
+
+    /**
+     * @return the number of message IDs which were forgotten before the timeout because the
+     *         maximum number of remembered IDs was reached
+     */
+    public long getEvictedMessageCount() {
+        return evictedMessages.get();
+    }
+
+    /**
+     * @return the number of message IDs currently remembered.  Expired buckets are only dropped
+     *         when their shard receives the next message, so this may include expired IDs.
+     */
+    public int getTrackedMessageCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.size;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A ring of time buckets.  The bucket at index <code>epoch % buckets.length</code> holds the
+     * IDs received during that bucket interval.  Access is guarded by the Shard's monitor.
+     */
+    private final class Shard {
+        private final Set<MessageId>[] buckets;
+        private final int capacity;
+        private long currentEpoch = Long.MIN_VALUE;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Shard(int bucketCount, int capacity) {
+            this.buckets = new Set[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                buckets[i] = new HashSet<MessageId>();
+            }
+            this.capacity = capacity;
+        }
 
-        public void run() {
-            while (true) { // This task should never terminate
-                try {
-                    Thread.sleep(TIMEOUT);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+        /**
+         * @return true if the ID was already present
+         */
+        boolean add(MessageId msgId, long epoch) {
+            advance(epoch);
+            for (Set<MessageId> bucket : buckets) {
+                if (bucket.contains(msgId)) {
+                    return true;
                 }
-                try {
-                    List<MessageId> toBeRemoved = new ArrayList<MessageId>();
-                    Thread.yield();
-                    synchronized (receivedMessages) {
-                        for (MessageId msgId : receivedMessages.keySet()) {
-                            long arrivalTime = receivedMessages.get(msgId);
-                            if (System.currentTimeMillis() - arrivalTime >= TIMEOUT) {
-                                toBeRemoved.add(msgId);
-                                if (toBeRemoved.size() > 10000) { // Do not allow this thread to run for too long
-                                    break;
-                                }
-                            }
-                        }
-                        for (MessageId msgId : toBeRemoved) {
-                            receivedMessages.remove(msgId);
-                            if (log.isDebugEnabled()) {
-                                log.debug("Cleaned up message ");
-                            }
-                        }
-                    }
-                } catch (Throwable e) {
-                    log.error("Exception occurred while trying to cleanup messages", e);
+            }
+            if (size >= capacity) {
+                evictOldest();
+            }
+            buckets[index(currentEpoch)].add(msgId);
+            size++;
+            return false;
+        }
+
+        /**
+         * Move the current bucket forward, dropping the buckets which have expired
+         */
+        private void advance(long epoch) {
+            if (currentEpoch == Long.MIN_VALUE) {
+                currentEpoch = epoch;
+                return;
+            }
+            if (epoch <= currentEpoch) {
+                return;
+            }
+            long steps = Math.min(epoch - currentEpoch, buckets.length);
+            for (long i = 1; i <= steps; i++) {
+                drop(index(currentEpoch + i));
+            }
+            currentEpoch = epoch;
+        }
+
+        private void evictOldest() {
+            for (int i = buckets.length - 1; i >= 0; i--) {
+                int index = index(currentEpoch - i);
+                if (!buckets[index].isEmpty()) {
+                    evictedMessages.addAndGet(buckets[index].size());
+                    drop(index);
+                    return;
                 }
             }
         }
+
+        private void drop(int index) {
+            size -= buckets[index].size();
+            buckets[index] = new HashSet<MessageId>();
+        }
+
+        private int index(long epoch) {
+            return (int) (((epoch % buckets.length) + buckets.length) % buckets.length);
+        }
     }
 
     /**
@@ -40,6 +40,7 @@ public class ChannelSender implements MessageSender {
     private Channel channel;
     private boolean synchronizeAllMembers;
     private MembershipManager membershipManager;
+    private boolean compactEncoding;
 
     public ChannelSender(Channel channel,
                          MembershipManager membershipManager,
@@ -49,6 +50,18 @@ public class ChannelSender implements MessageSender {
         this.synchronizeAllMembers = synchronizeAllMembers;
     }
 
+    /**
+     * @param compactEncoding true if commands should be sent in the format written by
+     *                        {@link ClusteringCommandCodec}, false to use Java serialization
+     */
+    public void setCompactEncoding(boolean compactEncoding) {
+        this.compactEncoding = compactEncoding;
+    }
+
+    public boolean isCompactEncoding() {
+        return compactEncoding;
+    }
+
     public synchronized void sendToGroup(ClusteringCommand msg,
                             MembershipManager membershipManager,
                             int additionalOptions) throws ClusteringFault {
@@ -106,6 +119,9 @@ public class ChannelSender implements MessageSender {
     }
 
     private ByteMessage toByteMessage(ClusteringCommand msg) throws IOException {
+        if (compactEncoding) {
+            return new ByteMessage(ClusteringCommandCodec.encode(msg));
+        }
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         ObjectOutputStream out = new ObjectOutputStream(bos);
         out.writeObject(msg);
@@ -0,0 +1,626 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.control.GetConfigurationCommand;
+import org.apache.axis2.clustering.control.GetConfigurationResponseCommand;
+import org.apache.axis2.clustering.control.GetStateCommand;
+import org.apache.axis2.clustering.control.GetStateResponseCommand;
+import org.apache.axis2.clustering.state.StateClusteringCommand;
+import org.apache.axis2.clustering.state.commands.DeleteServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.DeleteServiceStateCommand;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateConfigurationStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateServiceStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateStateCommand;
+import org.apache.axis2.context.PropertyDifference;
+import org.apache.catalina.tribes.io.XByteBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compact binary encoding of clustering commands.
+ * <p>
+ * The state commands in <code>org.apache.axis2.clustering.state.commands</code> and the
+ * commands in <code>org.apache.axis2.clustering.control</code> are written field by field
+ * instead of using Java serialization, which spends most of a typical replication message on
+ * class descriptors.  A message consists of
+ * <ul>
+ * <li>a two byte magic number ('A', 'X'), which cannot be mistaken for the start of a Java
+ * serialization stream, followed by a version byte;</li>
+ * <li>the command: a type byte followed by its fields.  Strings and byte arrays are length
+ * prefixed, and integers use a variable length encoding.  Context IDs, service group and service
+ * names and property keys are written once per message and referred to by index afterwards.</li>
+ * </ul>
+ * Property values of the common JDK types are written directly, other values through a
+ * registered {@link ValueCodec}, and anything else using Java serialization.  Commands of any
+ * other class, including subclasses of the known commands, are also sent using Java
+ * serialization inside the compact envelope.
+ * <p>
+ * Readers accept every version up to {@link #VERSION}; {@link #isCompact(byte[])} tells encoded
+ * messages apart from plain Java serialized ones.
+ */
+public final class ClusteringCommandCodec {
+
+    /**
+     * The version of the format written by this class
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The first tag which can be used for a {@link ValueCodec}
+     */
+    public static final int FIRST_CUSTOM_TAG = 32;
+
+    private static final int MAGIC_1 = 'A';
+    private static final int MAGIC_2 = 'X';
+
+    // Command types
+    private static final int JAVA_SERIALIZED = 0;
+    private static final int UPDATE_CONFIGURATION_STATE = 1;
+    private static final int UPDATE_SERVICE_GROUP_STATE = 2;
+    private static final int UPDATE_SERVICE_STATE = 3;
+    private static final int DELETE_SERVICE_GROUP_STATE = 4;
+    private static final int DELETE_SERVICE_STATE = 5;
+    private static final int STATE_COMMAND_COLLECTION = 6;
+    private static final int GET_STATE = 7;
+    private static final int GET_STATE_RESPONSE = 8;
+    private static final int GET_CONFIGURATION = 9;
+    private static final int GET_CONFIGURATION_RESPONSE = 10;
+
+    // Value tags
+    private static final int NULL_VALUE = 0;
+    private static final int STRING_VALUE = 1;
+    private static final int INTEGER_VALUE = 2;
+    private static final int LONG_VALUE = 3;
+    private static final int TRUE_VALUE = 4;
+    private static final int FALSE_VALUE = 5;
+    private static final int DOUBLE_VALUE = 6;
+    private static final int FLOAT_VALUE = 7;
+    private static final int SHORT_VALUE = 8;
+    private static final int BYTE_VALUE = 9;
+    private static final int CHARACTER_VALUE = 10;
+    private static final int BYTES_VALUE = 11;
+    private static final int SERIALIZED_VALUE = 31;
+
+    private static final class CustomCodec {
+        final int tag;
+        final ValueCodec codec;
+
+        CustomCodec(int tag, ValueCodec codec) {
+            this.tag = tag;
+            this.codec = codec;
+        }
+    }
+
+    private static final List<CustomCodec> customCodecs = new CopyOnWriteArrayList<CustomCodec>();
+
+    private ClusteringCommandCodec() {
+    }
+
+    /**
+     * Register a codec for property values.  Codecs are tried in registration order, after the
+     * built in types.
+     *
+     * @param tag   the tag identifying the codec on the wire; must be between
+     *              {@link #FIRST_CUSTOM_TAG} and 255, and the same on all members
+     * @param codec the codec
+     */
+    public static synchronized void registerValueCodec(int tag, ValueCodec codec) {
+        if (tag < FIRST_CUSTOM_TAG || tag > 255) {
+            throw new IllegalArgumentException("Value codec tag " + tag + " is out of range");
+        }
+        if (getValueCodec(tag) != null) {
+            throw new IllegalArgumentException("A value codec is already registered for tag " + tag);
+        }
+        customCodecs.add(new CustomCodec(tag, codec));
+    }
+
+    /**
+     * Remove the codec registered for the given tag, if any.
+     *
+     * @param tag the tag of the codec
+     */
+    public static synchronized void unregisterValueCodec(int tag) {
+        for (CustomCodec customCodec : customCodecs) {
+            if (customCodec.tag == tag) {
+                customCodecs.remove(customCodec);
+            }
+        }
+    }
+
+    private static ValueCodec getValueCodec(int tag) {
+        for (CustomCodec customCodec : customCodecs) {
+            if (customCodec.tag == tag) {
+                return customCodec.codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param message a received message
+     * @return true if the message was written by {@link #encode(ClusteringCommand)}
+     */
+    public static boolean isCompact(byte[] message) {
+        return message.length >= 3 && message[0] == MAGIC_1 && message[1] == MAGIC_2;
+    }
+
+    /**
+     * Encode a command.
+     *
+     * @param command the command
+     * @return the encoded command
+     * @throws IOException if the command, or one of the property values it carries, cannot be
+     *                     encoded; in particular a {@link java.io.NotSerializableException}
+     */
+    public static byte[] encode(ClusteringCommand command) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeByte(MAGIC_1);
+        out.writeByte(MAGIC_2);
+        out.writeByte(VERSION);
+        new Writer(out).writeCommand(command);
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    /**
+     * Decode a message written by {@link #encode(ClusteringCommand)}.
+     *
+     * @param message the message
+     * @return the command
+     * @throws IOException if the message is not valid or was written by a newer version
+     */
+    public static ClusteringCommand decode(byte[] message) throws IOException {
+        if (!isCompact(message)) {
+            throw new IOException("Not a compact clustering message");
+        }
+        int version = message[2] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("Unsupported clustering message version " + version);
+        }
+        DataInputStream in =
+                new DataInputStream(new ByteArrayInputStream(message, 3, message.length - 3));
+        return new Reader(in).readCommand();
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(object);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    private static Serializable deserialize(byte[] data) throws IOException {
+        try {
+            return XByteBuffer.deserialize(data, 0, data.length, ClassLoaderUtil.getClassLoaders());
+        } catch (ClassNotFoundException e) {
+            IOException ioe = new IOException("Cannot deserialize clustering message");
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    private static final class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeCommand(ClusteringCommand command) throws IOException {
+            // Only the exact classes are known; subclasses may carry additional state
+            Class<?> type = command.getClass();
+            if (type == UpdateConfigurationStateCommand.class) {
+                out.writeByte(UPDATE_CONFIGURATION_STATE);
+                writeProperties((UpdateStateCommand) command);
+            } else if (type == UpdateServiceGroupStateCommand.class) {
+                UpdateServiceGroupStateCommand cmd = (UpdateServiceGroupStateCommand) command;
+                out.writeByte(UPDATE_SERVICE_GROUP_STATE);
+                writeSharedString(cmd.getServiceGroupName());
+                writeSharedString(cmd.getServiceGroupContextId());
+                writeProperties(cmd);
+            } else if (type == UpdateServiceStateCommand.class) {
+                UpdateServiceStateCommand cmd = (UpdateServiceStateCommand) command;
+                out.writeByte(UPDATE_SERVICE_STATE);
+                writeSharedString(cmd.getServiceGroupName());
+                writeSharedString(cmd.getServiceGroupContextId());
+                writeSharedString(cmd.getServiceName());
+                writeProperties(cmd);
+            } else if (type == DeleteServiceGroupStateCommand.class) {
+                out.writeByte(DELETE_SERVICE_GROUP_STATE);
+                writeSharedString(((DeleteServiceGroupStateCommand) command).getServiceGroupContextId());
+            } else if (type == DeleteServiceStateCommand.class) {
+                DeleteServiceStateCommand cmd = (DeleteServiceStateCommand) command;
+                out.writeByte(DELETE_SERVICE_STATE);
+                writeSharedString(cmd.getServiceGroupName());
+                writeSharedString(cmd.getServiceGroupContextId());
+                writeSharedString(cmd.getServiceName());
+            } else if (type == StateClusteringCommandCollection.class) {
+                List<StateClusteringCommand> commands =
+                        ((StateClusteringCommandCollection) command).getCommands();
+                out.writeByte(STATE_COMMAND_COLLECTION);
+                writeCommands(commands == null ? null :
+                              commands.toArray(new StateClusteringCommand[commands.size()]));
+            } else if (type == GetStateCommand.class) {
+                out.writeByte(GET_STATE);
+                writeCommands(((GetStateCommand) command).getCommands());
+            } else if (type == GetStateResponseCommand.class) {
+                out.writeByte(GET_STATE_RESPONSE);
+                writeCommands(((GetStateResponseCommand) command).getCommands());
+            } else if (type == GetConfigurationCommand.class) {
+                out.writeByte(GET_CONFIGURATION);
+                writeStrings(((GetConfigurationCommand) command).getServiceGroupNames());
+            } else if (type == GetConfigurationResponseCommand.class) {
+                out.writeByte(GET_CONFIGURATION_RESPONSE);
+                writeStrings(((GetConfigurationResponseCommand) command).getServiceGroups());
+            } else {
+                out.writeByte(JAVA_SERIALIZED);
+                writeBytes(serialize(command));
+            }
+        }
+
+        private void writeCommands(StateClusteringCommand[] commands) throws IOException {
+            if (commands == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(commands.length + 1);
+            for (StateClusteringCommand command : commands) {
+                writeCommand(command);
+            }
+        }
+
+        private void writeStrings(String[] values) throws IOException {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.length + 1);
+            for (String value : values) {
+                writeSharedString(value);
+            }
+        }
+
+        private void writeProperties(UpdateStateCommand command) throws IOException {
+            Map<String, PropertyDifference> properties = command.getProperties();
+            writeVarInt(properties.size());
+            for (PropertyDifference diff : properties.values()) {
+                writeSharedString(diff.getKey());
+                out.writeBoolean(diff.isRemoved());
+                writeValue(diff.getValue());
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL_VALUE);
+            } else if (value instanceof String) {
+                out.writeByte(STRING_VALUE);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER_VALUE);
+                writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                out.writeByte(LONG_VALUE);
+                writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TRUE_VALUE : FALSE_VALUE);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE_VALUE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT_VALUE);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Short) {
+                out.writeByte(SHORT_VALUE);
+                out.writeShort((Short) value);
+            } else if (value instanceof Byte) {
+                out.writeByte(BYTE_VALUE);
+                out.writeByte((Byte) value);
+            } else if (value instanceof Character) {
+                out.writeByte(CHARACTER_VALUE);
+                out.writeChar((Character) value);
+            } else if (value instanceof byte[]) {
+                out.writeByte(BYTES_VALUE);
+                writeBytes((byte[]) value);
+            } else {
+                for (CustomCodec customCodec : customCodecs) {
+                    if (customCodec.codec.canEncode(value)) {
+                        out.writeByte(customCodec.tag);
+                        customCodec.codec.write(value, out);
+                        return;
+                    }
+                }
+                out.writeByte(SERIALIZED_VALUE);
+                writeBytes(serialize(value));
+            }
+        }
+
+        /**
+         * Strings which are likely to repeat within a message: 0 stands for null, 1 is followed
+         * by a new string, and n > 1 refers to the (n - 2)th string written before.
+         */
+        private void writeSharedString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt(index + 2);
+            } else {
+                strings.put(value, strings.size());
+                writeVarInt(1);
+                writeString(value);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            writeBytes(value.getBytes("UTF-8"));
+        }
+
+        private void writeBytes(byte[] value) throws IOException {
+            writeVarInt(value.length);
+            out.write(value);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<String>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        ClusteringCommand readCommand() throws IOException {
+            int type = in.readUnsignedByte();
+            switch (type) {
+                case UPDATE_CONFIGURATION_STATE: {
+                    UpdateConfigurationStateCommand cmd = new UpdateConfigurationStateCommand();
+                    readProperties(cmd);
+                    return cmd;
+                }
+                case UPDATE_SERVICE_GROUP_STATE: {
+                    UpdateServiceGroupStateCommand cmd = new UpdateServiceGroupStateCommand();
+                    cmd.setServiceGroupName(readSharedString());
+                    cmd.setServiceGroupContextId(readSharedString());
+                    readProperties(cmd);
+                    return cmd;
+                }
+                case UPDATE_SERVICE_STATE: {
+                    UpdateServiceStateCommand cmd = new UpdateServiceStateCommand();
+                    cmd.setServiceGroupName(readSharedString());
+                    cmd.setServiceGroupContextId(readSharedString());
+                    cmd.setServiceName(readSharedString());
+                    readProperties(cmd);
+                    return cmd;
+                }
+                case DELETE_SERVICE_GROUP_STATE: {
+                    DeleteServiceGroupStateCommand cmd = new DeleteServiceGroupStateCommand();
+                    cmd.setServiceGroupContextId(readSharedString());
+                    return cmd;
+                }
+                case DELETE_SERVICE_STATE: {
+                    DeleteServiceStateCommand cmd = new DeleteServiceStateCommand();
+                    cmd.setServiceGroupName(readSharedString());
+                    cmd.setServiceGroupContextId(readSharedString());
+                    cmd.setServiceName(readSharedString());
+                    return cmd;
+                }
+                case STATE_COMMAND_COLLECTION: {
+                    StateClusteringCommand[] commands = readCommands();
+                    List<StateClusteringCommand> list = new ArrayList<StateClusteringCommand>();
+                    if (commands != null) {
+                        for (StateClusteringCommand command : commands) {
+                            list.add(command);
+                        }
+                    }
+                    return new StateClusteringCommandCollection(list);
+                }
+                case GET_STATE: {
+                    GetStateCommand cmd = new GetStateCommand();
+                    cmd.setCommands(readCommands());
+                    return cmd;
+                }
+                case GET_STATE_RESPONSE: {
+                    GetStateResponseCommand cmd = new GetStateResponseCommand();
+                    cmd.setCommands(readCommands());
+                    return cmd;
+                }
+                case GET_CONFIGURATION: {
+                    GetConfigurationCommand cmd = new GetConfigurationCommand();
+                    cmd.setServiceGroupNames(readStrings());
+                    return cmd;
+                }
+                case GET_CONFIGURATION_RESPONSE: {
+                    GetConfigurationResponseCommand cmd = new GetConfigurationResponseCommand();
+                    cmd.setServiceGroups(readStrings());
+                    return cmd;
+                }
+                case JAVA_SERIALIZED:
+                    return (ClusteringCommand) deserialize(readBytes());
+                default:
+                    throw new IOException("Unknown clustering command type " + type);
+            }
+        }
+
+        private StateClusteringCommand[] readCommands() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            StateClusteringCommand[] commands = new StateClusteringCommand[length - 1];
+            for (int i = 0; i < commands.length; i++) {
+                commands[i] = (StateClusteringCommand) readCommand();
+            }
+            return commands;
+        }
+
+        private String[] readStrings() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String[] values = new String[length - 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readSharedString();
+            }
+            return values;
+        }
+
+        private void readProperties(UpdateStateCommand command) throws IOException {
+            // The PropertyUpdater expects a property map, even an empty one
+            command.isPropertiesEmpty();
+            int count = readVarInt();
+            for (int i = 0; i < count; i++) {
+                String key = readSharedString();
+                boolean removed = in.readBoolean();
+                command.addProperty(new PropertyDifference(key, readValue(), removed));
+            }
+        }
+
+        private Object readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case NULL_VALUE:
+                    return null;
+                case STRING_VALUE:
+                    return readString();
+                case INTEGER_VALUE:
+                    return (int) unZigZag(readVarLong());
+                case LONG_VALUE:
+                    return unZigZag(readVarLong());
+                case TRUE_VALUE:
+                    return Boolean.TRUE;
+                case FALSE_VALUE:
+                    return Boolean.FALSE;
+                case DOUBLE_VALUE:
+                    return in.readDouble();
+                case FLOAT_VALUE:
+                    return in.readFloat();
+                case SHORT_VALUE:
+                    return in.readShort();
+                case BYTE_VALUE:
+                    return in.readByte();
+                case CHARACTER_VALUE:
+                    return in.readChar();
+                case BYTES_VALUE:
+                    return readBytes();
+                case SERIALIZED_VALUE:
+                    return deserialize(readBytes());
+                default:
+                    ValueCodec codec = getValueCodec(tag);
+                    if (codec == null) {
+                        throw new IOException("No value codec registered for tag " + tag);
+                    }
+                    return codec.read(in);
+            }
+        }
+
+        private String readSharedString() throws IOException {
+            int code = readVarInt();
+            if (code == 0) {
+                return null;
+            } else if (code == 1) {
+                String value = readString();
+                strings.add(value);
+                return value;
+            }
+            int index = code - 2;
+            if (index >= strings.size()) {
+                throw new IOException("Invalid string reference " + index);
+            }
+            return strings.get(index);
+        }
+
+        private String readString() throws IOException {
+            return new String(readBytes(), "UTF-8");
+        }
+
+        private byte[] readBytes() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > in.available()) {
+                throw new IOException("Invalid length " + length);
+            }
+            byte[] value = new byte[length];
+            in.readFully(value);
+            return value;
+        }
+
+        private int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length integer");
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
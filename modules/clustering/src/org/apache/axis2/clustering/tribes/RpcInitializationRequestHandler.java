@@ -21,17 +21,20 @@ package org.apache.axis2.clustering.tribes;
 
 import org.apache.axis2.clustering.ClusteringConstants;
 import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.control.ControlCommand;
 import org.apache.axis2.clustering.control.GetConfigurationCommand;
 import org.apache.axis2.clustering.control.GetConfigurationResponseCommand;
 import org.apache.axis2.clustering.control.GetStateCommand;
 import org.apache.axis2.clustering.control.GetStateResponseCommand;
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.catalina.tribes.ByteMessage;
 import org.apache.catalina.tribes.Member;
 import org.apache.catalina.tribes.RemoteProcessException;
 import org.apache.catalina.tribes.group.RpcCallback;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -41,6 +44,7 @@ public class RpcInitializationRequestHandler implements RpcCallback {
 
     private static Log log = LogFactory.getLog(RpcInitializationRequestHandler.class);
     private ConfigurationContext configurationContext;
+    private boolean compactEncoding;
 
     public RpcInitializationRequestHandler(ConfigurationContext configurationContext) {
         this.configurationContext = configurationContext;
@@ -50,6 +54,14 @@ public class RpcInitializationRequestHandler implements RpcCallback {
         this.configurationContext = configurationContext;
     }
 
+    /**
+     * @param compactEncoding true if responses should be sent in the format written by
+     *                        {@link ClusteringCommandCodec}
+     */
+    public void setCompactEncoding(boolean compactEncoding) {
+        this.compactEncoding = compactEncoding;
+    }
+
     public Serializable replyRequest(Serializable msg, Member invoker) {
         if (log.isDebugEnabled()) {
             log.debug("Initialization request received by RpcInitializationRequestHandler");
@@ -68,7 +80,7 @@ public class RpcInitializationRequestHandler implements RpcCallback {
                 command.execute(configurationContext);
                 GetStateResponseCommand getStateRespCmd = new GetStateResponseCommand();
                 getStateRespCmd.setCommands(command.getCommands());
-                return getStateRespCmd;
+                return toReply(getStateRespCmd);
             } catch (ClusteringFault e) {
                 String errMsg = "Cannot handle initialization request";
                 log.error(errMsg, e);
@@ -89,7 +101,7 @@ public class RpcInitializationRequestHandler implements RpcCallback {
                 GetConfigurationResponseCommand
                         getConfigRespCmd = new GetConfigurationResponseCommand();
                 getConfigRespCmd.setServiceGroups(command.getServiceGroupNames());
-                return getConfigRespCmd;
+                return toReply(getConfigRespCmd);
             } catch (ClusteringFault e) {
                 String errMsg = "Cannot handle initialization request";
                 log.error(errMsg, e);
@@ -99,6 +111,19 @@ public class RpcInitializationRequestHandler implements RpcCallback {
         return null;
     }
 
+    private Serializable toReply(ControlCommand command) {
+        if (!compactEncoding) {
+            return command;
+        }
+        try {
+            return new ByteMessage(ClusteringCommandCodec.encode(command));
+        } catch (IOException e) {
+            String errMsg = "Cannot encode " + command;
+            log.error(errMsg, e);
+            throw new RemoteProcessException(errMsg, e);
+        }
+    }
+
     public void leftOver(Serializable msg, Member member) {
         //TODO: Method implementation
 
@@ -42,6 +42,7 @@ import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.DispatchPhase;
 import org.apache.axis2.engine.Phase;
+import org.apache.catalina.tribes.ByteMessage;
 import org.apache.catalina.tribes.Channel;
 import org.apache.catalina.tribes.ChannelException;
 import org.apache.catalina.tribes.ErrorHandler;
@@ -60,6 +61,7 @@ import org.apache.commons.logging.LogFactory;
 import javax.xml.namespace.QName;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -201,6 +203,8 @@ public class TribesClusteringAgent implements ClusteringAgent {
         channel.addInterceptor(coordinator);
         channel.setHeartbeat(true);
         channelSender = new ChannelSender(channel, primaryMembershipManager, synchronizeAllMembers());
+        boolean compactEncoding = getBooleanParam(TribesConstants.COMPACT_MESSAGE_FORMAT);
+        channelSender.setCompactEncoding(compactEncoding);
         axis2ChannelListener =
                 new Axis2ChannelListener(configurationContext, configurationManager, contextManager);
         channel.addChannelListener(axis2ChannelListener);
@@ -212,6 +216,7 @@ public class TribesClusteringAgent implements ClusteringAgent {
         // RpcChannel is a ChannelListener. When the reply to a particular request comes back, it
         // picks it up. Each RPC is given a UUID, hence can correlate the request-response pair
         rpcInitRequestHandler = new RpcInitializationRequestHandler(configurationContext);
+        rpcInitRequestHandler.setCompactEncoding(compactEncoding);
         rpcInitChannel =
                 new RpcChannel(TribesUtil.getRpcInitChannelId(domain), channel,
                                rpcInitRequestHandler);
@@ -758,7 +763,11 @@ public class TribesClusteringAgent implements ClusteringAgent {
 //                    }
 //                    while (responses.length == 0 || responses[0] == null || responses[0].getMessage() == null);    // TODO: #### We will need to check this 
                     if (responses.length != 0 && responses[0] != null && responses[0].getMessage() != null) {
-                        ((ControlCommand) responses[0].getMessage()).execute(configurationContext); // Do the initialization
+                        Serializable reply = responses[0].getMessage();
+                        if (reply instanceof ByteMessage) {
+                            reply = ClusteringCommandCodec.decode(((ByteMessage) reply).getMessage());
+                        }
+                        ((ControlCommand) reply).execute(configurationContext); // Do the initialization
                         break;
                     }
                 }
@@ -826,6 +835,10 @@ public class TribesClusteringAgent implements ClusteringAgent {
      */
     public void shutdown() throws ClusteringFault {
         log.debug("Enter: TribesClusteringAgent::shutdown");
+        if (contextManager != null) {
+            // Send state updates which are still waiting to be replicated
+            contextManager.shutdown();
+        }
         if (channel != null) {
             try {
                 channel.removeChannelListener(rpcInitChannel);
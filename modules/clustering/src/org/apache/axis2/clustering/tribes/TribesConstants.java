@@ -63,4 +63,12 @@ public final class TribesConstants {
     public static final String BIND_ADDRESS = "bindAddress";
     public static final String TCP_LISTEN_PORT = "tcpListenPort";
     public static final String MAX_RETRIES = "maxRetries";
+
+    /**
+     * If true, clustering commands are sent using the compact format of
+     * {@link ClusteringCommandCodec} instead of Java serialization.  Received messages are accepted in
+     * either format, but older members only understand Java serialization, so this should only be
+     * enabled once every member of the cluster supports the compact format.
+     */
+    public static final String COMPACT_MESSAGE_FORMAT = "compactMessageFormat";
 }
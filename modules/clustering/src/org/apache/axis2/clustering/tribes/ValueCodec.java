@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads property values of a particular type in the compact clustering message
+ * format.  Codecs are registered with
+ * {@link ClusteringCommandCodec#registerValueCodec(int, ValueCodec)} and have to be registered
+ * under the same tag on every member of the cluster.  Values no codec is registered for are
+ * sent using Java serialization.
+ */
+public interface ValueCodec {
+
+    /**
+     * @param value a non null property value
+     * @return true if this codec can write the given value
+     */
+    boolean canEncode(Object value);
+
+    /**
+     * Write a value accepted by {@link #canEncode(Object)}.
+     *
+     * @param value the value
+     * @param out   the output to write to
+     * @throws IOException if the value cannot be written
+     */
+    void write(Object value, DataOutput out) throws IOException;
+
+    /**
+     * Read a value written by {@link #write(Object, DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the value
+     * @throws IOException if the value cannot be read
+     */
+    Object read(DataInput in) throws IOException;
+}
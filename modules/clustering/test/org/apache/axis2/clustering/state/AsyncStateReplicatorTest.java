@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.state;
+
+import junit.framework.TestCase;
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.ClusteringFault;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateConfigurationStateCommand;
+import org.apache.axis2.clustering.tribes.ChannelSender;
+import org.apache.axis2.clustering.tribes.TribesClusteringAgent;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.Parameter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncStateReplicatorTest extends TestCase {
+
+    private static class RecordingSender extends ChannelSender {
+        final List<ClusteringCommand> sent = new ArrayList<ClusteringCommand>();
+
+        RecordingSender() {
+            super(null, null, false);
+        }
+
+        public synchronized void sendToGroup(ClusteringCommand msg) throws ClusteringFault {
+            sent.add(msg);
+        }
+
+        synchronized List<ClusteringCommand> getSent() {
+            return new ArrayList<ClusteringCommand>(sent);
+        }
+    }
+
+    private ConfigurationContext configCtx;
+    private DefaultStateManager stateManager;
+    private RecordingSender sender;
+
+    protected void setUp() throws Exception {
+        configCtx = ConfigurationContextFactory.createEmptyConfigurationContext();
+        stateManager = new DefaultStateManager();
+        stateManager.addParameter(new Parameter(DefaultStateManager.ASYNC_REPLICATION, "true"));
+        stateManager.addParameter(
+                new Parameter(DefaultStateManager.REPLICATION_FLUSH_INTERVAL, "3600000"));
+        stateManager.addParameter(new Parameter(DefaultStateManager.MAX_PENDING_REPLICATIONS, "2"));
+        TribesClusteringAgent clusteringAgent = new TribesClusteringAgent();
+        clusteringAgent.setStateManager(stateManager);
+        configCtx.getAxisConfiguration().setClusteringAgent(clusteringAgent);
+        sender = new RecordingSender();
+        stateManager.setSender(sender);
+    }
+
+    protected void tearDown() throws Exception {
+        stateManager.shutdown();
+    }
+
+    public void testUpdatesAreCoalesced() throws Exception {
+        assertNotNull(stateManager.getReplicator());
+        configCtx.setProperty("key1", "value1");
+        stateManager.updateContext(configCtx);
+        configCtx.setProperty("key1", "value2");
+        configCtx.setProperty("key2", "value3");
+        stateManager.updateContext(configCtx);
+        assertEquals(1, stateManager.getReplicator().getPendingCount());
+        assertTrue(sender.getSent().isEmpty());
+
+        stateManager.getReplicator().flush();
+        List<ClusteringCommand> sent = sender.getSent();
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0) instanceof UpdateConfigurationStateCommand);
+        assertEquals(0, stateManager.getReplicationLag());
+        assertEquals(1, stateManager.getReplicator().getCommandsSent());
+    }
+
+    public void testBatch() throws Exception {
+        configCtx.setProperty("key1", "value1");
+        StateClusteringCommand custom = new StateClusteringCommandCollection(
+                new ArrayList<StateClusteringCommand>());
+        stateManager.updateContext(configCtx);
+        stateManager.replicateState(custom);
+        stateManager.getReplicator().flush();
+
+        List<ClusteringCommand> sent = sender.getSent();
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0) instanceof StateClusteringCommandCollection);
+        assertEquals(1, stateManager.getReplicator().getBatchesSent());
+        assertEquals(2, stateManager.getReplicator().getCommandsSent());
+    }
+
+    public void testBackpressure() throws Exception {
+        final AsyncStateReplicator replicator =
+                new AsyncStateReplicator(sender, new HashMap(), 3600000, 2);
+        try {
+            replicator.replicateState(new UpdateConfigurationStateCommand());
+            replicator.replicateState(new UpdateConfigurationStateCommand());
+            assertEquals(2, replicator.getPendingCount());
+
+            final CountDownLatch done = new CountDownLatch(1);
+            Thread producer = new Thread() {
+                public void run() {
+                    try {
+                        replicator.replicateState(new UpdateConfigurationStateCommand());
+                        done.countDown();
+                    } catch (ClusteringFault e) {
+                        // The latch is not counted down
+                    }
+                }
+            };
+            producer.start();
+            assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+
+            replicator.flush();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, replicator.getPendingCount());
+            assertTrue(replicator.getReplicationLag() >= 0);
+        } finally {
+            replicator.shutdown();
+        }
+        assertEquals(0, replicator.getPendingCount());
+        assertEquals(3, replicator.getCommandsSent());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import junit.framework.TestCase;
+
+public class AtMostOnceInterceptorTest extends TestCase {
+
+    private static byte[] id(int i) {
+        return new byte[] { (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i };
+    }
+
+    public void testDuplicateDetected() {
+        AtMostOnceInterceptor interceptor = new AtMostOnceInterceptor(1000, 10, 1000);
+        assertFalse(interceptor.isDuplicate(id(1), 0));
+        assertFalse(interceptor.isDuplicate(id(2), 0));
+        assertTrue(interceptor.isDuplicate(id(1), 500));
+        assertTrue(interceptor.isDuplicate(id(2), 999));
+        assertEquals(2, interceptor.getDuplicatesDropped());
+        assertEquals(2, interceptor.getTrackedMessageCount());
+    }
+
+    public void testExpiry() {
+        AtMostOnceInterceptor interceptor = new AtMostOnceInterceptor(1000, 10, 1000);
+        assertFalse(interceptor.isDuplicate(id(1), 50));
+        // Remembered for at least the timeout
+        assertTrue(interceptor.isDuplicate(id(1), 1050));
+        // ... and forgotten one bucket interval later
+        assertFalse(interceptor.isDuplicate(id(1), 1200));
+        assertEquals(1, interceptor.getTrackedMessageCount());
+
+        // Large gaps drop every bucket
+        assertFalse(interceptor.isDuplicate(id(2), 1200));
+        assertFalse(interceptor.isDuplicate(id(2), 100000));
+        assertFalse(interceptor.isDuplicate(id(1), 100000));
+        assertEquals(0, interceptor.getEvictedMessageCount());
+    }
+
+    public void testBoundedMemory() {
+        AtMostOnceInterceptor interceptor = new AtMostOnceInterceptor(1000, 10, 160);
+        for (int i = 0; i < 10000; i++) {
+            assertFalse(interceptor.isDuplicate(id(i), i / 10));
+        }
+        assertTrue(interceptor.getTrackedMessageCount() <= 160);
+        assertTrue(interceptor.getEvictedMessageCount() > 0);
+        // Nothing has expired yet, so every message is either tracked or evicted
+        assertEquals(10000, interceptor.getTrackedMessageCount() +
+                            interceptor.getEvictedMessageCount());
+        // The most recent message is still known
+        assertTrue(interceptor.isDuplicate(id(9999), 999));
+    }
+
+    public void testConcurrentReceivers() throws Exception {
+        final AtMostOnceInterceptor interceptor = new AtMostOnceInterceptor(60000, 10, 100000);
+        final int messages = 10000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < messages; i++) {
+                        interceptor.isDuplicate(id(i), 0);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(messages, interceptor.getTrackedMessageCount());
+        assertEquals((threads.length - 1) * messages, interceptor.getDuplicatesDropped());
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.clustering.tribes;
+
+import junit.framework.TestCase;
+import org.apache.axis2.clustering.ClusteringCommand;
+import org.apache.axis2.clustering.control.GetConfigurationResponseCommand;
+import org.apache.axis2.clustering.control.GetStateResponseCommand;
+import org.apache.axis2.clustering.state.StateClusteringCommand;
+import org.apache.axis2.clustering.state.commands.DeleteServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.StateClusteringCommandCollection;
+import org.apache.axis2.clustering.state.commands.UpdateConfigurationStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateServiceGroupStateCommand;
+import org.apache.axis2.clustering.state.commands.UpdateServiceStateCommand;
+import org.apache.axis2.context.PropertyDifference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class ClusteringCommandCodecTest extends TestCase {
+
+    private static final class Point {
+        final int x;
+        final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final int POINT_TAG = 40;
+
+    protected void tearDown() throws Exception {
+        ClusteringCommandCodec.unregisterValueCodec(POINT_TAG);
+    }
+
+    private UpdateServiceStateCommand createServiceUpdate(String sgCtxId) {
+        UpdateServiceStateCommand cmd = new UpdateServiceStateCommand();
+        cmd.setServiceGroupName("EchoServiceGroup");
+        cmd.setServiceGroupContextId(sgCtxId);
+        cmd.setServiceName("EchoService");
+        cmd.addProperty(new PropertyDifference("string", "value", false));
+        cmd.addProperty(new PropertyDifference("int", -42, false));
+        cmd.addProperty(new PropertyDifference("long", Long.MAX_VALUE, false));
+        cmd.addProperty(new PropertyDifference("boolean", Boolean.TRUE, false));
+        cmd.addProperty(new PropertyDifference("double", 1.5d, false));
+        cmd.addProperty(new PropertyDifference("bytes", new byte[] { 1, 2, 3 }, false));
+        cmd.addProperty(new PropertyDifference("date", new Date(1234567890L), false));
+        cmd.addProperty(new PropertyDifference("removed", null, true));
+        return cmd;
+    }
+
+    private ClusteringCommand roundTrip(ClusteringCommand command) throws IOException {
+        byte[] encoded = ClusteringCommandCodec.encode(command);
+        assertTrue(ClusteringCommandCodec.isCompact(encoded));
+        return ClusteringCommandCodec.decode(encoded);
+    }
+
+    private void assertProperties(Map<String, PropertyDifference> props) {
+        assertEquals(8, props.size());
+        assertEquals("value", props.get("string").getValue());
+        assertEquals(-42, props.get("int").getValue());
+        assertEquals(Long.MAX_VALUE, props.get("long").getValue());
+        assertEquals(Boolean.TRUE, props.get("boolean").getValue());
+        assertEquals(1.5d, props.get("double").getValue());
+        assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, (byte[]) props.get("bytes").getValue()));
+        assertEquals(new Date(1234567890L), props.get("date").getValue());
+        assertFalse(props.get("string").isRemoved());
+        assertTrue(props.get("removed").isRemoved());
+        assertNull(props.get("removed").getValue());
+    }
+
+    public void testUpdateServiceState() throws Exception {
+        UpdateServiceStateCommand cmd =
+                (UpdateServiceStateCommand) roundTrip(createServiceUpdate("sg-1"));
+        assertEquals("EchoServiceGroup", cmd.getServiceGroupName());
+        assertEquals("sg-1", cmd.getServiceGroupContextId());
+        assertEquals("EchoService", cmd.getServiceName());
+        assertProperties(cmd.getProperties());
+    }
+
+    public void testCollection() throws Exception {
+        List<StateClusteringCommand> commands = new ArrayList<StateClusteringCommand>();
+        commands.add(createServiceUpdate("sg-1"));
+        commands.add(createServiceUpdate("sg-2"));
+        UpdateServiceGroupStateCommand sgUpdate = new UpdateServiceGroupStateCommand();
+        sgUpdate.setServiceGroupName("EchoServiceGroup");
+        sgUpdate.setServiceGroupContextId("sg-1");
+        commands.add(sgUpdate);
+        DeleteServiceGroupStateCommand delete = new DeleteServiceGroupStateCommand();
+        delete.setServiceGroupContextId("sg-2");
+        commands.add(delete);
+        commands.add(new UpdateConfigurationStateCommand());
+
+        StateClusteringCommandCollection collection =
+                (StateClusteringCommandCollection) roundTrip(
+                        new StateClusteringCommandCollection(commands));
+        List<StateClusteringCommand> decoded = collection.getCommands();
+        assertEquals(5, decoded.size());
+        assertEquals("sg-2",
+                     ((UpdateServiceStateCommand) decoded.get(1)).getServiceGroupContextId());
+        assertProperties(((UpdateServiceStateCommand) decoded.get(1)).getProperties());
+        assertEquals("sg-1",
+                     ((UpdateServiceGroupStateCommand) decoded.get(2)).getServiceGroupContextId());
+        assertTrue(((UpdateServiceGroupStateCommand) decoded.get(2)).isPropertiesEmpty());
+        assertEquals("sg-2",
+                     ((DeleteServiceGroupStateCommand) decoded.get(3)).getServiceGroupContextId());
+        assertTrue(decoded.get(4) instanceof UpdateConfigurationStateCommand);
+    }
+
+    public void testControlCommands() throws Exception {
+        GetStateResponseCommand response = new GetStateResponseCommand();
+        response.setCommands(new StateClusteringCommand[] { createServiceUpdate("sg-1") });
+        response = (GetStateResponseCommand) roundTrip(response);
+        assertEquals(1, response.getCommands().length);
+
+        GetConfigurationResponseCommand config = new GetConfigurationResponseCommand();
+        config.setServiceGroups(new String[] { "a", "b", "a" });
+        config = (GetConfigurationResponseCommand) roundTrip(config);
+        assertTrue(Arrays.equals(new String[] { "a", "b", "a" }, config.getServiceGroups()));
+
+        assertNull(((GetStateResponseCommand) roundTrip(new GetStateResponseCommand()))
+                .getCommands());
+    }
+
+    public void testSmallerThanJavaSerialization() throws Exception {
+        List<StateClusteringCommand> commands = new ArrayList<StateClusteringCommand>();
+        for (int i = 0; i < 10; i++) {
+            UpdateServiceStateCommand cmd = new UpdateServiceStateCommand();
+            cmd.setServiceGroupName("EchoServiceGroup");
+            cmd.setServiceGroupContextId("urn:uuid:0123456789");
+            cmd.setServiceName("EchoService");
+            cmd.addProperty(new PropertyDifference("counter", i, false));
+            commands.add(cmd);
+        }
+        StateClusteringCommandCollection collection =
+                new StateClusteringCommandCollection(commands);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(collection);
+        out.close();
+        byte[] serialized = bos.toByteArray();
+        byte[] compact = ClusteringCommandCodec.encode(collection);
+        assertFalse(ClusteringCommandCodec.isCompact(serialized));
+        assertTrue(compact.length * 2 < serialized.length);
+    }
+
+    public void testValueCodec() throws Exception {
+        ClusteringCommandCodec.registerValueCodec(POINT_TAG, new ValueCodec() {
+            public boolean canEncode(Object value) {
+                return value instanceof Point;
+            }
+
+            public void write(Object value, DataOutput out) throws IOException {
+                out.writeInt(((Point) value).x);
+                out.writeInt(((Point) value).y);
+            }
+
+            public Object read(DataInput in) throws IOException {
+                return new Point(in.readInt(), in.readInt());
+            }
+        });
+        try {
+            ClusteringCommandCodec.registerValueCodec(POINT_TAG, null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        UpdateConfigurationStateCommand cmd = new UpdateConfigurationStateCommand();
+        cmd.addProperty(new PropertyDifference("point", new Point(3, 4), false));
+        cmd = (UpdateConfigurationStateCommand) roundTrip(cmd);
+        Point point = (Point) cmd.getProperties().get("point").getValue();
+        assertEquals(3, point.x);
+        assertEquals(4, point.y);
+    }
+
+    public void testNewerVersionRejected() throws Exception {
+        byte[] encoded = ClusteringCommandCodec.encode(new UpdateConfigurationStateCommand());
+        encoded[2] = (byte) (ClusteringCommandCodec.VERSION + 1);
+        try {
+            ClusteringCommandCodec.decode(encoded);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
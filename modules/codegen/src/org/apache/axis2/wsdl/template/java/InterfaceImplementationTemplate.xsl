@@ -565,6 +565,8 @@
             </xsl:if>
             <!-- Async method generation -->
             <xsl:if test="$isAsync='1'">
+                 <xsl:variable name="inputcount" select="count(input/param[@location='body' and @type!=''])"/>
+                 <xsl:variable name="inputWrappedCount" select="count(input/param[@location='body' and @type!='']/param)"/>
                 /**
                 * Auto generated method signature for Asynchronous Invocations
                 * <xsl:value-of select="@comment"/>
@@ -575,8 +577,148 @@
                 */
                 public  void start<xsl:value-of select="@name"/>(
 
-                 <xsl:variable name="inputcount" select="count(input/param[@location='body' and @type!=''])"/>
-                 <xsl:variable name="inputWrappedCount" select="count(input/param[@location='body' and @type!='']/param)"/>
+
+                    <xsl:choose>
+                        <xsl:when test="$inputcount=1">
+                            <!-- Even when the parameters are 1 we have to see whether we have the
+                          wrapped parameters -->
+                                                       <xsl:choose>
+                                <xsl:when test="$isUnwrapParameters">
+                                   <xsl:for-each select="input/param[@location='body' and @type!='']/param">
+                                        <xsl:if test="position()>1">,</xsl:if><xsl:value-of select="@type"/><xsl:text> </xsl:text><xsl:value-of select="@name"/>
+                                    </xsl:for-each>
+                                </xsl:when>
+                                <xsl:otherwise>
+                                    <xsl:value-of select="input/param[@location='body' and @type!='']/@type"/><xsl:text> </xsl:text><xsl:value-of select="input/param[@location='body' and @type!='']/@name"/>
+                                </xsl:otherwise>
+                            </xsl:choose>
+                        </xsl:when>
+                        <xsl:otherwise><!-- Just leave it - nothing we can do here --></xsl:otherwise>
+                    </xsl:choose>                                                
+                    <xsl:if test="($inputcount=1) and not($isUnwrapParameters and $inputWrappedCount=0)">,</xsl:if>
+                    <xsl:for-each select="input/param[not(@location='body') and @type!='']">
+                       <xsl:value-of select="@type"/><xsl:text> </xsl:text><xsl:value-of select="@name"/>,
+                    </xsl:for-each>
+
+                  final <xsl:value-of select="$package"/>.<xsl:value-of select="$callbackname"/> callback)
+
+                throws java.rmi.RemoteException{
+                    _start<xsl:value-of select="@name"/>(
+                    <xsl:choose>
+                        <xsl:when test="$inputcount=1">
+                            <xsl:choose>
+                                <xsl:when test="$isUnwrapParameters">
+                                   <xsl:for-each select="input/param[@location='body' and @type!='']/param">
+                                        <xsl:if test="position()>1">,</xsl:if><xsl:value-of select="@name"/>
+                                    </xsl:for-each>
+                                </xsl:when>
+                                <xsl:otherwise>
+                                    <xsl:value-of select="input/param[@location='body' and @type!='']/@name"/>
+                                </xsl:otherwise>
+                            </xsl:choose>
+                        </xsl:when>
+                    </xsl:choose>
+                    <xsl:if test="($inputcount=1) and not($isUnwrapParameters and $inputWrappedCount=0)">,</xsl:if>
+                    <xsl:for-each select="input/param[not(@location='body') and @type!='']">
+                       <xsl:value-of select="@name"/>,
+                    </xsl:for-each>
+                        callback);
+                }
+
+                <xsl:if test="$outputtype!=''">
+                <xsl:variable name="asyncresulttype">
+                    <xsl:choose>
+                        <xsl:when test="$outputparamcount=1"><xsl:value-of select="output/param[@location='body']/param/@type"/></xsl:when>
+                        <xsl:when test="string-length(normalize-space($outputcomplextype)) > 0"><xsl:value-of select="$outputcomplextype"/></xsl:when>
+                        <xsl:when test="($outputparamcount=0) and ($isUnwrapParameters)"></xsl:when>
+                        <xsl:otherwise><xsl:value-of select="$outputtype"/></xsl:otherwise>
+                    </xsl:choose>
+                </xsl:variable>
+                <xsl:variable name="asyncfuturetype">
+                    <xsl:choose>
+                        <xsl:when test="$asyncresulttype=''">java.lang.Void</xsl:when>
+                        <xsl:when test="$asyncresulttype='boolean'">java.lang.Boolean</xsl:when>
+                        <xsl:when test="$asyncresulttype='byte'">java.lang.Byte</xsl:when>
+                        <xsl:when test="$asyncresulttype='char'">java.lang.Character</xsl:when>
+                        <xsl:when test="$asyncresulttype='short'">java.lang.Short</xsl:when>
+                        <xsl:when test="$asyncresulttype='int'">java.lang.Integer</xsl:when>
+                        <xsl:when test="$asyncresulttype='long'">java.lang.Long</xsl:when>
+                        <xsl:when test="$asyncresulttype='float'">java.lang.Float</xsl:when>
+                        <xsl:when test="$asyncresulttype='double'">java.lang.Double</xsl:when>
+                        <xsl:otherwise><xsl:value-of select="$asyncresulttype"/></xsl:otherwise>
+                    </xsl:choose>
+                </xsl:variable>
+                /**
+                * Auto generated method signature for Asynchronous Invocations returning a future
+                * <xsl:value-of select="@comment"/>
+                * @see <xsl:value-of select="$package"/>.<xsl:value-of select="$interfaceName"/>#start<xsl:value-of select="@name"/>Async
+                <xsl:for-each select="input/param[@type!='']">
+                    * @param <xsl:value-of select="@name"></xsl:value-of><xsl:text>
+                </xsl:text></xsl:for-each>
+                */
+                public org.apache.axis2.client.async.AxisFuture&lt;<xsl:value-of select="$asyncfuturetype"/>&gt; start<xsl:value-of select="@name"/>Async(
+                    <xsl:choose>
+                        <xsl:when test="$inputcount=1">
+                            <xsl:choose>
+                                <xsl:when test="$isUnwrapParameters">
+                                   <xsl:for-each select="input/param[@location='body' and @type!='']/param">
+                                        <xsl:if test="position()>1">,</xsl:if><xsl:value-of select="@type"/><xsl:text> </xsl:text><xsl:value-of select="@name"/>
+                                    </xsl:for-each>
+                                </xsl:when>
+                                <xsl:otherwise>
+                                    <xsl:value-of select="input/param[@location='body' and @type!='']/@type"/><xsl:text> </xsl:text><xsl:value-of select="input/param[@location='body' and @type!='']/@name"/>
+                                </xsl:otherwise>
+                            </xsl:choose>
+                        </xsl:when>
+                    </xsl:choose>
+                    <xsl:for-each select="input/param[not(@location='body') and @type!='']">
+                       <xsl:if test="position()>1 or (($inputcount=1) and not($isUnwrapParameters and $inputWrappedCount=0))">,</xsl:if><xsl:value-of select="@type"/><xsl:text> </xsl:text><xsl:value-of select="@name"/>
+                    </xsl:for-each>)
+                throws java.rmi.RemoteException{
+
+                final org.apache.axis2.client.async.AxisFuture&lt;<xsl:value-of select="$asyncfuturetype"/>&gt; _future =
+                        new org.apache.axis2.client.async.AxisFuture&lt;<xsl:value-of select="$asyncfuturetype"/>&gt;();
+                final org.apache.axis2.context.MessageContext _messageContext = _start<xsl:value-of select="@name"/>(
+                    <xsl:choose>
+                        <xsl:when test="$inputcount=1">
+                            <xsl:choose>
+                                <xsl:when test="$isUnwrapParameters">
+                                   <xsl:for-each select="input/param[@location='body' and @type!='']/param">
+                                        <xsl:if test="position()>1">,</xsl:if><xsl:value-of select="@name"/>
+                                    </xsl:for-each>
+                                </xsl:when>
+                                <xsl:otherwise>
+                                    <xsl:value-of select="input/param[@location='body' and @type!='']/@name"/>
+                                </xsl:otherwise>
+                            </xsl:choose>
+                        </xsl:when>
+                    </xsl:choose>
+                    <xsl:if test="($inputcount=1) and not($isUnwrapParameters and $inputWrappedCount=0)">,</xsl:if>
+                    <xsl:for-each select="input/param[not(@location='body') and @type!='']">
+                       <xsl:value-of select="@name"/>,
+                    </xsl:for-each>
+                    new <xsl:value-of select="$package"/>.<xsl:value-of select="$callbackname"/>() {
+                        public void receiveResult<xsl:value-of select="@name"/>(<xsl:if test="$asyncresulttype!=''"><xsl:value-of select="$asyncresulttype"/> result</xsl:if>) {
+                            _future.complete(<xsl:choose><xsl:when test="$asyncresulttype!=''">result</xsl:when><xsl:otherwise>null</xsl:otherwise></xsl:choose>);
+                        }
+
+                        public void receiveError<xsl:value-of select="@name"/>(java.lang.Exception e) {
+                            _future.fail(e);
+                        }
+                    });
+                // stop waiting for the response if the future is cancelled or times out
+                _future.setCancellationHandler(new java.lang.Runnable() {
+                    public void run() {
+                        org.apache.axis2.util.CallbackReceiver.abandon(_operations[<xsl:value-of select="position()-1"/>], _messageContext);
+                    }
+                });
+                _future.setTimeout(_serviceClient.getOptions().getTimeOutInMilliSeconds());
+                return _future;
+                }
+                </xsl:if>
+
+                private org.apache.axis2.context.MessageContext _start<xsl:value-of select="@name"/>(
+
 
                     <xsl:choose>
                         <xsl:when test="$inputcount=1">
@@ -860,6 +1002,7 @@
 
            //execute the operation client
            _operationClient.execute(false);
+           return _messageContext;
 
                     }
                 </xsl:if>
@@ -189,6 +189,59 @@
 
             throws java.rmi.RemoteException;
 
+        <xsl:if test="$outputtype!=''">
+        <xsl:variable name="asyncresulttype">
+            <xsl:choose>
+                <xsl:when test="$outputparamcount=1"><xsl:value-of select="output/param[@location='body']/param/@type"/></xsl:when>
+                <xsl:when test="string-length(normalize-space($outputcomplextype)) > 0"><xsl:value-of select="$outputcomplextype"/></xsl:when>
+                <xsl:when test="($outputparamcount=0) and ($isUnwrapParameters)"></xsl:when>
+                <xsl:otherwise><xsl:value-of select="$outputtype"/></xsl:otherwise>
+            </xsl:choose>
+        </xsl:variable>
+        <xsl:variable name="asyncfuturetype">
+            <xsl:choose>
+                <xsl:when test="$asyncresulttype=''">java.lang.Void</xsl:when>
+                <xsl:when test="$asyncresulttype='boolean'">java.lang.Boolean</xsl:when>
+                <xsl:when test="$asyncresulttype='byte'">java.lang.Byte</xsl:when>
+                <xsl:when test="$asyncresulttype='char'">java.lang.Character</xsl:when>
+                <xsl:when test="$asyncresulttype='short'">java.lang.Short</xsl:when>
+                <xsl:when test="$asyncresulttype='int'">java.lang.Integer</xsl:when>
+                <xsl:when test="$asyncresulttype='long'">java.lang.Long</xsl:when>
+                <xsl:when test="$asyncresulttype='float'">java.lang.Float</xsl:when>
+                <xsl:when test="$asyncresulttype='double'">java.lang.Double</xsl:when>
+                <xsl:otherwise><xsl:value-of select="$asyncresulttype"/></xsl:otherwise>
+            </xsl:choose>
+        </xsl:variable>
+         /**
+            * Auto generated method signature for Asynchronous Invocations returning a future.
+            * Cancelling the future, or letting it time out, stops waiting for the response.
+            * <xsl:value-of select="@comment"/>
+            <xsl:for-each select="input/param[@type!='']">
+                * @param <xsl:value-of select="@name"></xsl:value-of><xsl:text>
+            </xsl:text></xsl:for-each>
+          */
+        public org.apache.axis2.client.async.AxisFuture&lt;<xsl:value-of select="$asyncfuturetype"/>&gt; start<xsl:value-of select="@name"/>Async(
+            <xsl:choose>
+                    <xsl:when test="$inputcount=1">
+                        <xsl:choose>
+                            <xsl:when test="$isUnwrapParameters">
+                               <xsl:for-each select="input/param[@location='body' and @type!='']/param">
+                                    <xsl:if test="position()>1">,</xsl:if><xsl:value-of select="@type"/><xsl:text> </xsl:text><xsl:value-of select="@name"/>
+                                </xsl:for-each>
+                            </xsl:when>
+                            <xsl:otherwise>
+                                <xsl:value-of select="input/param[@location='body' and @type!='']/@type"/><xsl:text> </xsl:text><xsl:value-of select="input/param[@location='body' and @type!='']/@name"/>
+                            </xsl:otherwise>
+                        </xsl:choose>
+                    </xsl:when>
+                </xsl:choose>
+                <xsl:for-each select="input/param[not(@location='body') and @type!='']">
+                   <xsl:if test="position()>1 or (($inputcount=1) and not($isUnwrapParameters and $inputWrappedCount=0))">,</xsl:if><xsl:value-of select="@type"/><xsl:text> </xsl:text><xsl:value-of select="@name"/>
+                </xsl:for-each>)
+
+            throws java.rmi.RemoteException;
+        </xsl:if>
+
      </xsl:if>
      </xsl:if>
         <!-- Code for in-only mep -->
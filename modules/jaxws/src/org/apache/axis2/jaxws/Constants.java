@@ -267,4 +267,23 @@ public interface Constants {
      * If this property is set, the Endpoint.publish methods will throw an UnsupportedOperationException.
      */
     public static final String  DISABLE_ENDPOINT_PUBLISH_METHODS = "jaxws.endpoint.publish.disable"; 
+
+    /**
+     * Configuration Parameter
+     * Name: jaxws.handler.pool.size
+     * Value: String or Integer
+     * Default: null, which is interpreted as 0
+     * Can be set on:
+     * - Axis Configuration, which affects all jax-ws endpoints
+     * - AxisService, which affects only that endpoint
+     *
+     * The maximum number of idle JAX-WS handler chains that are kept per endpoint.  By default
+     * the handlers of a server side endpoint are created, and their @PostConstruct methods
+     * called, for every request, and they are destroyed once the response has been processed.
+     * If this parameter is set to a positive value, handler chains are reused across requests
+     * instead.  A chain is never used by two requests at the same time, but the handler instances
+     * see many requests, so this should only be enabled for endpoints whose handlers do not keep
+     * request specific state in their fields.
+     */
+    public static final String  JAXWS_HANDLER_POOL_SIZE = "jaxws.handler.pool.size";
 }
@@ -27,9 +27,13 @@ import org.apache.axis2.deployment.DeploymentEngine;
 import org.apache.axis2.deployment.DeploymentErrorMsgs;
 import org.apache.axis2.deployment.repository.util.DeploymentFileData;
 import org.apache.axis2.deployment.util.Utils;
+import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.axis2.description.Parameter;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.jaxws.description.EndpointDescription;
+import org.apache.axis2.jaxws.handler.HandlerChainPool;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -199,6 +203,9 @@ public class JAXWSDeployer extends AbstractDeployer {
             if(configCtx != null) {
                 configCtx.removeServiceGroupContext(serviceGroup);
             }
+            if (serviceGroup != null) {
+                destroyPooledHandlers(serviceGroup);
+            }
             super.undeploy(fileName);
             log.info(Messages.getMessage(DeploymentErrorMsgs.SERVICE_REMOVED,
                     fileName));
@@ -210,6 +217,19 @@ public class JAXWSDeployer extends AbstractDeployer {
         }
     }
 
+    /**
+     * Call @PreDestroy on the idle handler chains kept for the endpoints of the group.
+     */
+    private static void destroyPooledHandlers(AxisServiceGroup serviceGroup) {
+        for (Iterator<AxisService> services = serviceGroup.getServices(); services.hasNext();) {
+            Parameter param =
+                    services.next().getParameter(EndpointDescription.AXIS_SERVICE_PARAMETER);
+            if (param != null && param.getValue() instanceof EndpointDescription) {
+                HandlerChainPool.shutdown((EndpointDescription) param.getValue());
+            }
+        }
+    }
+
     /**
      * Check if this inputstream is a jar/zip
      *
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.jaxws.handler;
+
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.jaxws.Constants;
+import org.apache.axis2.jaxws.ExceptionFactory;
+import org.apache.axis2.jaxws.core.MessageContext;
+import org.apache.axis2.jaxws.description.EndpointDescription;
+import org.apache.axis2.jaxws.handler.lifecycle.factory.HandlerLifecycleManager;
+import org.apache.axis2.jaxws.handler.lifecycle.factory.HandlerLifecycleManagerFactory;
+import org.apache.axis2.jaxws.registry.FactoryRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.xml.ws.handler.Handler;
+import javax.xml.ws.handler.PortInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server side source of handler chains for a single endpoint.
+ * <p>
+ * The handler classes and the SOAP roles of the endpoint are resolved once, when the pool is
+ * created, instead of on every request.  By default every request still gets a new chain of
+ * handler instances, which are destroyed (@PreDestroy) once the response has been processed,
+ * as required by JAX-WS 9.3.1.
+ * <p>
+ * If the {@link Constants#JAXWS_HANDLER_POOL_SIZE} parameter is set to a positive value,
+ * chains are kept after use instead of being destroyed, up to that many idle chains, and
+ * handed to later requests.  A pooled chain is only ever used by one request at a time, but
+ * its handler instances see many requests over their life time, so this should only be
+ * enabled for endpoints whose handlers keep no per request state in their fields.
+ * <p>
+ * Only chains obtained from {@link #borrowHandlerChain()} are pooled; any other chain given
+ * to {@link #releaseHandlerChain(MessageContext, List)} is destroyed.  When the endpoint is
+ * undeployed, {@link #shutdown(EndpointDescription)} destroys the idle chains.
+ */
+public class HandlerChainPool {
+
+    private static final Log log = LogFactory.getLog(HandlerChainPool.class);
+
+    private static final String HANDLER_CHAIN_POOL = HandlerChainPool.class.getName();
+
+    private final EndpointDescription endpointDesc;
+    private final PortInfo portInfo;
+    private final List<String> roles;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<List<Handler>> idleChains =
+            new ConcurrentLinkedQueue<List<Handler>>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    /**
+     * A chain handed out by a pool, which records whether it is currently borrowed.
+     */
+    private static final class BorrowedChain extends ArrayList<Handler> {
+        private static final long serialVersionUID = 1L;
+
+        final HandlerChainPool pool;
+        final AtomicBoolean borrowed = new AtomicBoolean();
+
+        BorrowedChain(HandlerChainPool pool, List<Handler> handlers) {
+            super(handlers);
+            this.pool = pool;
+        }
+    }
+
+    private HandlerChainPool(EndpointDescription endpointDesc) {
+        this.endpointDesc = endpointDesc;
+        this.portInfo = endpointDesc.getPortInfo();
+        HandlerResolverImpl hri = new HandlerResolverImpl(endpointDesc.getServiceDescription());
+        List<String> resolvedRoles = hri.getRoles(portInfo);
+        this.roles = resolvedRoles == null ? null
+                : Collections.unmodifiableList(new ArrayList<String>(resolvedRoles));
+        this.maxIdle = getPoolSize(endpointDesc.getAxisService());
+        if (log.isDebugEnabled()) {
+            log.debug("Created handler chain pool for " + portInfo.getPortName()
+                    + ", maximum idle chains = " + maxIdle);
+        }
+    }
+
+    /**
+     * Get the pool for the given endpoint, creating it on first use.
+     *
+     * @param endpointDesc the endpoint
+     * @return the HandlerChainPool of the endpoint
+     */
+    public static HandlerChainPool getHandlerChainPool(EndpointDescription endpointDesc) {
+        HandlerChainPool pool = (HandlerChainPool) endpointDesc.getProperty(HANDLER_CHAIN_POOL);
+        if (pool == null) {
+            synchronized (endpointDesc) {
+                pool = (HandlerChainPool) endpointDesc.getProperty(HANDLER_CHAIN_POOL);
+                if (pool == null) {
+                    pool = new HandlerChainPool(endpointDesc);
+                    endpointDesc.setProperty(HANDLER_CHAIN_POOL, pool);
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static int getPoolSize(AxisService service) {
+        Parameter param = service == null ? null
+                : service.getParameter(Constants.JAXWS_HANDLER_POOL_SIZE);
+        if (param == null || param.getValue() == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(param.getValue().toString().trim()));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value '" + param.getValue() + "' for "
+                    + Constants.JAXWS_HANDLER_POOL_SIZE + "; handler chains will not be pooled");
+            return 0;
+        }
+    }
+
+    /**
+     * @return the SOAP roles played by the handlers of the endpoint
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * @return true if handler chains are kept for reuse
+     */
+    public boolean isPooled() {
+        return maxIdle > 0;
+    }
+
+    /**
+     * Get a handler chain for a request.  The chain must be given back through
+     * {@link #releaseHandlerChain(MessageContext, List)} once the request is complete.
+     *
+     * @return a handler chain that is not in use by any other request
+     */
+    public List<Handler> borrowHandlerChain() {
+        BorrowedChain chain = (BorrowedChain) idleChains.poll();
+        if (chain != null) {
+            idleCount.decrementAndGet();
+        } else {
+            HandlerResolverImpl hri =
+                    new HandlerResolverImpl(endpointDesc.getServiceDescription());
+            chain = new BorrowedChain(this, hri.getHandlerChain(portInfo));
+        }
+        chain.borrowed.set(true);
+        return chain;
+    }
+
+    /**
+     * Give back the handler chain used by a request.  A chain obtained from
+     * {@link #borrowHandlerChain()} is either kept for a later request or its handlers are
+     * destroyed; the handlers of any other chain are destroyed.
+     *
+     * @param mc the MessageContext of the request that used the chain
+     * @param chain the handler chain
+     */
+    public void releaseHandlerChain(MessageContext mc, List<Handler> chain) {
+        if (chain == null || chain.isEmpty()) {
+            return;
+        }
+        if (!(chain instanceof BorrowedChain) || ((BorrowedChain) chain).pool != this) {
+            destroyHandlers(mc, chain);
+            return;
+        }
+        if (!((BorrowedChain) chain).borrowed.compareAndSet(true, false)) {
+            // Already given back
+            return;
+        }
+        if (!shutdown) {
+            if (idleCount.incrementAndGet() <= maxIdle) {
+                idleChains.offer(chain);
+                // Don't keep the chain if shutdown() drained the pool in the meantime
+                if (!shutdown || !idleChains.remove(chain)) {
+                    return;
+                }
+            }
+            idleCount.decrementAndGet();
+        }
+        destroyHandlers(mc, chain);
+    }
+
+    /**
+     * Destroy the idle chains of the pool of the given endpoint, if it has one.  Chains
+     * released afterwards are destroyed as well.  This is called when the endpoint is
+     * undeployed.
+     *
+     * @param endpointDesc the endpoint
+     */
+    public static void shutdown(EndpointDescription endpointDesc) {
+        HandlerChainPool pool = (HandlerChainPool) endpointDesc.getProperty(HANDLER_CHAIN_POOL);
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private void shutdown() {
+        shutdown = true;
+        MessageContext mc = new MessageContext();
+        mc.setEndpointDescription(endpointDesc);
+        List<Handler> chain;
+        while ((chain = idleChains.poll()) != null) {
+            idleCount.decrementAndGet();
+            try {
+                destroyHandlers(mc, chain);
+            } catch (RuntimeException e) {
+                log.warn("Unable to destroy the handlers of " + portInfo.getPortName(), e);
+            }
+        }
+    }
+
+    /**
+     * Call @PreDestroy on the given handlers.
+     *
+     * @param mc the current MessageContext
+     * @param handlers the handler instances
+     */
+    public static void destroyHandlers(MessageContext mc, List<Handler> handlers) {
+        HandlerLifecycleManager hlm = createHandlerlifecycleManager();
+        for (Handler handler : handlers) {
+            try {
+                hlm.destroyHandlerInstance(mc, handler);
+            } catch (Exception e) {
+                throw ExceptionFactory.makeWebServiceException(e);
+            }
+        }
+    }
+
+    private static HandlerLifecycleManager createHandlerlifecycleManager() {
+        HandlerLifecycleManagerFactory elmf = (HandlerLifecycleManagerFactory)FactoryRegistry
+                .getFactory(HandlerLifecycleManagerFactory.class);
+        return elmf.createHandlerLifecycleManager();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.jaxws.handler;
+
+import junit.framework.TestCase;
+import org.apache.axis2.jaxws.Constants;
+import org.apache.axis2.jaxws.core.MessageContext;
+import org.apache.axis2.jaxws.description.DescriptionFactory;
+import org.apache.axis2.jaxws.description.EndpointDescription;
+import org.apache.axis2.jaxws.description.ServiceDescription;
+
+import javax.jws.HandlerChain;
+import javax.jws.WebService;
+import javax.xml.ws.handler.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verify the server side handler chain reuse done by HandlerChainPool.
+ */
+public class HandlerChainPoolTests extends TestCase {
+
+    private static final String ADDED_ROLE = "http://org/apache/axis2/jaxws/handler/AddedRole";
+
+    private EndpointDescription getEndpointDescription(Class implClass) {
+        ServiceDescription serviceDesc = DescriptionFactory.createServiceDescription(implClass);
+        return serviceDesc.getEndpointDescriptions()[0];
+    }
+
+    private MessageContext createMessageContext(EndpointDescription epDesc) {
+        MessageContext mc = new MessageContext();
+        mc.setEndpointDescription(epDesc);
+        return mc;
+    }
+
+    public void testNotPooledByDefault() {
+        EndpointDescription epDesc = getEndpointDescription(HandlerChainPoolServiceImpl.class);
+        HandlerChainPool pool = HandlerChainPool.getHandlerChainPool(epDesc);
+        assertSame(pool, HandlerChainPool.getHandlerChainPool(epDesc));
+        assertFalse(pool.isPooled());
+
+        List<String> roles = pool.getRoles();
+        assertNotNull(roles);
+        assertTrue(roles.contains(ADDED_ROLE));
+
+        List<Handler> chain1 = pool.borrowHandlerChain();
+        assertEquals(1, chain1.size());
+        pool.releaseHandlerChain(createMessageContext(epDesc), chain1);
+
+        List<Handler> chain2 = pool.borrowHandlerChain();
+        assertEquals(1, chain2.size());
+        assertNotSame(chain1.get(0), chain2.get(0));
+    }
+
+    public void testPooled() throws Exception {
+        EndpointDescription epDesc = getEndpointDescription(HandlerChainPoolServiceImpl2.class);
+        epDesc.getAxisService().addParameter(Constants.JAXWS_HANDLER_POOL_SIZE, "1");
+        HandlerChainPool pool = HandlerChainPool.getHandlerChainPool(epDesc);
+        assertTrue(pool.isPooled());
+        MessageContext mc = createMessageContext(epDesc);
+
+        List<Handler> chain1 = pool.borrowHandlerChain();
+        List<Handler> chain2 = pool.borrowHandlerChain();
+        assertNotSame(chain1.get(0), chain2.get(0));
+
+        // Only one idle chain is kept; the second one is destroyed
+        pool.releaseHandlerChain(mc, chain1);
+        pool.releaseHandlerChain(mc, chain2);
+
+        List<Handler> chain3 = pool.borrowHandlerChain();
+        assertSame(chain1, chain3);
+        List<Handler> chain4 = pool.borrowHandlerChain();
+        assertNotSame(chain1.get(0), chain4.get(0));
+        assertNotSame(chain2.get(0), chain4.get(0));
+    }
+
+    public void testOnlyBorrowedChainsPooled() throws Exception {
+        EndpointDescription epDesc = getEndpointDescription(HandlerChainPoolServiceImpl3.class);
+        epDesc.getAxisService().addParameter(Constants.JAXWS_HANDLER_POOL_SIZE, "2");
+        HandlerChainPool pool = HandlerChainPool.getHandlerChainPool(epDesc);
+        MessageContext mc = createMessageContext(epDesc);
+
+        // A chain that was not borrowed from the pool is destroyed, not pooled
+        List<Handler> foreign = new ArrayList<Handler>(pool.borrowHandlerChain());
+        pool.releaseHandlerChain(mc, foreign);
+        List<Handler> chain1 = pool.borrowHandlerChain();
+        assertNotSame(foreign.get(0), chain1.get(0));
+
+        // Releasing the same chain twice only pools it once
+        pool.releaseHandlerChain(mc, chain1);
+        pool.releaseHandlerChain(mc, chain1);
+        assertSame(chain1, pool.borrowHandlerChain());
+        assertNotSame(chain1, pool.borrowHandlerChain());
+    }
+
+    public void testShutdown() throws Exception {
+        EndpointDescription epDesc = getEndpointDescription(HandlerChainPoolServiceImpl4.class);
+        epDesc.getAxisService().addParameter(Constants.JAXWS_HANDLER_POOL_SIZE, "2");
+        HandlerChainPool pool = HandlerChainPool.getHandlerChainPool(epDesc);
+        MessageContext mc = createMessageContext(epDesc);
+
+        List<Handler> chain1 = pool.borrowHandlerChain();
+        List<Handler> chain2 = pool.borrowHandlerChain();
+        pool.releaseHandlerChain(mc, chain1);
+
+        // The idle chain is destroyed and chains released later are not kept
+        HandlerChainPool.shutdown(epDesc);
+        pool.releaseHandlerChain(mc, chain2);
+        List<Handler> chain3 = pool.borrowHandlerChain();
+        assertNotSame(chain1, chain3);
+        assertNotSame(chain2, chain3);
+        assertNotSame(chain1.get(0), chain3.get(0));
+        assertNotSame(chain2.get(0), chain3.get(0));
+    }
+
+    @WebService
+    @HandlerChain(file="RoleBasedMustUnderstandTests.xml")
+    class HandlerChainPoolServiceImpl {
+        
+    }
+
+    @WebService
+    @HandlerChain(file="RoleBasedMustUnderstandTests.xml")
+    class HandlerChainPoolServiceImpl2 {
+        
+    }
+
+    @WebService
+    @HandlerChain(file="RoleBasedMustUnderstandTests.xml")
+    class HandlerChainPoolServiceImpl3 {
+        
+    }
+
+    @WebService
+    @HandlerChain(file="RoleBasedMustUnderstandTests.xml")
+    class HandlerChainPoolServiceImpl4 {
+        
+    }
+}
@@ -34,6 +34,8 @@ public class JsonConstant {
 
     public static final String XMLNODES = "xmlnodes";
 
+    public static final String SERVICE_BINDING = "JsonServiceBinding";
+
 
 //    error messages
 
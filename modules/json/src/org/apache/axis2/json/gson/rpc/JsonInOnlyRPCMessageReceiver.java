@@ -57,7 +57,9 @@ public class JsonInOnlyRPCMessageReceiver extends RPCInOnlyMessageReceiver {
                 Object serviceObj = getTheImplementationObject(inMessage);
                 AxisOperation op = inMessage.getOperationContext().getAxisOperation();
                 String operation = op.getName().getLocalPart();
-                invokeService(jsonReader, serviceObj, operation);
+                JsonServiceBinding binding = JsonServiceBinding.getServiceBinding(
+                        inMessage.getAxisService(), serviceObj.getClass());
+                invokeService(jsonReader, serviceObj, binding.getOperation(operation));
             } else {
                 throw new AxisFault("GsonXMLStreamReader should have put as a property of messageContext " +
                         "to evaluate JSON message");
@@ -67,6 +69,30 @@ public class JsonInOnlyRPCMessageReceiver extends RPCInOnlyMessageReceiver {
         }
     }
 
+    void invokeService(JsonReader jsonReader, Object serviceObj,
+                       JsonServiceBinding.OperationBinding operation) throws AxisFault {
+        String msg;
+        Method method = operation.getMethod();
+        try {
+            operation.invoke(jsonReader, serviceObj);
+        } catch (IllegalAccessException e) {
+            msg = "Does not have access to " +
+                    "the definition of the specified class, field, method or constructor";
+            log.error(msg, e);
+            throw AxisFault.makeFault(e);
+
+        } catch (InvocationTargetException e) {
+            msg = "Exception occurred while trying to invoke service method " + method.getName();
+            log.error(msg, e);
+            throw AxisFault.makeFault(e);
+        } catch (IOException e) {
+            msg = "Exception occur while encording or " +
+                    "access to the input string at the JsonRpcMessageReceiver";
+            log.error(msg, e);
+            throw AxisFault.makeFault(e);
+        }
+    }
+
     public void invokeService(JsonReader jsonReader, Object serviceObj, String operation_name) throws AxisFault {
         String msg;
         Class implClass = serviceObj.getClass();
@@ -57,7 +57,9 @@ public class JsonRpcMessageReceiver extends RPCMessageReceiver {
                 Object serviceObj = getTheImplementationObject(inMessage);
                 AxisOperation op = inMessage.getOperationContext().getAxisOperation();
                 String operation = op.getName().getLocalPart();
-                invokeService(jsonReader, serviceObj, operation , outMessage);
+                JsonServiceBinding binding = JsonServiceBinding.getServiceBinding(
+                        inMessage.getAxisService(), serviceObj.getClass());
+                invokeService(jsonReader, serviceObj, binding.getOperation(operation), outMessage);
             } else {
                 throw new AxisFault("GsonXMLStreamReader should be put as a property of messageContext " +
                         "to evaluate JSON message");
@@ -67,6 +69,35 @@ public class JsonRpcMessageReceiver extends RPCMessageReceiver {
         }
     }
 
+    void invokeService(JsonReader jsonReader, Object serviceObj,
+                       JsonServiceBinding.OperationBinding operation,
+                       MessageContext outMes) throws AxisFault {
+        String msg;
+        Method method = operation.getMethod();
+        try {
+            Object retObj = operation.invoke(jsonReader, serviceObj);
+
+            // handle response
+            outMes.setProperty(JsonConstant.RETURN_OBJECT, retObj);
+            outMes.setProperty(JsonConstant.RETURN_TYPE, method.getReturnType());
+        } catch (IllegalAccessException e) {
+            msg = "Does not have access to " +
+                    "the definition of the specified class, field, method or constructor";
+            log.error(msg, e);
+            throw AxisFault.makeFault(e);
+
+        } catch (InvocationTargetException e) {
+            msg = "Exception occurred while trying to invoke service method " + method.getName();
+            log.error(msg, e);
+            throw AxisFault.makeFault(e);
+        } catch (IOException e) {
+            msg = "Exception occur while encording or " +
+                    "access to the input string at the JsonRpcMessageReceiver";
+            log.error(msg, e);
+            throw AxisFault.makeFault(e);
+        }
+    }
+
     public void invokeService(JsonReader jsonReader, Object serviceObj, String operation_name,
                                    MessageContext outMes) throws AxisFault {
         String msg;
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.json.gson.rpc;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.json.gson.factory.JsonConstant;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JSON binding of a service implementation class: the method implementing each
+ * operation, keyed by operation name, together with the Gson TypeAdapters for its parameter
+ * and return types. A binding is built once per service and kept as a parameter of the
+ * AxisService, so that requests neither scan the methods of the class nor resolve adapters.
+ */
+public class JsonServiceBinding {
+
+    private static final Log log = LogFactory.getLog(JsonServiceBinding.class);
+
+    private final Class<?> serviceClass;
+    private final Map<String, OperationBinding> operations;
+
+    public JsonServiceBinding(Class<?> serviceClass) {
+        this.serviceClass = serviceClass;
+        Gson gson = JsonUtils.getGson();
+        Map<String, OperationBinding> operations = new HashMap<String, OperationBinding>();
+        for (Method method : serviceClass.getDeclaredMethods()) {
+            // Same as JsonUtils.getOpMethod(): the first method with the name wins
+            if (!operations.containsKey(method.getName())) {
+                operations.put(method.getName(), new OperationBinding(gson, method));
+            }
+        }
+        this.operations = operations;
+    }
+
+    /**
+     * Get the binding for the given service, building it on first use or when the
+     * implementation class has changed.
+     *
+     * @param service the AxisService
+     * @param serviceClass the class of the service implementation object
+     * @return the JsonServiceBinding
+     * @throws AxisFault if the binding can't be stored in the service
+     */
+    public static JsonServiceBinding getServiceBinding(AxisService service, Class<?> serviceClass)
+            throws AxisFault {
+        JsonServiceBinding binding =
+                (JsonServiceBinding) service.getParameterValue(JsonConstant.SERVICE_BINDING);
+        if (binding == null || binding.serviceClass != serviceClass) {
+            binding = new JsonServiceBinding(serviceClass);
+            service.addParameter(JsonConstant.SERVICE_BINDING, binding);
+        }
+        return binding;
+    }
+
+    /**
+     * Get the binding of an operation.
+     *
+     * @param operationName the local name of the operation
+     * @return the OperationBinding
+     * @throws AxisFault if the service class has no method for the operation
+     */
+    public OperationBinding getOperation(String operationName) throws AxisFault {
+        OperationBinding operation = operations.get(operationName);
+        if (operation == null) {
+            throw new AxisFault("No such method '" + operationName +
+                    "' in class " + serviceClass.getName());
+        }
+        return operation;
+    }
+
+    public static class OperationBinding {
+        private final Method method;
+        private final Class[] paramClasses;
+        private final TypeAdapter<?>[] paramAdapters;
+
+        OperationBinding(Gson gson, Method method) {
+            this.method = method;
+            this.paramClasses = method.getParameterTypes();
+            this.paramAdapters = new TypeAdapter<?>[paramClasses.length];
+            for (int i = 0; i < paramClasses.length; i++) {
+                paramAdapters[i] = getAdapter(gson, paramClasses[i]);
+            }
+            // Only resolved so that it is cached by the shared Gson used by the JsonFormatter
+            getAdapter(gson, method.getReturnType());
+        }
+
+        private static TypeAdapter<?> getAdapter(Gson gson, Class<?> type) {
+            if (type == void.class) {
+                return null;
+            }
+            try {
+                return gson.getAdapter(TypeToken.get(type));
+            } catch (RuntimeException e) {
+                // Methods that aren't invoked as operations may use types Gson can't handle;
+                // the error is reported if the operation is actually called.
+                if (log.isDebugEnabled()) {
+                    log.debug("No JSON type adapter for " + type.getName(), e);
+                }
+                return null;
+            }
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * Read the parameters from the JSON stream and invoke the method.
+         *
+         * @param jsonReader the JSON request
+         * @param service the service implementation object
+         * @return the value returned by the method
+         */
+        public Object invoke(JsonReader jsonReader, Object service)
+                throws InvocationTargetException, IllegalAccessException, IOException {
+            return JsonUtils.invokeServiceClass(jsonReader, service, method, paramClasses,
+                    paramAdapters);
+        }
+    }
+}
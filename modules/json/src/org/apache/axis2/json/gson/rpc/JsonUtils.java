@@ -20,6 +20,8 @@
 package org.apache.axis2.json.gson.rpc;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 
 import java.io.IOException;
@@ -29,29 +31,54 @@ import java.lang.reflect.Method;
 
 public class JsonUtils {
 
+    /**
+     * Gson instances are thread safe and cache the type adapters they create, so a single
+     * instance is shared by all services.
+     */
+    private static final Gson gson = new Gson();
+
+    public static Gson getGson() {
+        return gson;
+    }
+
     public static Object invokeServiceClass(JsonReader jsonReader,
                                             Object service,
                                             Method operation ,
                                             Class[] paramClasses ,
                                             int paramCount ) throws InvocationTargetException,
             IllegalAccessException, IOException  {
+        return invokeServiceClass(jsonReader, service, operation, paramClasses, null);
+    }
 
-        Object[] methodParam = new Object[paramCount];
-        Gson gson = new Gson();
-        String[] argNames = new String[paramCount];
+    static Object invokeServiceClass(JsonReader jsonReader,
+                                     Object service,
+                                     Method operation,
+                                     Class[] paramClasses,
+                                     TypeAdapter<?>[] paramAdapters) throws InvocationTargetException,
+            IllegalAccessException, IOException  {
+
+        Object[] methodParam = new Object[paramClasses.length];
 
         if( ! jsonReader.isLenient()){
             jsonReader.setLenient(true);
         }
         jsonReader.beginObject();
-        String messageName=jsonReader.nextName();     // get message name from input json stream
+        jsonReader.nextName();     // skip the message name in the input json stream
         jsonReader.beginArray();
 
         int i = 0;
         for (Class paramType : paramClasses) {
             jsonReader.beginObject();
-            argNames[i] = jsonReader.nextName();
-            methodParam[i] = gson.fromJson(jsonReader, paramType);   // gson handle all types well and return an object from it
+            jsonReader.nextName();     // the argument name
+            if (paramAdapters != null && paramAdapters[i] != null) {
+                try {
+                    methodParam[i] = paramAdapters[i].read(jsonReader);
+                } catch (IllegalStateException e) {
+                    throw new JsonSyntaxException(e);
+                }
+            } else {
+                methodParam[i] = gson.fromJson(jsonReader, paramType);   // gson handle all types well and return an object from it
+            }
             jsonReader.endObject();
             i++;
         }
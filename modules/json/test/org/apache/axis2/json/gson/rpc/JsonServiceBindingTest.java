@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.json.gson.rpc;
+
+import com.google.gson.stream.JsonReader;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class JsonServiceBindingTest {
+
+    @Test
+    public void testInvoke() throws Exception {
+        JsonServiceBinding binding = new JsonServiceBinding(JSONPOJOService.class);
+        JsonServiceBinding.OperationBinding operation = binding.getOperation("echoPerson");
+        Assert.assertEquals("echoPerson", operation.getMethod().getName());
+
+        JsonReader jsonReader = new JsonReader(new StringReader(
+                "{\"echoPerson\":[{\"arg0\":{\"name\":\"Simon\",\"age\":\"35\",\"gender\":\"male\"}}]}"));
+        Person person = (Person) operation.invoke(jsonReader, new JSONPOJOService());
+        Assert.assertEquals("Simon", person.getName());
+        Assert.assertEquals("35", person.getAge());
+    }
+
+    @Test(expected = AxisFault.class)
+    public void testUnknownOperation() throws Exception {
+        new JsonServiceBinding(JSONPOJOService.class).getOperation("unknown");
+    }
+
+    @Test
+    public void testCachedInService() throws Exception {
+        AxisService service = new AxisService("JSONPOJOService");
+        JsonServiceBinding binding = JsonServiceBinding.getServiceBinding(service, JSONPOJOService.class);
+        Assert.assertSame(binding, JsonServiceBinding.getServiceBinding(service, JSONPOJOService.class));
+        // A different implementation class invalidates the cached binding
+        Assert.assertNotSame(binding, JsonServiceBinding.getServiceBinding(service, Object.class));
+    }
+}
@@ -344,6 +344,15 @@ public class Constants extends org.apache.axis2.namespace.Constants {
         public static final String CACHE_ATTACHMENTS = "cacheAttachments";
         public static final String ATTACHMENT_TEMP_DIR = "attachmentDIR";
         public static final String FILE_SIZE_THRESHOLD = "sizeThreshold";
+        /**
+         * Enables streaming of incoming attachments. The MIME parts are left in the request
+         * stream until they are accessed; a part is only spilled to a file in
+         * {@link #ATTACHMENT_TEMP_DIR} (if it is larger than {@link #FILE_SIZE_THRESHOLD})
+         * when a later part is accessed first. Services should read the content using
+         * {@link org.apache.axis2.util.IOUtils#getInputStream(javax.activation.DataHandler, boolean)}
+         * so that it is consumed directly from the request stream.
+         */
+        public static final String STREAM_ATTACHMENTS = "streamAttachments";
         public static final String ENABLE_SWA = "enableSwA";
         public static final String MIME_BOUNDARY = "mimeBoundary";
         public static final String MM7_COMPATIBLE = "MM7Compatible";
@@ -459,6 +468,31 @@ public class Constants extends org.apache.axis2.namespace.Constants {
          */
 
         public static final String ENABLE_CHILD_FIRST_CLASS_LOADING="EnableChildFirstClassLoading";
+
+        /**
+         *  this parameter makes the engine execute the operation specific flows through
+         *  precompiled, flattened handler chains instead of walking each Phase.
+         */
+        public static final String ENABLE_COMPILED_HANDLER_CHAINS="EnableCompiledHandlerChains";
+
+        /**
+         *  this parameter makes the deployers index service and module archives once and
+         *  keep their nested jars in a cache directory which survives restarts.
+         */
+        public static final String ENABLE_INDEXED_ARCHIVES="EnableIndexedArchives";
+
+        /**
+         *  the directory the nested jars of indexed archives are extracted into.  Defaults to
+         *  jar-cache in the work directory, or to a directory private to the current user in
+         *  the system temporary directory.
+         */
+        public static final String NESTED_JAR_CACHE_DIR="NestedJarCacheDirectory";
+
+        /**
+         * The name of the {@link org.apache.axis2.util.threadpool.ExecutorProvider} class used
+         * to create the executors of the Axis2 thread pool and of the transports.
+         */
+        public static final String EXECUTOR_PROVIDER = "ExecutorProvider";
         
         /**
          * Specify buffer size to used in various data copy operations.
@@ -438,7 +438,10 @@ public class BuilderUtil {
     public static Attachments createAttachmentsMap(MessageContext msgContext,
                                                       InputStream inStream,
                                                       String contentTypeString) {
-        boolean fileCacheForAttachments = isAttachmentsCacheEnabled(msgContext);
+        // In streaming mode the parts are not buffered unless they are accessed out of
+        // order, and then they should go to disk rather than the heap
+        boolean fileCacheForAttachments = isAttachmentsCacheEnabled(msgContext)
+                || isAttachmentsStreamingEnabled(msgContext);
 
         String attachmentRepoDir = null;
         String attachmentSizeThreshold = null;
@@ -522,6 +525,28 @@ public class BuilderUtil {
         return fileCacheForAttachments;
     }
 
+    /**
+     * Check whether incoming attachments should be streamed, as configured by the
+     * {@link Constants.Configuration#STREAM_ATTACHMENTS} property or parameter.
+     *
+     * @param msgContext the incoming message context
+     * @return true if attachments should be streamed
+     */
+    public static boolean isAttachmentsStreamingEnabled(MessageContext msgContext) {
+        Object streamAttachmentProperty = msgContext
+                .getProperty(Constants.Configuration.STREAM_ATTACHMENTS);
+        String streamAttachmentString;
+
+        if (streamAttachmentProperty instanceof String) {
+            streamAttachmentString = (String)streamAttachmentProperty;
+        } else {
+            Parameter parameter =
+                    msgContext.getParameter(Constants.Configuration.STREAM_ATTACHMENTS);
+            streamAttachmentString = (parameter != null) ? (String)parameter.getValue() : null;
+        }
+        return Constants.VALUE_TRUE.equals(streamAttachmentString);
+    }
+
     public static Attachments createAttachments(MessageContext msgContext,
                                                 InputStream inStream,
                                                 String contentTypeString,
@@ -18,6 +18,7 @@
  */
 package org.apache.axis2.builder;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -50,6 +51,13 @@ public class DiskFileDataSource implements DataSource {
         return this.diskFileItem.getOutputStream();
     }
 
+    /**
+     * @return the file the content was written to, or null if it is still held in memory
+     */
+    public File getFile() {
+        return this.diskFileItem.isInMemory() ? null : this.diskFileItem.getStoreLocation();
+    }
+
     public void delete() {
         this.diskFileItem.delete();
     }
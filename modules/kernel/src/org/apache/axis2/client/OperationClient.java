@@ -24,6 +24,7 @@ import org.apache.axiom.util.UIDGenerator;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.client.async.AxisFuture;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
@@ -166,6 +167,36 @@ public abstract class OperationClient {
      */
     public abstract void executeImpl(boolean block) throws AxisFault;
 
+    /**
+     * Execute the MEP without waiting for it to complete.  The returned future completes with
+     * the In message context once the exchange is over, or with null if the MEP has no In
+     * message.  This implementation runs a blocking execution in a thread of the configuration
+     * context's thread pool; operation clients which can do better override it.
+     * <p/>
+     * Any callback which has been set on this client is not used by this method.
+     *
+     * @return the future of the In message context
+     * @throws AxisFault if the execution cannot be started
+     */
+    public AxisFuture<MessageContext> executeAsync() throws AxisFault {
+        final AxisFuture<MessageContext> future = new AxisFuture<MessageContext>();
+        sc.getConfigurationContext().getThreadPool().execute(new Runnable() {
+            public void run() {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    execute(true);
+                    future.complete(oc.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+                } catch (Throwable e) {
+                    future.fail(e);
+                }
+            }
+        });
+        future.setTimeout(options.getTimeOutInMilliSeconds());
+        return future;
+    }
+
     /**
      * Reset the operation client to a clean status after the MEP has completed.
      * This is how you can reuse an operation client. NOTE: this does not reset
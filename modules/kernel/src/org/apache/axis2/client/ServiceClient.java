@@ -29,6 +29,7 @@ import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.client.async.AxisFuture;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ConfigurationContextFactory;
 import org.apache.axis2.context.MessageContext;
@@ -127,6 +128,9 @@ public class ServiceClient {
 
     private boolean removeAxisService;
 
+    // whether the service is shared with the other clients of a ServiceClientTemplate
+    private boolean sharedAxisService;
+
     /**
      * Create a service client configured to work with a specific AxisService. If this service is
      * already in the world that's handed in (in the form of a ConfigurationContext) then I will
@@ -143,6 +147,25 @@ public class ServiceClient {
         configureServiceClient(configContext, axisService);
     }
 
+    /**
+     * Create a service client which uses the service of a template.  Nothing is added to the
+     * configuration.
+     *
+     * @param template the template
+     * @see ServiceClientTemplate#createClient()
+     */
+    ServiceClient(ServiceClientTemplate template) {
+        configContext = template.getConfigurationContext();
+        axisConfig = configContext.getAxisConfiguration();
+        axisService = template.getAxisService();
+        sharedAxisService = true;
+        hashCode = (int)anonServiceCounter.incrementAndGet();
+        options = template.createOptions();
+        ServiceGroupContext sgc =
+                configContext.createServiceGroupContext(axisService.getAxisServiceGroup());
+        serviceContext = sgc.getServiceContext(axisService);
+    }
+
     private void configureServiceClient(ConfigurationContext configContext, AxisService axisService)
             throws AxisFault {
         if (configContext == null) {
@@ -256,7 +279,7 @@ public class ServiceClient {
      *
      * @return the minted anonymous service
      */
-    private AxisService createAnonymousService() {
+    static AxisService createAnonymousService() {
         // now add anonymous operations to the axis2 service for use with the
         // shortcut client API. NOTE: We only add the ones we know we'll use
         // later in the convenience API; if you use
@@ -343,6 +366,9 @@ public class ServiceClient {
      * @throws AxisFault if something goes wrong
      */
     public void engageModule(String moduleName) throws AxisFault {
+        if (sharedAxisService) {
+            throw new AxisFault("Modules of a client created from a template cannot be changed");
+        }
         synchronized (this.axisConfig) {
             AxisModule module = axisConfig.getModule(moduleName);
             if (module != null) {
@@ -359,6 +385,10 @@ public class ServiceClient {
      * @param moduleName name of Module to disengage
      */
     public void disengageModule(String moduleName) {
+        if (sharedAxisService) {
+            throw new IllegalStateException(
+                    "Modules of a client created from a template cannot be changed");
+        }
         synchronized (this.axisConfig) {
             AxisModule module = axisConfig.getModule(moduleName);
             if (module != null) {
@@ -581,6 +611,49 @@ public class ServiceClient {
         mepClient.execute(false);
     }
 
+    /**
+     * Directly invoke an anonymous operation with an In-Out MEP and return a future of the
+     * response.
+     *
+     * @param elem the data to send (becomes the content of SOAP body)
+     * @return the future of the response
+     * @throws AxisFault if the request cannot be sent
+     * @see #sendReceiveAsync(QName, OMElement)
+     */
+    public AxisFuture<OMElement> sendReceiveAsync(OMElement elem) throws AxisFault {
+        return sendReceiveAsync(ANON_OUT_IN_OP, elem);
+    }
+
+    /**
+     * Directly invoke a named operation with an In-Out MEP and return a future of the response.
+     * Any number of invocations can be outstanding at the same time; the transport of each one
+     * is cleaned up when its response has been received, so {@link #cleanupTransport()} need
+     * not be called.  Cancelling the future, or letting it reach the timeout of the options,
+     * stops waiting for the response.
+     *
+     * @param operation name of operation to be invoked (non-<code>null</code>)
+     * @param elem      the data to send (becomes the content of SOAP body)
+     * @return the future of the response
+     * @throws AxisFault if the request cannot be sent
+     * @see AxisFuture#allOf(java.util.List)
+     */
+    public AxisFuture<OMElement> sendReceiveAsync(QName operation, OMElement elem)
+            throws AxisFault {
+        MessageContext mc = new MessageContext();
+        fillSOAPEnvelope(mc, elem);
+        // Other invocations may still be outstanding, so the last operation context must not
+        // be cleaned up
+        OperationClient mepClient = createClient(operation, false);
+        mepClient.addMessageContext(mc);
+        return mepClient.executeAsync().transform(
+                new AxisFuture.Transformer<MessageContext, OMElement>() {
+                    public OMElement transform(MessageContext response) {
+                        return response == null ? null
+                                : response.getEnvelope().getBody().getFirstElement();
+                    }
+                });
+    }
+
     /**
      * Create an operation client with the appropriate message exchange pattern (MEP). This method
      * creates a full-function MEP client which can be used to exchange messages for a specific
@@ -593,9 +666,15 @@ public class ServiceClient {
      * @throws AxisFault if the operation is not found
      */
     public OperationClient createClient(QName operationQName) throws AxisFault {
+        return createClient(operationQName, true);
+    }
+
+    private OperationClient createClient(QName operationQName, boolean autoCleanup)
+            throws AxisFault {
         // If we're configured to do so, clean up the last OperationContext (thus
         // releasing its resources) each time we create a new one.
-        if (JavaUtils.isTrue(getOptions().getProperty(AUTO_OPERATION_CLEANUP), true) &&
+        if (autoCleanup &&
+                JavaUtils.isTrue(getOptions().getProperty(AUTO_OPERATION_CLEANUP), true) &&
                 !getOptions().isUseSeparateListener()) {
             cleanupTransport();
         }
@@ -803,6 +882,9 @@ public class ServiceClient {
             // AxisFault?
             throw new IllegalArgumentException("AxisService is null");
         }
+        if (sharedAxisService) {
+            throw new AxisFault("The service of a client created from a template cannot be changed");
+        }
 
         synchronized (this.axisConfig) {
             axisConfig.removeService(this.axisService.getName());
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.AxisModule;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.ListenerManager;
+
+import javax.xml.namespace.QName;
+import java.util.HashMap;
+
+/**
+ * A shareable description of the clients of one service, from which {@link ServiceClient}s are
+ * created cheaply.
+ * <p/>
+ * Creating a {@link ServiceClient} the usual way adds a service to the {@link AxisConfiguration}
+ * (an anonymous one if none is given), and removes it again when the client is cleaned up.  An
+ * application which creates a client or a stub per request therefore keeps adding and removing
+ * services, under the lock of the configuration.  A template registers its service, and engages
+ * its modules, once; clients created by {@link #createClient()} share that service and only get
+ * their own {@link org.apache.axis2.context.ServiceContext} and their own {@link Options}, which
+ * inherit the options of the template.
+ * <p/>
+ * Clients created from a template cannot change the service they use or the modules engaged on
+ * it, since that would affect all other clients of the template.  The options given to the
+ * template must not be modified once the template is created; clients modify their own copy.
+ * A template can be used by any number of threads; the clients it creates cannot, as with any
+ * other {@link ServiceClient}.
+ */
+public class ServiceClientTemplate {
+
+    private final ConfigurationContext configContext;
+    private final AxisService axisService;
+    private final Options options;
+    private final boolean removeAxisService;
+
+    /**
+     * Create a template for the anonymous operations of {@link ServiceClient}.
+     *
+     * @param configContext the configuration context the clients live in
+     * @param options       the options inherited by the clients (may be <code>null</code>)
+     * @param modules       the names of the modules to engage
+     * @throws AxisFault if a module cannot be engaged
+     */
+    public ServiceClientTemplate(ConfigurationContext configContext, Options options,
+                                 String... modules) throws AxisFault {
+        this(configContext, null, options, modules);
+    }
+
+    /**
+     * Create a template for the given service.  If a service with the same name is already part
+     * of the configuration, that service is used instead.
+     *
+     * @param configContext the configuration context the clients live in
+     * @param axisService   the service, or <code>null</code> for an anonymous service
+     * @param options       the options inherited by the clients (may be <code>null</code>)
+     * @param modules       the names of the modules to engage
+     * @throws AxisFault if a module cannot be engaged
+     */
+    public ServiceClientTemplate(ConfigurationContext configContext, AxisService axisService,
+                                 Options options, String... modules) throws AxisFault {
+        if (configContext == null) {
+            throw new IllegalArgumentException("configContext is null");
+        }
+        this.configContext = configContext;
+        this.options = options == null ? new Options() : options;
+
+        if (configContext.getListenerManager() == null) {
+            new ListenerManager().init(configContext);
+        }
+
+        AxisConfiguration axisConfig = configContext.getAxisConfiguration();
+        if (axisService == null) {
+            axisService = ServiceClient.createAnonymousService();
+        }
+        axisService.setClientSide(true);
+        synchronized (axisConfig) {
+            AxisService existing = axisConfig.getService(axisService.getName());
+            if (existing == null) {
+                axisConfig.addService(axisService);
+                removeAxisService = true;
+            } else {
+                existing.setClientSide(true);
+                axisService = existing;
+                removeAxisService = false;
+            }
+            for (String moduleName : modules) {
+                AxisModule module = axisConfig.getModule(moduleName);
+                if (module == null) {
+                    throw new AxisFault("Unable to engage module : " + moduleName);
+                }
+                axisService.engageModule(module);
+            }
+        }
+        this.axisService = axisService;
+    }
+
+    public ConfigurationContext getConfigurationContext() {
+        return configContext;
+    }
+
+    public AxisService getAxisService() {
+        return axisService;
+    }
+
+    /**
+     * Create a client.  This does not modify the configuration.
+     *
+     * @return a new client, which is used by one thread at a time
+     */
+    public ServiceClient createClient() {
+        return new ServiceClient(this);
+    }
+
+    /**
+     * Create the options of a new client.  They inherit everything from the options of the
+     * template, except for the target EPR, which is copied so that clients can change its
+     * address.
+     */
+    Options createOptions() {
+        Options clientOptions = new Options(options);
+        EndpointReference to = options.getTo();
+        if (to != null) {
+            EndpointReference copy = new EndpointReference(to.getAddress());
+            if (to.getAllReferenceParameters() != null) {
+                copy.setReferenceParameters(new HashMap<QName, OMElement>(
+                        to.getAllReferenceParameters()));
+            }
+            clientOptions.setTo(copy);
+        }
+        return clientOptions;
+    }
+
+    /**
+     * Remove the service from the configuration, if it was added by this template.  Clients
+     * created from this template must not be used afterwards.
+     *
+     * @throws AxisFault if the service cannot be removed
+     */
+    public void close() throws AxisFault {
+        if (removeAxisService) {
+            AxisConfiguration axisConfig = configContext.getAxisConfiguration();
+            String serviceGroupName = axisService.getAxisServiceGroup().getServiceGroupName();
+            if (axisConfig.getServiceGroup(serviceGroupName) != null) {
+                axisConfig.removeServiceGroup(serviceGroupName);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client;
+
+import org.apache.axis2.AxisFault;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of generated stubs.
+ * <p/>
+ * A stub registers a service in the configuration when it is created and removes it again when
+ * it is cleaned up, so applications which create a stub per request keep modifying the
+ * configuration.  With a pool, stubs are created once and reused: {@link #borrowStub()} hands
+ * out an idle stub, or creates a new one if there is none, and {@link #returnStub(Stub)} makes
+ * it available again.  At most <code>maxIdle</code> stubs are kept; stubs returned beyond that
+ * are cleaned up.
+ * <p/>
+ * A stub is used by one thread at a time.  Settings a caller changes on the options of a
+ * borrowed stub stay in effect for the next borrower, so callers should only set per-call
+ * values, or {@link #invalidateStub(Stub) invalidate} the stub instead of returning it.
+ *
+ * @param <T> the type of stub
+ */
+public class StubPool<T extends Stub> {
+
+    private static final Log log = LogFactory.getLog(StubPool.class);
+
+    /**
+     * Creates the stubs of a pool.
+     *
+     * @param <T> the type of stub
+     */
+    public interface StubFactory<T extends Stub> {
+        T createStub() throws AxisFault;
+    }
+
+    private final StubFactory<T> factory;
+    private final LinkedBlockingDeque<T> idle;
+    private volatile boolean closed;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+
+    /**
+     * @param factory creates the stubs
+     * @param maxIdle the maximum number of idle stubs kept in the pool
+     */
+    public StubPool(StubFactory<T> factory, int maxIdle) {
+        if (maxIdle <= 0) {
+            throw new IllegalArgumentException("maxIdle must be positive");
+        }
+        this.factory = factory;
+        this.idle = new LinkedBlockingDeque<T>(maxIdle);
+    }
+
+    /**
+     * Get a stub from the pool, creating one if no stub is idle.
+     *
+     * @return a stub, which must be passed to {@link #returnStub(Stub)} or
+     *         {@link #invalidateStub(Stub)} when the caller is done with it
+     * @throws AxisFault if a stub cannot be created
+     */
+    public T borrowStub() throws AxisFault {
+        if (closed) {
+            throw new IllegalStateException("The pool is closed");
+        }
+        // Most recently used first, so that rarely needed stubs are the ones which go
+        T stub = idle.pollFirst();
+        if (stub == null) {
+            stub = factory.createStub();
+            created.incrementAndGet();
+        }
+        return stub;
+    }
+
+    /**
+     * Make a stub available to other callers.  Resources held by the transport for the last
+     * invocation are released first.
+     *
+     * @param stub a stub obtained from {@link #borrowStub()}
+     */
+    public void returnStub(T stub) {
+        try {
+            stub._getServiceClient().cleanupTransport();
+        } catch (AxisFault e) {
+            log.debug("Unable to clean up the transport of a returned stub", e);
+            invalidateStub(stub);
+            return;
+        }
+        if (closed || !idle.offerFirst(stub)) {
+            invalidateStub(stub);
+        }
+    }
+
+    /**
+     * Clean up a stub instead of returning it to the pool, e.g. because its last invocation
+     * failed in a way that leaves it unusable.
+     *
+     * @param stub a stub obtained from {@link #borrowStub()}
+     */
+    public void invalidateStub(T stub) {
+        destroyed.incrementAndGet();
+        try {
+            stub.cleanup();
+        } catch (AxisFault e) {
+            log.debug("Unable to clean up a stub", e);
+        }
+    }
+
+    /**
+     * Clean up all idle stubs.  Stubs which are returned afterwards are cleaned up as well.
+     */
+    public void close() {
+        closed = true;
+        T stub;
+        while ((stub = idle.pollFirst()) != null) {
+            invalidateStub(stub);
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return the number of stubs created by the pool so far
+     */
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    /**
+     * @return the number of stubs cleaned up by the pool so far
+     */
+    public long getDestroyedCount() {
+        return destroyed.get();
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client.async;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.i18n.Messages;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The result of an asynchronous invocation.  In addition to the blocking {@link Future} methods,
+ * listeners can be attached which are notified as soon as the result is available, and futures
+ * can be {@link #transform(Transformer) transformed} and {@link #allOf(List) combined}, so that
+ * many invocations can be started in parallel and their results collected without callbacks
+ * or latches written by hand.
+ * <p/>
+ * Cancelling a future, or letting it {@link #setTimeout(long) time out}, runs its
+ * cancellation handler, which releases whatever the pending invocation holds on to (e.g. the
+ * callback waiting for the response).  A response which arrives afterwards is discarded.
+ * <p/>
+ * Listeners are called by the thread which completes the future, which is usually a transport
+ * thread; they should not block.
+ *
+ * @param <V> the type of the result
+ */
+public class AxisFuture<V> implements Future<V> {
+
+    private static final Log log = LogFactory.getLog(AxisFuture.class);
+
+    /**
+     * Receives the outcome of a future.
+     */
+    public interface Listener<V> {
+        void onSuccess(V result);
+
+        void onFailure(Throwable cause);
+    }
+
+    /**
+     * Converts the result of a future.
+     */
+    public interface Transformer<S, T> {
+        T transform(S source) throws Exception;
+    }
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private static ScheduledThreadPoolExecutor timer;
+
+    private int state = PENDING;
+    private V result;
+    private Throwable cause;
+    private List<Listener<? super V>> listeners;
+    private Runnable cancellationHandler;
+    private ScheduledFuture<?> timeoutTask;
+
+    /**
+     * Complete the future with a result.
+     *
+     * @param result the result
+     * @return false if the future had already been completed, failed or cancelled
+     */
+    public boolean complete(V result) {
+        return finish(SUCCEEDED, result, null);
+    }
+
+    /**
+     * Complete the future with a failure.
+     *
+     * @param cause the reason of the failure
+     * @return false if the future had already been completed, failed or cancelled
+     */
+    public boolean fail(Throwable cause) {
+        return finish(FAILED, null, cause);
+    }
+
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!finish(CANCELLED, null, new CancellationException())) {
+            return false;
+        }
+        runCancellationHandler();
+        return true;
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public synchronized boolean isDone() {
+        return state != PENDING;
+    }
+
+    public synchronized V get() throws InterruptedException, ExecutionException {
+        while (state == PENDING) {
+            wait();
+        }
+        return report();
+    }
+
+    public synchronized V get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (state == PENDING) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return report();
+    }
+
+    private V report() throws ExecutionException {
+        switch (state) {
+            case SUCCEEDED:
+                return result;
+            case CANCELLED:
+                throw new CancellationException();
+            default:
+                throw new ExecutionException(cause);
+        }
+    }
+
+    /**
+     * Add a listener.  If the future is already done, the listener is notified immediately
+     * by the calling thread.  A cancelled future reports a {@link CancellationException}.
+     *
+     * @param listener the listener
+     * @return this future
+     */
+    public AxisFuture<V> addListener(Listener<? super V> listener) {
+        synchronized (this) {
+            if (state == PENDING) {
+                if (listeners == null) {
+                    listeners = new ArrayList<Listener<? super V>>(2);
+                }
+                listeners.add(listener);
+                return this;
+            }
+        }
+        notifyListener(listener);
+        return this;
+    }
+
+    /**
+     * Set the action which releases the resources of the pending invocation when the future is
+     * cancelled or times out.  It is not run when the future completes normally.
+     *
+     * @param handler the cancellation handler
+     */
+    public void setCancellationHandler(Runnable handler) {
+        boolean runNow;
+        synchronized (this) {
+            cancellationHandler = handler;
+            runNow = state == CANCELLED;
+        }
+        if (runNow) {
+            runCancellationHandler();
+        }
+    }
+
+    /**
+     * Fail the future with a timeout fault if it is not done within the given time.  The
+     * cancellation handler is run when that happens.
+     *
+     * @param timeoutInMilliSeconds the timeout; not positive values disable the timeout
+     */
+    public void setTimeout(long timeoutInMilliSeconds) {
+        if (timeoutInMilliSeconds <= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (state != PENDING) {
+                return;
+            }
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+            }
+            timeoutTask = getTimer().schedule(new Runnable() {
+                public void run() {
+                    if (fail(new AxisFault(Messages.getMessage("responseTimeOut")))) {
+                        runCancellationHandler();
+                    }
+                }
+            }, timeoutInMilliSeconds, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Create a future for the transformed result of this future.  Failures are passed on
+     * unchanged, and cancelling the returned future cancels this one.
+     *
+     * @param transformer converts the result; an exception thrown by it fails the returned future
+     * @return the future of the transformed result
+     */
+    public <T> AxisFuture<T> transform(final Transformer<? super V, ? extends T> transformer) {
+        final AxisFuture<T> target = new AxisFuture<T>();
+        target.setCancellationHandler(new Runnable() {
+            public void run() {
+                cancel(false);
+            }
+        });
+        addListener(new Listener<V>() {
+            public void onSuccess(V result) {
+                T transformed;
+                try {
+                    transformed = transformer.transform(result);
+                } catch (Exception e) {
+                    target.fail(e);
+                    return;
+                }
+                target.complete(transformed);
+            }
+
+            public void onFailure(Throwable cause) {
+                if (cause instanceof CancellationException) {
+                    target.cancel(false);
+                } else {
+                    target.fail(cause);
+                }
+            }
+        });
+        return target;
+    }
+
+    /**
+     * Combine futures into one which completes with all their results, in the given order, once
+     * all of them have completed.  The combined future fails as soon as one of them fails, and
+     * cancelling it cancels those which are still pending.
+     *
+     * @param futures the futures to combine
+     * @return the future of the list of results
+     */
+    public static <V> AxisFuture<List<V>> allOf(final List<? extends AxisFuture<? extends V>> futures) {
+        final AxisFuture<List<V>> combined = new AxisFuture<List<V>>();
+        final int count = futures.size();
+        if (count == 0) {
+            combined.complete(Collections.<V>emptyList());
+            return combined;
+        }
+        final Object[] results = new Object[count];
+        final AtomicInteger remaining = new AtomicInteger(count);
+        combined.setCancellationHandler(new Runnable() {
+            public void run() {
+                for (AxisFuture<? extends V> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            futures.get(i).addListener(new Listener<V>() {
+                @SuppressWarnings("unchecked")
+                public void onSuccess(V result) {
+                    results[index] = result;
+                    if (remaining.decrementAndGet() == 0) {
+                        combined.complete((List<V>) Arrays.asList(results));
+                    }
+                }
+
+                public void onFailure(Throwable cause) {
+                    combined.fail(cause);
+                }
+            });
+        }
+        return combined;
+    }
+
+    private boolean finish(int newState, V result, Throwable cause) {
+        List<Listener<? super V>> toNotify;
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+            this.state = newState;
+            this.result = result;
+            this.cause = cause;
+            toNotify = listeners;
+            listeners = null;
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+                timeoutTask = null;
+            }
+            notifyAll();
+        }
+        if (toNotify != null) {
+            for (Listener<? super V> listener : toNotify) {
+                notifyListener(listener);
+            }
+        }
+        return true;
+    }
+
+    private void notifyListener(Listener<? super V> listener) {
+        V result;
+        Throwable cause;
+        synchronized (this) {
+            result = this.result;
+            cause = state == SUCCEEDED ? null : this.cause;
+        }
+        try {
+            if (cause == null) {
+                listener.onSuccess(result);
+            } else {
+                listener.onFailure(cause);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Listener " + listener + " failed", e);
+        }
+    }
+
+    private void runCancellationHandler() {
+        Runnable handler;
+        synchronized (this) {
+            handler = cancellationHandler;
+            cancellationHandler = null;
+        }
+        if (handler != null) {
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                log.warn("Unable to release the resources of a cancelled invocation", e);
+            }
+        }
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getTimer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "axis2-future-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            timer.setRemoveOnCancelPolicy(true);
+        }
+        return timer;
+    }
+}
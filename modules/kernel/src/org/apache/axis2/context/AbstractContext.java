@@ -354,6 +354,7 @@ public abstract class AbstractContext {
     public void setProperties(Map<String, Object> properties) {
         if (properties == null) {
             this.properties = null;
+            propertiesReplaced();
         } else {
             Boolean copyProperties = ((Boolean) properties.get(COPY_PROPERTIES));
 
@@ -371,12 +372,13 @@ public abstract class AbstractContext {
                         }
                     }
                 }
-                // The Map we got argument is probably NOT an instance of the Concurrent 
+                // The Map we got argument is probably NOT an instance of the 
                 // map we use to store properties, so create a new one using the values from the
                 // argument map.
                 while (true) {
                     try {
-                        this.properties = new HashMap(properties);
+                        this.properties = new ContextPropertyMap(properties, hasSharedProperties());
+                        propertiesReplaced();
                         break;
                     } catch (ConcurrentModificationException cme) {
                     }
@@ -479,10 +481,43 @@ public abstract class AbstractContext {
      */
     private void initPropertiesMap() {
         if (properties == null) {
-            // This needs to be a concurrent collection to prevent ConcurrentModificationExcpetions
-            // for async-on-the-wire.  It was originally: 
+            // This was originally:
 //            properties = new HashMap(DEFAULT_MAP_SIZE);
-            properties = new HashMap<String,Object>(DEFAULT_MAP_SIZE);
+            properties = new ContextPropertyMap(hasSharedProperties());
+            propertiesReplaced();
         }
     }
+
+    /**
+     * Invalidate the cached properties of the shared contexts if the property map of this
+     * context has been replaced. This must be called after every assignment to
+     * {@link #properties}.
+     */
+    void propertiesReplaced() {
+        if (hasSharedProperties()) {
+            ContextPropertyMap.sharedPropertiesChanged();
+        }
+    }
+
+    /**
+     * Indicates whether this context is shared by many messages, i.e. is a service, service
+     * group or configuration context. The properties of shared contexts are cached by the
+     * MessageContexts looking them up.
+     *
+     * @return true if this is a shared context
+     */
+    boolean hasSharedProperties() {
+        return false;
+    }
+
+    /**
+     * @return true if property reads and writes must be recorded for replication
+     */
+    boolean isClusteringOn() {
+        if(!isClusteringCheckDone) {
+            isClusteringCheckDone = true;
+            isClusteringOn = needPropertyDifferences();
+        }
+        return isClusteringOn;
+    }
 }
@@ -39,7 +39,9 @@ import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.java.security.AccessController;
 import org.apache.axis2.modules.Module;
 import org.apache.axis2.util.JavaUtils;
+import org.apache.axis2.util.Loader;
 import org.apache.axis2.util.OnDemandLogger;
+import org.apache.axis2.util.threadpool.ExecutorProvider;
 import org.apache.axis2.util.threadpool.ThreadFactory;
 import org.apache.axis2.util.threadpool.ThreadPool;
 
@@ -47,7 +49,6 @@ import java.io.File;
 import java.net.URL;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -71,10 +72,13 @@ public class ConfigurationContext extends AbstractContext {
     private static final OnDemandLogger log = new OnDemandLogger(ConfigurationContext.class);
     /** Map containing <code>MessageID</code> to <code>OperationContext</code> mapping. */
     private final ConcurrentHashMap<String, OperationContext> operationContextMap = new ConcurrentHashMap<String, OperationContext>();
-    private final Hashtable<String, ServiceGroupContext> serviceGroupContextMap = new Hashtable<String, ServiceGroupContext>();
+    private final ConcurrentHashMap<String, ServiceGroupContext> serviceGroupContextMap = new ConcurrentHashMap<String, ServiceGroupContext>();
+    private final ServiceGroupContextExpiry serviceGroupContextExpiry;
     private Hashtable<String, ServiceGroupContext> applicationSessionServiceGroupContexts = new Hashtable<String, ServiceGroupContext>();
     private AxisConfiguration axisConfiguration;
     private ThreadFactory threadPool;
+    private ExecutorProvider executorProvider;
+    private boolean executorProviderLoaded;
     //To keep TransportManager instance
     private ListenerManager listenerManager;
 
@@ -98,6 +102,8 @@ public class ConfigurationContext extends AbstractContext {
         super(null);
         this.axisConfiguration = axisConfiguration;
         initConfigContextTimeout(axisConfiguration);
+        serviceGroupContextExpiry = new ServiceGroupContextExpiry(serviceGroupContextMap,
+                Math.max(10, serviceGroupContextTimeoutInterval / 64), System.currentTimeMillis());
     }
 
     private void initConfigContextTimeout(AxisConfiguration axisConfiguration) {
@@ -363,6 +369,8 @@ public class ConfigurationContext extends AbstractContext {
         serviceGroupContextMap.put(id, serviceGroupContext);
         serviceGroupContext.touch();
         serviceGroupContext.setParent(this);
+        serviceGroupContextExpiry.schedule(serviceGroupContext,
+                getServiceGroupContextTimeoutInterval());
         // this is the best time to clean up the SGCtxts since are not being used anymore
         cleanupServiceGroupContexts();
     }
@@ -596,12 +604,39 @@ public class ConfigurationContext extends AbstractContext {
      */
     public ThreadFactory getThreadPool() {
         if (threadPool == null) {
-            threadPool = new ThreadPool();
+            ExecutorProvider executorProvider = getExecutorProvider();
+            threadPool = executorProvider == null ? new ThreadPool()
+                    : new ThreadPool(executorProvider);
         }
 
         return threadPool;
     }
 
+    /**
+     * Returns the {@link ExecutorProvider} configured with the
+     * {@link Constants.Configuration#EXECUTOR_PROVIDER} parameter. Components that create
+     * their own thread pools use it, if available, instead of their default pools.
+     *
+     * @return the executor provider, or null if none is configured
+     */
+    public synchronized ExecutorProvider getExecutorProvider() {
+        if (!executorProviderLoaded) {
+            executorProviderLoaded = true;
+            Parameter parameter = axisConfiguration == null ? null
+                    : axisConfiguration.getParameter(Constants.Configuration.EXECUTOR_PROVIDER);
+            if (parameter != null && parameter.getValue() != null) {
+                String className = ((String)parameter.getValue()).trim();
+                try {
+                    executorProvider = (ExecutorProvider)Loader.loadClass(className).newInstance();
+                } catch (Exception e) {
+                    log.error("Unable to instantiate ExecutorProvider " + className
+                            + "; using the default thread pools", e);
+                }
+            }
+        }
+        return executorProvider;
+    }
+
     /**
      * Set the AxisConfiguration to the specified configuration
      *
@@ -639,24 +674,16 @@ public class ConfigurationContext extends AbstractContext {
         cleanupServiceContexts(serviceGroupContext);
     }
 
+    /**
+     * Remove the SOAP session ServiceGroupContexts that have timed out. This only processes
+     * the contexts that are due since the last call, and returns immediately if another
+     * thread is already doing so.
+     */
     private void cleanupServiceGroupContexts() {
-        if (serviceGroupContextMap == null) {
-            return;
-        }
-        long currentTime = new Date().getTime();
-
-        synchronized (serviceGroupContextMap) {
-            for (Iterator<String> sgCtxtMapKeyIter = serviceGroupContextMap.keySet().iterator();
-                 sgCtxtMapKeyIter.hasNext();) {
-                String sgCtxtId = sgCtxtMapKeyIter.next();
-                ServiceGroupContext serviceGroupContext =serviceGroupContextMap.get(sgCtxtId);
-                if ((currentTime - serviceGroupContext.getLastTouchedTime()) >
-                    getServiceGroupContextTimeoutInterval()) {
-                    sgCtxtMapKeyIter.remove();
-                    cleanupServiceContexts(serviceGroupContext);
-                    contextRemoved(serviceGroupContext);
-                }
-            }
+        for (ServiceGroupContext serviceGroupContext : serviceGroupContextExpiry.expire(
+                System.currentTimeMillis(), getServiceGroupContextTimeoutInterval())) {
+            cleanupServiceContexts(serviceGroupContext);
+            contextRemoved(serviceGroupContext);
         }
     }
 
@@ -710,6 +737,7 @@ public class ConfigurationContext extends AbstractContext {
                 cleanupServiceContexts(serviceGroupContext);
             }
             serviceGroupContextMap.clear();
+            serviceGroupContextExpiry.clear();
         }
     }
     /**
@@ -951,6 +979,10 @@ public class ConfigurationContext extends AbstractContext {
         }
     }
 
+    boolean hasSharedProperties() {
+        return true;
+    }
+
     /* (non-Javadoc)
      * @see org.apache.axis2.context.AbstractContext#getRootContext()
      */
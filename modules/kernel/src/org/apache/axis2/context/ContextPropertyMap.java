@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The property map of the contexts. Properties with a key registered in {@link PropertyKeys}
+ * are stored in an array indexed by the slot of the key; other properties are stored in a
+ * hash map that is only created when needed.
+ * <p>
+ * The maps of the contexts shared by many messages (service, service group and configuration
+ * contexts) increment a global version on every change, which lets a MessageContext cache
+ * the properties it looks up in them. This also covers changes made through the map returned
+ * by {@link AbstractContext#getProperties()}.
+ * <p>
+ * Like the HashMap used before, this map is not synchronized.
+ */
+final class ContextPropertyMap extends AbstractMap<String, Object> {
+    /** Marks a slot holding a null value, which is different from an empty slot */
+    private static final Object NULL = new Object();
+
+    private static final AtomicInteger sharedVersion = new AtomicInteger();
+
+    private final boolean shared;
+    private Object[] slots;
+    private int slotCount;
+    private Map<String, Object> others;
+    private transient Set<Entry<String, Object>> entrySet;
+
+    /**
+     * @param shared true if the map belongs to a context shared by many messages
+     */
+    ContextPropertyMap(boolean shared) {
+        this.shared = shared;
+    }
+
+    ContextPropertyMap(Map<String, Object> map, boolean shared) {
+        this.shared = shared;
+        putAll(map);
+    }
+
+    /**
+     * @return a version number that changes whenever the properties of a shared context change
+     */
+    static int getSharedVersion() {
+        return sharedVersion.get();
+    }
+
+    /**
+     * Invalidate the cached properties of the shared contexts, e.g. because the property map
+     * of a shared context has been replaced. This must be called after the change.
+     */
+    static void sharedPropertiesChanged() {
+        sharedVersion.incrementAndGet();
+    }
+
+    private void changed() {
+        if (shared) {
+            sharedVersion.incrementAndGet();
+        }
+    }
+
+    private static int slotOf(Object key) {
+        return key instanceof String ? PropertyKeys.slotOf((String) key) : -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            Object[] slots = this.slots;
+            if (slots == null) {
+                return null;
+            }
+            Object value = slots[slot];
+            return value == NULL ? null : value;
+        }
+        return others == null ? null : others.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            Object[] slots = this.slots;
+            return slots != null && slots[slot] != null;
+        }
+        return others != null && others.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        try {
+            int slot = slotOf(key);
+            if (slot >= 0) {
+                if (slots == null) {
+                    slots = new Object[PropertyKeys.size()];
+                }
+                Object previous = slots[slot];
+                slots[slot] = value == null ? NULL : value;
+                if (previous == null) {
+                    slotCount++;
+                    return null;
+                }
+                return previous == NULL ? null : previous;
+            }
+            if (others == null) {
+                others = new HashMap<String, Object>();
+            }
+            return others.put(key, value);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        try {
+            int slot = slotOf(key);
+            if (slot >= 0) {
+                if (slots == null) {
+                    return null;
+                }
+                Object previous = slots[slot];
+                if (previous == null) {
+                    return null;
+                }
+                slots[slot] = null;
+                slotCount--;
+                return previous == NULL ? null : previous;
+            }
+            return others == null ? null : others.remove(key);
+        } finally {
+            changed();
+        }
+    }
+
+    @Override
+    public int size() {
+        return slotCount + (others == null ? 0 : others.size());
+    }
+
+    @Override
+    public void clear() {
+        slots = null;
+        slotCount = 0;
+        others = null;
+        changed();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return ContextPropertyMap.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    ContextPropertyMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private final class SlotEntry implements Entry<String, Object> {
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        public String getKey() {
+            return PropertyKeys.keyOf(slot);
+        }
+
+        public Object getValue() {
+            Object value = slots[slot];
+            return value == NULL ? null : value;
+        }
+
+        public Object setValue(Object value) {
+            Object previous = getValue();
+            slots[slot] = value == null ? NULL : value;
+            changed();
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Object value = getValue();
+            return getKey().equals(e.getKey())
+                    && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int nextSlot = -1;
+        private int currentSlot = -1;
+        private Iterator<Entry<String, Object>> othersIterator;
+        private boolean inOthers;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            Object[] slots = ContextPropertyMap.this.slots;
+            int slot = nextSlot + 1;
+            while (slots != null && slot < slots.length && slots[slot] == null) {
+                slot++;
+            }
+            nextSlot = slots != null && slot < slots.length ? slot : -2;
+        }
+
+        public boolean hasNext() {
+            if (nextSlot >= 0) {
+                return true;
+            }
+            if (othersIterator == null && others != null) {
+                othersIterator = others.entrySet().iterator();
+            }
+            return othersIterator != null && othersIterator.hasNext();
+        }
+
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextSlot >= 0) {
+                currentSlot = nextSlot;
+                inOthers = false;
+                advance();
+                return new SlotEntry(currentSlot);
+            }
+            inOthers = true;
+            final Entry<String, Object> entry = othersIterator.next();
+            if (!shared) {
+                return entry;
+            }
+            return new SimpleEntry<String, Object>(entry) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public Object setValue(Object value) {
+                    super.setValue(value);
+                    try {
+                        return entry.setValue(value);
+                    } finally {
+                        changed();
+                    }
+                }
+            };
+        }
+
+        public void remove() {
+            if (inOthers) {
+                othersIterator.remove();
+            } else if (currentSlot >= 0 && slots[currentSlot] != null) {
+                slots[currentSlot] = null;
+                slotCount--;
+                currentSlot = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+            changed();
+        }
+    }
+}
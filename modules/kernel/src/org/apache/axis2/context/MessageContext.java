@@ -54,6 +54,7 @@ import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.description.WSDL2Constants;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.AxisError;
+import org.apache.axis2.engine.ExecutionPlan;
 import org.apache.axis2.engine.Handler;
 import org.apache.axis2.engine.Phase;
 import org.apache.axis2.util.JavaUtils;
@@ -297,6 +298,11 @@ public class MessageContext extends AbstractContext
      */
     private ArrayList<Handler> executionChain;
 
+    /**
+     * Compiled form of the execution chain, if one was supplied for it
+     */
+    private transient ExecutionPlan executionPlan;
+
     /**
      * @serial The chain of executed Handlers/Phases from processing
      */
@@ -433,6 +439,16 @@ public class MessageContext extends AbstractContext
      */
     private transient LinkedHashMap<String, Object> selfManagedDataMap = null;
 
+    /*
+     * Cache of the properties looked up in the shared contexts (service context and above),
+     * indexed by the PropertyKeys slot of the key. It is valid as long as the properties of the
+     * shared contexts don't change and the lookups start from the same shared context.
+     */
+    private transient Object[] sharedPropertyCache;
+    private transient AbstractContext sharedPropertyCacheContext;
+    private transient int sharedPropertyCacheVersion;
+    private static final Object NO_PROPERTY = new Object();
+
     //-------------------------------------------------------------------------
     // MetaData for data to be restored in activate() after readExternal()
     //-------------------------------------------------------------------------
@@ -940,8 +956,11 @@ public class MessageContext extends AbstractContext
             checkActivateWarning("getProperty");
         }
 
+        // Property reads are recorded for replication by AbstractContext.getProperty()
+        boolean useCache = !isClusteringOn();
+
         // search in my own options
-        Object obj = super.getProperty(name);
+        Object obj = useCache ? getHierarchyProperty(this, name) : super.getProperty(name);
         if (obj != null) {
             return obj;
         }
@@ -957,27 +976,91 @@ public class MessageContext extends AbstractContext
         // If the context is already an ancestor, it was checked during
         // the super.getProperty call.  In such cases, the second check
         // is not performed.
+        AbstractContext context = null;
         if (operationContext != null) {
             if (!isAncestor(operationContext)) {
-                obj = operationContext.getProperty(name);
+                context = operationContext;
             }
         } else if (serviceContext != null) {
             if (!isAncestor(serviceContext)) {
-                obj = serviceContext.getProperty(name);
+                context = serviceContext;
             }
         } else if (serviceGroupContext != null) {
             if (!isAncestor(serviceGroupContext)) {
-                obj =  serviceGroupContext.getProperty(name);
+                context = serviceGroupContext;
             }
         } else if (configurationContext != null) {
             if (!isAncestor(configurationContext)) {
-                obj = configurationContext.getProperty(name);
+                context = configurationContext;
             }
         }
+        if (context != null) {
+            obj = useCache ? getHierarchyProperty(context, name) : context.getProperty(name);
+        }
 
         return obj;
     }
 
+    /**
+     * Equivalent to <code>context.getProperty(name)</code> when clustering is off, but the
+     * lookups in the shared contexts are cached.
+     */
+    private Object getHierarchyProperty(AbstractContext context, String name) {
+        while (context != null) {
+            if (context.hasSharedProperties()) {
+                return getSharedProperty(context, name);
+            }
+            Map<String, Object> properties = context.properties;
+            Object obj = properties == null ? null : properties.get(name);
+            if (obj != null) {
+                return obj;
+            }
+            context = context.getParent();
+        }
+        return null;
+    }
+
+    private Object getSharedProperty(AbstractContext context, String name) {
+        int slot = PropertyKeys.slotOf(name);
+        if (slot < 0) {
+            return context.getProperty(name);
+        }
+        // Read the version before the lookup, so that a concurrent change invalidates the cache
+        int version = ContextPropertyMap.getSharedVersion();
+        Object[] cache = sharedPropertyCache;
+        if (cache == null || sharedPropertyCacheContext != context
+                || sharedPropertyCacheVersion != version) {
+            if (!isCacheable(context)) {
+                return context.getProperty(name);
+            }
+            cache = new Object[PropertyKeys.size()];
+            sharedPropertyCache = cache;
+            sharedPropertyCacheContext = context;
+            sharedPropertyCacheVersion = version;
+        }
+        Object obj = cache[slot];
+        if (obj == null) {
+            obj = context.getProperty(name);
+            cache[slot] = obj == null ? NO_PROPERTY : obj;
+            return obj;
+        }
+        return obj == NO_PROPERTY ? null : obj;
+    }
+
+    /**
+     * Changes to the properties of the given context and its ancestors are only tracked if
+     * they are all shared contexts using the default property map.
+     */
+    private static boolean isCacheable(AbstractContext context) {
+        for (; context != null; context = context.getParent()) {
+            if (!context.hasSharedProperties() || (context.properties != null
+                    && !(context.properties instanceof ContextPropertyMap))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Check if a given property is true.  Will return false if the property
      * does not exist or is not an explicit "true" value.
@@ -1336,10 +1419,32 @@ public class MessageContext extends AbstractContext
      */
     public void setExecutionChain(ArrayList<Handler> executionChain) {
         this.executionChain = executionChain;
+        executionPlan = null;
         currentHandlerIndex = -1;
         currentPhaseIndex = 0;
     }
 
+    /**
+     * Get the compiled form of the current execution chain.
+     *
+     * @return the ExecutionPlan for the execution chain, or null if the chain
+     *         has to be executed Phase by Phase
+     */
+    public ExecutionPlan getExecutionPlan() {
+        return executionPlan;
+    }
+
+    /**
+     * Supply a compiled form of the current execution chain.  The plan must have
+     * been compiled from exactly the Phases held by the execution chain, so this
+     * has to be called after {@link #setExecutionChain(ArrayList)}, which clears it.
+     *
+     * @param executionPlan the ExecutionPlan, or null
+     */
+    public void setExecutionPlan(ExecutionPlan executionPlan) {
+        this.executionPlan = executionPlan;
+    }
+
     /**
      * @param reference
      */
@@ -1964,6 +2069,29 @@ public class MessageContext extends AbstractContext
     }
 
 
+    /**
+     * Replace each ExecutionPlan in the executed phases list with the Phases
+     * it was compiled from, so that the entries can be matched up with the
+     * engine's Phases when the message context is restored.
+     *
+     * @param list the executed phases, most recently executed first
+     * @return an equivalent list that only holds Phases and Handlers
+     */
+    private static List<Handler> expandExecutionPlans(LinkedList<Handler> list) {
+        LinkedList<Handler> expanded = new LinkedList<Handler>();
+        for (Handler handler : list) {
+            if (handler instanceof ExecutionPlan) {
+                List<Phase> phases = ((ExecutionPlan) handler).getPhases();
+                for (int i = phases.size() - 1; i >= 0; i--) {
+                    expanded.add(phases.get(i));
+                }
+            } else {
+                expanded.add(handler);
+            }
+        }
+        return expanded;
+    }
+
     /**
      * Flatten the handler list into just unique handler instances
      * including phase instances.
@@ -2475,7 +2603,7 @@ public class MessageContext extends AbstractContext
 
             int execNextIndex = 0;
 
-            Iterator<Handler> iterator = executedPhases.iterator();
+            Iterator<Handler> iterator = expandExecutionPlans(executedPhases).iterator();
 
             while (iterator.hasNext()) {
                 Object obj = iterator.next();
@@ -3410,7 +3538,7 @@ public class MessageContext extends AbstractContext
             log.trace(getLogIDString() +
                       ": readExternal(): About to read properties, marker is: " + marker);
         }
-        properties = in.readMap(new HashMap());
+        properties = in.readMap(new ContextPropertyMap(hasSharedProperties()));
 
 
         //---------------------------------------------------------
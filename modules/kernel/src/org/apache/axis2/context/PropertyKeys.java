@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.AddressingConstants;
+import org.apache.axis2.transport.RequestResponseTransport;
+import org.apache.axis2.transport.http.HTTPConstants;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the property keys that are read and written for most messages. Each registered
+ * key is assigned a fixed slot, so that the property maps of the contexts can store these
+ * properties in an array instead of allocating a hash map entry for each of them.
+ * <p>
+ * The set of keys is fixed when the class is initialized: a key registered later would hide
+ * the values that the existing maps already hold for it outside of the slots. Keys that are
+ * not registered are stored as usual.
+ */
+public final class PropertyKeys {
+    private static final String[] WELL_KNOWN_KEYS = {
+        Constants.Configuration.CHARACTER_SET_ENCODING,
+        Constants.Configuration.MESSAGE_TYPE,
+        Constants.Configuration.CONTENT_TYPE,
+        Constants.Configuration.HTTP_METHOD,
+        Constants.Configuration.TRANSPORT_URL,
+        Constants.Configuration.ENABLE_MTOM,
+        Constants.Configuration.ENABLE_SWA,
+        Constants.OUT_TRANSPORT_INFO,
+        Constants.AXIS_BINDING_OPERATION,
+        Constants.AXIS_BINDING_MESSAGE,
+        Constants.BUILDER,
+        Constants.HTTP_RESPONSE_STATE,
+        Constants.RESPONSE_WRITTEN,
+        Constants.INBOUND_FAULT_OVERRIDE,
+        Constants.FAULT_NAME,
+        MessageContext.TRANSPORT_OUT,
+        MessageContext.TRANSPORT_IN,
+        MessageContext.TRANSPORT_HEADERS,
+        MessageContext.TRANSPORT_ADDR,
+        MessageContext.REMOTE_ADDR,
+        MessageContext.IN_MESSAGE_CONTEXT,
+        MessageContext.CLIENT_API_NON_BLOCKING,
+        RequestResponseTransport.TRANSPORT_CONTROL,
+        RequestResponseTransport.HOLD_RESPONSE,
+        AddressingConstants.WS_ADDRESSING_VERSION,
+        AddressingConstants.DISABLE_ADDRESSING_FOR_OUT_MESSAGES,
+        AddressingConstants.DISABLE_ADDRESSING_FOR_IN_MESSAGES,
+        AddressingConstants.IS_ADDR_INFO_ALREADY_PROCESSED,
+        AddressingConstants.INCLUDE_OPTIONAL_HEADERS,
+        HTTPConstants.HTTP_HEADERS,
+        HTTPConstants.COOKIE_STRING,
+        HTTPConstants.CACHED_HTTP_CLIENT,
+        HTTPConstants.SO_TIMEOUT,
+        HTTPConstants.CONNECTION_TIMEOUT,
+        HTTPConstants.CHUNKED,
+        HTTPConstants.MC_HTTP_STATUS_CODE,
+        HTTPConstants.MC_HTTP_SERVLETREQUEST,
+        HTTPConstants.MC_HTTP_SERVLETRESPONSE,
+        HTTPConstants.MC_HTTP_SERVLETCONTEXT,
+        HTTPConstants.MC_GZIP_REQUEST,
+        HTTPConstants.MC_GZIP_RESPONSE,
+        HTTPConstants.MC_ACCEPT_GZIP,
+        ServiceContext.SERVICE_OBJECT,
+    };
+
+    private static final String[] keys;
+    private static final Map<String, Integer> slots;
+
+    static {
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        for (String key : WELL_KNOWN_KEYS) {
+            if (key != null && !map.containsKey(key)) {
+                map.put(key, map.size());
+            }
+        }
+        String[] keyArray = new String[map.size()];
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            keyArray[entry.getValue()] = entry.getKey();
+        }
+        keys = keyArray;
+        slots = map;
+    }
+
+    private PropertyKeys() {}
+
+    /**
+     * @param key the property key
+     * @return the slot assigned to the key, or -1 if it isn't registered
+     */
+    public static int slotOf(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param slot a slot returned by {@link #slotOf(String)}
+     * @return the key registered for the slot
+     */
+    static String keyOf(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @return the number of registered keys
+     */
+    public static int size() {
+        return slots.size();
+    }
+}
@@ -378,7 +378,8 @@ public class ServiceGroupContext extends AbstractContext
         //---------------------------------------------------------
         // properties
         //---------------------------------------------------------
-        properties = in.readMap(new HashMap());
+        properties = in.readMap(new ContextPropertyMap(hasSharedProperties()));
+        propertiesReplaced();
 
         //---------------------------------------------------------
         // AxisServiceGroup
@@ -509,6 +510,10 @@ public class ServiceGroupContext extends AbstractContext
         }
     }
 
+    boolean hasSharedProperties() {
+        return true;
+    }
+
     public ConfigurationContext getRootContext() {
         //parent of the ServiceGroupContext is the ConfigurationContext
         return (ConfigurationContext) this.getParent();
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel that keeps track of the expiry of the SOAP session
+ * {@link ServiceGroupContext}s of a {@link ConfigurationContext}.
+ * <p>
+ * Each context is placed in the bucket of the tick at which it would expire if it wasn't
+ * touched any more. Touching a context only updates its last touched time; the context stays
+ * in its bucket and is moved to a later bucket when that bucket is processed. Expiring
+ * contexts therefore costs amortized constant time per context and tick, and a sweep never
+ * has to look at the contexts that are not due.
+ * <p>
+ * Sweeps are driven by the callers of {@link #expire(long, long)}. Only one thread sweeps at a
+ * time; concurrent callers return immediately instead of waiting for it.
+ */
+final class ServiceGroupContextExpiry {
+    /** Number of buckets; a multiple of the tick duration beyond this takes several rounds */
+    static final int WHEEL_SIZE = 512;
+
+    private final ConcurrentMap<String, ServiceGroupContext> contexts;
+    private final long tickDuration;
+    private final AtomicReferenceArray<Queue<ServiceGroupContext>> buckets;
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    /** The last tick that has been processed (or is being processed) */
+    private volatile long lastTick;
+
+    /**
+     * @param contexts the SOAP session table, used to detect contexts that were removed
+     * @param tickDuration the resolution of the wheel, in milliseconds
+     * @param now the current time, in milliseconds
+     */
+    ServiceGroupContextExpiry(ConcurrentMap<String, ServiceGroupContext> contexts,
+                              long tickDuration, long now) {
+        this.contexts = contexts;
+        this.tickDuration = tickDuration;
+        this.buckets = new AtomicReferenceArray<Queue<ServiceGroupContext>>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.set(i, new ConcurrentLinkedQueue<ServiceGroupContext>());
+        }
+        this.lastTick = now / tickDuration;
+    }
+
+    /**
+     * Start tracking the given context.
+     *
+     * @param serviceGroupContext a context that has been added to the SOAP session table
+     * @param timeout the session timeout, in milliseconds
+     */
+    void schedule(ServiceGroupContext serviceGroupContext, long timeout) {
+        // Round up, so that a context is never expired before its time
+        long tick = (serviceGroupContext.getLastTouchedTime() + timeout) / tickDuration + 1;
+        // Never add to a bucket that is being or has been processed in this round. If a sweep
+        // swaps the bucket out before the add completes, the context is only seen in the next
+        // round, i.e. it expires late but never early.
+        long minTick = lastTick + 1;
+        if (tick < minTick) {
+            tick = minTick;
+        }
+        buckets.get((int) (tick % WHEEL_SIZE)).add(serviceGroupContext);
+    }
+
+    /**
+     * Process the buckets of all the ticks that have passed since the last sweep. Contexts
+     * that have not been touched within the timeout are removed from the SOAP session table
+     * and returned; the others are moved to the bucket matching their last touched time.
+     *
+     * @param now the current time, in milliseconds
+     * @param timeout the session timeout, in milliseconds
+     * @return the contexts that have been removed from the SOAP session table; empty if there
+     *         are none or if another thread is sweeping
+     */
+    List<ServiceGroupContext> expire(long now, long timeout) {
+        long currentTick = now / tickDuration;
+        if (currentTick <= lastTick || !sweepLock.tryLock()) {
+            return new ArrayList<ServiceGroupContext>(0);
+        }
+        List<ServiceGroupContext> expired = new ArrayList<ServiceGroupContext>();
+        try {
+            long tick = lastTick;
+            // After a full round every bucket has been visited once
+            long endTick = Math.min(currentTick, tick + WHEEL_SIZE);
+            while (tick < endTick) {
+                tick++;
+                lastTick = tick;
+                Queue<ServiceGroupContext> bucket = buckets.getAndSet((int) (tick % WHEEL_SIZE),
+                        new ConcurrentLinkedQueue<ServiceGroupContext>());
+                for (ServiceGroupContext serviceGroupContext : bucket) {
+                    if (contexts.get(serviceGroupContext.getId()) != serviceGroupContext) {
+                        // Removed or replaced in the meantime
+                        continue;
+                    }
+                    if (now - serviceGroupContext.getLastTouchedTime() > timeout) {
+                        if (contexts.remove(serviceGroupContext.getId(), serviceGroupContext)) {
+                            expired.add(serviceGroupContext);
+                        }
+                    } else {
+                        schedule(serviceGroupContext, timeout);
+                    }
+                }
+            }
+            lastTick = currentTick;
+        } finally {
+            sweepLock.unlock();
+        }
+        return expired;
+    }
+
+    /**
+     * Stop tracking all contexts.
+     */
+    void clear() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.set(i, new ConcurrentLinkedQueue<ServiceGroupContext>());
+        }
+    }
+}
@@ -275,7 +275,7 @@ public class SessionContext extends AbstractContext
         //---------------------------------------------------------
         // properties
         //---------------------------------------------------------
-        properties = in.readMap(new HashMap());
+        properties = in.readMap(new ContextPropertyMap(hasSharedProperties()));
 
         //---------------------------------------------------------
         // "nested"
@@ -129,7 +129,9 @@ public class ModuleDeployer extends AbstractDeployer {
         String moduleStatus = "";
         StringWriter errorWriter = new StringWriter();
         try {
-
+            if (!isDirectory && axisConfig.isIndexedArchives()) {
+                deploymentFileData.openArchiveIndex(axisConfig.getNestedJarCacheDir());
+            }
             deploymentFileData.setClassLoader(isDirectory,
                                               axisConfig.getModuleClassLoader(),
                     (File)axisConfig.getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR),
@@ -181,6 +183,7 @@ public class ModuleDeployer extends AbstractDeployer {
             t.printStackTrace(error_ptintWriter);
             moduleStatus = "Error:\n" + errorWriter.toString();
         } finally {
+            deploymentFileData.closeArchiveIndex();
             if (moduleStatus.startsWith("Error:")) {
                 axisConfig.getFaultyModules().put(DeploymentEngine.getAxisServiceName(
                         deploymentFileData.getName()), moduleStatus);
@@ -139,12 +139,15 @@ public class ServiceDeployer extends AbstractDeployer {
         archiveReader = new ArchiveReader();
         String serviceStatus = "";
         try {
+            if (!isDirectory && axisConfig.isIndexedArchives()) {
+                deploymentFileData.openArchiveIndex(axisConfig.getNestedJarCacheDir());
+            }
             deploymentFileData.setClassLoader(isDirectory,
                                               axisConfig.getServiceClassLoader(),
                     (File)axisConfig.getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR),
                     axisConfig.isChildFirstClassLoading());
             OMElement serviceMetaData = archiveReader.buildServiceDescription(
-                    deploymentFileData.getAbsolutePath(), configCtx, isDirectory);
+                    deploymentFileData, configCtx, isDirectory);
             deploymentFileData.setServiceMetaData(serviceMetaData);
             Map<String, AxisService> serviceMap = executeServiceBuilderExtensions(
                   deploymentFileData, configCtx);        
@@ -232,6 +235,7 @@ public class ServiceDeployer extends AbstractDeployer {
             throw new DeploymentException(new Exception(t));
 
         } finally {
+            deploymentFileData.closeArchiveIndex();
             if (serviceStatus.startsWith("Error:")) {
                 axisConfig.getFaultyServices().put(deploymentFileData.getFile().getAbsolutePath(),
                                                    serviceStatus);
@@ -137,7 +137,32 @@ public class ArchiveReader implements DeploymentConstants {
                                          ConfigurationContext configCtx)
             throws AxisFault {
         // get attribute values
-        if (!extractService) {
+        if (!extractService && currentFile.getArchiveIndex() != null) {
+            InputStream in = null;
+            try {
+                in = currentFile.getArchiveIndex().getInputStream(SERVICES_XML);
+                if (in == null) {
+                    throw new DeploymentException(
+                            Messages.getMessage(DeploymentErrorMsgs.SERVICE_XML_NOT_FOUND, filename));
+                }
+                axisServiceGroup.setServiceGroupName(
+                        DescriptionBuilder.getShortFileName(currentFile.getName()));
+                return buildServiceGroup(in, currentFile, axisServiceGroup, wsdlServices,
+                                         configCtx);
+            } catch (DeploymentException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new DeploymentException(e);
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        log.info(Messages.getMessage("errorininputstreamclose"));
+                    }
+                }
+            }
+        } else if (!extractService) {
             ZipInputStream zin = null;
             FileInputStream fin = null;
             try {
@@ -334,6 +359,28 @@ public class ArchiveReader implements DeploymentConstants {
             } catch (XMLStreamException e) {
                 throw new DeploymentException(e);
             }
+        } else if (file.getArchiveIndex() != null) {
+            try {
+                for (ZipEntry entry : file.getArchiveIndex().getEntries()) {
+                    if (isTopLevelWSDL(entry.getName().toLowerCase())) {
+                        InputStream in = file.getArchiveIndex().getInputStream(entry);
+                        try {
+                            processArchivedWSDL(readFully(in), entry.getName(), serviceFile,
+                                                servicesMap);
+                        } finally {
+                            try {
+                                in.close();
+                            } catch (IOException e) {
+                                log.info(e);
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new DeploymentException(e);
+            } catch (XMLStreamException e) {
+                throw new DeploymentException(e);
+            }
         } else {
             ZipInputStream zin;
             FileInputStream fin;
@@ -344,64 +391,10 @@ public class ArchiveReader implements DeploymentConstants {
                 //TODO Check whether this WSDL is empty
 
                 ZipEntry entry;
-                byte[] buf = new byte[1024];
-                int read;
-                ByteArrayOutputStream out;
                 while ((entry = zin.getNextEntry()) != null) {
-                    String entryName = entry.getName().toLowerCase();
-                    if (entryName.startsWith(META_INF.toLowerCase())
-                        && entryName.endsWith(SUFFIX_WSDL)) {
-                        out = new ByteArrayOutputStream();
-
-                        // we do not want to generate the services for the
-                        // imported wsdl of one file.
-                        if ((entryName.indexOf("/") != entryName.lastIndexOf("/"))
-                            || (entryName.indexOf("wsdl_") != -1)) {
-                            //only care abt the toplevel wsdl
-                            continue;
-                        }
-
-                        while ((read = zin.read(buf)) > 0) {
-                            out.write(buf, 0, read);
-                        }
-
-                        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
-
-                        // now the question is which version of WSDL file this archive contains.
-                        // lets check the namespace of the root element and decide. But since we are
-                        // using axiom (dude, you are becoming handy here :)), we will not build the
-                        // whole thing.
-                        OMNamespace documentElementNS =
-                                ((OMElement) XMLUtils.toOM(in)).getNamespace();
-                        if (documentElementNS != null) {
-                            WSDLToAxisServiceBuilder wsdlToAxisServiceBuilder;
-                            if (WSDL2Constants.WSDL_NAMESPACE
-                                    .equals(documentElementNS.getNamespaceURI())) {
-                                // we have a WSDL 2.0 document here.
-                                wsdlToAxisServiceBuilder = new WSDL20ToAllAxisServicesBuilder(
-                                        new ByteArrayInputStream(out.toByteArray()));
-                                wsdlToAxisServiceBuilder.setBaseUri(entryName);
-                            } else if (Constants.NS_URI_WSDL11.
-                                    equals(documentElementNS.getNamespaceURI())) {
-                                wsdlToAxisServiceBuilder = new WSDL11ToAllAxisServicesBuilder(
-                                        new ByteArrayInputStream(out.toByteArray()));
-                                ((WSDL11ToAxisServiceBuilder) wsdlToAxisServiceBuilder).setDocumentBaseUri(entryName);
-                            } else {
-                                throw new DeploymentException(Messages.getMessage("invalidWSDLFound"));
-                            }
-                            List<AxisService> services = processWSDLFile(wsdlToAxisServiceBuilder,
-                                                            serviceFile, true,
-                                                            new ByteArrayInputStream(
-                                                                    out.toByteArray()),
-                                                            entry.getName());
-                            if (services != null) {
-                                for (AxisService axisService : services) {
-                                    if (axisService != null) {
-                                        servicesMap.put(axisService.getName(), axisService);
-                                    }
-                                }
-                            }
-                        }
+                    if (isTopLevelWSDL(entry.getName().toLowerCase())) {
+                        processArchivedWSDL(readFully(zin), entry.getName(), serviceFile,
+                                            servicesMap);
                     }
                 }
                 try {
@@ -425,6 +418,67 @@ public class ArchiveReader implements DeploymentConstants {
         return servicesMap;
     }
 
+    private boolean isTopLevelWSDL(String entryName) {
+        // we do not want to generate the services for the
+        // imported wsdl of one file.
+        return entryName.startsWith(META_INF.toLowerCase())
+               && entryName.endsWith(SUFFIX_WSDL)
+               && entryName.indexOf("/") == entryName.lastIndexOf("/")
+               && entryName.indexOf("wsdl_") == -1;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int read;
+        while ((read = in.read(buf)) > 0) {
+            out.write(buf, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private void processArchivedWSDL(byte[] wsdl, String name, File serviceFile,
+                                     HashMap<String, AxisService> servicesMap)
+            throws XMLStreamException, DeploymentException {
+        String entryName = name.toLowerCase();
+        ByteArrayInputStream in = new ByteArrayInputStream(wsdl);
+
+        // now the question is which version of WSDL file this archive contains.
+        // lets check the namespace of the root element and decide. But since we are
+        // using axiom (dude, you are becoming handy here :)), we will not build the
+        // whole thing.
+        OMNamespace documentElementNS =
+                ((OMElement) XMLUtils.toOM(in)).getNamespace();
+        if (documentElementNS != null) {
+            WSDLToAxisServiceBuilder wsdlToAxisServiceBuilder;
+            if (WSDL2Constants.WSDL_NAMESPACE
+                    .equals(documentElementNS.getNamespaceURI())) {
+                // we have a WSDL 2.0 document here.
+                wsdlToAxisServiceBuilder = new WSDL20ToAllAxisServicesBuilder(
+                        new ByteArrayInputStream(wsdl));
+                wsdlToAxisServiceBuilder.setBaseUri(entryName);
+            } else if (Constants.NS_URI_WSDL11.
+                    equals(documentElementNS.getNamespaceURI())) {
+                wsdlToAxisServiceBuilder = new WSDL11ToAllAxisServicesBuilder(
+                        new ByteArrayInputStream(wsdl));
+                ((WSDL11ToAxisServiceBuilder) wsdlToAxisServiceBuilder).setDocumentBaseUri(entryName);
+            } else {
+                throw new DeploymentException(Messages.getMessage("invalidWSDLFound"));
+            }
+            List<AxisService> services = processWSDLFile(wsdlToAxisServiceBuilder,
+                                            serviceFile, true,
+                                            new ByteArrayInputStream(wsdl),
+                                            name);
+            if (services != null) {
+                for (AxisService axisService : services) {
+                    if (axisService != null) {
+                        servicesMap.put(axisService.getName(), axisService);
+                    }
+                }
+            }
+        }
+    }
+
     public List<AxisService> getAxisServiceFromWsdl(InputStream in,
                                        ClassLoader loader, String wsdlUrl) throws Exception {
 //         ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
@@ -535,7 +589,34 @@ public class ArchiveReader implements DeploymentConstants {
         // get attribute values
         boolean moduleXMLFound = false;
         String shortFileName = DescriptionBuilder.getShortFileName(deploymentFile.getName());
-        if (!explodedDir) {
+        if (!explodedDir && deploymentFile.getArchiveIndex() != null) {
+            InputStream in = null;
+            try {
+                in = deploymentFile.getArchiveIndex().getInputStream(MODULE_XML);
+                if (in == null) {
+                    throw new DeploymentException(
+                            Messages.getMessage(
+                                    DeploymentErrorMsgs.MODULE_XML_MISSING,
+                                    deploymentFile.getAbsolutePath()));
+                }
+                ModuleBuilder builder = new ModuleBuilder(in, module, axisConfig);
+                // setting module name and version
+                module.setArchiveName(shortFileName);
+                builder.populateModule();
+            } catch (DeploymentException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new DeploymentException(e);
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        log.info(Messages.getMessage("errorininputstreamclose"));
+                    }
+                }
+            }
+        } else if (!explodedDir) {
             ZipInputStream zin;
             FileInputStream fin;
             try {
@@ -606,6 +687,44 @@ public class ArchiveReader implements DeploymentConstants {
 
     }
 
+    /**
+     * Builds the services.xml of the given deployment file.  If the archive of the file has been
+     * indexed, the descriptor is read through the index instead of scanning the archive again.
+     *
+     * @param file           the deployment file
+     * @param configCtx      the configuration context
+     * @param extractService true if the file is an exploded directory
+     * @return the root element of the services.xml
+     * @throws AxisFault if the descriptor cannot be found or parsed
+     */
+    public OMElement buildServiceDescription(DeploymentFileData file,
+            ConfigurationContext configCtx, boolean extractService) throws AxisFault {
+        if (extractService || file.getArchiveIndex() == null) {
+            return buildServiceDescription(file.getAbsolutePath(), configCtx, extractService);
+        }
+        InputStream in = null;
+        try {
+            in = file.getArchiveIndex().getInputStream(SERVICES_XML);
+            if (in == null) {
+                throw new DeploymentException(Messages.getMessage(
+                        DeploymentErrorMsgs.SERVICE_XML_NOT_FOUND, file.getAbsolutePath()));
+            }
+            return buildServiceDescription(in, configCtx);
+        } catch (DeploymentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DeploymentException(e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    log.info(Messages.getMessage("errorininputstreamclose"));
+                }
+            }
+        }
+    }
+
     public OMElement buildServiceDescription(String filename, ConfigurationContext configCtx,
             boolean extractService) throws AxisFault {
         InputStream in = null;
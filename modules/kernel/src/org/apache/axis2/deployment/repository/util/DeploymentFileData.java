@@ -24,10 +24,12 @@ import org.apache.axis2.AxisFault;
 import org.apache.axis2.deployment.Deployer;
 import org.apache.axis2.deployment.DeploymentErrorMsgs;
 import org.apache.axis2.deployment.DeploymentException;
+import org.apache.axis2.deployment.util.ArchiveIndex;
 import org.apache.axis2.deployment.util.Utils;
 import org.apache.axis2.i18n.Messages;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 
 /**
@@ -40,6 +42,8 @@ public class DeploymentFileData {
     private Deployer deployer;
     private URL url;
     private Object serviceMetaData;
+    private ArchiveIndex archiveIndex;
+    private File jarCacheDir;
 
     public URL getUrl() {
         return url;
@@ -123,7 +127,12 @@ public class DeploymentFileData {
                         throw new AxisFault(Messages.getMessage(DeploymentErrorMsgs.FILE_NOT_FOUND,
                                                                 this.file.getAbsolutePath()));
                     }
-                    classLoader = Utils.createClassLoader(this.file.toURI().toURL(), null, parent, file, isChildFirstClassLoading);
+                    if (archiveIndex != null) {
+                        classLoader = Utils.createClassLoader(archiveIndex, jarCacheDir, parent,
+                                                              isChildFirstClassLoading);
+                    } else {
+                        classLoader = Utils.createClassLoader(this.file.toURI().toURL(), null, parent, file, isChildFirstClassLoading);
+                    }
                 } catch (Exception e) {
                     throw AxisFault.makeFault(e);
                 }
@@ -135,6 +144,40 @@ public class DeploymentFileData {
         }
     }
 
+    /**
+     * Index the archive, so that the class loader and the descriptors are set up from a single
+     * read of its central directory.  The index must be released with
+     * {@link #closeArchiveIndex()} once the file has been deployed.
+     *
+     * @param jarCacheDir the directory the nested jars of the archive are extracted into
+     * @throws DeploymentException if the archive cannot be opened
+     */
+    public void openArchiveIndex(File jarCacheDir) throws DeploymentException {
+        if (archiveIndex != null || file == null || file.isDirectory()) {
+            return;
+        }
+        try {
+            archiveIndex = new ArchiveIndex(file);
+            this.jarCacheDir = jarCacheDir;
+        } catch (IOException e) {
+            throw new DeploymentException(e);
+        }
+    }
+
+    /**
+     * @return the index of the archive, or null if the archive has not been indexed
+     */
+    public ArchiveIndex getArchiveIndex() {
+        return archiveIndex;
+    }
+
+    public void closeArchiveIndex() {
+        if (archiveIndex != null) {
+            archiveIndex.close();
+            archiveIndex = null;
+        }
+    }
+
     public Deployer getDeployer() {
         return deployer;
     }
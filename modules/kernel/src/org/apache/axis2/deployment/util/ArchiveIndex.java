@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A random access view of a deployment archive.  The central directory of the archive is read
+ * once when the index is created, and descriptors, WSDLs and nested jars are then looked up by
+ * name instead of scanning the whole archive for every one of them.
+ * <p/>
+ * Nested jars (<code>lib/*.jar</code>) are extracted into a cache directory under a name derived
+ * from their size and CRC-32, both of which are taken from the central directory.  A jar which
+ * has already been extracted, by an earlier deployment or by an earlier run of the server, is
+ * reused once its size and CRC-32 have been checked, so an unchanged archive costs no extraction
+ * at all on restart.  Cache directories created by the index are only accessible to their owner.
+ * <p/>
+ * Entry names are matched case insensitively, the same way the descriptors are looked up when
+ * the archive is scanned sequentially.  The index keeps the archive open until it is
+ * {@link #close() closed}.
+ */
+public class ArchiveIndex {
+
+    private static final Log log = LogFactory.getLog(ArchiveIndex.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final ZipFile zipFile;
+
+    /**
+     * The entries of the archive, in archive order, keyed by their lower case name.
+     */
+    private final Map<String, ZipEntry> entries = new LinkedHashMap<String, ZipEntry>();
+    private final List<ZipEntry> nestedJars = new ArrayList<ZipEntry>();
+
+    /**
+     * Open and index the given archive.
+     *
+     * @param file the archive
+     * @throws IOException if the archive cannot be opened or is not a zip file
+     */
+    public ArchiveIndex(File file) throws IOException {
+        this.file = file;
+        this.zipFile = new ZipFile(file);
+        Enumeration<? extends ZipEntry> e = zipFile.entries();
+        while (e.hasMoreElements()) {
+            ZipEntry entry = e.nextElement();
+            String name = entry.getName().toLowerCase(Locale.ENGLISH);
+            if (entries.containsKey(name)) {
+                // The first entry wins, as with a sequential scan
+                continue;
+            }
+            entries.put(name, entry);
+            if (!entry.isDirectory() && name.startsWith("lib/") && name.endsWith(".jar")) {
+                nestedJars.add(entry);
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return all entries of the archive, in archive order
+     */
+    public Collection<ZipEntry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Look up an entry, ignoring the case of its name.
+     *
+     * @param name the name of the entry, e.g. <code>META-INF/services.xml</code>
+     * @return the entry, or null if the archive has no such entry
+     */
+    public ZipEntry getEntry(String name) {
+        return entries.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    public InputStream getInputStream(ZipEntry entry) throws IOException {
+        return zipFile.getInputStream(entry);
+    }
+
+    /**
+     * Open an entry, ignoring the case of its name.
+     *
+     * @param name the name of the entry
+     * @return a stream with the content of the entry, or null if the archive has no such entry
+     * @throws IOException if the entry cannot be read
+     */
+    public InputStream getInputStream(String name) throws IOException {
+        ZipEntry entry = getEntry(name);
+        return entry == null ? null : zipFile.getInputStream(entry);
+    }
+
+    /**
+     * @return the <code>lib/*.jar</code> entries of the archive
+     */
+    public List<ZipEntry> getNestedJars() {
+        return Collections.unmodifiableList(nestedJars);
+    }
+
+    /**
+     * Get the class path of the archive: the archive itself followed by its nested jars.  Nested
+     * jars which are not in the cache directory yet are extracted first.
+     *
+     * @param cacheDir the directory the nested jars are extracted into
+     * @return the URLs of the archive and of the extracted nested jars
+     * @throws IOException if a nested jar cannot be extracted
+     */
+    public URL[] getClassPath(File cacheDir) throws IOException {
+        if (!cacheDir.isDirectory()) {
+            if (cacheDir.mkdirs()) {
+                restrictToOwner(cacheDir);
+            } else if (!cacheDir.isDirectory()) {
+                throw new IOException("Unable to create the directory " + cacheDir);
+            }
+        }
+        List<URL> urls = new ArrayList<URL>(nestedJars.size() + 1);
+        urls.add(file.toURI().toURL());
+        for (ZipEntry entry : nestedJars) {
+            urls.add(extract(entry, cacheDir).toURI().toURL());
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    /**
+     * Get the name under which a nested jar is cached.  Jars with the same name, size and CRC-32
+     * share a single extracted copy.
+     *
+     * @param entry the nested jar
+     * @return the file name of the extracted jar
+     */
+    static String getCacheFileName(ZipEntry entry) {
+        String name = entry.getName();
+        name = name.substring(name.lastIndexOf('/') + 1);
+        name = name.substring(0, name.length() - ".jar".length());
+        return name + "-" + Long.toHexString(entry.getCrc()) + "-" + entry.getSize() + ".jar";
+    }
+
+    /**
+     * Get the default directory the nested jars are extracted into: <code>jar-cache</code> in
+     * the given work directory, or a directory private to the current user in the system
+     * temporary directory.  As the temporary directory is shared, a directory of that name which
+     * is owned by another user, or which other users may write to, is not used; a new private
+     * directory is created instead.
+     *
+     * @param workDir the work directory of the server, or null if there is none
+     * @return the cache directory
+     */
+    public static File getDefaultCacheDir(File workDir) {
+        if (workDir != null) {
+            return new File(workDir, "jar-cache");
+        }
+        File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        File cacheDir = new File(tmpDir, "axis2-jar-cache-" + System.getProperty("user.name"));
+        try {
+            if (!cacheDir.exists()) {
+                return cacheDir;  // created owner-only by getClassPath
+            }
+            if (isPrivate(cacheDir)) {
+                return cacheDir;
+            }
+            log.warn("The jar cache directory " + cacheDir + " is not private to the current"
+                     + " user; using a new directory instead");
+            return Files.createTempDirectory(tmpDir.toPath(), "axis2-jar-cache").toFile();
+        } catch (IOException e) {
+            log.warn("Unable to check the jar cache directory " + cacheDir, e);
+            return cacheDir;
+        }
+    }
+
+    private static boolean isPrivate(File dir) throws IOException {
+        Path path = dir.toPath();
+        PosixFileAttributeView view = Files.getFileAttributeView(path,
+                PosixFileAttributeView.class);
+        if (view == null) {
+            // Not a POSIX file system; the temporary directory is normally per user
+            return dir.isDirectory();
+        }
+        PosixFileAttributes attributes = view.readAttributes();
+        UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        return attributes.isDirectory() && attributes.owner().equals(user)
+                && !attributes.permissions().contains(PosixFilePermission.GROUP_WRITE)
+                && !attributes.permissions().contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    private static void restrictToOwner(File dir) {
+        boolean restricted = dir.setReadable(false, false) && dir.setReadable(true, true)
+                && dir.setWritable(false, false) && dir.setWritable(true, true)
+                && dir.setExecutable(false, false) && dir.setExecutable(true, true);
+        if (!restricted) {
+            log.warn("Unable to restrict the access to " + dir + " to its owner");
+        }
+    }
+
+    /**
+     * Check that an extracted jar has the size and CRC-32 recorded in the archive.
+     */
+    private static boolean isIntact(File target, ZipEntry entry) throws IOException {
+        if (!target.isFile() || target.length() != entry.getSize()) {
+            return false;
+        }
+        if (entry.getCrc() == -1) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(target);
+        try {
+            byte[] buf = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buf)) != -1) {
+                crc.update(buf, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue() == entry.getCrc();
+    }
+
+    private File extract(ZipEntry entry, File cacheDir) throws IOException {
+        File target = new File(cacheDir, getCacheFileName(entry));
+        if (isIntact(target, entry)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Reusing extracted jar " + target + " for " + entry.getName()
+                          + " in " + file);
+            }
+            return target;
+        }
+        if (target.exists() && !target.delete()) {
+            log.warn("Unable to delete the corrupted extracted jar " + target);
+        }
+        // Extract into a private file first, so that concurrent deployments and a crash half
+        // way through never leave a truncated jar under the cached name
+        File tmp = null;
+        InputStream in = zipFile.getInputStream(entry);
+        try {
+            tmp = File.createTempFile("axis2", ".tmp", cacheDir);
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                byte[] buf = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = in.read(buf)) != -1) {
+                    out.write(buf, 0, count);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            if (tmp != null) {
+                tmp.delete();
+            }
+            throw e;
+        } finally {
+            in.close();
+        }
+        if (!tmp.renameTo(target)) {
+            // Either another deployment extracted the same jar in the meantime, or the platform
+            // does not replace existing files on rename
+            tmp.delete();
+            if (!isIntact(target, entry)) {
+                throw new IOException("Unable to extract " + entry.getName() + " to " + target);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Extracted " + entry.getName() + " of " + file + " to " + target);
+        }
+        return target;
+    }
+
+    /**
+     * Close the archive.  Jars which have already been extracted stay in the cache directory.
+     */
+    public void close() {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            log.debug("Unable to close " + file, e);
+        }
+    }
+}
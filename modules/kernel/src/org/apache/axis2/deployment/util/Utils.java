@@ -761,6 +761,36 @@ public class Utils {
                                            isChildFirstClassLoading);
     }
 
+    /**
+     * Create the class loader of an indexed archive.  The nested jars of the archive are taken
+     * from the given cache directory, and only extracted if they are not there yet.
+     *
+     * @param index                    the index of the archive
+     * @param jarCacheDir              the directory the nested jars are extracted into
+     * @param serviceClassLoader       the parent class loader
+     * @param isChildFirstClassLoading true to look up classes in the archive first
+     * @return the class loader
+     * @throws IOException if a nested jar cannot be extracted
+     */
+    public static ClassLoader createClassLoader(final ArchiveIndex index,
+                                                final File jarCacheDir,
+                                                ClassLoader serviceClassLoader,
+                                                boolean isChildFirstClassLoading)
+            throws IOException {
+        URL[] urls;
+        try {
+            urls = org.apache.axis2.java.security.AccessController
+                    .doPrivileged(new PrivilegedExceptionAction<URL[]>() {
+                        public URL[] run() throws IOException {
+                            return index.getClassPath(jarCacheDir);
+                        }
+                    });
+        } catch (PrivilegedActionException e) {
+            throw (IOException)e.getException();
+        }
+        return createDeploymentClassLoader(urls, serviceClassLoader, isChildFirstClassLoading);
+    }
+
     private static DeploymentClassLoader createDeploymentClassLoader(
             final URL[] urls, final ClassLoader serviceClassLoader,
             final boolean isChildFirstClassLoading) {
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.namespace.QName;
 
@@ -52,6 +53,24 @@ public class AxisBinding extends AxisDescription {
 
     private Map<String, AxisBindingMessage> faults;
 
+    /**
+     * Counts the changes which affect the HTTP location router, i.e. changes of the
+     * HTTP location table and of the binding operations.
+     */
+    private final AtomicInteger httpLocationVersion = new AtomicInteger();
+
+    private volatile CompiledRouter httpLocationRouter;
+
+    private static final class CompiledRouter {
+        final HTTPLocationRouter router;
+        final int version;
+
+        CompiledRouter(HTTPLocationRouter router, int version) {
+            this.router = router;
+            this.version = version;
+        }
+    }
+
     public AxisBindingMessage getFault(String name) {
         return (AxisBindingMessage) faults.get(name);
     }
@@ -68,6 +87,55 @@ public class AxisBinding extends AxisDescription {
 
     public void setProperty(String name, Object value) {
         options.put(name, value);
+        if (WSDL2Constants.HTTP_LOCATION_TABLE.equals(name)) {
+            // Compiled on first use, as the binding operations may not have been added yet
+            httpLocationChanged();
+        }
+    }
+
+    public void addChild(AxisDescription child) {
+        super.addChild(child);
+        httpLocationChanged();
+    }
+
+    public void addChild(Object key, AxisDescription child) {
+        super.addChild(key, child);
+        httpLocationChanged();
+    }
+
+    public void removeChild(Object key) {
+        super.removeChild(key);
+        httpLocationChanged();
+    }
+
+    /**
+     * Discard the HTTP location router, so that it is rebuilt on its next use.
+     */
+    void httpLocationChanged() {
+        httpLocationVersion.incrementAndGet();
+    }
+
+    /**
+     * Get the router used to dispatch requests based on the HTTP location of the operations.
+     * The router is built from the {@link WSDL2Constants#HTTP_LOCATION_TABLE} and the
+     * <tt>whttp:location</tt> of the binding operations, and is rebuilt after the table is set
+     * or binding operations are added, removed or given a new location. A table which is changed
+     * in place must be set again for the change to take effect, as the service builders do.
+     *
+     * @return the router, or null if the binding has no HTTP location table
+     */
+    public HTTPLocationRouter getHTTPLocationRouter() {
+        Object table = options.get(WSDL2Constants.HTTP_LOCATION_TABLE);
+        if (!(table instanceof Map)) {
+            return null;
+        }
+        CompiledRouter compiled = httpLocationRouter;
+        int version = httpLocationVersion.get();
+        if (compiled == null || compiled.version != version) {
+            compiled = new CompiledRouter(HTTPLocationRouter.compile(this, (Map)table), version);
+            httpLocationRouter = compiled;
+        }
+        return compiled.router;
     }
 
     /**
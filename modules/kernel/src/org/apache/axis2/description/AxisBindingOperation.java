@@ -87,6 +87,11 @@ public class AxisBindingOperation extends AxisDescription {
 
     public void setProperty(String name, Object value) {
         options.put(name, value);
+        if ((WSDL2Constants.ATTR_WHTTP_LOCATION.equals(name)
+                || WSDL2Constants.ATTR_WHTTP_METHOD.equals(name))
+                && getParent() instanceof AxisBinding) {
+            ((AxisBinding)getParent()).httpLocationChanged();
+        }
     }
 
     public Object getProperty(String name) {
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
@@ -37,7 +38,9 @@ import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.AxisError;
+import org.apache.axis2.engine.ExecutionPlan;
 import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.engine.Phase;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.phaseresolver.PhaseResolver;
 import org.apache.axis2.wsdl.WSDLConstants;
@@ -79,6 +82,11 @@ public abstract class AxisOperation extends AxisDescription
 
     private String soapAction;
 
+    // Compiled forms of the flows, see getInFlowExecutionPlan() etc.
+    private volatile ExecutionPlan inFlowPlan;
+    private volatile ExecutionPlan outFlowPlan;
+    private volatile ExecutionPlan outFaultFlowPlan;
+
 
     /** Default constructor */
     public AxisOperation() {
@@ -363,6 +371,55 @@ public abstract class AxisOperation extends AxisDescription
 
     public abstract ArrayList getRemainingPhasesInFlow();
 
+    /**
+     * Get the compiled form of the operation specific part of the in flow, as executed
+     * after dispatching.  The plan is built on first use and rebuilt whenever the phases
+     * of the flow change, e.g. when a module is engaged or disengaged.
+     *
+     * @return the ExecutionPlan for {@link #getRemainingPhasesInFlow()}
+     */
+    public ExecutionPlan getInFlowExecutionPlan() {
+        ArrayList phases = getRemainingPhasesInFlow();
+        ExecutionPlan plan = inFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases)) {
+            plan = ExecutionPlan.compile(phases);
+            inFlowPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Get the compiled form of the out flow, which is made of the operation specific
+     * phases followed by the global out phases.
+     *
+     * @param globalOutPhases the global out phases of the AxisConfiguration
+     * @return the ExecutionPlan for {@link #getPhasesOutFlow()} and the global phases
+     */
+    public ExecutionPlan getOutFlowExecutionPlan(List<Phase> globalOutPhases) {
+        ArrayList phases = getPhasesOutFlow();
+        ExecutionPlan plan = outFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, globalOutPhases)) {
+            plan = ExecutionPlan.compile(phases, globalOutPhases);
+            outFlowPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Get the compiled form of the operation specific part of the out fault flow.
+     *
+     * @return the ExecutionPlan for {@link #getPhasesOutFaultFlow()}
+     */
+    public ExecutionPlan getOutFaultFlowExecutionPlan() {
+        ArrayList phases = getPhasesOutFaultFlow();
+        ExecutionPlan plan = outFaultFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases)) {
+            plan = ExecutionPlan.compile(phases);
+            outFaultFlowPlan = plan;
+        }
+        return plan;
+    }
+
     public String getStyle() {
         return style;
     }
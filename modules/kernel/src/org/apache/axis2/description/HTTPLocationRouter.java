@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.description;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.wsdl.WSDLUtil;
+
+/**
+ * A compiled form of the {@link WSDL2Constants#HTTP_LOCATION_TABLE} of a binding. The keys of
+ * that table only contain the HTTP method followed by the constant part of the
+ * <tt>whttp:location</tt> of an operation (see {@link WSDLUtil#getConstantFromHTTPLocation}), so
+ * the keys of different templates may be equal, e.g. <tt>customers/{id}</tt> and
+ * <tt>customers/{id}/orders</tt>. The router therefore uses the full <tt>whttp:location</tt>
+ * template of each operation of the binding which is registered in the table, and stores the
+ * templates in a trie with one node per path segment. A literal segment
+ * of a template is matched exactly, a segment which is a single <tt>{variable}</tt> matches any
+ * segment, and a segment mixing literals and variables is matched against its literal parts.
+ * Literal segments are preferred over the other kinds, so that <tt>customers/all</tt> wins over
+ * <tt>customers/{id}</tt>. If no template matches the whole request path, the operation of the
+ * deepest template matching a prefix of the path is returned, as the request path may contain
+ * more segments than the template (e.g. a trailing part which is not described by it).
+ * <p>
+ * The query part of a template is only used to choose between operations whose path templates
+ * are the same: the one whose constant query prefix is the longest matching one is returned.
+ * Entries of the table for which no template is found in the binding are routed using the key
+ * itself, the last segment of which is then matched as a prefix.
+ */
+public final class HTTPLocationRouter {
+
+    private static final class Target {
+        final String queryPrefix;
+        final AxisOperation operation;
+
+        Target(String queryPrefix, AxisOperation operation) {
+            this.queryPrefix = queryPrefix;
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * A segment mixing literals and variables, e.g. <tt>item{id}.xml</tt>, or the trailing
+     * partial segment of a table key.
+     */
+    private static final class SegmentPattern {
+        /** The literal parts of the segment; the parts are separated by a variable */
+        final String[] parts;
+        final int literalLength;
+        Node node;
+
+        SegmentPattern(String[] parts) {
+            this.parts = parts;
+            int length = 0;
+            for (String part : parts) {
+                length += part.length();
+            }
+            literalLength = length;
+        }
+
+        boolean matches(String segment) {
+            int last = parts.length - 1;
+            if (!segment.startsWith(parts[0])) {
+                return false;
+            }
+            int pos = parts[0].length();
+            for (int i = 1; i < last; i++) {
+                int index = segment.indexOf(parts[i], pos);
+                if (index < 0) {
+                    return false;
+                }
+                pos = index + parts[i].length();
+            }
+            return segment.length() - pos >= parts[last].length() && segment.endsWith(parts[last]);
+        }
+    }
+
+    private static final class Node {
+        final Map<String, Node> literalChildren = new HashMap<String, Node>();
+        /** Sorted by decreasing length of their literal parts, the most specific first */
+        final List<SegmentPattern> patternChildren = new ArrayList<SegmentPattern>();
+        Node wildcardChild;
+        final List<Target> targets = new ArrayList<Target>();
+
+        Node getLiteralChild(String segment) {
+            Node child = literalChildren.get(segment);
+            if (child == null) {
+                child = new Node();
+                literalChildren.put(segment, child);
+            }
+            return child;
+        }
+
+        Node getPatternChild(SegmentPattern pattern) {
+            int index = 0;
+            for (SegmentPattern child : patternChildren) {
+                if (Arrays.equals(child.parts, pattern.parts)) {
+                    return child.node;
+                }
+                if (child.literalLength >= pattern.literalLength) {
+                    index++;
+                }
+            }
+            pattern.node = new Node();
+            patternChildren.add(index, pattern);
+            return pattern.node;
+        }
+
+        Node getWildcardChild() {
+            if (wildcardChild == null) {
+                wildcardChild = new Node();
+            }
+            return wildcardChild;
+        }
+
+        void addTarget(String queryPrefix, AxisOperation operation) {
+            for (Target target : targets) {
+                if (target.queryPrefix.equals(queryPrefix)) {
+                    return;  // the first entry wins, as it did with the table
+                }
+            }
+            targets.add(new Target(queryPrefix, operation));
+        }
+
+        AxisOperation select(String query) {
+            Target match = null;
+            for (Target target : targets) {
+                if (query.startsWith(target.queryPrefix) && (match == null
+                        || target.queryPrefix.length() > match.queryPrefix.length())) {
+                    match = target;
+                }
+            }
+            return match == null ? null : match.operation;
+        }
+    }
+
+    /** The trie of each HTTP method; the empty method matches any method */
+    private final Map<String, Node> methods = new HashMap<String, Node>();
+
+    private HTTPLocationRouter(AxisBinding binding, Map<?, ?> table) {
+        Set<AxisOperation> routed = new HashSet<AxisOperation>();
+        if (binding != null) {
+            for (Iterator<? extends AxisDescription> it = binding.getChildren(); it.hasNext(); ) {
+                AxisDescription child = it.next();
+                if (child instanceof AxisBindingOperation
+                        && addTemplate((AxisBindingOperation)child, table)) {
+                    routed.add(((AxisBindingOperation)child).getAxisOperation());
+                }
+            }
+        }
+        for (Iterator<? extends Map.Entry<?, ?>> it = table.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<?, ?> entry = it.next();
+            if (entry.getKey() instanceof String && entry.getValue() instanceof AxisOperation
+                    && !routed.contains(entry.getValue())) {
+                String key = (String)entry.getKey();
+                String method = key.substring(0, indexOfPath(key));
+                AxisOperation operation = (AxisOperation)entry.getValue();
+                insert(method, key.substring(method.length()), true, operation);
+            }
+        }
+    }
+
+    /**
+     * Build a router for the given HTTP location table.
+     *
+     * @param binding the binding containing the operations with their <tt>whttp:location</tt>,
+     *                or null if the table is to be routed using its keys only
+     * @param table a map of HTTP location keys to {@link AxisOperation}s
+     * @return the router
+     */
+    public static HTTPLocationRouter compile(AxisBinding binding, Map<?, ?> table) {
+        return new HTTPLocationRouter(binding, table);
+    }
+
+    /**
+     * Add the <tt>whttp:location</tt> template of a binding operation, provided that the
+     * operation was registered in the table. Several templates may have the same constant part,
+     * so the table itself may only contain one of their operations.
+     */
+    private boolean addTemplate(AxisBindingOperation bindingOperation, Map<?, ?> table) {
+        Object location = bindingOperation.getProperty(WSDL2Constants.ATTR_WHTTP_LOCATION);
+        AxisOperation operation = bindingOperation.getAxisOperation();
+        if (!(location instanceof String) || ((String)location).length() == 0
+                || operation == null) {
+            return false;
+        }
+        String template = (String)location;
+        Object method = bindingOperation.getProperty(WSDL2Constants.ATTR_WHTTP_METHOD);
+        // The builders register the operations of SOAP bindings, and those without a
+        // whttp:method, with POST
+        String[] methods = method instanceof String && ((String)method).length() > 0
+                ? new String[] { (String)method, HTTPConstants.HEADER_POST }
+                : new String[] { HTTPConstants.HEADER_POST };
+        for (String candidate : methods) {
+            if (table.containsKey(WSDLUtil.getConstantFromHTTPLocation(template, candidate))) {
+                insert(candidate, template, false, operation);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the first '/' or '?' of the given string, or its length
+     */
+    private static int indexOfPath(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '?') {
+                return i;
+            }
+        }
+        return s.length();
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<String>();
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    /**
+     * @param location the <tt>whttp:location</tt> template, or the part of a table key after
+     *                 the HTTP method
+     * @param isKey true if the location is a table key, in which case everything after the first
+     *              variable was cut off
+     */
+    private void insert(String method, String location, boolean isKey, AxisOperation operation) {
+        Node node = methods.get(method);
+        if (node == null) {
+            node = new Node();
+            methods.put(method, node);
+        }
+        String path = location;
+        String queryPrefix = "";
+        int queryIndex = location.indexOf('?');
+        if (queryIndex >= 0) {
+            path = location.substring(0, queryIndex);
+            queryPrefix = location.substring(queryIndex + 1);
+            int variableIndex = queryPrefix.indexOf('{');
+            if (variableIndex >= 0) {
+                queryPrefix = queryPrefix.substring(0, variableIndex);
+            }
+        }
+        List<String> segments = split(path);
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (isKey && queryIndex < 0 && i == segments.size() - 1 && !path.endsWith("/")) {
+                // The key was cut at a variable in this segment
+                node = node.getPatternChild(new SegmentPattern(new String[] { segment, "" }));
+            } else if (segment.indexOf('{') < 0) {
+                node = node.getLiteralChild(segment);
+            } else if (segment.charAt(0) == '{' && segment.indexOf('}') == segment.length() - 1) {
+                node = node.getWildcardChild();
+            } else {
+                node = node.getPatternChild(parsePattern(segment));
+            }
+        }
+        node.addTarget(queryPrefix, operation);
+    }
+
+    private static SegmentPattern parsePattern(String segment) {
+        List<String> parts = new ArrayList<String>();
+        int pos = 0;
+        while (true) {
+            int start = segment.indexOf('{', pos);
+            if (start < 0) {
+                break;
+            }
+            parts.add(segment.substring(pos, start));
+            int end = segment.indexOf('}', start);
+            pos = end < 0 ? segment.length() : end + 1;
+        }
+        parts.add(segment.substring(pos));
+        return new SegmentPattern(parts.toArray(new String[parts.size()]));
+    }
+
+    /**
+     * Find the operation for a request.
+     *
+     * @param requestPath the HTTP method followed by the part of the request URL after the
+     *                    service name
+     * @return the operation with the most specific matching HTTP location, or null if there is
+     *         none
+     */
+    public AxisOperation route(String requestPath) {
+        int pathIndex = indexOfPath(requestPath);
+        String method = requestPath.substring(0, pathIndex);
+        String path = requestPath.substring(pathIndex);
+        String query = "";
+        int queryIndex = path.indexOf('?');
+        if (queryIndex >= 0) {
+            query = path.substring(queryIndex + 1);
+            path = path.substring(0, queryIndex);
+        }
+        List<String> segments = split(path);
+        Node[] nodes = { methods.get(method), method.length() > 0 ? methods.get("") : null };
+        // A template matching the whole path wins over one only matching a prefix of it
+        for (int pass = 0; pass < 2; pass++) {
+            boolean prefix = pass == 1;
+            for (Node node : nodes) {
+                AxisOperation operation;
+                if (node != null && (operation = match(node, segments, 0, query, prefix)) != null) {
+                    return operation;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static AxisOperation match(Node node, List<String> segments, int index, String query,
+                                       boolean prefix) {
+        if (index < segments.size()) {
+            String segment = segments.get(index);
+            AxisOperation operation;
+            Node child = node.literalChildren.get(segment);
+            if (child != null
+                    && (operation = match(child, segments, index + 1, query, prefix)) != null) {
+                return operation;
+            }
+            for (SegmentPattern pattern : node.patternChildren) {
+                if (pattern.matches(segment)
+                        && (operation = match(pattern.node, segments, index + 1, query, prefix))
+                                != null) {
+                    return operation;
+                }
+            }
+            child = node.wildcardChild;
+            if (child != null
+                    && (operation = match(child, segments, index + 1, query, prefix)) != null) {
+                return operation;
+            }
+        }
+        return prefix || index == segments.size() ? node.select(query) : null;
+    }
+}
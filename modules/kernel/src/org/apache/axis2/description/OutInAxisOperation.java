@@ -33,12 +33,14 @@ import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.client.OperationClient;
 import org.apache.axis2.client.Options;
 import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.client.async.AxisFuture;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.AsyncTransportSender;
 import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.util.CallbackReceiver;
@@ -231,6 +233,36 @@ class OutInAxisOperationClient extends OperationClient {
         }
     }
 
+    /**
+     * Sends the Out message the same way as a non blocking {@link #execute(boolean)} and
+     * returns a future of the In message.  When the transport sender is an
+     * {@link AsyncTransportSender}, no thread is held while the response is outstanding.
+     * Cancelling the future, or letting it reach the timeout of the options, drops the callback
+     * registered for the response.
+     */
+    public AxisFuture<MessageContext> executeAsync() throws AxisFault {
+        final MessageContext mc = oc.getMessageContext(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+        if (mc == null) {
+            throw new AxisFault(Messages.getMessage("outmsgctxnull"));
+        }
+        AxisFuture<MessageContext> future = new AxisFuture<MessageContext>();
+        setCallback(new FutureCallback(future, mc));
+        Runnable abandon = new Runnable() {
+            public void run() {
+                CallbackReceiver.abandon(axisOp, mc);
+            }
+        };
+        try {
+            execute(false);
+        } catch (AxisFault e) {
+            abandon.run();
+            throw e;
+        }
+        future.setCancellationHandler(abandon);
+        future.setTimeout(options.getTimeOutInMilliSeconds());
+        return future;
+    }
+
     private void sendAsync(boolean useAsync, MessageContext mc)
             throws AxisFault {
         if (log.isDebugEnabled()) {
@@ -380,9 +412,17 @@ class OutInAxisOperationClient extends OperationClient {
      * @throws AxisFault Sends the message using a two way transport and waits for a response
      */
     protected MessageContext send(MessageContext msgContext) throws AxisFault {
+        MessageContext responseMessageContext = createResponseMessageContext(msgContext);
 
-        // create the responseMessageContext
+        //sending the message
+        AxisEngine.send(msgContext);
+
+        receiveResponse(msgContext, responseMessageContext);
+        return responseMessageContext;
+    }
 
+    private MessageContext createResponseMessageContext(MessageContext msgContext)
+            throws AxisFault {
         MessageContext responseMessageContext =
                 msgContext.getConfigurationContext().createMessageContext();
 
@@ -394,10 +434,14 @@ class OutInAxisOperationClient extends OperationClient {
         responseMessageContext.setServiceContext(msgContext.getServiceContext());
         responseMessageContext.setAxisMessage(
                 axisOp.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+        return responseMessageContext;
+    }
 
-        //sending the message
-        AxisEngine.send(msgContext);
-
+    /**
+     * Process the response the transport received for the given request.
+     */
+    private void receiveResponse(MessageContext msgContext, MessageContext responseMessageContext)
+            throws AxisFault {
         responseMessageContext.setDoingREST(msgContext.isDoingREST());
 
         // Copy RESPONSE properties which the transport set onto the request message context when it processed
@@ -412,16 +456,19 @@ class OutInAxisOperationClient extends OperationClient {
         responseMessageContext.setTransportIn(msgContext.getTransportIn());
         responseMessageContext.setTransportOut(msgContext.getTransportOut());
         handleResponse(responseMessageContext);
-        return responseMessageContext;
     }
 
     /**
      * This class is the workhorse for a non-blocking invocation that uses a two
-     * way transport.
+     * way transport. If the transport sender is an {@link AsyncTransportSender}, the worker
+     * only sends the request and the response is processed once the transport reports it;
+     * otherwise the worker waits for the response.
      */
-    private class NonBlockingInvocationWorker implements Runnable {
+    private class NonBlockingInvocationWorker implements Runnable,
+            AsyncTransportSender.ResponseCallback {
         private MessageContext msgctx;
         private AxisCallback axisCallback;
+        private MessageContext responseMessageContext;
 
         public NonBlockingInvocationWorker(MessageContext msgctx ,
                                            AxisCallback axisCallback) {            
@@ -431,8 +478,33 @@ class OutInAxisOperationClient extends OperationClient {
 
         public void run() {
             try {
-                // send the request and wait for response
-                MessageContext response = send(msgctx);
+                responseMessageContext = createResponseMessageContext(msgctx);
+                boolean asyncTransport = msgctx.getTransportOut() != null
+                        && msgctx.getTransportOut().getSender() instanceof AsyncTransportSender;
+                if (asyncTransport) {
+                    msgctx.setProperty(AsyncTransportSender.RESPONSE_CALLBACK, this);
+                }
+                // send the request
+                AxisEngine.send(msgctx);
+                if (asyncTransport) {
+                    if (msgctx.getProperty(AsyncTransportSender.RESPONSE_CALLBACK) == null) {
+                        // The transport has taken over the request and will call us back
+                        return;
+                    }
+                    msgctx.removeProperty(AsyncTransportSender.RESPONSE_CALLBACK);
+                }
+            } catch (Exception e) {
+                onError(e);
+                return;
+            }
+            // the response is available
+            onResponse(msgctx);
+        }
+
+        public void onResponse(MessageContext msgContext) {
+            try {
+                receiveResponse(msgctx, responseMessageContext);
+                MessageContext response = responseMessageContext;
                 // call the callback
                 if (response != null) {
                     SOAPEnvelope resenvelope = response.getEnvelope();
@@ -469,6 +541,67 @@ class OutInAxisOperationClient extends OperationClient {
                 }
             }
         }
+
+        public void onError(Exception e) {
+            try {
+                if (axisCallback != null) {
+                    axisCallback.onError(e);
+                }
+            } finally {
+                if (axisCallback != null) {
+                    axisCallback.onComplete();
+                }
+            }
+        }
+    }
+
+    /**
+     * This class completes the future returned by {@link #executeAsync()}.
+     */
+    private class FutureCallback implements AxisCallback {
+        private final AxisFuture<MessageContext> future;
+        private final MessageContext requestContext;
+        private MessageContext response;
+        private Exception error;
+
+        FutureCallback(AxisFuture<MessageContext> future, MessageContext requestContext) {
+            this.future = future;
+            this.requestContext = requestContext;
+        }
+
+        public void onMessage(MessageContext msgContext) {
+            // The transport is cleaned up before the future completes, so the whole envelope
+            // has to be built now
+            msgContext.getEnvelope().buildWithAttachments();
+            response = msgContext;
+        }
+
+        public void onFault(MessageContext msgContext) {
+            if (options.isExceptionToBeThrownOnSOAPFault()) {
+                error = Utils.getInboundFaultFromMessageContext(msgContext);
+            } else {
+                msgContext.getEnvelope().buildWithAttachments();
+                response = msgContext;
+            }
+        }
+
+        public void onError(Exception e) {
+            error = e;
+        }
+
+        public void onComplete() {
+            completed = true;
+            try {
+                complete(requestContext);
+            } catch (AxisFault e) {
+                log.debug("Unable to clean up the transport", e);
+            }
+            if (error != null) {
+                future.fail(error);
+            } else {
+                future.complete(response);
+            }
+        }
     }
 
     /**
@@ -48,6 +48,7 @@ import org.apache.axis2.dataretrieval.AxisDataLocator;
 import org.apache.axis2.deployment.DeploymentException;
 import org.apache.axis2.deployment.ModuleDeployer;
 import org.apache.axis2.deployment.repository.util.DeploymentFileData;
+import org.apache.axis2.deployment.util.ArchiveIndex;
 import org.apache.axis2.deployment.util.PhasesInfo;
 import org.apache.axis2.description.AxisDescription;
 import org.apache.axis2.description.AxisEndpoint;
@@ -1512,6 +1513,52 @@ public class AxisConfiguration extends AxisDescription {
         }
         return childFirstClassLoading;
     }
+
+    /**
+     * Check whether the operation specific flows should be executed through compiled
+     * {@link ExecutionPlan}s.
+     *
+     * @return true if the EnableCompiledHandlerChains parameter is set to true
+     */
+    public boolean isCompiledHandlerChains() {
+        Parameter compiledHandlerChains = this.getParameter(Constants.Configuration.ENABLE_COMPILED_HANDLER_CHAINS);
+        return compiledHandlerChains != null && JavaUtils.isTrueExplicitly(compiledHandlerChains.getValue());
+    }
+
+    /**
+     * Check whether service and module archives should be deployed through an
+     * {@link org.apache.axis2.deployment.util.ArchiveIndex}.
+     *
+     * @return true if the EnableIndexedArchives parameter is set to true
+     */
+    public boolean isIndexedArchives() {
+        Parameter indexedArchives = this.getParameter(Constants.Configuration.ENABLE_INDEXED_ARCHIVES);
+        return indexedArchives != null && JavaUtils.isTrueExplicitly(indexedArchives.getValue());
+    }
+
+    /**
+     * Get the directory the nested jars of indexed archives are extracted into.
+     *
+     * @return the value of the NestedJarCacheDirectory parameter, or if it is not set, a
+     *         directory in the work directory ({@link Constants.Configuration#ARTIFACTS_TEMP_DIR})
+     *         or a directory private to the current user in the system temporary directory
+     * @see org.apache.axis2.deployment.util.ArchiveIndex#getDefaultCacheDir(File)
+     */
+    public File getNestedJarCacheDir() {
+        Object value = getParameterValue(Constants.Configuration.NESTED_JAR_CACHE_DIR);
+        if (value instanceof File) {
+            return (File)value;
+        } else if (value != null) {
+            return new File(value.toString().trim());
+        }
+        Object workDir = getParameterValue(Constants.Configuration.ARTIFACTS_TEMP_DIR);
+        if (workDir instanceof File) {
+            return ArchiveIndex.getDefaultCacheDir((File)workDir);
+        } else if (workDir != null) {
+            return ArchiveIndex.getDefaultCacheDir(new File(workDir.toString().trim()));
+        }
+        return ArchiveIndex.getDefaultCacheDir(null);
+    }
     
     private AxisService removeServiceReferences(String serviceName) {
 
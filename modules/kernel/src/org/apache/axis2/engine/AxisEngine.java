@@ -235,6 +235,22 @@ public class AxisEngine {
         InvocationResponse pi = InvocationResponse.CONTINUE;
 
         while (msgContext.getCurrentHandlerIndex() < msgContext.getExecutionChain().size()) {
+            ExecutionPlan plan = msgContext.getExecutionPlan();
+            if (plan != null && !resuming && msgContext.getCurrentHandlerIndex() == 0) {
+                /* The chain has been compiled; run all of its phases in one go. The plan
+                * takes care of the executed phases and indexes itself, and leaves the
+                * handler index on its last phase so that any phases added to the chain
+                * while it ran are still picked up below.
+                */
+                pi = plan.invoke(msgContext);
+                if (pi.equals(InvocationResponse.SUSPEND) ||
+                        pi.equals(InvocationResponse.ABORT)) {
+                    break;
+                }
+                msgContext.setCurrentHandlerIndex(msgContext.getCurrentHandlerIndex() + 1);
+                continue;
+            }
+
             Handler currentHandler = (Handler) msgContext.getExecutionChain().
                     get(msgContext.getCurrentHandlerIndex());
 
@@ -275,6 +291,16 @@ public class AxisEngine {
         return pi;
     }
 
+    /**
+     * Hand a compiled form of the execution chain that was just set to the MessageContext,
+     * provided the chain could be flattened.
+     */
+    private static void setExecutionPlan(MessageContext msgContext, ExecutionPlan plan) {
+        if (plan.isFlattened()) {
+            msgContext.setExecutionPlan(plan);
+        }
+    }
+
     private static void flowComplete(MessageContext msgContext) {
         Iterator<Handler> invokedPhaseIterator = msgContext.getExecutedPhases();
 
@@ -410,6 +436,10 @@ public class AxisEngine {
         outPhases.addAll(executionChain);
         outPhases.addAll(msgContext.getConfigurationContext().getAxisConfiguration().getOutFlowPhases());
         msgContext.setExecutionChain(outPhases);
+        if (msgContext.getConfigurationContext().getAxisConfiguration().isCompiledHandlerChains()) {
+            setExecutionPlan(msgContext, operationContext.getAxisOperation().getOutFlowExecutionPlan(
+                    msgContext.getConfigurationContext().getAxisConfiguration().getOutFlowPhases()));
+        }
         msgContext.setFLOW(MessageContext.OUT_FLOW);
         try {
             InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -472,6 +502,9 @@ public class AxisEngine {
             ArrayList outFaultPhases = new ArrayList();
             outFaultPhases.addAll((ArrayList) faultExecutionChain.clone());
             msgContext.setExecutionChain((ArrayList) outFaultPhases.clone());
+            if (msgContext.getConfigurationContext().getAxisConfiguration().isCompiledHandlerChains()) {
+                setExecutionPlan(msgContext, axisOperation.getOutFaultFlowExecutionPlan());
+            }
             msgContext.setFLOW(MessageContext.OUT_FAULT_FLOW);
             try {
                 InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -185,6 +185,12 @@ public class DispatchPhase extends Phase {
 
         ArrayList operationChain = msgContext.getAxisOperation().getRemainingPhasesInFlow();
         msgContext.setExecutionChain((ArrayList) operationChain.clone());
+        if (msgContext.getConfigurationContext().getAxisConfiguration().isCompiledHandlerChains()) {
+            ExecutionPlan plan = msgContext.getAxisOperation().getInFlowExecutionPlan();
+            if (plan.isFlattened()) {
+                msgContext.setExecutionPlan(plan);
+            }
+        }
     }
 
     private void loadContexts(AxisService service, MessageContext msgContext) throws AxisFault {
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.util.LoggingControl;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable, flattened form of an execution chain.  All the Handlers of the Phases
+ * making up the chain are copied into a single array so that a message can be pushed
+ * through the whole chain with one indexed loop, without walking each Phase and without
+ * updating the phase bookkeeping of the MessageContext for every Handler.
+ * <p>
+ * A plan can only be built from Phases which do not override
+ * {@link Phase#checkPreconditions(MessageContext)} or
+ * {@link Phase#checkPostConditions(MessageContext)}; for any other chain
+ * {@link #isFlattened()} returns false and the AxisEngine uses the regular Phase walk.
+ * <p>
+ * The MessageContext state is only written when the plan stops early (SUSPEND, ABORT or a
+ * fault).  In that case the executed phases and the handler/phase indexes are set up exactly
+ * as the Phase based execution would have left them, so resuming, flowComplete() and
+ * serialization of the MessageContext work unchanged.  On normal completion the plan pushes
+ * itself onto the executed phase list and runs flowComplete() on its Handlers in reverse.
+ * <p>
+ * Plans are cached by the AxisOperation and are rebuilt whenever a Handler is added to or
+ * removed from a Phase (for instance when a module is engaged or disengaged) or when the
+ * phase lists they were compiled from are replaced or modified.
+ */
+public final class ExecutionPlan implements Handler {
+
+    private static final Log log = LogFactory.getLog(ExecutionPlan.class);
+    private static boolean isDebugEnabled = LoggingControl.debugLoggingAllowed && log.isDebugEnabled();
+
+    private final List<?>[] sources;
+    private final int[] sourceSizes;
+    private final int chainVersion;
+
+    private final Phase[] phases;
+    private final Handler[] handlers;
+    /** The index (into {@link #phases}) of the Phase each Handler belongs to */
+    private final int[] phaseIndexes;
+    /** The position of each Handler within its own Phase */
+    private final int[] phaseOffsets;
+    private final boolean flattened;
+    private final String name;
+
+    private ExecutionPlan(List<?>[] sources, int chainVersion) {
+        this.sources = sources;
+        this.sourceSizes = new int[sources.length];
+        this.chainVersion = chainVersion;
+
+        List<Phase> phaseList = new ArrayList<Phase>();
+        boolean plain = true;
+        for (int i = 0; i < sources.length; i++) {
+            List<?> source = sources[i];
+            sourceSizes[i] = source == null ? 0 : source.size();
+            if (source == null) {
+                continue;
+            }
+            for (Object handler : source) {
+                // Subclasses such as DispatchPhase do their work in the pre/post conditions,
+                // and may even replace the execution chain; those cannot be flattened.
+                if (handler == null || handler.getClass() != Phase.class) {
+                    plain = false;
+                    break;
+                }
+                phaseList.add((Phase) handler);
+            }
+        }
+
+        List<Handler> handlerList = new ArrayList<Handler>();
+        List<int[]> positions = new ArrayList<int[]>();
+        if (plain) {
+            for (int i = 0; i < phaseList.size(); i++) {
+                List<Handler> phaseHandlers = phaseList.get(i).getHandlers();
+                int offset = 0;
+                for (Handler handler : phaseHandlers) {
+                    handlerList.add(handler);
+                    positions.add(new int[] { i, offset++ });
+                }
+            }
+        }
+
+        this.flattened = plain;
+        this.phases = phaseList.toArray(new Phase[phaseList.size()]);
+        this.handlers = handlerList.toArray(new Handler[handlerList.size()]);
+        this.phaseIndexes = new int[positions.size()];
+        this.phaseOffsets = new int[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            phaseIndexes[i] = positions.get(i)[0];
+            phaseOffsets[i] = positions.get(i)[1];
+        }
+        this.name = "ExecutionPlan" + phaseList;
+    }
+
+    /**
+     * Compile the concatenation of the given phase lists into an ExecutionPlan.
+     *
+     * @param sources the lists of Phases, in execution order
+     * @return a new ExecutionPlan; never null, but possibly one that is not
+     *         {@link #isFlattened() flattened}
+     */
+    public static ExecutionPlan compile(List<?>... sources) {
+        // Read the version first so that a concurrent change forces a later rebuild
+        int version = Phase.getChainVersion();
+        ExecutionPlan plan = new ExecutionPlan(sources, version);
+        if (isDebugEnabled) {
+            log.debug("Compiled " + plan.name + " with " + plan.handlers.length +
+                    " handlers, flattened = " + plan.flattened);
+        }
+        return plan;
+    }
+
+    /**
+     * Check whether this plan still reflects the given phase lists, i.e. the lists are the
+     * same instances with the same number of Phases and no Handler was added to or removed
+     * from any Phase since the plan was compiled.
+     *
+     * @param sources the lists of Phases the caller is about to execute
+     * @return true if the plan can be used for those lists
+     */
+    public boolean isCompiledFrom(List<?>... sources) {
+        if (chainVersion != Phase.getChainVersion() || sources.length != this.sources.length) {
+            return false;
+        }
+        for (int i = 0; i < sources.length; i++) {
+            List<?> source = sources[i];
+            if (source != this.sources[i]
+                    || (source == null ? 0 : source.size()) != sourceSizes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the chain could be flattened and this plan can be executed
+     */
+    public boolean isFlattened() {
+        return flattened;
+    }
+
+    /**
+     * @return the number of Phases covered by this plan
+     */
+    public int getPhaseCount() {
+        return phases.length;
+    }
+
+    /**
+     * @return the Phases this plan was compiled from, in execution order
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(Arrays.asList(phases));
+    }
+
+    /**
+     * @return the number of Handlers covered by this plan
+     */
+    public int getHandlerCount() {
+        return handlers.length;
+    }
+
+    /**
+     * Invoke every Handler of the plan.  The execution chain of the MessageContext must start
+     * with the Phases of this plan, and its current handler index must be 0.
+     *
+     * @param msgContext the current MessageContext
+     * @return An InvocationResponse that indicates what
+     *         the next step in the message processing should be.
+     * @throws AxisFault if one of the Handlers fails
+     */
+    public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+        if (isDebugEnabled) {
+            log.debug(msgContext.getLogIDString() + " Invoking " + name);
+        }
+        List<Handler> executionChain = msgContext.getExecutionChain();
+        Handler[] handlers = this.handlers;
+        int handlerCount = handlers.length;
+
+        for (int i = 0; i < handlerCount; i++) {
+            InvocationResponse pi;
+            try {
+                pi = handlers[i].invoke(msgContext);
+            } catch (AxisFault e) {
+                stopAt(msgContext, i, true);
+                throw e;
+            } catch (RuntimeException e) {
+                stopAt(msgContext, i, false);
+                throw e;
+            }
+
+            if (!pi.equals(InvocationResponse.CONTINUE)) {
+                stopAt(msgContext, i, false);
+                return pi;
+            }
+
+            if (msgContext.getExecutionChain() != executionChain) {
+                // A Handler replaced the execution chain.  The Phase based execution would
+                // finish the current Phase and then carry on with the new chain.
+                return switchChain(msgContext, i);
+            }
+        }
+
+        // Leave the index on the last Phase; the AxisEngine moves past it as usual
+        msgContext.setCurrentHandlerIndex(phases.length - 1);
+        msgContext.addExecutedPhase(this);
+        return InvocationResponse.CONTINUE;
+    }
+
+    /**
+     * Record the MessageContext state the Phase based execution would have produced if
+     * it had stopped on the Handler at the given position.
+     */
+    private void stopAt(MessageContext msgContext, int handlerIndex, boolean fault) {
+        int phaseIndex = phaseIndexes[handlerIndex];
+        int phaseOffset = phaseOffsets[handlerIndex];
+        for (int i = 0; i < phaseIndex; i++) {
+            msgContext.addExecutedPhase(phases[i]);
+        }
+        // See AxisEngine.invoke(): a Phase that failed on its first Handler is not
+        // considered to have been executed
+        if (!fault || phaseOffset != 0) {
+            msgContext.addExecutedPhase(phases[phaseIndex]);
+        }
+        msgContext.setCurrentHandlerIndex(phaseIndex);
+        msgContext.setCurrentPhaseIndex(phaseOffset);
+    }
+
+    private InvocationResponse switchChain(MessageContext msgContext, int handlerIndex)
+            throws AxisFault {
+        int phaseIndex = phaseIndexes[handlerIndex];
+        for (int i = handlerIndex + 1; i < handlers.length && phaseIndexes[i] == phaseIndex; i++) {
+            InvocationResponse pi;
+            try {
+                pi = handlers[i].invoke(msgContext);
+            } catch (AxisFault e) {
+                stopAt(msgContext, i, true);
+                throw e;
+            } catch (RuntimeException e) {
+                stopAt(msgContext, i, false);
+                throw e;
+            }
+            if (!pi.equals(InvocationResponse.CONTINUE)) {
+                stopAt(msgContext, i, false);
+                return pi;
+            }
+        }
+        for (int i = 0; i <= phaseIndex; i++) {
+            msgContext.addExecutedPhase(phases[i]);
+        }
+        // The current handler index was reset by setExecutionChain(); leave it alone
+        msgContext.setCurrentPhaseIndex(0);
+        return InvocationResponse.CONTINUE;
+    }
+
+    /**
+     * Invoke flowComplete() on every Handler of the plan, in reverse order.  This is only
+     * called when the whole plan was executed, as the plan is only added to the executed
+     * phases on normal completion.
+     *
+     * @param msgContext the current MessageContext
+     */
+    public void flowComplete(MessageContext msgContext) {
+        if (isDebugEnabled) {
+            log.debug(msgContext.getLogIDString() + " Invoking flowComplete() in " + name);
+        }
+        for (int i = handlers.length - 1; i >= 0; i--) {
+            handlers[i].flowComplete(msgContext);
+        }
+    }
+
+    public void init(HandlerDescription handlerDesc) {
+        // Plans are built from already initialized Handlers
+    }
+
+    public HandlerDescription getHandlerDesc() {
+        return null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Parameter getParameter(String name) {
+        return null;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
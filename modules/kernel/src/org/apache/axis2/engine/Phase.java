@@ -33,6 +33,7 @@ import org.apache.commons.logging.LogFactory;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A Phase is an ordered collection of Handlers.
@@ -47,6 +48,12 @@ public class Phase implements Handler {
     private static final Log log = LogFactory.getLog(Phase.class);
     private static boolean isDebugEnabled = LoggingControl.debugLoggingAllowed && log.isDebugEnabled();
 
+    /**
+     * Incremented every time a Handler is added to or removed from any Phase, so that
+     * compiled {@link ExecutionPlan}s can detect that they need to be rebuilt.
+     */
+    private static final AtomicInteger chainVersion = new AtomicInteger();
+
     /**
      * Field handlers
      */
@@ -107,6 +114,7 @@ public class Phase implements Handler {
         } else {
             handlers.add(handler);
         }
+        chainVersion.incrementAndGet();
     }
 
     /**
@@ -141,6 +149,7 @@ public class Phase implements Handler {
             } else {
                 handlers.add(handlerDesc.getHandler());
                 isOneHandler = true;
+                chainVersion.incrementAndGet();
             }
         } else if (handlerDesc.getRules().isPhaseFirst()) {
             setPhaseFirst(handlerDesc.getHandler());
@@ -165,6 +174,7 @@ public class Phase implements Handler {
                     " of Phase " + phaseName);
         }
         handlers.add(index, handler);
+        chainVersion.incrementAndGet();
     }
 
     /**
@@ -273,6 +283,7 @@ public class Phase implements Handler {
                 handlers.add(handler);
             }
         }
+        chainVersion.incrementAndGet();
     }
 
     /**
@@ -404,6 +415,16 @@ public class Phase implements Handler {
         this.phaseName = phaseName;
     }
 
+    /**
+     * Get the current version of the handler layout of all Phases.  The value changes whenever
+     * a Handler is added to or removed from any Phase through the methods of this class.
+     *
+     * @return the current handler chain version
+     */
+    static int getChainVersion() {
+        return chainVersion.get();
+    }
+
     /**
      * Add a Handler to the Phase in the very first position, and ensure no other Handler
      * will come before it.
@@ -418,6 +439,7 @@ public class Phase implements Handler {
         }
         handlers.add(0, handler);
         phaseFirstSet = true;
+        chainVersion.incrementAndGet();
     }
 
     /**
@@ -436,6 +458,7 @@ public class Phase implements Handler {
 
         handlers.add(handler);
         phaseLastSet = true;
+        chainVersion.incrementAndGet();
     }
 
     /**
@@ -455,6 +478,7 @@ public class Phase implements Handler {
             if (rule.isPhaseFirst() && rule.isPhaseLast()) {
                 isOneHandler = false;
             }
+            chainVersion.incrementAndGet();
             log.debug("removed handler " + handlerDesc.getName()
                     + " from the phase " + phaseName);
         } else {
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport;
+
+import org.apache.axis2.context.MessageContext;
+
+/**
+ * A {@link TransportSender} that can hand a request over to an asynchronous client and deliver
+ * the response later, so that no thread is kept waiting while the response is outstanding.
+ * <p>
+ * The client API asks for this by setting a {@link ResponseCallback} as the
+ * {@link #RESPONSE_CALLBACK} property of the outgoing {@link MessageContext}. A sender that takes
+ * over the request removes that property before {@link #invoke(MessageContext)} returns; from
+ * then on it must call exactly one of the callback methods. If the property is still set when
+ * the out flow returns (e.g. because the sender decided to send the message synchronously), the
+ * response is processed by the calling thread as usual.
+ */
+public interface AsyncTransportSender extends TransportSender {
+    /**
+     * Name of the {@link MessageContext} property holding the {@link ResponseCallback}.
+     */
+    String RESPONSE_CALLBACK = "AsyncTransportSender.ResponseCallback";
+
+    /**
+     * Receives the outcome of a request taken over by an {@link AsyncTransportSender}.
+     */
+    interface ResponseCallback {
+        /**
+         * Called once the response is available. The transport has set up the request message
+         * context and the operation context exactly as a synchronous invocation would have,
+         * i.e. the response content is available as the {@link MessageContext#TRANSPORT_IN}
+         * property of the operation context.
+         *
+         * @param msgContext the request message context
+         */
+        void onResponse(MessageContext msgContext);
+
+        /**
+         * Called if the request could not be sent or no valid response was received.
+         *
+         * @param e the cause of the failure
+         */
+        void onError(Exception e);
+    }
+}
@@ -45,6 +45,7 @@ import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.MessageProcessorSelector;
+import org.apache.axis2.util.threadpool.ThreadFactory;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -566,6 +567,24 @@ public class TransportUtils {
         }
     }
 
+    /**
+     * Run a task processing the response received by a non blocking transport on a thread of the
+     * given thread pool, so that the in flow does not run on a thread of the transport. If the
+     * thread pool has been shut down, the task is run on the calling thread, as the caller waiting
+     * for the response must be notified anyway.
+     *
+     * @param threadPool the thread pool of the configuration context
+     * @param task the task
+     */
+    public static void dispatchResponse(ThreadFactory threadPool, Runnable task) {
+        try {
+            threadPool.execute(task);
+        } catch (RuntimeException ex) {
+            log.debug("Unable to dispatch the response, processing it on the transport thread", ex);
+            task.run();
+        }
+    }
+
     /**
      * Prepare the message in the given message context so that the underlying input stream can be
      * closed.
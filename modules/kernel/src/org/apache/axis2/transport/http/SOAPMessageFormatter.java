@@ -33,14 +33,17 @@ import org.apache.axis2.Constants;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.transport.http.util.URLTemplatingUtil;
+import org.apache.axis2.util.IOUtils;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.Utils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.activation.DataHandler;
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLStreamException;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
@@ -169,6 +172,11 @@ public class SOAPMessageFormatter implements MessageFormatter {
         return targetURL;
     }
 
+    /**
+     * Write a SwA message. Attachments backed by a file are copied with
+     * {@link IOUtils#transferTo(File, OutputStream)}. This only applies to SwA: MTOM messages are
+     * serialized by Axiom, which writes every attachment with <code>DataHandler.writeTo()</code>.
+     */
     private void writeSwAMessage(MessageContext msgCtxt, OutputStream outputStream,
                                  OMOutputFormat format, boolean preserve) throws AxisFault {
         if (log.isDebugEnabled()) {
@@ -225,7 +233,19 @@ public class SOAPMessageFormatter implements MessageFormatter {
             
             Attachments attachments = msgCtxt.getAttachmentMap();
             for (String contentID : attachments.getAllContentIDs()) {
-                attachmentsWriter.writePart(attachments.getDataHandler(contentID), contentID);
+                DataHandler dataHandler = attachments.getDataHandler(contentID);
+                File file = IOUtils.getFile(dataHandler);
+                if (file != null) {
+                    // Let the file channel copy the content instead of DataHandler.writeTo(). The
+                    // part stream is not backed by a file, so this saves the copy through the
+                    // DataSource stream, but is not a zero copy transfer.
+                    OutputStream partOutputStream = attachmentsWriter.writePart(
+                            dataHandler.getContentType(), contentID);
+                    IOUtils.transferTo(file, partOutputStream);
+                    partOutputStream.close();
+                } else {
+                    attachmentsWriter.writePart(dataHandler, contentID);
+                }
             }
             
             if (MM7CompatMode) {
@@ -25,6 +25,7 @@ import org.apache.axis2.addressing.RelatesTo;
 import org.apache.axis2.client.async.AxisCallback;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.engine.MessageReceiver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -76,6 +77,29 @@ public class CallbackReceiver implements MessageReceiver {
         return o;
     }
 
+    /**
+     * Stop waiting for the response to a request, e.g. because the caller cancelled it or gave
+     * up waiting.  The callback registered for the request is dropped and the operation context
+     * is no longer tracked, so a response which arrives afterwards is rejected instead of being
+     * delivered.
+     *
+     * @param axisOperation the operation the request was sent for
+     * @param requestContext the request
+     */
+    public static void abandon(AxisOperation axisOperation, MessageContext requestContext) {
+        String messageID = requestContext.getMessageID();
+        if (messageID == null) {
+            return;
+        }
+        MessageReceiver receiver = axisOperation.getMessageReceiver();
+        if (receiver instanceof CallbackReceiver) {
+            ((CallbackReceiver) receiver).lookupCallback(messageID);
+        }
+        if (requestContext.getConfigurationContext() != null) {
+            requestContext.getConfigurationContext().unregisterOperationContext(messageID);
+        }
+    }
+
     public void receive(MessageContext msgContext) throws AxisFault {
         RelatesTo relatesTO = msgContext.getOptions().getRelatesTo();
         if (relatesTO == null) {
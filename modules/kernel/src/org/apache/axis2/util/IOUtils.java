@@ -19,11 +19,23 @@
 
 package org.apache.axis2.util;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+
+import org.apache.axiom.attachments.lifecycle.DataHandlerExt;
 import org.apache.axis2.Constants;
+import org.apache.axis2.builder.DiskFileDataSource;
 
 public class IOUtils {
     
@@ -48,5 +60,84 @@ public class IOUtils {
             }
         }
     }
+
+    /**
+     * Get the content of a DataHandler. If <code>consume</code> is true and the DataHandler
+     * represents a MIME part of an incoming message, the content is read directly from the
+     * message stream instead of being buffered first; it can then only be read once.
+     *
+     * @param dataHandler the DataHandler
+     * @param consume true if the content will not be needed again
+     * @return the content of the DataHandler
+     * @throws IOException if the content can't be read
+     */
+    public static InputStream getInputStream(DataHandler dataHandler, boolean consume)
+            throws IOException {
+        if (consume && dataHandler instanceof DataHandlerExt) {
+            return ((DataHandlerExt)dataHandler).readOnce();
+        }
+        return dataHandler.getInputStream();
+    }
+
+    /**
+     * Get the file holding the content of a DataHandler.
+     *
+     * @param dataHandler the DataHandler
+     * @return the file, or null if the content is not backed by a file
+     */
+    public static File getFile(DataHandler dataHandler) {
+        DataSource dataSource = dataHandler.getDataSource();
+        if (dataSource instanceof FileDataSource) {
+            return ((FileDataSource)dataSource).getFile();
+        } else if (dataSource instanceof DiskFileDataSource) {
+            return ((DiskFileDataSource)dataSource).getFile();
+        }
+        return null;
+    }
+
+    /**
+     * Copies the content of a file to the output stream using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. The transfer only avoids
+     * the Java heap (zero copy) if the output stream is a {@link FileOutputStream}; any other
+     * stream, e.g. a MIME part or a socket stream wrapped by the transport, is written through
+     * a channel adapter which copies the content into a heap buffer. The output stream is not
+     * closed.
+     *
+     * @param file the file to copy
+     * @param out the <code>OutputStream</code>
+     * @return the number of bytes copied
+     */
+    public static long transferTo(File file, OutputStream out) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel target = out instanceof FileOutputStream
+                    ? ((FileOutputStream)out).getChannel() : Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return position;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the content of a DataHandler to the output stream. File backed content is
+     * copied with {@link #transferTo(File, OutputStream)}.
+     *
+     * @param dataHandler the DataHandler
+     * @param out the <code>OutputStream</code>
+     */
+    public static void writeTo(DataHandler dataHandler, OutputStream out) throws IOException {
+        File file = getFile(dataHandler);
+        if (file != null) {
+            transferTo(file, out);
+        } else {
+            dataHandler.writeTo(out);
+        }
+    }
     
 }
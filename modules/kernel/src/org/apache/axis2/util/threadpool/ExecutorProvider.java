@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util.threadpool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors used by Axis2 to run tasks asynchronously: the {@link ThreadPool} of
+ * the ConfigurationContext (non-blocking client invocations, asynchronous message receivers),
+ * the request executor of the standalone HTTP server and the worker pools of the transports.
+ * <p>
+ * An implementation is selected with the <code>ExecutorProvider</code> parameter in
+ * axis2.xml, which takes the name of a class implementing this interface and having a public
+ * no-argument constructor. If the parameter is absent, each component uses its own
+ * thread pool as before.
+ */
+public interface ExecutorProvider {
+    /**
+     * Create a new executor.
+     *
+     * @param name the name of the component using the executor, used to name its threads
+     * @param corePoolSize the configured core pool size; implementations that don't pool
+     *        threads may ignore it
+     * @param maxPoolSize the configured maximum pool size; implementations that don't pool
+     *        threads may ignore it
+     * @param keepAlive the time idle threads are kept alive
+     * @param unit the unit of <code>keepAlive</code>
+     * @return the executor; the caller is responsible for shutting it down
+     */
+    ExecutorService createExecutor(String name, int corePoolSize, int maxPoolSize,
+                                   long keepAlive, TimeUnit unit);
+}
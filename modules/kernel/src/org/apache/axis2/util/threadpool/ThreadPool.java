@@ -29,10 +29,14 @@ import org.apache.commons.logging.LogFactory;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This the thread pool for axis2. This class will be used a singleton
@@ -45,6 +49,8 @@ public class ThreadPool implements ThreadFactory {
     protected static long SLEEP_INTERVAL = 1000;
     private static boolean shutDown;
     protected ThreadPoolExecutor executor;
+    // The executor actually used; differs from executor if created by an ExecutorProvider
+    private ExecutorService executorService;
 
     //integers that define the pool size, with the default values set.
     private int corePoolSize = 5;
@@ -61,19 +67,35 @@ public class ThreadPool implements ThreadFactory {
         setExecutor(createDefaultExecutor("Axis2 Task", Thread.NORM_PRIORITY, true));
     }
 
+    /**
+     * Create a thread pool with an executor created by the given {@link ExecutorProvider}.
+     *
+     * @param executorProvider the provider configured in axis2.xml
+     */
+    public ThreadPool(ExecutorProvider executorProvider) {
+        ExecutorService executorService = executorProvider.createExecutor("Axis2 Task",
+                corePoolSize, maxPoolSize, 10, TimeUnit.SECONDS);
+        if (executorService instanceof ThreadPoolExecutor) {
+            setExecutor((ThreadPoolExecutor)executorService);
+        } else {
+            this.executorService = executorService;
+        }
+    }
+
     public Executor getExecutor() {
-        return executor;
+        return executorService;
     }
 
     public void setExecutor(ThreadPoolExecutor executor) {
         this.executor = executor;
+        this.executorService = executor;
     }
 
     public void execute(Runnable worker) {
         if (shutDown) {
             throw new RuntimeException(Messages.getMessage("threadpoolshutdown"));
         }
-        executor.execute(worker);
+        executorService.execute(worker);
     }
 
     /**
@@ -83,7 +105,7 @@ public class ThreadPool implements ThreadFactory {
         if (log.isDebugEnabled()) {
             log.debug("forceShutDown called. Thread workers will be stopped");
         }
-        executor.shutdownNow();
+        executorService.shutdownNow();
     }
 
     /**
@@ -98,27 +120,108 @@ public class ThreadPool implements ThreadFactory {
             shutDown = true;
         }
 
-        executor.shutdown();
+        executorService.shutdown();
     }
 
     protected ThreadPoolExecutor createDefaultExecutor(final String name,
                                                        final int priority,
                                                        final boolean daemon) {
+        return createExecutor(name, corePoolSize, maxPoolSize, 10, TimeUnit.SECONDS, priority,
+                daemon);
+    }
+
+    /**
+     * Create an executor the way the thread pool creates its default executor. This is used by
+     * {@link ExecutorProvider}s which need to fall back to a regular thread pool.
+     * <p>
+     * The executor starts new threads, up to maxPoolSize, as long as none of its threads is
+     * idle, and only queues tasks after that. Its queue is unbounded, so tasks are never
+     * rejected while the executor is running.
+     */
+    static ThreadPoolExecutor createExecutor(String name, int corePoolSize, int maxPoolSize,
+                                             long keepAlive, TimeUnit unit, int priority,
+                                             boolean daemon) {
         ThreadPoolExecutor rc;
         if (maxPoolSize == Integer.MAX_VALUE) {
-            rc = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 10,
-                    TimeUnit.SECONDS, new SynchronousQueue(),
+            rc = new ThreadPoolExecutor(corePoolSize, maxPoolSize, keepAlive,
+                    unit, new SynchronousQueue(),
                     new DefaultThreadFactory(name, daemon, priority));
         } else {
-            rc = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 10,
-                    TimeUnit.SECONDS, new LinkedBlockingQueue(),
-                    new DefaultThreadFactory(name, daemon, priority));
+            GrowingQueue queue = new GrowingQueue();
+            GrowingExecutor executor = new GrowingExecutor(corePoolSize, maxPoolSize, keepAlive,
+                    unit, queue, new DefaultThreadFactory(name, daemon, priority));
+            queue.executor = executor;
+            rc = executor;
         }
 // FIXME: This API is only in JDK 1.6 - Use reflection?        
 //        rc.allowCoreThreadTimeOut(true);
         return rc;
     }
 
+    /**
+     * Keeps track of the tasks that have been submitted but not completed yet, so that
+     * {@link GrowingQueue} knows whether an idle thread will pick up a new task.
+     */
+    private static class GrowingExecutor extends ThreadPoolExecutor {
+        private final AtomicInteger pendingTasks = new AtomicInteger();
+
+        GrowingExecutor(int corePoolSize, int maxPoolSize, long keepAlive, TimeUnit unit,
+                        GrowingQueue queue, java.util.concurrent.ThreadFactory threadFactory) {
+            super(corePoolSize, maxPoolSize, keepAlive, unit, queue, threadFactory,
+                    new QueueingRejectionHandler());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            pendingTasks.incrementAndGet();
+            try {
+                super.execute(command);
+            } catch (RuntimeException e) {
+                pendingTasks.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            pendingTasks.decrementAndGet();
+        }
+    }
+
+    /**
+     * A {@link ThreadPoolExecutor} only starts threads beyond its core pool size when its queue
+     * refuses a task. This queue refuses tasks while the executor can still grow and none of its
+     * threads is idle; the tasks refused once the executor has reached its maximum size are
+     * queued by {@link QueueingRejectionHandler}.
+     */
+    private static class GrowingQueue extends LinkedBlockingQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        transient GrowingExecutor executor;
+
+        @Override
+        public boolean offer(Runnable task) {
+            int poolSize = executor.getPoolSize();
+            if (executor.pendingTasks.get() > poolSize
+                    && poolSize < executor.getMaximumPoolSize()) {
+                return false;
+            }
+            return super.offer(task);
+        }
+
+        boolean enqueue(Runnable task) {
+            return super.offer(task);
+        }
+    }
+
+    private static class QueueingRejectionHandler implements RejectedExecutionHandler {
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown() || !((GrowingQueue)executor.getQueue()).enqueue(task)) {
+                throw new RejectedExecutionException(Messages.getMessage("threadpoolshutdown"));
+            }
+        }
+    }
+
     private static class DefaultThreadFactory implements java.util.concurrent.ThreadFactory {
         private final String name;
         private final boolean daemon;
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util.threadpool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExecutorProvider} that runs every task in a new virtual thread. Tasks blocking on
+ * I/O, such as calls to slow backends, then no longer tie up platform threads, and the pool
+ * sizes are ignored.
+ * <p>
+ * Virtual threads require Java 21 or later. The API is accessed reflectively so that this
+ * class can be compiled for and loaded on older runtimes; there it falls back to a thread
+ * pool of the configured size, created the same way as the default executor of
+ * {@link ThreadPool} (daemon threads, and a queue matching the pool sizes).
+ */
+public class VirtualThreadExecutorProvider implements ExecutorProvider {
+    private static final Log log = LogFactory.getLog(VirtualThreadExecutorProvider.class);
+
+    private static final Method ofVirtual;
+    private static final Method name;
+    private static final Method factory;
+    private static final Method newThreadPerTaskExecutor;
+
+    static {
+        Method ofVirtualMethod = null;
+        Method nameMethod = null;
+        Method factoryMethod = null;
+        Method newThreadPerTaskExecutorMethod = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            nameMethod = builderClass.getMethod("name", String.class, long.class);
+            factoryMethod = builderClass.getMethod("factory");
+            newThreadPerTaskExecutorMethod = Executors.class.getMethod("newThreadPerTaskExecutor",
+                    java.util.concurrent.ThreadFactory.class);
+        } catch (ClassNotFoundException e) {
+            // Not supported by this runtime
+        } catch (NoSuchMethodException e) {
+            // Not supported by this runtime
+        }
+        ofVirtual = ofVirtualMethod;
+        name = nameMethod;
+        factory = factoryMethod;
+        newThreadPerTaskExecutor = newThreadPerTaskExecutorMethod;
+    }
+
+    /**
+     * @return true if the runtime supports virtual threads
+     */
+    public static boolean isSupported() {
+        return newThreadPerTaskExecutor != null;
+    }
+
+    public ExecutorService createExecutor(String name, int corePoolSize, int maxPoolSize,
+                                          long keepAlive, TimeUnit unit) {
+        if (isSupported()) {
+            try {
+                return createVirtualThreadExecutor(name);
+            } catch (Exception e) {
+                log.warn("Unable to create a virtual thread executor for " + name
+                        + "; using a thread pool instead", e);
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("Virtual threads are not supported by this runtime; using a thread pool for "
+                    + name);
+        }
+        return ThreadPool.createExecutor(name, corePoolSize, maxPoolSize, keepAlive, unit,
+                Thread.NORM_PRIORITY, true);
+    }
+
+    private static ExecutorService createVirtualThreadExecutor(String threadName)
+            throws IllegalAccessException, InvocationTargetException {
+        Object builder = ofVirtual.invoke(null);
+        builder = name.invoke(builder, threadName + "-", 0L);
+        Object threadFactory = factory.invoke(builder);
+        return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServiceClientTemplateTest extends Assert {
+    private ConfigurationContext configContext;
+    private AxisConfiguration axisConfig;
+
+    @Before
+    public void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        axisConfig = configContext.getAxisConfiguration();
+    }
+
+    @Test
+    public void testClientsShareService() throws Exception {
+        ServiceClientTemplate template = new ServiceClientTemplate(configContext, null);
+        AxisService service = template.getAxisService();
+        int services = axisConfig.getServices().size();
+
+        ServiceClient client1 = template.createClient();
+        ServiceClient client2 = template.createClient();
+        assertSame(service, client1.getAxisService());
+        assertSame(service, client2.getAxisService());
+        assertNotSame(client1.getServiceContext(), client2.getServiceContext());
+        assertNotNull(service.getOperation(ServiceClient.ANON_OUT_IN_OP));
+        assertEquals(services, axisConfig.getServices().size());
+
+        // Cleaning up a client leaves the shared service alone
+        client1.cleanup();
+        assertSame(service, axisConfig.getService(service.getName()));
+
+        template.close();
+        assertNull(axisConfig.getService(service.getName()));
+    }
+
+    @Test
+    public void testExistingServiceNotRemoved() throws Exception {
+        AxisService service = new AxisService("existing");
+        axisConfig.addService(service);
+        ServiceClientTemplate template =
+                new ServiceClientTemplate(configContext, new AxisService("existing"), null);
+        assertSame(service, template.getAxisService());
+        template.close();
+        assertSame(service, axisConfig.getService("existing"));
+    }
+
+    @Test
+    public void testClientOptionsInheritTemplateOptions() throws Exception {
+        Options options = new Options();
+        options.setAction("urn:echo");
+        options.setTo(new EndpointReference("http://localhost/axis2/services/Echo"));
+        ServiceClientTemplate template = new ServiceClientTemplate(configContext, options);
+
+        ServiceClient client = template.createClient();
+        assertEquals("urn:echo", client.getOptions().getAction());
+        client.getOptions().setAction("urn:other");
+        client.getOptions().getTo().setAddress("http://example.org/axis2/services/Echo");
+
+        assertEquals("urn:echo", options.getAction());
+        assertEquals("http://localhost/axis2/services/Echo", options.getTo().getAddress());
+        assertEquals("http://localhost/axis2/services/Echo",
+                template.createClient().getOptions().getTo().getAddress());
+    }
+
+    @Test
+    public void testServiceOfClientCannotChange() throws Exception {
+        ServiceClient client = new ServiceClientTemplate(configContext, null).createClient();
+        try {
+            client.engageModule("addressing");
+            fail("Expected AxisFault");
+        } catch (AxisFault e) {
+            // Expected
+        }
+        try {
+            client.setAxisService(new AxisService("other"));
+            fail("Expected AxisFault");
+        } catch (AxisFault e) {
+            // Expected
+        }
+    }
+
+    @Test(expected=AxisFault.class)
+    public void testUnknownModule() throws Exception {
+        new ServiceClientTemplate(configContext, null, "unknown");
+    }
+}
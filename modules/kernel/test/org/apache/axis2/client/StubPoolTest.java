@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StubPoolTest extends Assert {
+    private static class TestStub extends Stub {
+        boolean cleanedUp;
+
+        TestStub(ServiceClient serviceClient) {
+            _serviceClient = serviceClient;
+        }
+
+        public void cleanup() throws AxisFault {
+            cleanedUp = true;
+        }
+    }
+
+    private ServiceClientTemplate template;
+    private StubPool<TestStub> pool;
+
+    @Before
+    public void setUp() throws Exception {
+        template = new ServiceClientTemplate(
+                ConfigurationContextFactory.createEmptyConfigurationContext(), null);
+        pool = new StubPool<TestStub>(new StubPool.StubFactory<TestStub>() {
+            public TestStub createStub() {
+                return new TestStub(template.createClient());
+            }
+        }, 2);
+    }
+
+    @Test
+    public void testStubsReused() throws Exception {
+        TestStub stub = pool.borrowStub();
+        pool.returnStub(stub);
+        assertEquals(1, pool.getIdleCount());
+        assertSame(stub, pool.borrowStub());
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    public void testIdleStubsBounded() throws Exception {
+        TestStub stub1 = pool.borrowStub();
+        TestStub stub2 = pool.borrowStub();
+        TestStub stub3 = pool.borrowStub();
+        assertEquals(3, pool.getCreatedCount());
+        pool.returnStub(stub1);
+        pool.returnStub(stub2);
+        pool.returnStub(stub3);
+        assertEquals(2, pool.getIdleCount());
+        assertFalse(stub2.cleanedUp);
+        assertTrue(stub3.cleanedUp);
+        assertEquals(1, pool.getDestroyedCount());
+        // Most recently returned first
+        assertSame(stub2, pool.borrowStub());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        TestStub stub1 = pool.borrowStub();
+        TestStub stub2 = pool.borrowStub();
+        pool.returnStub(stub1);
+        pool.close();
+        assertTrue(stub1.cleanedUp);
+        assertEquals(0, pool.getIdleCount());
+        pool.returnStub(stub2);
+        assertTrue(stub2.cleanedUp);
+        try {
+            pool.borrowStub();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}
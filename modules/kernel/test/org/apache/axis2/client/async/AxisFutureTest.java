@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client.async;
+
+import org.apache.axis2.AxisFault;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AxisFutureTest extends Assert {
+    private static class RecordingListener<V> implements AxisFuture.Listener<V> {
+        final AtomicReference<V> result = new AtomicReference<V>();
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        final AtomicInteger calls = new AtomicInteger();
+
+        public void onSuccess(V result) {
+            this.result.set(result);
+            calls.incrementAndGet();
+        }
+
+        public void onFailure(Throwable cause) {
+            this.cause.set(cause);
+            calls.incrementAndGet();
+        }
+    }
+
+    private static class CountingHandler implements Runnable {
+        final AtomicInteger runs = new AtomicInteger();
+
+        public void run() {
+            runs.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void testComplete() throws Exception {
+        AxisFuture<String> future = new AxisFuture<String>();
+        RecordingListener<String> before = new RecordingListener<String>();
+        future.addListener(before);
+        assertFalse(future.isDone());
+        assertTrue(future.complete("result"));
+        assertFalse(future.complete("other"));
+        assertFalse(future.fail(new Exception()));
+        assertTrue(future.isDone());
+        assertEquals("result", future.get());
+        assertEquals("result", future.get(1, TimeUnit.SECONDS));
+        assertEquals("result", before.result.get());
+        RecordingListener<String> after = new RecordingListener<String>();
+        future.addListener(after);
+        assertEquals("result", after.result.get());
+        assertEquals(1, before.calls.get());
+    }
+
+    @Test
+    public void testFail() throws Exception {
+        AxisFuture<String> future = new AxisFuture<String>();
+        RecordingListener<String> listener = new RecordingListener<String>();
+        future.addListener(listener);
+        AxisFault fault = new AxisFault("failed");
+        future.fail(fault);
+        assertSame(fault, listener.cause.get());
+        try {
+            future.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException ex) {
+            assertSame(fault, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testGetTimesOut() throws Exception {
+        AxisFuture<String> future = new AxisFuture<String>();
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException ex) {
+            // Expected
+        }
+        assertFalse(future.isDone());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AxisFuture<String> future = new AxisFuture<String>();
+        CountingHandler handler = new CountingHandler();
+        future.setCancellationHandler(handler);
+        RecordingListener<String> listener = new RecordingListener<String>();
+        future.addListener(listener);
+        assertTrue(future.cancel(false));
+        assertFalse(future.cancel(false));
+        assertTrue(future.isCancelled());
+        assertEquals(1, handler.runs.get());
+        assertTrue(listener.cause.get() instanceof CancellationException);
+        assertFalse(future.complete("late"));
+        try {
+            future.get();
+            fail("Expected CancellationException");
+        } catch (CancellationException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testCancellationHandlerNotRunOnCompletion() {
+        AxisFuture<String> future = new AxisFuture<String>();
+        CountingHandler handler = new CountingHandler();
+        future.setCancellationHandler(handler);
+        future.complete("result");
+        assertFalse(future.cancel(false));
+        assertEquals(0, handler.runs.get());
+    }
+
+    @Test
+    public void testCancellationHandlerSetAfterCancel() {
+        AxisFuture<String> future = new AxisFuture<String>();
+        future.cancel(false);
+        CountingHandler handler = new CountingHandler();
+        future.setCancellationHandler(handler);
+        assertEquals(1, handler.runs.get());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        AxisFuture<String> future = new AxisFuture<String>();
+        CountingHandler handler = new CountingHandler();
+        future.setCancellationHandler(handler);
+        future.setTimeout(20);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof AxisFault);
+        }
+        assertFalse(future.isCancelled());
+        assertEquals(1, handler.runs.get());
+    }
+
+    @Test
+    public void testTimeoutCancelledOnCompletion() throws Exception {
+        AxisFuture<String> future = new AxisFuture<String>();
+        CountingHandler handler = new CountingHandler();
+        future.setCancellationHandler(handler);
+        future.setTimeout(20);
+        future.complete("result");
+        Thread.sleep(100);
+        assertEquals("result", future.get());
+        assertEquals(0, handler.runs.get());
+    }
+
+    @Test
+    public void testTransform() throws Exception {
+        AxisFuture<String> source = new AxisFuture<String>();
+        AxisFuture<Integer> length = source.transform(
+                new AxisFuture.Transformer<String, Integer>() {
+                    public Integer transform(String source) {
+                        return source.length();
+                    }
+                });
+        source.complete("abc");
+        assertEquals(Integer.valueOf(3), length.get());
+    }
+
+    @Test
+    public void testTransformerFailure() throws Exception {
+        AxisFuture<String> source = new AxisFuture<String>();
+        final Exception failure = new Exception();
+        AxisFuture<Integer> target = source.transform(
+                new AxisFuture.Transformer<String, Integer>() {
+                    public Integer transform(String source) throws Exception {
+                        throw failure;
+                    }
+                });
+        source.complete("abc");
+        try {
+            target.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException ex) {
+            assertSame(failure, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testCancelTransformedFuture() {
+        AxisFuture<String> source = new AxisFuture<String>();
+        CountingHandler handler = new CountingHandler();
+        source.setCancellationHandler(handler);
+        AxisFuture<Integer> target = source.transform(
+                new AxisFuture.Transformer<String, Integer>() {
+                    public Integer transform(String source) {
+                        return source.length();
+                    }
+                });
+        target.cancel(false);
+        assertTrue(source.isCancelled());
+        assertEquals(1, handler.runs.get());
+    }
+
+    @Test
+    public void testAllOf() throws Exception {
+        AxisFuture<String> first = new AxisFuture<String>();
+        AxisFuture<String> second = new AxisFuture<String>();
+        AxisFuture<List<String>> all = AxisFuture.allOf(Arrays.asList(first, second));
+        second.complete("b");
+        assertFalse(all.isDone());
+        first.complete("a");
+        assertEquals(Arrays.asList("a", "b"), all.get());
+    }
+
+    @Test
+    public void testAllOfFailsFast() throws Exception {
+        AxisFuture<String> first = new AxisFuture<String>();
+        AxisFuture<String> second = new AxisFuture<String>();
+        AxisFuture<List<String>> all = AxisFuture.allOf(Arrays.asList(first, second));
+        AxisFault fault = new AxisFault("failed");
+        second.fail(fault);
+        assertTrue(all.isDone());
+        try {
+            all.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException ex) {
+            assertSame(fault, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testCancelAllOf() {
+        AxisFuture<String> first = new AxisFuture<String>();
+        AxisFuture<String> second = new AxisFuture<String>();
+        AxisFuture<List<String>> all = AxisFuture.allOf(Arrays.asList(first, second));
+        first.complete("a");
+        all.cancel(false);
+        assertFalse(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    public void testAllOfEmpty() throws Exception {
+        List<AxisFuture<String>> none = Arrays.asList();
+        assertTrue(AxisFuture.<String>allOf(none).get().isEmpty());
+    }
+}
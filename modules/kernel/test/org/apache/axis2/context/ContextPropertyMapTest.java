@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import junit.framework.TestCase;
+import org.apache.axis2.Constants;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class ContextPropertyMapTest extends TestCase {
+
+    public void testSlotAndOtherKeys() {
+        ContextPropertyMap map = new ContextPropertyMap(false);
+        assertTrue(PropertyKeys.slotOf(Constants.Configuration.CHARACTER_SET_ENCODING) >= 0);
+        assertTrue(PropertyKeys.slotOf("some.custom.key") < 0);
+
+        assertNull(map.put(Constants.Configuration.CHARACTER_SET_ENCODING, "UTF-8"));
+        assertNull(map.put("some.custom.key", "value"));
+        assertEquals(2, map.size());
+        assertEquals("UTF-8", map.get(Constants.Configuration.CHARACTER_SET_ENCODING));
+        assertEquals("value", map.get("some.custom.key"));
+
+        assertEquals("UTF-8", map.put(Constants.Configuration.CHARACTER_SET_ENCODING, "UTF-16"));
+        assertEquals(2, map.size());
+        assertEquals("UTF-16", map.remove(Constants.Configuration.CHARACTER_SET_ENCODING));
+        assertFalse(map.containsKey(Constants.Configuration.CHARACTER_SET_ENCODING));
+        assertEquals(1, map.size());
+
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("some.custom.key", "value");
+        assertEquals(expected, map);
+    }
+
+    public void testNullValues() {
+        ContextPropertyMap map = new ContextPropertyMap(false);
+        map.put(Constants.Configuration.CHARACTER_SET_ENCODING, null);
+        map.put("some.custom.key", null);
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(Constants.Configuration.CHARACTER_SET_ENCODING));
+        assertNull(map.get(Constants.Configuration.CHARACTER_SET_ENCODING));
+        assertTrue(map.containsKey("some.custom.key"));
+    }
+
+    public void testIteratorRemove() {
+        Map<String, Object> source = new HashMap<String, Object>();
+        source.put(Constants.Configuration.CHARACTER_SET_ENCODING, "UTF-8");
+        source.put(Constants.Configuration.ENABLE_MTOM, Boolean.TRUE);
+        source.put("some.custom.key", "value");
+        ContextPropertyMap map = new ContextPropertyMap(source, false);
+        assertEquals(source, map);
+
+        for (Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getKey().equals(Constants.Configuration.ENABLE_MTOM)) {
+                entry.setValue(Boolean.FALSE);
+            } else {
+                it.remove();
+            }
+        }
+        assertEquals(1, map.size());
+        assertEquals(Boolean.FALSE, map.get(Constants.Configuration.ENABLE_MTOM));
+    }
+
+    public void testSharedVersion() {
+        ContextPropertyMap shared = new ContextPropertyMap(true);
+        ContextPropertyMap local = new ContextPropertyMap(false);
+
+        int version = ContextPropertyMap.getSharedVersion();
+        local.put("some.custom.key", "value");
+        assertEquals(version, ContextPropertyMap.getSharedVersion());
+
+        shared.put("some.custom.key", "value");
+        assertTrue(version != ContextPropertyMap.getSharedVersion());
+        version = ContextPropertyMap.getSharedVersion();
+        shared.entrySet().iterator().next().setValue("other");
+        assertTrue(version != ContextPropertyMap.getSharedVersion());
+    }
+
+    public void testCachedLookupSeesChanges() throws Exception {
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        AxisService axisService = new AxisService("Temp");
+        axisConfiguration.addService(axisService);
+        ConfigurationContext configurationContext = new ConfigurationContext(axisConfiguration);
+        ServiceGroupContext serviceGroupContext = configurationContext.createServiceGroupContext(
+                axisService.getAxisServiceGroup());
+        ServiceContext serviceContext = serviceGroupContext.getServiceContext(axisService);
+        MessageContext msgContext = configurationContext.createMessageContext();
+        msgContext.setServiceContext(serviceContext);
+
+        String key = Constants.Configuration.CHARACTER_SET_ENCODING;
+        assertNull(msgContext.getProperty(key));
+
+        configurationContext.setProperty(key, "UTF-8");
+        assertEquals("UTF-8", msgContext.getProperty(key));
+        assertEquals("UTF-8", msgContext.getProperty(key));
+
+        serviceContext.setProperty(key, "UTF-16");
+        assertEquals("UTF-16", msgContext.getProperty(key));
+
+        serviceContext.removeProperty(key);
+        assertEquals("UTF-8", msgContext.getProperty(key));
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(key, "ISO-8859-1");
+        configurationContext.setProperties(properties);
+        assertEquals("ISO-8859-1", msgContext.getProperty(key));
+
+        // Replacing the map without putting anything into it
+        configurationContext.setProperties(null);
+        assertNull(msgContext.getProperty(key));
+        configurationContext.setProperties(new HashMap<String, Object>());
+        assertNull(msgContext.getProperty(key));
+        configurationContext.setProperty(key, "UTF-8");
+        assertEquals("UTF-8", msgContext.getProperty(key));
+        configurationContext.setProperties(new HashMap<String, Object>());
+        assertNull(msgContext.getProperty(key));
+
+        // Properties of the message itself always take precedence
+        msgContext.setProperty(key, "US-ASCII");
+        assertEquals("US-ASCII", msgContext.getProperty(key));
+    }
+}
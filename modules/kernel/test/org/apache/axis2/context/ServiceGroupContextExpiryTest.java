@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import junit.framework.TestCase;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ServiceGroupContextExpiryTest extends TestCase {
+    private static final long TICK = 100;
+    private static final long TIMEOUT = 1000;
+
+    private ConfigurationContext configurationContext;
+    private AxisService axisService;
+    private ConcurrentHashMap<String, ServiceGroupContext> contexts;
+    private ServiceGroupContextExpiry expiry;
+
+    protected void setUp() throws Exception {
+        axisService = new AxisService("Temp");
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        axisConfiguration.addService(axisService);
+        configurationContext = new ConfigurationContext(axisConfiguration);
+        contexts = new ConcurrentHashMap<String, ServiceGroupContext>();
+        expiry = new ServiceGroupContextExpiry(contexts, TICK, 0);
+    }
+
+    private ServiceGroupContext addContext(String id, long lastTouchedTime) {
+        ServiceGroupContext serviceGroupContext = configurationContext.createServiceGroupContext(
+                axisService.getAxisServiceGroup());
+        serviceGroupContext.setId(id);
+        serviceGroupContext.setLastTouchedTime(lastTouchedTime);
+        contexts.put(id, serviceGroupContext);
+        expiry.schedule(serviceGroupContext, TIMEOUT);
+        return serviceGroupContext;
+    }
+
+    public void testExpire() {
+        ServiceGroupContext sgc1 = addContext("sgc1", 0);
+        ServiceGroupContext sgc2 = addContext("sgc2", 500);
+
+        assertTrue(expiry.expire(TIMEOUT, TIMEOUT).isEmpty());
+        List<ServiceGroupContext> expired = expiry.expire(TIMEOUT + 200, TIMEOUT);
+        assertEquals(1, expired.size());
+        assertSame(sgc1, expired.get(0));
+        assertFalse(contexts.containsKey("sgc1"));
+
+        expired = expiry.expire(TIMEOUT + 700, TIMEOUT);
+        assertEquals(1, expired.size());
+        assertSame(sgc2, expired.get(0));
+        assertTrue(contexts.isEmpty());
+    }
+
+    public void testTouchedContextIsRescheduled() {
+        ServiceGroupContext sgc = addContext("sgc", 0);
+        sgc.setLastTouchedTime(900);
+        assertTrue(expiry.expire(TIMEOUT + 200, TIMEOUT).isEmpty());
+        assertTrue(contexts.containsKey("sgc"));
+        assertEquals(1, expiry.expire(2 * TIMEOUT + 200, TIMEOUT).size());
+    }
+
+    public void testRemovedContextIsIgnored() {
+        addContext("sgc", 0);
+        contexts.remove("sgc");
+        assertTrue(expiry.expire(TIMEOUT + 200, TIMEOUT).isEmpty());
+    }
+
+    public void testExpireAfterSeveralRounds() {
+        addContext("sgc1", 0);
+        addContext("sgc2", 0);
+        long now = 5 * ServiceGroupContextExpiry.WHEEL_SIZE * TICK;
+        assertEquals(2, expiry.expire(now, TIMEOUT).size());
+        assertTrue(contexts.isEmpty());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.deployment.util;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ArchiveIndexTest extends TestCase {
+
+    private File dir;
+    private File archive;
+
+    protected void setUp() throws Exception {
+        dir = File.createTempFile("archiveindex", "");
+        dir.delete();
+        dir.mkdirs();
+        archive = new File(dir, "test.aar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            addEntry(out, "META-INF/services.xml", "<service/>");
+            addEntry(out, "META-INF/service.wsdl", "<definitions/>");
+            addEntry(out, "lib/a.jar", "first nested jar");
+            addEntry(out, "Lib/b.JAR", "second nested jar");
+            addEntry(out, "lib/readme.txt", "not a jar");
+        } finally {
+            out.close();
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        delete(dir);
+    }
+
+    private static void addEntry(ZipOutputStream out, String name, String content)
+            throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes("UTF-8"));
+        out.closeEntry();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try {
+            StringBuilder buffer = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                buffer.append((char)c);
+            }
+            return buffer.toString();
+        } finally {
+            in.close();
+        }
+    }
+
+    public void testLookupIgnoresCase() throws Exception {
+        ArchiveIndex index = new ArchiveIndex(archive);
+        try {
+            assertEquals("<service/>", read(index.getInputStream("meta-inf/SERVICES.XML")));
+            assertNull(index.getInputStream("META-INF/module.xml"));
+            assertEquals(5, index.getEntries().size());
+            Iterator<ZipEntry> entries = index.getEntries().iterator();
+            assertEquals("META-INF/services.xml", entries.next().getName());
+            assertEquals("META-INF/service.wsdl", entries.next().getName());
+        } finally {
+            index.close();
+        }
+    }
+
+    public void testNestedJarsExtractedOnce() throws Exception {
+        File cacheDir = new File(dir, "cache");
+        ArchiveIndex index = new ArchiveIndex(archive);
+        URL[] urls;
+        try {
+            assertEquals(2, index.getNestedJars().size());
+            urls = index.getClassPath(cacheDir);
+        } finally {
+            index.close();
+        }
+        assertEquals(3, urls.length);
+        assertEquals(archive.toURI().toURL(), urls[0]);
+        File a = new File(urls[1].toURI());
+        assertEquals(cacheDir, a.getParentFile());
+        assertTrue(a.getName().startsWith("a-"));
+        assertEquals("first nested jar", read(urls[1].openStream()));
+        assertEquals("second nested jar", read(urls[2].openStream()));
+
+        // A second deployment of the same archive reuses the extracted jars
+        a.setLastModified(1000);
+        index = new ArchiveIndex(archive);
+        try {
+            URL[] again = index.getClassPath(cacheDir);
+            assertEquals(urls[1], again[1]);
+            assertEquals(1000, a.lastModified());
+        } finally {
+            index.close();
+        }
+        assertEquals(2, cacheDir.listFiles().length);
+    }
+
+    public void testTruncatedJarIsExtractedAgain() throws Exception {
+        File cacheDir = new File(dir, "cache");
+        ArchiveIndex index = new ArchiveIndex(archive);
+        try {
+            File a = new File(index.getClassPath(cacheDir)[1].toURI());
+            FileOutputStream out = new FileOutputStream(a);
+            out.write('x');
+            out.close();
+
+            a = new File(index.getClassPath(cacheDir)[1].toURI());
+            assertEquals("first nested jar", read(a.toURI().toURL().openStream()));
+        } finally {
+            index.close();
+        }
+    }
+
+    public void testTamperedJarIsExtractedAgain() throws Exception {
+        File cacheDir = new File(dir, "cache");
+        ArchiveIndex index = new ArchiveIndex(archive);
+        try {
+            File a = new File(index.getClassPath(cacheDir)[1].toURI());
+            // Same size, different content
+            FileOutputStream out = new FileOutputStream(a);
+            out.write("first nested JAR".getBytes("UTF-8"));
+            out.close();
+
+            a = new File(index.getClassPath(cacheDir)[1].toURI());
+            assertEquals("first nested jar", read(a.toURI().toURL().openStream()));
+        } finally {
+            index.close();
+        }
+    }
+
+    public void testCacheDirIsPrivate() throws Exception {
+        File cacheDir = new File(dir, "cache");
+        ArchiveIndex index = new ArchiveIndex(archive);
+        try {
+            index.getClassPath(cacheDir);
+        } finally {
+            index.close();
+        }
+        if (Files.getFileAttributeView(cacheDir.toPath(), PosixFileAttributeView.class) != null) {
+            assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ,
+                                    PosixFilePermission.OWNER_WRITE,
+                                    PosixFilePermission.OWNER_EXECUTE),
+                         Files.getPosixFilePermissions(cacheDir.toPath()));
+        }
+    }
+
+    public void testDefaultCacheDir() {
+        assertEquals(new File(dir, "jar-cache"), ArchiveIndex.getDefaultCacheDir(dir));
+        File cacheDir = ArchiveIndex.getDefaultCacheDir(null);
+        assertEquals(new File(System.getProperty("java.io.tmpdir")),
+                     cacheDir.getParentFile());
+    }
+
+    public void testCacheFileNameDependsOnContent() {
+        ZipEntry entry = new ZipEntry("lib/x/foo.jar");
+        entry.setSize(10);
+        entry.setCrc(0xabcL);
+        assertEquals("foo-abc-10.jar", ArchiveIndex.getCacheFileName(entry));
+        entry.setCrc(0xabdL);
+        assertEquals("foo-abd-10.jar", ArchiveIndex.getCacheFileName(entry));
+    }
+}
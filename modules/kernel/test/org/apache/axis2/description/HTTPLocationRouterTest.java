@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.description;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.apache.axis2.wsdl.WSDLUtil;
+
+public class HTTPLocationRouterTest extends TestCase {
+
+    private AxisBinding binding;
+    private Map<String, AxisOperation> table;
+    private AxisOperation getCustomers;
+    private AxisOperation getAllCustomers;
+    private AxisOperation getCustomer;
+    private AxisOperation getOrders;
+    private AxisOperation getOrder;
+    private AxisOperation postCustomer;
+    private AxisOperation getItem;
+    private AxisOperation search;
+    private AxisOperation searchEnglish;
+
+    /**
+     * Add an operation the way the service builders do: the binding operation holds the
+     * whttp:location template and the table only holds its constant part.
+     */
+    private AxisOperation addOperation(String name, String location, String method) {
+        AxisOperation operation = new InOutAxisOperation(new QName(name));
+        AxisBindingOperation bindingOperation = new AxisBindingOperation();
+        bindingOperation.setName(operation.getName());
+        bindingOperation.setAxisOperation(operation);
+        bindingOperation.setParent(binding);
+        bindingOperation.setProperty(WSDL2Constants.ATTR_WHTTP_LOCATION, location);
+        bindingOperation.setProperty(WSDL2Constants.ATTR_WHTTP_METHOD, method);
+        binding.addChild(bindingOperation.getName(), bindingOperation);
+        table.put(WSDLUtil.getConstantFromHTTPLocation(location, method), operation);
+        return operation;
+    }
+
+    protected void setUp() throws Exception {
+        binding = new AxisBinding();
+        // Not a sorted map: the result must not depend on the iteration order
+        table = new HashMap<String, AxisOperation>();
+        getCustomers = addOperation("getCustomers", "customers", "GET");
+        getAllCustomers = addOperation("getAllCustomers", "customers/all", "GET");
+        getCustomer = addOperation("getCustomer", "customers/{id}", "GET");
+        // Same table key as getCustomer
+        getOrders = addOperation("getOrders", "customers/{id}/orders", "GET");
+        getOrder = addOperation("getOrder", "customers/{id}/orders/{order}", "GET");
+        postCustomer = addOperation("postCustomer", "customers/{id}", "POST");
+        getItem = addOperation("getItem", "items/item{id}.xml", "GET");
+        search = addOperation("search", "search?q={query}", "GET");
+        searchEnglish = addOperation("searchEnglish", "search?lang=en&q={query}", "GET");
+        binding.setProperty(WSDL2Constants.HTTP_LOCATION_TABLE, table);
+    }
+
+    public void testLongestMatch() {
+        HTTPLocationRouter router = binding.getHTTPLocationRouter();
+        assertSame(getCustomers, router.route("GET/customers/"));
+        assertSame(getAllCustomers, router.route("GET/customers/all/"));
+        assertSame(getCustomer, router.route("GET/customers/42/"));
+        assertSame(getOrders, router.route("GET/customers/42/orders/"));
+        assertSame(getOrder, router.route("GET/customers/42/orders/7/"));
+        assertSame(getOrder, router.route("GET/customers/42/orders/7/lines/"));
+        assertSame(getOrders, router.route("GET/customers/all/orders/"));
+        assertSame(postCustomer, router.route("POST/customers/42/"));
+        assertNull(router.route("PUT/customers/42/"));
+        assertNull(router.route("GET/cust"));
+        assertNull(router.route(""));
+    }
+
+    public void testSegmentPattern() {
+        HTTPLocationRouter router = binding.getHTTPLocationRouter();
+        assertSame(getItem, router.route("GET/items/item42.xml/"));
+        assertNull(router.route("GET/items/item42.json/"));
+        assertNull(router.route("GET/items/other/"));
+    }
+
+    public void testQuery() {
+        HTTPLocationRouter router = binding.getHTTPLocationRouter();
+        assertSame(search, router.route("GET/search?q=axis2/"));
+        assertSame(searchEnglish, router.route("GET/search?lang=en&q=axis2/"));
+        assertNull(router.route("GET/search?lang=fr&q=axis2/"));
+    }
+
+    public void testManyOperations() {
+        for (int i = 0; i < 300; i++) {
+            addOperation("op" + i, "resource" + i + "/{id}", "GET");
+        }
+        HTTPLocationRouter router = HTTPLocationRouter.compile(binding, table);
+        for (int i = 0; i < 300; i++) {
+            assertSame(table.get("GET/resource" + i + "/"), router.route("GET/resource" + i + "/7/"));
+        }
+        assertSame(getOrders, router.route("GET/customers/1/orders/"));
+    }
+
+    public void testTableKeysOnly() {
+        // Without the binding operations, the keys are matched as prefixes
+        HTTPLocationRouter router = HTTPLocationRouter.compile(null, table);
+        assertSame(table.get("GET/customers/"), router.route("GET/customers/"));
+        assertSame(table.get("GET/customers/"), router.route("GET/customers/42/"));
+        assertSame(getCustomers, router.route("GET/customersX/"));
+        assertSame(getItem, router.route("GET/items/item42.json/"));
+        assertNull(router.route("GET/cust"));
+    }
+
+    public void testBindingRecompiles() {
+        assertNull(new AxisBinding().getHTTPLocationRouter());
+        HTTPLocationRouter router = binding.getHTTPLocationRouter();
+        assertSame(router, binding.getHTTPLocationRouter());
+        assertNull(router.route("DELETE/customers/1/"));
+
+        // A binding operation added after the router was built, and the table set again
+        AxisOperation deleteCustomer = addOperation("deleteCustomer", "customers/{id}", "DELETE");
+        binding.setProperty(WSDL2Constants.HTTP_LOCATION_TABLE, table);
+        assertSame(deleteCustomer, binding.getHTTPLocationRouter().route("DELETE/customers/1/"));
+
+        // Replacing an entry doesn't change the size of the table
+        AxisOperation newDeleteCustomer = new InOutAxisOperation(new QName("newDeleteCustomer"));
+        table.put("DELETE/customers/", newDeleteCustomer);
+        binding.removeChild(deleteCustomer.getName());
+        assertSame(newDeleteCustomer, binding.getHTTPLocationRouter().route("DELETE/customers/1/"));
+    }
+
+    public void testBindingOperationChanges() {
+        HTTPLocationRouter router = binding.getHTTPLocationRouter();
+        assertNull(router.route("GET/items/item42.json/"));
+
+        // A new location of a binding operation
+        AxisBindingOperation bindingOperation =
+                (AxisBindingOperation)binding.getChild(getItem.getName());
+        bindingOperation.setProperty(WSDL2Constants.ATTR_WHTTP_LOCATION, "items/item{id}.json");
+        router = binding.getHTTPLocationRouter();
+        assertSame(getItem, router.route("GET/items/item42.json/"));
+        assertNull(router.route("GET/items/item42.xml/"));
+        assertSame(router, binding.getHTTPLocationRouter());
+
+        // A binding operation added after the router was built, whose table key already exists
+        AxisOperation getCustomerSummary = new InOutAxisOperation(new QName("getCustomerSummary"));
+        AxisBindingOperation summary = new AxisBindingOperation();
+        summary.setName(getCustomerSummary.getName());
+        summary.setAxisOperation(getCustomerSummary);
+        summary.setProperty(WSDL2Constants.ATTR_WHTTP_LOCATION, "customers/{id}/summary");
+        summary.setProperty(WSDL2Constants.ATTR_WHTTP_METHOD, "GET");
+        binding.addChild(summary.getName(), summary);
+        assertSame(getCustomerSummary,
+                binding.getHTTPLocationRouter().route("GET/customers/42/summary/"));
+    }
+}
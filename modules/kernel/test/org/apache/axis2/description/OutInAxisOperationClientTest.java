@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.description;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.OperationClient;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.client.async.AxisFuture;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.transport.TransportSender;
+import org.apache.axis2.util.CallbackReceiver;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link OperationClient#executeAsync()} drops the state kept for a response that
+ * is no longer waited for.
+ */
+public class OutInAxisOperationClientTest extends Assert {
+    /**
+     * Sends nothing, so that no response ever arrives.
+     */
+    private static class NoResponseSender extends AbstractHandler implements TransportSender {
+        public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+            return InvocationResponse.CONTINUE;
+        }
+
+        public void cleanup(MessageContext msgContext) throws AxisFault {
+        }
+
+        public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+                throws AxisFault {
+        }
+
+        public void stop() {
+        }
+    }
+
+    private ConfigurationContext configCtx;
+    private ServiceClient serviceClient;
+
+    @Before
+    public void setUp() throws Exception {
+        configCtx = ConfigurationContextFactory.createEmptyConfigurationContext();
+        TransportOutDescription transportOut = new TransportOutDescription("test");
+        transportOut.setSender(new NoResponseSender());
+        serviceClient = new ServiceClient(configCtx, null);
+        Options options = serviceClient.getOptions();
+        options.setTo(new EndpointReference("test://localhost/axis2/services/EchoService"));
+        options.setTransportOut(transportOut);
+        // Register a callback for the response instead of waiting for it on another thread
+        options.setProperty(Constants.Configuration.USE_ASYNC_OPERATIONS, Boolean.TRUE);
+    }
+
+    private MessageContext createRequest() throws AxisFault {
+        MessageContext mc = new MessageContext();
+        mc.setEnvelope(OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope());
+        return mc;
+    }
+
+    private CallbackReceiver getCallbackReceiver() {
+        return (CallbackReceiver) serviceClient.getAxisService()
+                .getOperation(ServiceClient.ANON_OUT_IN_OP).getMessageReceiver();
+    }
+
+    private boolean isTracked(String messageID) {
+        return getCallbackReceiver().getCallbackStore().containsKey(messageID)
+                || configCtx.getOperationContext(messageID) != null;
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        OperationClient opClient = serviceClient.createClient(ServiceClient.ANON_OUT_IN_OP);
+        MessageContext request = createRequest();
+        opClient.addMessageContext(request);
+        AxisFuture<MessageContext> future = opClient.executeAsync();
+        String messageID = request.getMessageID();
+        assertNotNull(messageID);
+        assertTrue(getCallbackReceiver().getCallbackStore().containsKey(messageID));
+        assertNotNull(configCtx.getOperationContext(messageID));
+
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertFalse(getCallbackReceiver().getCallbackStore().containsKey(messageID));
+        assertNull(configCtx.getOperationContext(messageID));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        serviceClient.getOptions().setTimeOutInMilliSeconds(100);
+        OperationClient opClient = serviceClient.createClient(ServiceClient.ANON_OUT_IN_OP);
+        MessageContext request = createRequest();
+        opClient.addMessageContext(request);
+        AxisFuture<MessageContext> future = opClient.executeAsync();
+        String messageID = request.getMessageID();
+        assertTrue(isTracked(messageID));
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AxisFault);
+        }
+        // The callback is dropped right after the future fails
+        long deadline = System.currentTimeMillis() + 10000;
+        while (isTracked(messageID) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(getCallbackReceiver().getCallbackStore().containsKey(messageID));
+        assertNull(configCtx.getOperationContext(messageID));
+    }
+
+    @Test
+    public void testAbandon() throws Exception {
+        OperationClient opClient = serviceClient.createClient(ServiceClient.ANON_OUT_IN_OP);
+        MessageContext request = createRequest();
+        opClient.addMessageContext(request);
+        AxisFuture<MessageContext> future = opClient.executeAsync();
+        String messageID = request.getMessageID();
+        assertTrue(isTracked(messageID));
+
+        CallbackReceiver.abandon(
+                serviceClient.getAxisService().getOperation(ServiceClient.ANON_OUT_IN_OP),
+                request);
+        assertFalse(isTracked(messageID));
+        // Abandoning a request twice, or one that has no message ID, is harmless
+        CallbackReceiver.abandon(
+                serviceClient.getAxisService().getOperation(ServiceClient.ANON_OUT_IN_OP),
+                request);
+        CallbackReceiver.abandon(
+                serviceClient.getAxisService().getOperation(ServiceClient.ANON_OUT_IN_OP),
+                new MessageContext());
+        assertFalse(future.isDone());
+        future.cancel(true);
+    }
+}
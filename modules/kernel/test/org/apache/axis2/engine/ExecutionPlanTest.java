@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.handlers.AbstractHandler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class ExecutionPlanTest extends TestCase {
+
+    private List<String> trace;
+
+    private class RecordingHandler extends AbstractHandler {
+        private final InvocationResponse response;
+
+        RecordingHandler(String name, InvocationResponse response) {
+            init(new HandlerDescription(name));
+            this.response = response;
+        }
+
+        public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+            trace.add("invoke:" + getName());
+            return response;
+        }
+
+        public void flowComplete(MessageContext msgContext) {
+            trace.add("complete:" + getName());
+        }
+    }
+
+    protected void setUp() throws Exception {
+        trace = new ArrayList<String>();
+    }
+
+    private Phase createPhase(String name, String... handlers) {
+        Phase phase = new Phase(name);
+        for (String handler : handlers) {
+            phase.addHandler(new RecordingHandler(handler, Handler.InvocationResponse.CONTINUE));
+        }
+        return phase;
+    }
+
+    private MessageContext createMessageContext(List<Phase> phases, ExecutionPlan plan) {
+        MessageContext msgContext = new MessageContext();
+        msgContext.setExecutionChain(new ArrayList<Handler>(phases));
+        msgContext.setExecutionPlan(plan);
+        msgContext.setCurrentHandlerIndex(0);
+        return msgContext;
+    }
+
+    public void testInvokeAndFlowComplete() throws Exception {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(createPhase("p1", "h1", "h2"));
+        phases.add(createPhase("p2"));
+        phases.add(createPhase("p3", "h3"));
+        ExecutionPlan plan = ExecutionPlan.compile(phases);
+        assertTrue(plan.isFlattened());
+        assertEquals(3, plan.getPhaseCount());
+        assertEquals(3, plan.getHandlerCount());
+
+        MessageContext msgContext = createMessageContext(phases, plan);
+        assertEquals(Handler.InvocationResponse.CONTINUE, plan.invoke(msgContext));
+        assertEquals(2, msgContext.getCurrentHandlerIndex());
+        assertEquals(0, msgContext.getCurrentPhaseIndex());
+
+        Iterator<Handler> executed = msgContext.getExecutedPhases();
+        assertSame(plan, executed.next());
+        assertFalse(executed.hasNext());
+
+        plan.flowComplete(msgContext);
+        assertEquals("[invoke:h1, invoke:h2, invoke:h3, complete:h3, complete:h2, complete:h1]",
+                trace.toString());
+    }
+
+    public void testSuspendMatchesPhaseState() throws Exception {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(createPhase("p1", "h1"));
+        Phase p2 = createPhase("p2", "h2");
+        p2.addHandler(new RecordingHandler("h3", Handler.InvocationResponse.SUSPEND));
+        phases.add(p2);
+        phases.add(createPhase("p3", "h4"));
+        ExecutionPlan plan = ExecutionPlan.compile(phases);
+
+        MessageContext msgContext = createMessageContext(phases, plan);
+        assertEquals(Handler.InvocationResponse.SUSPEND, plan.invoke(msgContext));
+        assertEquals("[invoke:h1, invoke:h2, invoke:h3]", trace.toString());
+
+        // Same state as Phase.invoke() would have left behind
+        assertEquals(1, msgContext.getCurrentHandlerIndex());
+        assertEquals(1, msgContext.getCurrentPhaseIndex());
+        Iterator<Handler> executed = msgContext.getExecutedPhases();
+        assertSame(p2, executed.next());
+        assertSame(phases.get(0), executed.next());
+        assertFalse(executed.hasNext());
+    }
+
+    public void testFaultOnFirstHandlerOfPhase() throws Exception {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(createPhase("p1", "h1"));
+        Phase p2 = new Phase("p2");
+        p2.addHandler(new RecordingHandler("h2", Handler.InvocationResponse.CONTINUE) {
+            public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+                throw new AxisFault("failure");
+            }
+        });
+        phases.add(p2);
+        ExecutionPlan plan = ExecutionPlan.compile(phases);
+
+        MessageContext msgContext = createMessageContext(phases, plan);
+        try {
+            plan.invoke(msgContext);
+            fail("Expected AxisFault");
+        } catch (AxisFault e) {
+            // Expected
+        }
+        Iterator<Handler> executed = msgContext.getExecutedPhases();
+        assertSame(phases.get(0), executed.next());
+        assertFalse(executed.hasNext());
+        assertEquals(1, msgContext.getCurrentHandlerIndex());
+        assertEquals(0, msgContext.getCurrentPhaseIndex());
+    }
+
+    public void testNotFlattenedWithPhaseSubclass() {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(createPhase("p1", "h1"));
+        phases.add(new DispatchPhase("Dispatch"));
+        assertFalse(ExecutionPlan.compile(phases).isFlattened());
+    }
+
+    public void testRecompiledOnChange() {
+        List<Phase> phases = new ArrayList<Phase>();
+        Phase p1 = createPhase("p1", "h1");
+        phases.add(p1);
+        ExecutionPlan plan = ExecutionPlan.compile(phases);
+        assertTrue(plan.isCompiledFrom(phases));
+
+        p1.addHandler(new RecordingHandler("h2", Handler.InvocationResponse.CONTINUE));
+        assertFalse(plan.isCompiledFrom(phases));
+
+        plan = ExecutionPlan.compile(phases);
+        assertEquals(2, plan.getHandlerCount());
+        phases.add(createPhase("p2"));
+        assertFalse(plan.isCompiledFrom(phases));
+        assertFalse(plan.isCompiledFrom(new ArrayList<Phase>(phases)));
+    }
+}
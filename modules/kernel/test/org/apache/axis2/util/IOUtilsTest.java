@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+
+import junit.framework.TestCase;
+
+public class IOUtilsTest extends TestCase {
+
+    private File file;
+    private byte[] content;
+
+    protected void setUp() throws Exception {
+        content = new byte[100000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte)i;
+        }
+        file = File.createTempFile("iout", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(content);
+        out.close();
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    public void testTransferToStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, IOUtils.transferTo(file, out));
+        assertTrue(Arrays.equals(content, out.toByteArray()));
+    }
+
+    public void testTransferToFile() throws Exception {
+        File copy = File.createTempFile("iout", ".bin");
+        try {
+            FileOutputStream out = new FileOutputStream(copy);
+            out.write(1);
+            IOUtils.transferTo(file, out);
+            out.close();
+            assertEquals(content.length + 1, copy.length());
+        } finally {
+            copy.delete();
+        }
+    }
+
+    public void testWriteTo() throws Exception {
+        DataHandler dataHandler = new DataHandler(new FileDataSource(file));
+        assertEquals(file, IOUtils.getFile(dataHandler));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtils.writeTo(dataHandler, out);
+        assertTrue(Arrays.equals(content, out.toByteArray()));
+
+        dataHandler = new DataHandler(new URL("file:./test-resources/soapmessage.xml"));
+        assertNull(IOUtils.getFile(dataHandler));
+        out = new ByteArrayOutputStream();
+        IOUtils.writeTo(dataHandler, out);
+        assertEquals(new File("test-resources/soapmessage.xml").length(), out.size());
+    }
+
+    public void testGetInputStream() throws Exception {
+        DataHandler dataHandler = new DataHandler(new FileDataSource(file));
+        InputStream in = IOUtils.getInputStream(dataHandler, true);
+        try {
+            assertEquals(0, in.read());
+            assertEquals(1, in.read());
+        } finally {
+            in.close();
+        }
+    }
+}
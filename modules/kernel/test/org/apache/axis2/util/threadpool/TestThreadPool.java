@@ -24,6 +24,9 @@ import org.apache.axis2.AxisFault;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class TestThreadPool extends AbstractTestCase {
     /**
@@ -64,4 +67,33 @@ public class TestThreadPool extends AbstractTestCase {
 
     }
 
+    public void testPoolGrowsToMaxSize() throws Exception {
+        // Use the executor directly, as safeShutDown() disables all the thread pools
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) new ThreadPool(2, 4).getExecutor();
+        final CountDownLatch started = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(6);
+        for (int i = 0; i < 6; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        // The pool grows beyond its core size before tasks are queued
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(4, executor.getPoolSize());
+        assertEquals(2, executor.getQueue().size());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
 }
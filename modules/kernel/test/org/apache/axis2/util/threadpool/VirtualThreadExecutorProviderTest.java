@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util.threadpool;
+
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Runs a burst of tasks that each block for 100 ms, as a call to a slow backend would, and
+ * compares the throughput of the virtual thread executor with the one of the default
+ * Axis2 thread pool sizes. The tests requiring virtual threads are skipped on runtimes older
+ * than Java 21.
+ */
+public class VirtualThreadExecutorProviderTest extends Assert {
+    private static final int TASKS = 1000;
+    private static final long DELAY = 100;
+
+    private static double run(ExecutorService executor) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(DELAY);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return TASKS * 1e9 / elapsed;
+    }
+
+    @Test
+    public void testThroughputWithSlowTasks() throws Exception {
+        assumeTrue("Virtual threads require Java 21 or later",
+                VirtualThreadExecutorProvider.isSupported());
+        ExecutorProvider provider = new VirtualThreadExecutorProvider();
+        double virtual = run(provider.createExecutor("test", 5, 100, 10, TimeUnit.SECONDS));
+        // The executor of the default ThreadPool, which grows to 100 threads
+        ExecutorService pooled = ThreadPool.createExecutor("test", 5, 100, 10, TimeUnit.SECONDS,
+                Thread.NORM_PRIORITY, true);
+        double platform = run(pooled);
+        // 100 platform threads complete at most 1000 tasks per second
+        assertTrue("virtual threads: " + Math.round(virtual) + " tasks/s, 100 platform threads: "
+                + Math.round(platform) + " tasks/s", virtual > platform);
+    }
+
+    @Test
+    public void testFallbackToThreadPool() throws Exception {
+        assumeFalse("Virtual threads are supported by this runtime",
+                VirtualThreadExecutorProvider.isSupported());
+        ExecutorService executor = new VirtualThreadExecutorProvider().createExecutor("test", 5,
+                100, 10, TimeUnit.SECONDS);
+        assertTrue(executor instanceof ThreadPoolExecutor);
+        assertEquals(5, ((ThreadPoolExecutor)executor).getCorePoolSize());
+        assertEquals(100, ((ThreadPoolExecutor)executor).getMaximumPoolSize());
+        final AtomicBoolean daemon = new AtomicBoolean();
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            public void run() {
+                daemon.set(Thread.currentThread().isDaemon());
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(daemon.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testThreadPool() throws Exception {
+        ThreadPool threadPool = new ThreadPool(new VirtualThreadExecutorProvider());
+        final CountDownLatch latch = new CountDownLatch(1);
+        threadPool.execute(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        threadPool.forceShutDown();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.validation;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.apache.ws.commons.schema.XmlSchema;
+
+/**
+ * The compiled schema of a service, together with a pool of validators for it. A validator is
+ * not thread safe, but creating one for every message is almost as costly as compiling the
+ * schema, so validators are reused.
+ */
+final class CompiledSchema {
+    private static final int MAX_IDLE_VALIDATORS = 32;
+
+    private final XmlSchema[] sources;
+    private final Schema schema;
+    private final BlockingQueue<Validator> idleValidators =
+            new LinkedBlockingQueue<Validator>(MAX_IDLE_VALIDATORS);
+
+    CompiledSchema(List<XmlSchema> sources, Schema schema) {
+        this.sources = sources.toArray(new XmlSchema[sources.size()]);
+        this.schema = schema;
+    }
+
+    /**
+     * Check whether the schema was compiled from the given schemas, i.e. whether the schemas of
+     * the service have not been replaced since.
+     */
+    boolean isCompiledFrom(List<XmlSchema> schemas) {
+        if (schemas.size() != sources.length) {
+            return false;
+        }
+        for (int i = 0; i < sources.length; i++) {
+            if (schemas.get(i) != sources[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Validator borrowValidator() {
+        Validator validator = idleValidators.poll();
+        return validator != null ? validator : schema.newValidator();
+    }
+
+    void returnValidator(Validator validator) {
+        validator.reset();
+        idleValidators.offer(validator);
+    }
+}
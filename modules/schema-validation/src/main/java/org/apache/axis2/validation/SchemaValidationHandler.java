@@ -22,12 +22,15 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
 
 import org.apache.axiom.blob.Blobs;
 import org.apache.axiom.blob.MemoryBlob;
@@ -43,6 +46,15 @@ import org.apache.ws.commons.schema.XmlSchema;
 import org.xml.sax.SAXException;
 
 public class SchemaValidationHandler extends AbstractHandler {
+    /**
+     * The compiled schemas, shared by the handlers of the in and out flows. The services are
+     * weakly referenced, so that the schema of a service is discarded when the service is
+     * undeployed; a redeployed service is a new {@link AxisService} and gets its schema compiled
+     * again.
+     */
+    private static final Map<AxisService, CompiledSchema> compiledSchemas =
+            new WeakHashMap<AxisService, CompiledSchema>();
+
     public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
         AxisService service = msgContext.getAxisService();
         Parameter parameter = service.getParameter("disableSchemaValidation");
@@ -53,6 +65,40 @@ public class SchemaValidationHandler extends AbstractHandler {
         if (schemas.isEmpty()) {
             return InvocationResponse.CONTINUE;
         }
+        CompiledSchema compiledSchema = getCompiledSchema(service, schemas);
+        Validator validator = compiledSchema.borrowValidator();
+        try {
+            // The body is cached because the message receiver still has to read it
+            validator.validate(msgContext.getEnvelope().getBody().getFirstElement().getSAXSource(true));
+        } catch (SAXException ex) {
+            throw new AxisFault("Failed to validate message: " + ex.getMessage(), ex);
+        } catch (OMException | IOException ex) {
+            throw new AxisFault("Failed to validate message", ex);
+        } finally {
+            compiledSchema.returnValidator(validator);
+        }
+        return InvocationResponse.CONTINUE;
+    }
+
+    static CompiledSchema getCompiledSchema(AxisService service, List<XmlSchema> schemas)
+            throws AxisFault {
+        CompiledSchema compiledSchema;
+        synchronized (compiledSchemas) {
+            compiledSchema = compiledSchemas.get(service);
+        }
+        if (compiledSchema != null && compiledSchema.isCompiledFrom(schemas)) {
+            return compiledSchema;
+        }
+        // Compile outside of the lock; if several threads get here at the same time, the
+        // schema is compiled more than once, but validation of other services is not held up
+        compiledSchema = new CompiledSchema(schemas, compileSchema(schemas));
+        synchronized (compiledSchemas) {
+            compiledSchemas.put(service, compiledSchema);
+        }
+        return compiledSchema;
+    }
+
+    private static Schema compileSchema(List<XmlSchema> schemas) throws AxisFault {
         SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
         schemaFactory.setErrorHandler(new SchemaFactoryErrorHandler());
         List<Source> schemaSources = new ArrayList<Source>();
@@ -67,19 +113,10 @@ public class SchemaValidationHandler extends AbstractHandler {
             out.close();
             schemaSources.add(new StreamSource(blob.getInputStream()));
         }
-        Schema schema;
         try {
-            schema = schemaFactory.newSchema(schemaSources.toArray(new Source[schemaSources.size()]));
+            return schemaFactory.newSchema(schemaSources.toArray(new Source[schemaSources.size()]));
         } catch (SAXException ex) {
             throw new AxisFault("Failed to compile schemas", ex);
         }
-        try {
-            schema.newValidator().validate(msgContext.getEnvelope().getBody().getFirstElement().getSAXSource(true));
-        } catch (SAXException ex) {
-            throw new AxisFault("Failed to validate message: " + ex.getMessage(), ex);
-        } catch (OMException | IOException ex) {
-            throw new AxisFault("Failed to validate message", ex);
-        }
-        return InvocationResponse.CONTINUE;
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.validation;
+
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.validation.Validator;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.Handler.InvocationResponse;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.apache.ws.commons.schema.XmlSchemaCollection;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SchemaValidationHandlerTest extends Assert {
+    private static XmlSchema createSchema(String type) {
+        return new XmlSchemaCollection().read(new StringReader(
+                "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:test'"
+                + " elementFormDefault='qualified'>"
+                + "<xs:element name='echo' type='xs:" + type + "'/></xs:schema>"));
+    }
+
+    private static AxisService createService(XmlSchema schema) {
+        AxisService service = new AxisService("EchoService");
+        service.addSchema(schema);
+        return service;
+    }
+
+    private static InvocationResponse validate(AxisService service, String text)
+            throws Exception {
+        SOAPFactory factory = OMAbstractFactory.getSOAP11Factory();
+        SOAPEnvelope envelope = factory.getDefaultEnvelope();
+        OMElement payload = factory.createOMElement(new QName("urn:test", "echo", "t"));
+        payload.setText(text);
+        envelope.getBody().addChild(payload);
+        MessageContext msgContext = new MessageContext();
+        msgContext.setAxisService(service);
+        msgContext.setEnvelope(envelope);
+        return new SchemaValidationHandler().invoke(msgContext);
+    }
+
+    private static CompiledSchema getCompiledSchema(AxisService service) throws AxisFault {
+        return SchemaValidationHandler.getCompiledSchema(service, service.getSchema());
+    }
+
+    /**
+     * Take the only validator of the pool and put it back, so that it is the one used for the
+     * next message.
+     */
+    private static Validator peekValidator(CompiledSchema compiledSchema) {
+        Validator validator = compiledSchema.borrowValidator();
+        compiledSchema.returnValidator(validator);
+        return validator;
+    }
+
+    @Test
+    public void testSchemaAndValidatorReused() throws Exception {
+        AxisService service = createService(createSchema("int"));
+        assertEquals(InvocationResponse.CONTINUE, validate(service, "42"));
+        CompiledSchema compiledSchema = getCompiledSchema(service);
+        Validator validator = peekValidator(compiledSchema);
+
+        assertEquals(InvocationResponse.CONTINUE, validate(service, "43"));
+        assertSame(compiledSchema, getCompiledSchema(service));
+        assertSame(validator, peekValidator(compiledSchema));
+    }
+
+    @Test
+    public void testRedeployedServiceRecompiled() throws Exception {
+        XmlSchema schema = createSchema("int");
+        AxisService service = createService(schema);
+        validate(service, "42");
+        CompiledSchema compiledSchema = getCompiledSchema(service);
+
+        // A redeployed service is a new AxisService, even if its schema is the same
+        AxisService redeployed = createService(schema);
+        validate(redeployed, "42");
+        assertNotSame(compiledSchema, getCompiledSchema(redeployed));
+    }
+
+    @Test
+    public void testReplacedSchemaRecompiled() throws Exception {
+        AxisService service = createService(createSchema("int"));
+        validate(service, "42");
+        CompiledSchema compiledSchema = getCompiledSchema(service);
+
+        List<XmlSchema> schemas = service.getSchema();
+        schemas.set(0, createSchema("string"));
+        assertFalse(compiledSchema.isCompiledFrom(schemas));
+        // The message was invalid against the previous schema
+        assertEquals(InvocationResponse.CONTINUE, validate(service, "forty-two"));
+        assertNotSame(compiledSchema, getCompiledSchema(service));
+    }
+
+    @Test
+    public void testValidatorReturnedAfterFailure() throws Exception {
+        AxisService service = createService(createSchema("int"));
+        validate(service, "42");
+        CompiledSchema compiledSchema = getCompiledSchema(service);
+        Validator validator = peekValidator(compiledSchema);
+
+        try {
+            validate(service, "forty-two");
+            fail("Expected AxisFault");
+        } catch (AxisFault ex) {
+            // Expected
+        }
+        // The validator went back to the pool and is still usable for the next message
+        assertSame(validator, peekValidator(compiledSchema));
+        assertEquals(InvocationResponse.CONTINUE, validate(service, "42"));
+        assertSame(validator, peekValidator(compiledSchema));
+    }
+}
@@ -19,18 +19,66 @@
 
 package org.apache.axis2.handlers.soapmonitor;
 
+import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.description.Parameter;
 import org.apache.axis2.handlers.AbstractHandler;
 import org.apache.axis2.soapmonitor.servlet.SOAPMonitorConstants;
 import org.apache.axis2.soapmonitor.servlet.SOAPMonitorService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes SOAP messages to the SOAP monitor applet.
+ * <p/>
+ * The handler can be configured with the following parameters, either on the
+ * handler or on the module:
+ * <ul>
+ * <li><code>SamplingRate</code>: the fraction of requests which are published,
+ * between 0 and 1 (default 1).  Responses and faults are published for
+ * exactly the sampled requests.</li>
+ * <li><code>MaxPayloadSize</code>: the maximum number of characters of a
+ * message which are published; longer messages are truncated (default
+ * 65536, 0 for no limit).</li>
+ * <li><code>IncludedServices</code>: a comma separated list of the services
+ * whose messages are published (default all).</li>
+ * <li><code>ExcludedServices</code>: a comma separated list of services whose
+ * messages are never published.</li>
+ * </ul>
+ * Nothing is serialized while no applet is connected.
+ */
 public class SOAPMonitorHandler extends AbstractHandler {
 
+    private static final Log log = LogFactory.getLog(SOAPMonitorHandler.class);
+
+    public static final String SAMPLING_RATE = "SamplingRate";
+    public static final String MAX_PAYLOAD_SIZE = "MaxPayloadSize";
+    public static final String INCLUDED_SERVICES = "IncludedServices";
+    public static final String EXCLUDED_SERVICES = "ExcludedServices";
+
+    private static final int DEFAULT_MAX_PAYLOAD_SIZE = 64 * 1024;
+
     private String name;
 
-    private static long next_message_id = 1;
+    private static final AtomicLong next_message_id = new AtomicLong(1);
+
+    private double samplingRate = 1;
+    private int maxPayloadSize = DEFAULT_MAX_PAYLOAD_SIZE;
+    private Set<String> includedServices = Collections.emptySet();
+    private Set<String> excludedServices = Collections.emptySet();
 
     /**
      * Constructor
@@ -50,12 +98,71 @@ public class SOAPMonitorHandler extends AbstractHandler {
         this.name = name;
     }
 
+    public void init(HandlerDescription handlerdesc) {
+        super.init(handlerdesc);
+        String value = getParameterValue(SAMPLING_RATE);
+        if (value != null) {
+            try {
+                samplingRate = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                samplingRate = -1;
+            }
+            if (samplingRate < 0 || samplingRate > 1) {
+                log.warn("Ignoring invalid " + SAMPLING_RATE + " '" + value + "'");
+                samplingRate = 1;
+            }
+        }
+        value = getParameterValue(MAX_PAYLOAD_SIZE);
+        if (value != null) {
+            try {
+                maxPayloadSize = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                maxPayloadSize = -1;
+            }
+            if (maxPayloadSize < 0) {
+                log.warn("Ignoring invalid " + MAX_PAYLOAD_SIZE + " '" + value + "'");
+                maxPayloadSize = DEFAULT_MAX_PAYLOAD_SIZE;
+            }
+        }
+        includedServices = getServiceNames(INCLUDED_SERVICES);
+        excludedServices = getServiceNames(EXCLUDED_SERVICES);
+    }
+
+    private String getParameterValue(String name) {
+        Parameter parameter = getParameter(name);
+        if (parameter == null || parameter.getValue() == null) {
+            return null;
+        }
+        String value = parameter.getValue().toString().trim();
+        return value.length() == 0 ? null : value;
+    }
+
+    private Set<String> getServiceNames(String name) {
+        String value = getParameterValue(name);
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<String>();
+        for (String serviceName : value.split(",")) {
+            serviceName = serviceName.trim();
+            if (serviceName.length() > 0) {
+                names.add(serviceName);
+            }
+        }
+        return names;
+    }
+
 
     /**
      * Process and SOAP message
      */
     public InvocationResponse invoke(MessageContext messageContext) throws AxisFault {
 
+        // Don't spend anything on messages nobody is going to see
+        if (!SOAPMonitorService.hasListeners()) {
+            return InvocationResponse.CONTINUE;
+        }
+
         EndpointReference ref = null;
 
         // Get id, type and content
@@ -64,6 +171,9 @@ public class SOAPMonitorHandler extends AbstractHandler {
         // 'soap request' must be called first
         if (messageContext.getFLOW() == MessageContext.IN_FLOW) {
             // show soap message inside the 'soap request' pane in the applet
+            if (!isMonitored(messageContext)) {
+                return InvocationResponse.CONTINUE;
+            }
             id = assignMessageId(messageContext);
             type = new Integer(SOAPMonitorConstants.SOAP_MONITOR_REQUEST);
             ref = messageContext.getTo();
@@ -86,6 +196,11 @@ public class SOAPMonitorHandler extends AbstractHandler {
             throw new IllegalStateException("unknown FLOW detected in messageContext: " + messageContext.getFLOW());
         }
 
+        // Messages of requests which were not sampled don't have an id
+        if (id == null) {
+            return InvocationResponse.CONTINUE;
+        }
+
         String target = null;
         if (ref != null) {
             target = ref.getAddress();
@@ -98,25 +213,94 @@ public class SOAPMonitorHandler extends AbstractHandler {
         // Get the SOAP portion of the message
         String soap = null;
         if (messageContext.getEnvelope() != null) {
-            soap = messageContext.getEnvelope().toString();
+            soap = serialize(messageContext.getEnvelope());
         }
-        // If we have an id and a SOAP portion, then send the
+        // If we have a SOAP portion, then send the
         // message to the SOAP monitor service
-        if ((id != null) && (soap != null)) {
+        if (soap != null) {
             SOAPMonitorService.publishMessage(id, type, target, soap);
         }
         return InvocationResponse.CONTINUE;
     }
 
+    /**
+     * Decide whether a request, and the messages which follow it, are published
+     */
+    boolean isMonitored(MessageContext messageContext) {
+        AxisService service = messageContext.getAxisService();
+        String serviceName = service == null ? null : service.getName();
+        if (!includedServices.isEmpty() && !includedServices.contains(serviceName)) {
+            return false;
+        }
+        if (serviceName != null && excludedServices.contains(serviceName)) {
+            return false;
+        }
+        return samplingRate >= 1
+                || (samplingRate > 0 && ThreadLocalRandom.current().nextDouble() < samplingRate);
+    }
+
+    /**
+     * Serialize the envelope, stopping at the maximum payload size
+     */
+    String serialize(SOAPEnvelope envelope) {
+        if (maxPayloadSize == 0) {
+            return envelope.toString();
+        }
+        BoundedWriter writer = new BoundedWriter(maxPayloadSize);
+        try {
+            envelope.serialize(writer);
+        } catch (XMLStreamException e) {
+            if (!writer.truncated) {
+                log.debug("Unable to serialize the message", e);
+                return null;
+            }
+        } catch (RuntimeException e) {
+            if (!writer.truncated) {
+                log.debug("Unable to serialize the message", e);
+                return null;
+            }
+        }
+        if (writer.truncated) {
+            writer.buffer.append("\n<!-- truncated after ").append(maxPayloadSize)
+                    .append(" characters -->");
+        }
+        return writer.buffer.toString();
+    }
+
+    /**
+     * A writer which aborts the serialization once the limit is reached
+     */
+    private static class BoundedWriter extends Writer {
+        final StringBuilder buffer = new StringBuilder();
+        private final int limit;
+        boolean truncated;
+
+        BoundedWriter(int limit) {
+            this.limit = limit;
+        }
+
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int available = limit - buffer.length();
+            if (len > available) {
+                buffer.append(cbuf, off, available);
+                truncated = true;
+                throw new IOException("SOAP monitor payload limit reached");
+            }
+            buffer.append(cbuf, off, len);
+        }
+
+        public void flush() {
+        }
+
+        public void close() {
+        }
+    }
+
     /**
      * Assign a new message id
      */
     private Long assignMessageId(MessageContext messageContext) {
-        Long id;
-        synchronized (SOAPMonitorConstants.SOAP_MONITOR_ID) {
-            id = new Long(next_message_id);
-            next_message_id++;
-        }
+        Long id = Long.valueOf(next_message_id.getAndIncrement());
         messageContext.getOperationContext().setProperty(
                 SOAPMonitorConstants.SOAP_MONITOR_ID, id);
         return id;
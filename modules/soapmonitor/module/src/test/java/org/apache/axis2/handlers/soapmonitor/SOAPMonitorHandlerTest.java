@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.handlers.soapmonitor;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.description.Parameter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SOAPMonitorHandlerTest extends Assert {
+    private static SOAPMonitorHandler createHandler(String... parameters) throws Exception {
+        HandlerDescription handlerDesc = new HandlerDescription("SOAPMonitorHandler");
+        for (int i = 0; i < parameters.length; i += 2) {
+            handlerDesc.addParameter(new Parameter(parameters[i], parameters[i + 1]));
+        }
+        SOAPMonitorHandler handler = new SOAPMonitorHandler();
+        handler.init(handlerDesc);
+        return handler;
+    }
+
+    private static MessageContext createMessageContext(String serviceName) throws Exception {
+        MessageContext mc = new MessageContext();
+        if (serviceName != null) {
+            mc.setAxisService(new AxisService(serviceName));
+        }
+        return mc;
+    }
+
+    private static int countMonitored(SOAPMonitorHandler handler, int requests) throws Exception {
+        MessageContext mc = createMessageContext("EchoService");
+        int monitored = 0;
+        for (int i = 0; i < requests; i++) {
+            if (handler.isMonitored(mc)) {
+                monitored++;
+            }
+        }
+        return monitored;
+    }
+
+    private static SOAPEnvelope createEnvelope(int textLength) {
+        SOAPFactory factory = OMAbstractFactory.getSOAP11Factory();
+        SOAPEnvelope envelope = factory.getDefaultEnvelope();
+        OMElement payload = factory.createOMElement(new QName("urn:test", "echo", "t"));
+        StringBuilder text = new StringBuilder(textLength);
+        for (int i = 0; i < textLength; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        payload.setText(text.toString());
+        envelope.getBody().addChild(payload);
+        return envelope;
+    }
+
+    @Test
+    public void testAllServicesMonitoredByDefault() throws Exception {
+        SOAPMonitorHandler handler = createHandler();
+        assertTrue(handler.isMonitored(createMessageContext("EchoService")));
+        assertTrue(handler.isMonitored(createMessageContext(null)));
+        assertEquals(100, countMonitored(handler, 100));
+    }
+
+    @Test
+    public void testIncludedServices() throws Exception {
+        SOAPMonitorHandler handler = createHandler(
+                SOAPMonitorHandler.INCLUDED_SERVICES, " EchoService, VersionService ,");
+        assertTrue(handler.isMonitored(createMessageContext("EchoService")));
+        assertTrue(handler.isMonitored(createMessageContext("VersionService")));
+        assertFalse(handler.isMonitored(createMessageContext("OtherService")));
+        assertFalse(handler.isMonitored(createMessageContext(null)));
+    }
+
+    @Test
+    public void testExcludedServices() throws Exception {
+        SOAPMonitorHandler handler = createHandler(
+                SOAPMonitorHandler.EXCLUDED_SERVICES, "VersionService");
+        assertTrue(handler.isMonitored(createMessageContext("EchoService")));
+        assertFalse(handler.isMonitored(createMessageContext("VersionService")));
+        assertTrue(handler.isMonitored(createMessageContext(null)));
+    }
+
+    @Test
+    public void testExcludedServicesOverrideIncludedServices() throws Exception {
+        SOAPMonitorHandler handler = createHandler(
+                SOAPMonitorHandler.INCLUDED_SERVICES, "EchoService,VersionService",
+                SOAPMonitorHandler.EXCLUDED_SERVICES, "VersionService");
+        assertTrue(handler.isMonitored(createMessageContext("EchoService")));
+        assertFalse(handler.isMonitored(createMessageContext("VersionService")));
+    }
+
+    @Test
+    public void testSamplingRate() throws Exception {
+        assertEquals(0, countMonitored(createHandler(SOAPMonitorHandler.SAMPLING_RATE, "0"),
+                1000));
+        assertEquals(1000, countMonitored(createHandler(SOAPMonitorHandler.SAMPLING_RATE, "1"),
+                1000));
+        // The expected count is 2500 with a standard deviation of about 43
+        int monitored = countMonitored(
+                createHandler(SOAPMonitorHandler.SAMPLING_RATE, "0.25"), 10000);
+        assertTrue("monitored " + monitored, monitored > 2000 && monitored < 3000);
+    }
+
+    @Test
+    public void testInvalidSamplingRateIgnored() throws Exception {
+        assertEquals(100, countMonitored(createHandler(SOAPMonitorHandler.SAMPLING_RATE, "2"),
+                100));
+        assertEquals(100, countMonitored(
+                createHandler(SOAPMonitorHandler.SAMPLING_RATE, "often"), 100));
+    }
+
+    @Test
+    public void testSamplingDoesNotBypassFilters() throws Exception {
+        SOAPMonitorHandler handler = createHandler(
+                SOAPMonitorHandler.SAMPLING_RATE, "1",
+                SOAPMonitorHandler.EXCLUDED_SERVICES, "EchoService");
+        assertEquals(0, countMonitored(handler, 100));
+    }
+
+    @Test
+    public void testPayloadTruncated() throws Exception {
+        SOAPMonitorHandler handler = createHandler(SOAPMonitorHandler.MAX_PAYLOAD_SIZE, "200");
+        String marker = "\n<!-- truncated after 200 characters -->";
+        String soap = handler.serialize(createEnvelope(1000));
+        assertNotNull(soap);
+        assertTrue(soap, soap.endsWith(marker));
+        assertEquals(200 + marker.length(), soap.length());
+        assertTrue(soap, soap.indexOf("Envelope") > 0);
+        // Serialization stopped well before the end of the payload
+        assertFalse(soap, soap.contains("</t:echo>"));
+    }
+
+    @Test
+    public void testPayloadBelowLimitNotTruncated() throws Exception {
+        SOAPMonitorHandler handler = createHandler(SOAPMonitorHandler.MAX_PAYLOAD_SIZE, "4096");
+        String soap = handler.serialize(createEnvelope(100));
+        assertNotNull(soap);
+        assertFalse(soap, soap.contains("truncated"));
+        assertTrue(soap, soap.contains("abcdefghijklmnopqrstuvwxyz"));
+        assertTrue(soap, soap.trim().endsWith("Envelope>"));
+    }
+
+    @Test
+    public void testPayloadNotLimited() throws Exception {
+        SOAPMonitorHandler handler = createHandler(SOAPMonitorHandler.MAX_PAYLOAD_SIZE, "0");
+        String soap = handler.serialize(createEnvelope(100000));
+        assertNotNull(soap);
+        assertTrue(soap.length() > 100000);
+        assertFalse(soap, soap.contains("truncated"));
+    }
+
+    @Test
+    public void testDefaultPayloadLimit() throws Exception {
+        SOAPMonitorHandler handler = createHandler();
+        String soap = handler.serialize(createEnvelope(100000));
+        assertNotNull(soap);
+        assertTrue(soap, soap.endsWith("\n<!-- truncated after 65536 characters -->"));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.soapmonitor.servlet;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock free queue with any number of producers and a single consumer.
+ * <p/>
+ * Producers claim a slot by advancing the tail with a compare and set, and never block: when
+ * the buffer is full the element is dropped and counted.  The consumer clears a slot before
+ * advancing the head, so a producer only ever writes into an empty slot.
+ */
+class MessageRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * The next position to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The next position to be read by the consumer.  Only written by the consumer.
+     */
+    private volatile long head;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Thread waitingConsumer;
+
+    /**
+     * @param capacity the minimum capacity; it is rounded up to a power of two
+     */
+    MessageRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<E>(size);
+    }
+
+    /**
+     * Add an element unless the buffer is full.
+     *
+     * @param element the element
+     * @return false if the element was dropped because the buffer is full
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            if (position - head >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.set((int) position & mask, element);
+                Thread consumer = waitingConsumer;
+                if (consumer != null) {
+                    LockSupport.unpark(consumer);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remove the next element.  Must only be called by the consumer thread.
+     *
+     * @return the next element, or null if there is none (yet)
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.set(index, null);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Wait until an element may be available or the timeout expires.  Must only be called by the
+     * consumer thread.
+     *
+     * @param timeoutNanos the maximum time to wait
+     */
+    void await(long timeoutNanos) {
+        waitingConsumer = Thread.currentThread();
+        try {
+            if (tail.get() == head) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of elements dropped so far because the buffer was full
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -41,6 +41,19 @@ public class SOAPMonitorConstants {
      */
     public static final String SOAP_MONITOR_HOST_NAME = "SOAPMonitorHostName";
 
+    /**
+     * Servlet initialization parameter for the number of messages which can wait to be
+     * published; further messages are dropped
+     */
+    public static final String SOAP_MONITOR_QUEUE_SIZE = "SOAPMonitorQueueSize";
+
+    /**
+     * Servlet initialization parameter for the number of messages which can wait to be written
+     * to a single connection; further messages are dropped for that connection only
+     */
+    public static final String SOAP_MONITOR_CONNECTION_QUEUE_SIZE =
+            "SOAPMonitorConnectionQueueSize";
+
     /**
      * Unique SOAP monitor id tag
      */
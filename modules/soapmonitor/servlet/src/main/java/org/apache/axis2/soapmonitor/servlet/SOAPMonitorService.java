@@ -33,8 +33,11 @@ import java.io.ObjectOutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Enumeration;
-import java.util.Vector;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a SOAP Monitor Service class.
@@ -57,8 +60,12 @@ import java.util.Vector;
  * The publishMethod routine is invoked by the SOAP monitor
  * handler when a SOAP message request or response is
  * detected.  The information about the SOAP message is
- * then forwared to all current socket connections for
- * display by the applet.
+ * queued without blocking, and a publisher thread then
+ * forwards it to all current socket connections for
+ * display by the applet.  Each connection has its own
+ * queue and writer thread, so a slow applet only loses
+ * messages itself and never holds up the others or the
+ * thread which processes the SOAP message.
  */
 
 public class SOAPMonitorService extends HttpServlet {
@@ -67,7 +74,13 @@ public class SOAPMonitorService extends HttpServlet {
      * Private data
      */
     private static ServerSocket serverSocket = null;
-    private static Vector connections = null;
+    private static volatile List<ConnectionThread> connections = null;
+    private static volatile MessageRingBuffer<Message> queue = null;
+
+    private static final int DEFAULT_QUEUE_SIZE = 1024;
+    private static final int DEFAULT_CONNECTION_QUEUE_SIZE = 256;
+
+    private int connectionQueueSize = DEFAULT_CONNECTION_QUEUE_SIZE;
 
     private static final Log log = LogFactory.getLog(SOAPMonitorService.class);
 
@@ -79,32 +92,87 @@ public class SOAPMonitorService extends HttpServlet {
 
 
     /**
-     * Publish a SOAP message to listeners
+     * SOAP message information waiting to be published
+     */
+    static class Message {
+        final Long id;
+        final Integer type;
+        final String target;
+        final String soap;
+
+        Message(Long id, Integer type, String target, String soap) {
+            this.id = id;
+            this.type = type;
+            this.target = target;
+            this.soap = soap;
+        }
+    }
+
+    /**
+     * Check whether any applet is connected.  The handler uses this to avoid
+     * serializing messages nobody is going to see.
+     */
+    public static boolean hasListeners() {
+        List<ConnectionThread> current = connections;
+        return current != null && !current.isEmpty();
+    }
+
+    /**
+     * Publish a SOAP message to listeners.  The message is only queued; it is
+     * dropped if the queue is full.
      */
     public static void publishMessage(Long id,
                                       Integer type,
                                       String target,
                                       String soap) {
-        if (connections != null) {
-            Enumeration e = connections.elements();
-            while (e.hasMoreElements()) {
-                ConnectionThread ct = (ConnectionThread) e.nextElement();
-                ct.publishMessage(id, type, target, soap);
+        MessageRingBuffer<Message> current = queue;
+        if (current != null && hasListeners()) {
+            if (!current.offer(new Message(id, type, target, soap))
+                    && log.isDebugEnabled()) {
+                log.debug("SOAP monitor queue is full, dropped message " + id
+                          + " (" + current.getDroppedCount() + " dropped so far)");
             }
         }
     }
 
+    private static int getIntParameter(ServletConfig config, String name, int defaultValue) {
+        String value = config.getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        log.warn("Ignoring invalid value '" + value + "' of init parameter " + name);
+        return defaultValue;
+    }
+
     /**
      * Servlet initialiation
      */
     public void init() throws ServletException {
+        ServletConfig config = super.getServletConfig();
+        connectionQueueSize = getIntParameter(config,
+                SOAPMonitorConstants.SOAP_MONITOR_CONNECTION_QUEUE_SIZE,
+                DEFAULT_CONNECTION_QUEUE_SIZE);
         if (connections == null) {
-            // Create vector to hold connection information
-            connections = new Vector();
+            // Create list to hold connection information
+            connections = new CopyOnWriteArrayList<ConnectionThread>();
+        }
+        if (queue == null) {
+            queue = new MessageRingBuffer<Message>(getIntParameter(config,
+                    SOAPMonitorConstants.SOAP_MONITOR_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+            Thread publisher = new Thread(new PublisherThread(queue), "SOAPMonitorPublisher");
+            publisher.setDaemon(true);
+            publisher.start();
         }
         if (serverSocket == null) {
             // Get the server socket port from the init params
-            ServletConfig config = super.getServletConfig();
             String hostName = config.getInitParameter(SOAPMonitorConstants.SOAP_MONITOR_HOST_NAME);
             String port = config.getInitParameter(SOAPMonitorConstants.SOAP_MONITOR_PORT);
             if (port == null) {
@@ -139,10 +207,10 @@ public class SOAPMonitorService extends HttpServlet {
      * Servlet termination
      */
     public void destroy() {
+        // End the publisher thread
+        queue = null;
         // End all connection threads
-        Enumeration e = connections.elements();
-        while (e.hasMoreElements()) {
-            ConnectionThread ct = (ConnectionThread) e.nextElement();
+        for (ConnectionThread ct : connections) {
             ct.close();
         }
         // End main server socket thread
@@ -188,6 +256,32 @@ public class SOAPMonitorService extends HttpServlet {
         response.getWriter().println("</html>");
     }
 
+    /**
+     * Thread class for forwarding queued messages to the connections
+     */
+    static class PublisherThread implements Runnable {
+
+        private final MessageRingBuffer<Message> queue;
+
+        PublisherThread(MessageRingBuffer<Message> queue) {
+            this.queue = queue;
+        }
+
+        public void run() {
+            long timeout = TimeUnit.MILLISECONDS.toNanos(100);
+            while (queue == SOAPMonitorService.queue) {
+                Message message = queue.poll();
+                if (message == null) {
+                    queue.await(timeout);
+                    continue;
+                }
+                for (ConnectionThread ct : connections) {
+                    ct.offer(message);
+                }
+            }
+        }
+    }
+
     /**
      * Thread class for handling the server socket
      */
@@ -216,7 +310,9 @@ public class SOAPMonitorService extends HttpServlet {
         private Socket socket = null;
         private ObjectInputStream in = null;
         private ObjectOutputStream out = null;
-        private boolean closed = false;
+        private volatile boolean closed = false;
+        private final BlockingQueue<Message> pending =
+                new LinkedBlockingQueue<Message>(connectionQueueSize);
 
         /**
          * Constructor
@@ -235,12 +331,45 @@ public class SOAPMonitorService extends HttpServlet {
                 in = new ObjectInputStream(socket.getInputStream());
             } catch (Exception e) {
             }
-            // Add the connection to our list
-            synchronized (connections) {
-                connections.addElement(this);
+            // Start writing to the connection and add it to our list
+            Thread writer = new Thread(new Runnable() {
+                public void run() {
+                    writeMessages();
+                }
+            }, "SOAPMonitorConnectionWriter");
+            writer.setDaemon(true);
+            writer.start();
+            connections.add(this);
+        }
+
+        /**
+         * Queue a message for this connection; it is dropped if the
+         * applet does not keep up
+         */
+        void offer(Message message) {
+            if (!closed) {
+                pending.offer(message);
             }
         }
 
+        /**
+         * Write queued messages until the connection is closed
+         */
+        private void writeMessages() {
+            try {
+                while (!closed) {
+                    Message message = pending.poll(1, TimeUnit.SECONDS);
+                    if (message != null) {
+                        publishMessage(message.id, message.type, message.target,
+                                       message.soap);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pending.clear();
+        }
+
         /**
          * Close the socket connection
          */
@@ -263,9 +392,7 @@ public class SOAPMonitorService extends HttpServlet {
             } catch (Exception e) {
             }
             // Cleanup connection list
-            synchronized (connections) {
-                connections.removeElement(this);
-            }
+            connections.remove(this);
             // Cleanup I/O streams
             if (out != null) {
                 try {
@@ -311,6 +438,8 @@ public class SOAPMonitorService extends HttpServlet {
                             out.flush();
                             break;
                     }
+                    // Don't let the stream keep a reference to every message written
+                    out.reset();
                 } catch (Exception e) {
                 }
             }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.soapmonitor.servlet;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageRingBufferTest extends Assert {
+    private static final int PRODUCERS = 8;
+    private static final int MESSAGES_PER_PRODUCER = 10000;
+
+    @Test
+    public void testCapacity() {
+        assertEquals(8, new MessageRingBuffer<Object>(5).getCapacity());
+        assertEquals(8, new MessageRingBuffer<Object>(8).getCapacity());
+        assertEquals(1, new MessageRingBuffer<Object>(1).getCapacity());
+        try {
+            new MessageRingBuffer<Object>(0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testWraparound() {
+        MessageRingBuffer<Integer> buffer = new MessageRingBuffer<Integer>(4);
+        assertNull(buffer.poll());
+        int next = 0;
+        int expected = 0;
+        // Go around the buffer several times with a varying number of elements in it
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < round % 4 + 1; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            for (int i = 0; i < round % 4 + 1; i++) {
+                assertEquals(Integer.valueOf(expected++), buffer.poll());
+            }
+            assertNull(buffer.poll());
+        }
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        MessageRingBuffer<Integer> buffer = new MessageRingBuffer<Integer>(4);
+        // Start the full buffer in the middle of the slots
+        assertTrue(buffer.offer(-1));
+        assertTrue(buffer.offer(-2));
+        assertEquals(Integer.valueOf(-1), buffer.poll());
+        assertEquals(Integer.valueOf(-2), buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+        assertEquals(2, buffer.getDroppedCount());
+
+        // Taking one element frees exactly one slot
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        assertTrue(buffer.offer(6));
+        assertFalse(buffer.offer(7));
+        assertEquals(3, buffer.getDroppedCount());
+        for (int i : new int[] { 1, 2, 3, 6 }) {
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testManyProducersDropWhenFull() throws Exception {
+        final MessageRingBuffer<Integer> buffer = new MessageRingBuffer<Integer>(64);
+        final AtomicInteger accepted = new AtomicInteger();
+        runProducers(buffer, accepted);
+
+        // Without a consumer, exactly the capacity is accepted and the rest is dropped
+        assertEquals(64, accepted.get());
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER - 64, buffer.getDroppedCount());
+        Set<Integer> received = new HashSet<Integer>();
+        Integer element;
+        while ((element = buffer.poll()) != null) {
+            assertTrue(received.add(element));
+        }
+        assertEquals(64, received.size());
+    }
+
+    @Test
+    public void testManyProducersOneConsumer() throws Exception {
+        final MessageRingBuffer<Integer> buffer = new MessageRingBuffer<Integer>(16);
+        final AtomicInteger accepted = new AtomicInteger();
+        final int[] lastSeen = new int[PRODUCERS];
+        Arrays.fill(lastSeen, -1);
+        final int[] received = new int[1];
+        final Throwable[] failure = new Throwable[1];
+        final CountDownLatch producersDone = new CountDownLatch(1);
+        Thread consumer = new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        boolean done = producersDone.getCount() == 0;
+                        Integer element = buffer.poll();
+                        if (element == null) {
+                            if (done) {
+                                return;
+                            }
+                            buffer.await(1000000);
+                            continue;
+                        }
+                        // Elements of a single producer arrive in the order they were offered
+                        int producer = element / MESSAGES_PER_PRODUCER;
+                        int sequence = element % MESSAGES_PER_PRODUCER;
+                        if (sequence <= lastSeen[producer]) {
+                            throw new AssertionError("Out of order: " + element);
+                        }
+                        lastSeen[producer] = sequence;
+                        received[0]++;
+                    }
+                } catch (Throwable t) {
+                    failure[0] = t;
+                }
+            }
+        };
+        consumer.start();
+        runProducers(buffer, accepted);
+        producersDone.countDown();
+        consumer.join(30000);
+        assertFalse(consumer.isAlive());
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+
+        // Every element is either delivered exactly once or counted as dropped
+        assertEquals(accepted.get(), received[0]);
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER,
+                accepted.get() + buffer.getDroppedCount());
+    }
+
+    private static void runProducers(final MessageRingBuffer<Integer> buffer,
+                                     final AtomicInteger accepted) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int base = p * MESSAGES_PER_PRODUCER;
+            producers[p] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                        if (buffer.offer(base + i)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            producers[p].start();
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+}
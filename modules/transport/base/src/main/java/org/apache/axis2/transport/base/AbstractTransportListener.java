@@ -24,6 +24,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.*;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.axis2.util.threadpool.ExecutorProvider;
 import org.apache.axis2.transport.base.threads.WorkerPool;
 import org.apache.axis2.transport.base.threads.WorkerPoolFactory;
 import org.apache.axis2.transport.base.tracker.AxisServiceFilter;
@@ -100,6 +101,14 @@ public abstract class AbstractTransportListener implements TransportListener {
             //this.workerPool = cfgCtx.getThreadPool(); not yet implemented
             throw new AxisFault("Unsupported thread pool for task execution - Axis2 thread pool");
         } else {
+            ExecutorProvider executorProvider = cfgCtx.getExecutorProvider();
+            if (this.workerPool == null && executorProvider != null) {
+                this.workerPool = WorkerPoolFactory.getWorkerPool(executorProvider,
+                        config.getServerCoreThreads(),
+                        config.getServerMaxThreads(),
+                        config.getServerKeepalive(),
+                        getTransportName() + "-Worker");
+            }
             if (this.workerPool == null) { // FIXME <-- workaround for AXIS2-4552
                 this.workerPool = WorkerPoolFactory.getWorkerPool(
                         config.getServerCoreThreads(),
@@ -308,6 +317,7 @@ public abstract class AbstractTransportListener implements TransportListener {
         msgCtx.setProperty(MessageContext.TRANSPORT_HEADERS, trpHeaders);
 
         // send the message context through the axis engine
+        long start = System.nanoTime();
         try {
             // check if an Axis2 callback has been registered for this message
             Map callBackMap = (Map) msgCtx.getConfigurationContext().
@@ -335,6 +345,10 @@ public abstract class AbstractTransportListener implements TransportListener {
             if (msgCtx.isServerSide()) {
                 AxisEngine.sendFault(MessageContextBuilder.createFaultMessageContext(msgCtx, e));
             }
+        } finally {
+            if (metrics != null) {
+                metrics.notifyReceiveLatency(msgCtx, System.nanoTime() - start);
+            }
         }
     }
 
@@ -506,6 +520,31 @@ public abstract class AbstractTransportListener implements TransportListener {
         return null;
     }
 
+    public double getLatencyPercentile(double percentile) {
+        if (metrics != null) {
+            return MetricsCollector.toMillis(
+                metrics.getReceiveLatency().getValueAtPercentile(percentile));
+        }
+        return -1;
+    }
+
+    public double getServiceLatencyPercentile(String serviceName, double percentile) {
+        if (metrics != null) {
+            Histogram histogram = metrics.getServiceReceiveLatencies().get(serviceName);
+            if (histogram != null) {
+                return MetricsCollector.toMillis(histogram.getValueAtPercentile(percentile));
+            }
+        }
+        return -1;
+    }
+
+    public Map getServiceLatencyTable() {
+        if (metrics != null) {
+            return MetricsCollector.getLatencyTable(metrics.getServiceReceiveLatencies(), 99);
+        }
+        return null;
+    }
+
     public void resetStatistics() {
         if (metrics != null) {
             metrics.reset();
@@ -104,25 +104,38 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
             Constants.Configuration.TRANSPORT_URL);
 
         if (targetAddress != null) {
-            sendMessage(msgContext, targetAddress, null);
+            timedSendMessage(msgContext, targetAddress, null);
         } else if (msgContext.getTo() != null && !msgContext.getTo().hasAnonymousAddress()) {
             targetAddress = msgContext.getTo().getAddress();
 
             if (!msgContext.getTo().hasNoneAddress()) {
-                sendMessage(msgContext, targetAddress, null);
+                timedSendMessage(msgContext, targetAddress, null);
             } else {
                 //Don't send the message.
                 return InvocationResponse.CONTINUE;
             }
         } else if (msgContext.isServerSide()) {
             // get the out transport info for server side when target EPR is unknown
-            sendMessage(msgContext, null,
+            timedSendMessage(msgContext, null,
                 (OutTransportInfo) msgContext.getProperty(Constants.OUT_TRANSPORT_INFO));
         }
 
         return InvocationResponse.CONTINUE;
     }
 
+    private void timedSendMessage(MessageContext msgCtx, String targetEPR,
+        OutTransportInfo outTransportInfo) throws AxisFault {
+
+        long start = System.nanoTime();
+        try {
+            sendMessage(msgCtx, targetEPR, outTransportInfo);
+        } finally {
+            if (metrics != null) {
+                metrics.notifySendLatency(msgCtx, System.nanoTime() - start);
+            }
+        }
+    }
+
     /**
      * Process a new incoming message (Response) through the axis engine
      * @param msgCtx the axis MessageContext
@@ -378,6 +391,31 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
         return null;
     }
 
+    public double getLatencyPercentile(double percentile) {
+        if (metrics != null) {
+            return MetricsCollector.toMillis(
+                metrics.getSendLatency().getValueAtPercentile(percentile));
+        }
+        return -1;
+    }
+
+    public double getServiceLatencyPercentile(String serviceName, double percentile) {
+        if (metrics != null) {
+            Histogram histogram = metrics.getServiceSendLatencies().get(serviceName);
+            if (histogram != null) {
+                return MetricsCollector.toMillis(histogram.getValueAtPercentile(percentile));
+            }
+        }
+        return -1;
+    }
+
+    public Map getServiceLatencyTable() {
+        if (metrics != null) {
+            return MetricsCollector.getLatencyTable(metrics.getServiceSendLatencies(), 99);
+        }
+        return null;
+    }
+
     public void resetStatistics() {
         if (metrics != null) {
             metrics.reset();
@@ -43,6 +43,25 @@ public interface ManagementSupport {
     public long getMaxSizeSent();
     public double getAvgSizeSent();
     public Map getResponseCodeTable();
+    /**
+     * Get a percentile of the time taken to process received messages (for a listener) or
+     * to send messages (for a sender)
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in milliseconds
+     */
+    public double getLatencyPercentile(double percentile);
+    /**
+     * Get a percentile of the latency for a given service; see
+     * {@link #getLatencyPercentile(double)}
+     * @param serviceName the name of the service
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in milliseconds, or -1 if there is no data for the service
+     */
+    public double getServiceLatencyPercentile(String serviceName, double percentile);
+    /**
+     * @return the 99th percentile of the latency in milliseconds, by service name
+     */
+    public Map getServiceLatencyTable();
 
     public void resetStatistics();
     public long getLastResetTime();
@@ -19,61 +19,74 @@
 
 package org.apache.axis2.transport.base;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
 
 import java.util.Map;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Collects metrics related to a transport that has metrics support enabled
+ * Collects metrics related to a transport that has metrics support enabled.
+ * <p>
+ * All the updates are lock free and use {@link StripedCounter}s, so that the threads of a
+ * transport don't contend on the collector. Message sizes and latencies are recorded in
+ * {@link Histogram}s; latencies are kept for the transport as a whole and, if the level is
+ * {@link #LEVEL_FULL}, per service.
  */
 public class MetricsCollector {
 
     public static final int LEVEL_NONE = 0;
     public static final int LEVEL_TRANSPORT = 1;
     public static final int LEVEL_FULL = 2;
-    private static final Long ONE = (long) 1;
 
     /** By default, full metrics collection is enabled */
     private int level = LEVEL_FULL;
 
-    private long messagesReceived;
-    private long faultsReceiving;
-    private long timeoutsReceiving;
-    private long bytesReceived;
-    private long minSizeReceived;
-    private long maxSizeReceived;
-    private double avgSizeReceived;
+    private final StripedCounter messagesReceived = new StripedCounter();
+    private final StripedCounter faultsReceiving = new StripedCounter();
+    private final StripedCounter timeoutsReceiving = new StripedCounter();
+    private final StripedCounter bytesReceived = new StripedCounter();
+    private final Histogram sizeReceived = new Histogram();
 
-    private long messagesSent;
-    private long faultsSending;
-    private long timeoutsSending;
-    private long bytesSent;
-    private long minSizeSent;
-    private long maxSizeSent;
-    private double avgSizeSent;
+    private final StripedCounter messagesSent = new StripedCounter();
+    private final StripedCounter faultsSending = new StripedCounter();
+    private final StripedCounter timeoutsSending = new StripedCounter();
+    private final StripedCounter bytesSent = new StripedCounter();
+    private final Histogram sizeSent = new Histogram();
 
-    private final Map<Integer, Long> responseCodeTable =
-        Collections.synchronizedMap(new HashMap<Integer, Long>());
+    /** Latencies in microseconds */
+    private final Histogram receiveLatency = new Histogram();
+    private final Histogram sendLatency = new Histogram();
+    private final ConcurrentMap<String, Histogram> serviceReceiveLatencies =
+        new ConcurrentHashMap<String, Histogram>();
+    private final ConcurrentMap<String, Histogram> serviceSendLatencies =
+        new ConcurrentHashMap<String, Histogram>();
 
-    private long lastResetTime = System.currentTimeMillis();
+    private final ConcurrentMap<Integer, AtomicLong> responseCodeTable =
+        new ConcurrentHashMap<Integer, AtomicLong>();
+
+    private volatile long lastResetTime = System.currentTimeMillis();
 
     public void reset() {
-        messagesReceived  = 0;
-        faultsReceiving   = 0;
-        timeoutsReceiving = 0;
-        bytesReceived     = 0;
-        minSizeReceived   = 0;
-        maxSizeReceived   = 0;
-        avgSizeReceived   = 0;
-
-        messagesSent      = 0;
-        faultsSending     = 0;
-        timeoutsSending   = 0;
-        bytesSent         = 0;
-        minSizeSent       = 0;
-        maxSizeSent       = 0;
-        avgSizeSent       = 0;
+        messagesReceived.reset();
+        faultsReceiving.reset();
+        timeoutsReceiving.reset();
+        bytesReceived.reset();
+        sizeReceived.reset();
+
+        messagesSent.reset();
+        faultsSending.reset();
+        timeoutsSending.reset();
+        bytesSent.reset();
+        sizeSent.reset();
+
+        receiveLatency.reset();
+        sendLatency.reset();
+        serviceReceiveLatencies.clear();
+        serviceSendLatencies.clear();
 
         responseCodeTable.clear();
         lastResetTime = System.currentTimeMillis();
@@ -92,19 +105,19 @@ public class MetricsCollector {
     }
 
     public long getMessagesReceived() {
-        return messagesReceived;
+        return messagesReceived.get();
     }
 
     public long getFaultsReceiving() {
-        return faultsReceiving;
+        return faultsReceiving.get();
     }
 
     public long getTimeoutsReceiving() {
-        return timeoutsReceiving;
+        return timeoutsReceiving.get();
     }
 
     public long getBytesReceived() {
-        return bytesReceived;
+        return bytesReceived.get();
     }
 
     /**
@@ -114,109 +127,224 @@ public class MetricsCollector {
      * @return the number of messages sent
      */
     public long getMessagesSent() {
-        return messagesSent;
+        return messagesSent.get();
     }
 
     public long getFaultsSending() {
-        return faultsSending;
+        return faultsSending.get();
     }
 
     public long getTimeoutsSending() {
-        return timeoutsSending;
+        return timeoutsSending.get();
     }
 
     public long getBytesSent() {
-        return bytesSent;
+        return bytesSent.get();
     }
 
     public long getMinSizeReceived() {
-        return minSizeReceived;
+        return sizeReceived.getMin();
     }
 
     public long getMaxSizeReceived() {
-        return maxSizeReceived;
+        return sizeReceived.getMax();
     }
 
     public long getMinSizeSent() {
-        return minSizeSent;
+        return sizeSent.getMin();
     }
 
     public long getMaxSizeSent() {
-        return maxSizeSent;
+        return sizeSent.getMax();
     }
 
     public double getAvgSizeReceived() {
-        return avgSizeReceived;
+        return sizeReceived.getMean();
     }
 
     public double getAvgSizeSent() {
-        return avgSizeSent;
+        return sizeSent.getMean();
+    }
+
+    /**
+     * @return the sizes of the messages received
+     */
+    public Histogram getSizeReceived() {
+        return sizeReceived;
     }
 
+    /**
+     * @return the sizes of the messages sent
+     */
+    public Histogram getSizeSent() {
+        return sizeSent;
+    }
+
+    /**
+     * @return the time (in microseconds) taken to process the messages received
+     */
+    public Histogram getReceiveLatency() {
+        return receiveLatency;
+    }
+
+    /**
+     * @return the time (in microseconds) taken to send messages, including the time spent
+     *         waiting for a synchronous response
+     */
+    public Histogram getSendLatency() {
+        return sendLatency;
+    }
+
+    /**
+     * @return the receive latencies by service name
+     */
+    public Map<String, Histogram> getServiceReceiveLatencies() {
+        return serviceReceiveLatencies;
+    }
+
+    /**
+     * @return the send latencies by service name
+     */
+    public Map<String, Histogram> getServiceSendLatencies() {
+        return serviceSendLatencies;
+    }
+
+    /**
+     * @return a snapshot of the number of responses by response code
+     */
     public Map<Integer, Long> getResponseCodeTable() {
-        return responseCodeTable;
+        Map<Integer, Long> table = new HashMap<Integer, Long>();
+        for (Map.Entry<Integer, AtomicLong> entry : responseCodeTable.entrySet()) {
+            table.put(entry.getKey(), entry.getValue().get());
+        }
+        return table;
     }
 
-    public synchronized void incrementMessagesReceived() {
-        messagesReceived++;
+    public void incrementMessagesReceived() {
+        messagesReceived.increment();
     }
 
-    public synchronized void incrementFaultsReceiving() {
-        faultsReceiving++;
+    public void incrementFaultsReceiving() {
+        faultsReceiving.increment();
     }
 
-    public synchronized void incrementTimeoutsReceiving() {
-        timeoutsReceiving++;
+    public void incrementTimeoutsReceiving() {
+        timeoutsReceiving.increment();
     }
 
-    public synchronized void incrementBytesReceived(long size) {
-        bytesReceived += size;
+    public void incrementBytesReceived(long size) {
+        bytesReceived.add(size);
     }
 
-    public synchronized void incrementMessagesSent() {
-        messagesSent++;
+    public void incrementMessagesSent() {
+        messagesSent.increment();
     }
 
-    public synchronized void incrementFaultsSending() {
-        faultsSending++;
+    public void incrementFaultsSending() {
+        faultsSending.increment();
     }
 
-    public synchronized void incrementTimeoutsSending() {
-        timeoutsSending++;
+    public void incrementTimeoutsSending() {
+        timeoutsSending.increment();
     }
 
-    public synchronized void incrementBytesSent(long size) {
-        bytesSent += size;
+    public void incrementBytesSent(long size) {
+        bytesSent.add(size);
     }
     
-    public synchronized void notifyReceivedMessageSize(long size) {
-        if (minSizeReceived == 0 || size < minSizeReceived) {
-            minSizeReceived = size;
-        }
-        if (size > maxSizeReceived) {
-            maxSizeReceived = size;
-        }
-        avgSizeReceived = (avgSizeReceived == 0 ? size : (avgSizeReceived + size) / 2);
+    /**
+     * Record the size of a received message in the size statistics. This should be called once
+     * per message, independently of {@link #incrementBytesReceived(long)}.
+     *
+     * @param size the size of the message
+     */
+    public void notifyReceivedMessageSize(long size) {
+        sizeReceived.record(size);
+    }
+
+    /**
+     * Record the size of a sent message in the size statistics. This should be called once
+     * per message, independently of {@link #incrementBytesSent(long)}.
+     *
+     * @param size the size of the message
+     */
+    public void notifySentMessageSize(long size) {
+        sizeSent.record(size);
     }
 
-    public synchronized void notifySentMessageSize(long size) {
-        if (minSizeSent == 0 || size < minSizeSent) {
-            minSizeSent = size;
+    public void reportResponseCode(int respCode) {
+        AtomicLong counter = responseCodeTable.get(respCode);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = responseCodeTable.putIfAbsent(respCode, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
         }
-        if (size > maxSizeSent) {
-            maxSizeSent = size;
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Record the time taken to process a received message
+     *
+     * @param mc the message context, used to find the service, or null
+     * @param nanos the time in nanoseconds
+     */
+    public void notifyReceiveLatency(MessageContext mc, long nanos) {
+        recordLatency(receiveLatency, serviceReceiveLatencies, mc, nanos);
+    }
+
+    /**
+     * Record the time taken to send a message
+     *
+     * @param mc the message context, used to find the service, or null
+     * @param nanos the time in nanoseconds
+     */
+    public void notifySendLatency(MessageContext mc, long nanos) {
+        recordLatency(sendLatency, serviceSendLatencies, mc, nanos);
+    }
+
+    /**
+     * Build a table of the given percentile of latencies, in milliseconds
+     *
+     * @param latencies the latencies by service name
+     * @param percentile the percentile, between 0 and 100
+     * @return the percentile by service name
+     */
+    public static Map<String, Double> getLatencyTable(Map<String, Histogram> latencies,
+        double percentile) {
+
+        Map<String, Double> table = new HashMap<String, Double>();
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            table.put(entry.getKey(), toMillis(entry.getValue().getValueAtPercentile(percentile)));
         }
-        avgSizeSent = (avgSizeSent == 0 ? size : (avgSizeSent + size) / 2);
+        return table;
     }
 
-    public void reportResponseCode(int respCode) {
-        synchronized(responseCodeTable) {
-            Object o = responseCodeTable.get(respCode);
-            if (o == null) {
-                responseCodeTable.put(respCode, ONE);
-            } else {
-                responseCodeTable.put(respCode, (Long) o + 1);
+    /**
+     * Convert a latency recorded in microseconds to milliseconds
+     */
+    public static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private void recordLatency(Histogram transportLatency,
+        ConcurrentMap<String, Histogram> serviceLatencies, MessageContext mc, long nanos) {
+
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        transportLatency.record(micros);
+
+        AxisService service = mc == null || level != LEVEL_FULL ? null : mc.getAxisService();
+        if (service != null) {
+            Histogram histogram = serviceLatencies.get(service.getName());
+            if (histogram == null) {
+                Histogram newHistogram = new Histogram();
+                histogram = serviceLatencies.putIfAbsent(service.getName(), newHistogram);
+                if (histogram == null) {
+                    histogram = newHistogram;
+                }
             }
+            histogram.record(micros);
         }
     }
 
@@ -153,6 +153,25 @@ public class TransportView implements TransportViewMBean {
         return null;
     }    
 
+    public double getLatencyP50() {
+        return getLatencyPercentile(50);
+    }
+
+    public double getLatencyP90() {
+        return getLatencyPercentile(90);
+    }
+
+    public double getLatencyP99() {
+        return getLatencyPercentile(99);
+    }
+
+    public Map getServiceLatencyTable() {
+        if (managementSupport != null) {
+            return managementSupport.getServiceLatencyTable();
+        }
+        return null;
+    }
+
     public int getActiveThreadCount() {
         if (managementSupport != null) {
             return managementSupport.getActiveThreadCount();
@@ -200,6 +219,20 @@ public class TransportView implements TransportViewMBean {
         }
     }
 
+    public double getLatencyPercentile(double percentile) {
+        if (managementSupport != null) {
+            return managementSupport.getLatencyPercentile(percentile);
+        }
+        return -1;
+    }
+
+    public double getServiceLatencyPercentile(String serviceName, double percentile) {
+        if (managementSupport != null) {
+            return managementSupport.getServiceLatencyPercentile(serviceName, percentile);
+        }
+        return -1;
+    }
+
     public void resetStatistics() {
         if (managementSupport != null) {
             managementSupport.resetStatistics();
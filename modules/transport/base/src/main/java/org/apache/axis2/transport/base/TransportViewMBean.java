@@ -40,6 +40,10 @@ public interface TransportViewMBean {
     public int  getActiveThreadCount();
     public int getQueueSize();
     public Map getResponseCodeTable();
+    public double getLatencyP50();
+    public double getLatencyP90();
+    public double getLatencyP99();
+    public Map getServiceLatencyTable();
 
     // JMX Operations
     public void start() throws Exception;
@@ -48,6 +52,9 @@ public interface TransportViewMBean {
     public void resume() throws Exception;
     public void maintenenceShutdown(long seconds) throws Exception;
 
+    public double getLatencyPercentile(double percentile);
+    public double getServiceLatencyPercentile(String serviceName, double percentile);
+
     public void resetStatistics();
     public long getLastResetTime();
     public long getMetricsWindow();
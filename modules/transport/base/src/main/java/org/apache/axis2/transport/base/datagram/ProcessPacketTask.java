@@ -73,6 +73,7 @@ public class ProcessPacketTask implements Runnable {
             AxisEngine.receive(msgContext);
             metrics.incrementMessagesReceived();
             metrics.incrementBytesReceived(length);
+            metrics.notifyReceivedMessageSize(length);
         } catch (Exception ex) {
             metrics.incrementFaultsReceiving();
             StringBuilder buffer = new StringBuilder("Error during processing of datagram:\n");
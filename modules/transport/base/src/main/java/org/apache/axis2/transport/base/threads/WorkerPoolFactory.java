@@ -19,12 +19,15 @@
 
 package org.apache.axis2.transport.base.threads;
 
+import org.apache.axis2.util.threadpool.ExecutorProvider;
+
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Worker pool factory.
- * For the moment this always creates {@link NativeWorkerPool} instances since
- * we assume that we are running on Java 1.5 or above.
+ * This creates {@link NativeWorkerPool} instances, unless an {@link ExecutorProvider} is
+ * configured in axis2.xml.
  */
 public class WorkerPoolFactory {
 
@@ -50,4 +53,10 @@ public class WorkerPoolFactory {
                 queueLength, threadGroupName,
                 threadGroupId, queue);
     }
+
+    public static WorkerPool getWorkerPool(ExecutorProvider executorProvider, int core, int max,
+                                           int keepAlive, String threadGroupId) {
+        return new ExecutorWorkerPool(executorProvider.createExecutor(
+                threadGroupId, core, max, keepAlive, TimeUnit.SECONDS));
+    }
 }
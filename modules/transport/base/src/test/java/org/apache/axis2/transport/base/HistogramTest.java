@@ -0,0 +1,133 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.axis2.transport.base;
+
+import junit.framework.TestCase;
+
+public class HistogramTest extends TestCase {
+
+    public void testBuckets() {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123456789L,
+                Long.MAX_VALUE }) {
+            int index = Histogram.bucketIndex(value);
+            assertTrue(Histogram.highestValue(index) >= value);
+            assertTrue(index == 0 || Histogram.highestValue(index - 1) < value);
+        }
+    }
+
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.0001);
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertWithin(500, histogram.getValueAtPercentile(50));
+        assertWithin(990, histogram.getValueAtPercentile(99));
+    }
+
+    public void testAdd() {
+        Histogram fast = new Histogram();
+        Histogram slow = new Histogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(5000);
+        }
+        Histogram merged = new Histogram();
+        merged.add(fast);
+        merged.add(slow);
+        assertEquals(100, merged.getCount());
+        assertEquals(10, merged.getMin());
+        assertEquals(5000, merged.getMax());
+        assertEquals(10, merged.getValueAtPercentile(90));
+        assertWithin(5000, merged.getValueAtPercentile(91));
+    }
+
+    public void testReset() {
+        Histogram histogram = new Histogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    public void testAverageSize() {
+        MetricsCollector metrics = new MetricsCollector();
+        metrics.notifyReceivedMessageSize(100);
+        metrics.notifyReceivedMessageSize(200);
+        metrics.notifyReceivedMessageSize(600);
+        assertEquals(300.0, metrics.getAvgSizeReceived(), 0.0001);
+        assertEquals(100, metrics.getMinSizeReceived());
+        assertEquals(600, metrics.getMaxSizeReceived());
+        assertEquals(0, metrics.getBytesReceived());
+    }
+
+    public void testBytesDoNotRecordSizes() {
+        MetricsCollector metrics = new MetricsCollector();
+        // e.g. the parts of a single multipart message
+        metrics.incrementBytesReceived(100);
+        metrics.incrementBytesReceived(200);
+        metrics.notifyReceivedMessageSize(300);
+        metrics.incrementBytesSent(50);
+        assertEquals(300, metrics.getBytesReceived());
+        assertEquals(300.0, metrics.getAvgSizeReceived(), 0.0001);
+        assertEquals(300, metrics.getMinSizeReceived());
+        assertEquals(50, metrics.getBytesSent());
+        assertEquals(0.0, metrics.getAvgSizeSent(), 0.0001);
+        assertEquals(0, metrics.getMaxSizeSent());
+    }
+
+    public void testConcurrentUpdates() throws Exception {
+        final MetricsCollector metrics = new MetricsCollector();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        metrics.incrementMessagesReceived();
+                        metrics.reportResponseCode(200);
+                        metrics.notifyReceiveLatency(null, 1000000);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, metrics.getMessagesReceived());
+        assertEquals(Long.valueOf(80000), metrics.getResponseCodeTable().get(200));
+        assertEquals(80000, metrics.getReceiveLatency().getCount());
+        assertEquals(1000, metrics.getReceiveLatency().getValueAtPercentile(99));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+            Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient5;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.transport.AsyncTransportSender;
+import org.apache.axis2.transport.http.AbstractHTTPTransportSender;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.HTTPSender;
+import org.apache.axis2.transport.http.HTTPTransportConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.ssl.SSLContexts;
+
+/**
+ * The Class HTTPClient5TransportSender uses the HC HttpClient 5.X async client. Requests are
+ * multiplexed over HTTP/2 connections where the server supports it and the client falls back to
+ * HTTP/1.1 otherwise. Non-blocking invocations (e.g.
+ * {@link org.apache.axis2.client.ServiceClient#sendReceiveNonBlocking}) don't hold a thread
+ * while the response is outstanding.
+ * <p>
+ * Unlike the rest of Axis2, this transport requires Java 8, as HttpClient 5.x does.
+ * <p>
+ * The following parameters are supported in addition to those of the HttpClient 4 based sender:
+ * <pre>
+ * &lt;transportSender name="http"
+ *         class="org.apache.axis2.transport.http.impl.httpclient5.HTTPClient5TransportSender"&gt;
+ *     &lt;parameter name="HttpVersionPolicy"&gt;NEGOTIATE&lt;/parameter&gt;
+ *     &lt;parameter name="MaxTotalConnections"&gt;200&lt;/parameter&gt;
+ *     &lt;parameter name="MaxConnectionsPerRoute"&gt;200&lt;/parameter&gt;
+ *     &lt;parameter name="IOThreadCount"&gt;4&lt;/parameter&gt;
+ * &lt;/transportSender&gt;
+ * </pre>
+ * <tt>HttpVersionPolicy</tt> is one of <tt>NEGOTIATE</tt> (the default; HTTP/2 is negotiated
+ * with ALPN over TLS, plain connections use HTTP/1.1), <tt>FORCE_HTTP_1</tt> or
+ * <tt>FORCE_HTTP_2</tt> (which also uses HTTP/2 over plain connections, i.e. h2c with prior
+ * knowledge). HTTP proxies are not supported by this sender.
+ */
+public class HTTPClient5TransportSender extends AbstractHTTPTransportSender
+        implements AsyncTransportSender {
+
+    private static final Log log = LogFactory.getLog(HTTPClient5TransportSender.class);
+
+    private CloseableHttpAsyncClient httpClient;
+
+    @Override
+    public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+            throws AxisFault {
+        super.init(confContext, transportOut);
+
+        HttpVersionPolicy versionPolicy = HttpVersionPolicy.NEGOTIATE;
+        Parameter versionPolicyParam = transportOut
+                .getParameter(HTTPTransportConstants.HTTP_VERSION_POLICY);
+        if (versionPolicyParam != null) {
+            try {
+                versionPolicy = HttpVersionPolicy.valueOf(
+                        ((String) versionPolicyParam.getValue()).trim());
+            } catch (IllegalArgumentException ex) {
+                throw new AxisFault("Parameter " + HTTPTransportConstants.HTTP_VERSION_POLICY
+                        + " Can have values only NEGOTIATE, FORCE_HTTP_1 or FORCE_HTTP_2");
+            }
+        }
+
+        SSLContext sslContext = (SSLContext) confContext.getProperty(SSLContext.class.getName());
+        if (sslContext == null) {
+            sslContext = SSLContexts.createDefault();
+        }
+        PoolingAsyncClientConnectionManager connManager =
+                PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setTlsStrategy(ClientTlsStrategyBuilder.create()
+                                .setSslContext(sslContext).build())
+                        .setMaxConnTotal(getIntParameter(transportOut,
+                                HTTPTransportConstants.MAX_TOTAL_CONNECTIONS,
+                                HTTPTransportConstants.DEFAULT_MAX_TOTAL_CONNECTIONS))
+                        .setMaxConnPerRoute(getIntParameter(transportOut,
+                                HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE,
+                                HTTPTransportConstants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE))
+                        .build();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(getIntParameter(transportOut,
+                        HTTPTransportConstants.IO_THREAD_COUNT,
+                        Runtime.getRuntime().availableProcessors()))
+                .build();
+
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connManager)
+                .setIOReactorConfig(ioReactorConfig)
+                .setVersionPolicy(versionPolicy)
+                .build();
+        httpClient.start();
+        if (log.isDebugEnabled()) {
+            log.debug("Started HttpClient 5 async client for " + transportOut.getName()
+                    + ", version policy " + versionPolicy);
+        }
+    }
+
+    private static int getIntParameter(TransportOutDescription transportOut, String name,
+            int defaultValue) {
+        Parameter param = transportOut.getParameter(name);
+        if (param != null) {
+            try {
+                return Integer.parseInt(((String) param.getValue()).trim());
+            } catch (NumberFormatException nfe) {
+                // If there's a problem log it and use the default value
+                log.error("Invalid " + name + " value format: not a number", nfe);
+            }
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public void stop() {
+        if (httpClient != null) {
+            httpClient.close(CloseMode.GRACEFUL);
+            httpClient = null;
+        }
+    }
+
+    @Override
+    public void cleanup(MessageContext msgContext) throws AxisFault {
+        log.trace("cleanup() releasing response");
+
+        OperationContext opContext = msgContext.getOperationContext();
+        if (opContext != null) {
+            InputStream in = (InputStream)opContext.getProperty(MessageContext.TRANSPORT_IN);
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ex) {
+                    // Ignore
+                }
+            }
+        }
+
+        // guard against multiple calls
+        msgContext.removeProperty(HTTPConstants.HTTP_METHOD);
+    }
+
+    public void setHTTPClientVersion(ConfigurationContext configurationContext) {
+        configurationContext.setProperty(HTTPTransportConstants.HTTP_CLIENT_VERSION,
+                                         HTTPTransportConstants.HTTP_CLIENT_5_X_VERSION);
+    }
+
+    @Override
+    protected HTTPSender createHTTPSender() {
+        return new HTTPSenderImpl(httpClient);
+    }
+
+}
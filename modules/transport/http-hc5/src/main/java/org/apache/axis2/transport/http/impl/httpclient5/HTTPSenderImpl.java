@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient5;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.AsyncTransportSender;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.transport.http.AxisRequestEntity;
+import org.apache.axis2.transport.http.HTTPSender;
+import org.apache.axis2.transport.http.Request;
+import org.apache.axis2.util.threadpool.ThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * {@link HTTPSender} using a shared HttpClient 5 async client. If the message context carries
+ * an {@link AsyncTransportSender.ResponseCallback}, {@link #send(MessageContext, URL, String)}
+ * returns as soon as the request has been submitted and the response is processed on a thread
+ * of the Axis2 thread pool once it has been received. Otherwise the calling thread waits for the
+ * response, exactly as with the HttpClient 4 based sender.
+ */
+public class HTTPSenderImpl extends HTTPSender {
+
+    private static final Log log = LogFactory.getLog(HTTPSenderImpl.class);
+
+    private final CloseableHttpAsyncClient httpClient;
+
+    public HTTPSenderImpl(CloseableHttpAsyncClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    protected Request createRequest(MessageContext msgContext, String methodName, URL url,
+            AxisRequestEntity requestEntity) throws AxisFault {
+        return new RequestImpl(httpClient, msgContext, methodName, url, requestEntity);
+    }
+
+    @Override
+    public void send(final MessageContext msgContext, final URL url, String soapActionString)
+            throws IOException {
+        final AsyncTransportSender.ResponseCallback callback =
+                (AsyncTransportSender.ResponseCallback) msgContext.getProperty(
+                        AsyncTransportSender.RESPONSE_CALLBACK);
+        if (callback == null) {
+            super.send(msgContext, url, soapActionString);
+            return;
+        }
+
+        final RequestImpl request = (RequestImpl) prepareRequest(msgContext, url, soapActionString);
+        final ThreadFactory threadPool = msgContext.getConfigurationContext().getThreadPool();
+        // From here on the callback is ours; failures to submit the request are still reported
+        // to the caller by throwing
+        msgContext.removeProperty(AsyncTransportSender.RESPONSE_CALLBACK);
+        request.executeAsync(new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(final SimpleHttpResponse result) {
+                // Don't run the in flow on the I/O dispatch thread
+                TransportUtils.dispatchResponse(threadPool, new Runnable() {
+                    public void run() {
+                        try {
+                            request.setResponse(result);
+                            processResponse(msgContext, request);
+                        } catch (IOException e) {
+                            log.info("Unable to send to url[" + url + "]", e);
+                            callback.onError(e);
+                            return;
+                        } catch (RuntimeException e) {
+                            // The callback must always be completed, or the caller waits forever
+                            log.error("Error processing the response from url[" + url + "]", e);
+                            callback.onError(e);
+                            return;
+                        }
+                        callback.onResponse(msgContext);
+                    }
+                });
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                log.info("Unable to send to url[" + url + "]", ex);
+                TransportUtils.dispatchResponse(threadPool, new Runnable() {
+                    public void run() {
+                        callback.onError(ex);
+                    }
+                });
+            }
+
+            @Override
+            public void cancelled() {
+                TransportUtils.dispatchResponse(threadPool, new Runnable() {
+                    public void run() {
+                        callback.onError(new AxisFault("The request to " + url + " was cancelled"));
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient5;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.axiom.mime.Header;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.http.AxisRequestEntity;
+import org.apache.axis2.transport.http.HTTPAuthenticator;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.Request;
+import org.apache.axis2.transport.http.impl.httpclient4.HTTPProxyConfigurator;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.Credentials;
+import org.apache.hc.client5.http.auth.NTCredentials;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.http.message.BasicHeaderValueParser;
+import org.apache.hc.core5.http.message.ParserCursor;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link Request} implementation on top of the HttpClient 5 async client. The request content is
+ * serialized before the request is submitted and the response is buffered in memory, so that no
+ * thread is needed while the exchange is in progress.
+ */
+final class RequestImpl implements Request {
+    private static final String[] COOKIE_HEADER_NAMES = { HTTPConstants.HEADER_SET_COOKIE, HTTPConstants.HEADER_SET_COOKIE2 };
+
+    private static final Log log = LogFactory.getLog(RequestImpl.class);
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final MessageContext msgContext;
+    private final URL url;
+    private final AxisRequestEntity requestEntity;
+    private final SimpleHttpRequest request;
+    private final RequestConfig.Builder requestConfig = RequestConfig.custom();
+    private final HttpClientContext clientContext = HttpClientContext.create();
+    private SimpleHttpResponse response;
+
+    RequestImpl(CloseableHttpAsyncClient httpClient, MessageContext msgContext, String methodName,
+            URL url, AxisRequestEntity requestEntity) throws AxisFault {
+        this.httpClient = httpClient;
+        this.msgContext = msgContext;
+        this.url = url;
+        this.requestEntity = requestEntity;
+        try {
+            request = new SimpleHttpRequest(methodName, url.toURI());
+        } catch (URISyntaxException ex) {
+            throw AxisFault.makeFault(ex);
+        }
+    }
+
+    @Override
+    public void enableHTTP10() {
+        request.setVersion(HttpVersion.HTTP_1_0);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        request.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        request.addHeader(name, value);
+    }
+
+    private static Header[] convertHeaders(org.apache.hc.core5.http.Header[] headers) {
+        Header[] result = new Header[headers.length];
+        for (int i=0; i<headers.length; i++) {
+            result[i] = new Header(headers[i].getName(), headers[i].getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public Header[] getRequestHeaders() {
+        return convertHeaders(request.getHeaders());
+    }
+
+    @Override
+    public void setConnectionTimeout(int timeout) {
+        requestConfig.setConnectTimeout(Timeout.ofMilliseconds(timeout));
+    }
+
+    @Override
+    public void setSocketTimeout(int timeout) {
+        requestConfig.setResponseTimeout(Timeout.ofMilliseconds(timeout));
+    }
+
+    @Override
+    public int getStatusCode() {
+        return response.getCode();
+    }
+
+    @Override
+    public String getStatusText() {
+        return response.getReasonPhrase();
+    }
+
+    @Override
+    public String getResponseHeader(String name) {
+        org.apache.hc.core5.http.Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    @Override
+    public Header[] getResponseHeaders() {
+        return convertHeaders(response.getHeaders());
+    }
+
+    @Override
+    public Map<String,String> getCookies() {
+        Map<String,String> cookies = null;
+        for (String name : COOKIE_HEADER_NAMES) {
+            for (org.apache.hc.core5.http.Header header : response.getHeaders(name)) {
+                String value = header.getValue();
+                HeaderElement[] elements = BasicHeaderValueParser.INSTANCE.parseElements(value,
+                        new ParserCursor(0, value.length()));
+                for (HeaderElement element : elements) {
+                    if (cookies == null) {
+                        cookies = new HashMap<String,String>();
+                    }
+                    cookies.put(element.getName(), element.getValue());
+                }
+            }
+        }
+        return cookies;
+    }
+
+    @Override
+    public InputStream getResponseContent() throws IOException {
+        byte[] content = response.getBodyBytes();
+        return content == null ? null : new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void execute() throws IOException {
+        Future<SimpleHttpResponse> future = executeAsync(null);
+        try {
+            response = future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw AxisFault.makeFault(cause);
+        }
+    }
+
+    /**
+     * Submit the request without waiting for the response. The callback is invoked on an I/O
+     * dispatch thread of the client; it must not block. The response is not stored in this
+     * object: the callback must pass it to {@link #setResponse} before it is processed.
+     *
+     * @param callback
+     *            the callback to notify once the exchange is complete, or {@code null}
+     * @return the future of the response
+     * @throws IOException
+     *            if the request content cannot be serialized
+     */
+    Future<SimpleHttpResponse> executeAsync(FutureCallback<SimpleHttpResponse> callback)
+            throws IOException {
+        if (HTTPProxyConfigurator.isProxyEnabled(msgContext, url)) {
+            throw new AxisFault("HTTP proxies are not supported by the HttpClient 5 transport sender");
+        }
+
+        // add compression headers if needed
+        if (msgContext.isPropertyTrue(HTTPConstants.MC_ACCEPT_GZIP)) {
+            request.addHeader(HTTPConstants.HEADER_ACCEPT_ENCODING,
+                              HTTPConstants.COMPRESSION_GZIP);
+        }
+
+        String cookiePolicy = (String) msgContext.getProperty(HTTPConstants.COOKIE_POLICY);
+        if (cookiePolicy != null) {
+            requestConfig.setCookieSpec(cookiePolicy);
+        }
+
+        request.setConfig(requestConfig.build());
+
+        if (requestEntity != null) {
+            // The message is serialized by the calling thread; the I/O reactor only copies bytes.
+            // HTTP/2 has no chunked encoding, so the content length is always sent.
+            ByteArrayOutputStream content = new ByteArrayOutputStream(
+                    requestEntity.isChunked() ? 4096 : (int) requestEntity.getContentLength());
+            requestEntity.writeRequest(content);
+            request.setBody(content.toByteArray(), ContentType.parse(requestEntity.getContentType()));
+        }
+
+        return httpClient.execute(SimpleRequestProducer.create(request),
+                SimpleResponseConsumer.create(), clientContext, callback);
+    }
+
+    /**
+     * Set the response received for a request submitted with {@link #executeAsync}, before it
+     * is processed.
+     *
+     * @param response the response passed to the callback
+     */
+    void setResponse(SimpleHttpResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    public void releaseConnection() {
+        // The response is buffered and the connection has already been returned to the pool
+        log.trace("Cleaning response : " + response);
+    }
+
+    /*
+     * This will handle server Authentication, It could be either NTLM, Digest
+     * or Basic Authentication. Apart from that user can change the priory or
+     * add a custom authentication scheme.
+     */
+    @Override
+    public void enableAuthentication(HTTPAuthenticator authenticator) {
+        requestConfig.setAuthenticationEnabled(true);
+
+        String username = authenticator.getUsername();
+        char[] password = authenticator.getPassword() == null ? new char[0]
+                : authenticator.getPassword().toCharArray();
+        String host = authenticator.getHost();
+        String domain = authenticator.getDomain();
+
+        int port = authenticator.getPort();
+        String realm = authenticator.getRealm();
+
+        Credentials creds;
+        if (domain != null) {
+            /* Credentials for NTLM Authentication */
+            creds = new NTCredentials(username, password, host, domain);
+        } else {
+            /* Credentials for Digest and Basic Authentication */
+            creds = new UsernamePasswordCredentials(username, password);
+        }
+
+        BasicCredentialsProvider credsProvider = new BasicCredentialsProvider();
+        credsProvider.setCredentials(new AuthScope(null, host, port, realm, null), creds);
+        clientContext.setCredentialsProvider(credsProvider);
+
+        /* Customizing the priority Order */
+        List schemes = authenticator.getAuthSchemes();
+        if (schemes != null && schemes.size() > 0) {
+            List<String> authPrefs = new ArrayList<String>(3);
+            for (int i = 0; i < schemes.size(); i++) {
+                Object pref = authenticator.getAuthPolicyPref(String.valueOf(schemes.get(i)));
+                authPrefs.add(String.valueOf(pref == null ? schemes.get(i) : pref));
+            }
+            requestConfig.setTargetPreferredAuthSchemes(authPrefs);
+        }
+    }
+}
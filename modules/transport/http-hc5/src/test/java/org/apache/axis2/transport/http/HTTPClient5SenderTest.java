@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.transport.AsyncTransportSender;
+import org.apache.axis2.transport.http.impl.httpclient5.HTTPSenderImpl;
+import org.apache.axis2.transport.http.mock.server.BasicHttpServer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.io.CloseMode;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class HTTPClient5SenderTest extends HTTPSenderTest {
+    private CloseableHttpAsyncClient httpClient;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        httpClient = HttpAsyncClients.createDefault();
+        httpClient.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        httpClient.close(CloseMode.IMMEDIATE);
+        super.tearDown();
+    }
+
+    @Override
+    protected HTTPSender getHTTPSender() {
+        return new HTTPSenderImpl(httpClient);
+    }
+
+    public void testSendWithResponseCallback() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final MessageContext[] result = new MessageContext[1];
+        final Exception[] error = new Exception[1];
+        AsyncTransportSender.ResponseCallback callback = new AsyncTransportSender.ResponseCallback() {
+            public void onResponse(MessageContext msgContext) {
+                result[0] = msgContext;
+                latch.countDown();
+            }
+
+            public void onError(Exception e) {
+                error[0] = e;
+                latch.countDown();
+            }
+        };
+
+        MessageContext msgContext = new MessageContext();
+        OperationContext opContext = new OperationContext();
+        msgContext.setConfigurationContext(
+                ConfigurationContextFactory.createEmptyConfigurationContext());
+        msgContext.setEnvelope(getEnvelope());
+        msgContext.setProperty(Constants.Configuration.HTTP_METHOD,
+                Constants.Configuration.HTTP_METHOD_POST);
+        msgContext.setOperationContext(opContext);
+        msgContext.setProperty(AsyncTransportSender.RESPONSE_CALLBACK, callback);
+
+        int port = getBasicHttpServer().getPort();
+        getHTTPSender().send(msgContext, new URL("http://localhost:" + port + "/postService"),
+                "urn:postService");
+        assertNull("The sender should have taken over the callback",
+                msgContext.getProperty(AsyncTransportSender.RESPONSE_CALLBACK));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertNull(error[0]);
+        assertSame(msgContext, result[0]);
+        assertEquals(200, msgContext.getProperty(HTTPConstants.MC_HTTP_STATUS_CODE));
+        InputStream in = (InputStream) opContext.getProperty(MessageContext.TRANSPORT_IN);
+        assertNotNull(in);
+        in.close();
+    }
+
+    public void testResponseCallbackOnError() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception[] error = new Exception[1];
+        MessageContext msgContext = new MessageContext();
+        msgContext.setConfigurationContext(
+                ConfigurationContextFactory.createEmptyConfigurationContext());
+        msgContext.setEnvelope(getEnvelope());
+        msgContext.setOperationContext(new OperationContext());
+        msgContext.setProperty(AsyncTransportSender.RESPONSE_CALLBACK,
+                new AsyncTransportSender.ResponseCallback() {
+                    public void onResponse(MessageContext msgContext) {
+                        latch.countDown();
+                    }
+
+                    public void onError(Exception e) {
+                        error[0] = e;
+                        latch.countDown();
+                    }
+                });
+
+        int port = getBasicHttpServer().getPort();
+        getBasicHttpServer().setResponseTemplate(BasicHttpServer.RESPONSE_HTTP_404);
+        getHTTPSender().send(msgContext, new URL("http://localhost:" + port + "/postService"),
+                "urn:postService");
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertNotNull(error[0]);
+    }
+}
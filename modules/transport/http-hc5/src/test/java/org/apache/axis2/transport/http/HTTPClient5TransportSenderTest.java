@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.transport.http.impl.httpclient5.HTTPClient5TransportSender;
+import org.apache.axis2.util.threadpool.ThreadFactory;
+import org.apache.axis2.util.threadpool.ThreadPool;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.ProtocolVersion;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Invokes a service over HTTP/2 without TLS (h2c with prior knowledge) through the client API,
+ * with both a blocking and a non-blocking out-in invocation.
+ */
+public class HTTPClient5TransportSenderTest extends TestCase {
+    private static final String RESPONSE =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soapenv:Body><ns:echoResponse xmlns:ns=\"urn:test\">"
+            + "Isaac Asimov, The Foundation Trilogy</ns:echoResponse></soapenv:Body>"
+            + "</soapenv:Envelope>";
+
+    /**
+     * Counts the tasks that are running on the thread pool of the configuration context.
+     */
+    private static class CountingThreadPool implements ThreadFactory {
+        private final ThreadPool threadPool = new ThreadPool();
+        private final AtomicInteger running = new AtomicInteger();
+
+        public void execute(final Runnable runnable) {
+            running.incrementAndGet();
+            threadPool.execute(new Runnable() {
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    private final BlockingQueue<ProtocolVersion> requestVersions =
+            new LinkedBlockingQueue<ProtocolVersion>();
+    private final BlockingQueue<Runnable> heldResponses = new LinkedBlockingQueue<Runnable>();
+    private volatile boolean holdResponses;
+
+    private HttpAsyncServer server;
+    private int port;
+    private ConfigurationContext configContext;
+    private CountingThreadPool threadPool;
+    private HTTPClient5TransportSender sender;
+    private TransportOutDescription transportOut;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                    public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(
+                            HttpRequest request, EntityDetails entityDetails,
+                            HttpContext context) throws HttpException {
+                        return new BasicRequestConsumer<String>(new StringAsyncEntityConsumer());
+                    }
+
+                    public void handle(Message<HttpRequest, String> request,
+                            final ResponseTrigger responseTrigger, final HttpContext context)
+                            throws HttpException, IOException {
+                        requestVersions.add(context.getProtocolVersion());
+                        Runnable response = new Runnable() {
+                            public void run() {
+                                try {
+                                    responseTrigger.submitResponse(
+                                            AsyncResponseBuilder.create(HttpStatus.SC_OK)
+                                                    .setEntity(AsyncEntityProducers.create(
+                                                            RESPONSE, ContentType.create(
+                                                                    "text/xml", "UTF-8")))
+                                                    .build(), context);
+                                } catch (Exception e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        };
+                        if (holdResponses) {
+                            heldResponses.add(response);
+                        } else {
+                            response.run();
+                        }
+                    }
+                })
+                .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("localhost", 0)).get();
+        port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        threadPool = new CountingThreadPool();
+        configContext.setThreadPool(threadPool);
+        transportOut = new TransportOutDescription("http");
+        transportOut.addParameter(new Parameter(HTTPTransportConstants.HTTP_VERSION_POLICY,
+                "FORCE_HTTP_2"));
+        sender = new HTTPClient5TransportSender();
+        transportOut.setSender(sender);
+        sender.init(configContext, transportOut);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        sender.stop();
+        threadPool.threadPool.forceShutDown();
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    private ServiceClient createServiceClient() throws Exception {
+        ServiceClient serviceClient = new ServiceClient(configContext, null);
+        Options options = serviceClient.getOptions();
+        options.setTo(new EndpointReference(
+                "http://localhost:" + port + "/axis2/services/EchoService"));
+        options.setTransportOut(transportOut);
+        options.setAction("urn:echo");
+        return serviceClient;
+    }
+
+    private static OMElement createPayload() {
+        OMFactory factory = OMAbstractFactory.getOMFactory();
+        OMNamespace ns = factory.createOMNamespace("urn:test", "ns");
+        OMElement payload = factory.createOMElement("echo", ns);
+        payload.setText("Isaac Asimov, The Foundation Trilogy");
+        return payload;
+    }
+
+    private static void checkResponse(OMElement response) {
+        assertEquals("echoResponse", response.getLocalName());
+        assertEquals("Isaac Asimov, The Foundation Trilogy", response.getText());
+    }
+
+    public void testHTTP2RoundTrip() throws Exception {
+        ServiceClient serviceClient = createServiceClient();
+        // Two requests, so that the second one is sent on the existing connection
+        for (int i = 0; i < 2; i++) {
+            checkResponse(serviceClient.sendReceive(createPayload()));
+            serviceClient.cleanupTransport();
+            ProtocolVersion version = requestVersions.poll();
+            assertNotNull(version);
+            assertEquals(2, version.getMajor());
+        }
+        serviceClient.cleanup();
+    }
+
+    public void testNonBlockingDoesNotHoldThread() throws Exception {
+        holdResponses = true;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final OMElement[] response = new OMElement[1];
+        final Exception[] error = new Exception[1];
+        ServiceClient serviceClient = createServiceClient();
+        serviceClient.sendReceiveNonBlocking(createPayload(), new AxisCallback() {
+            public void onMessage(MessageContext msgContext) {
+                response[0] = msgContext.getEnvelope().getBody().getFirstElement();
+                response[0].build();
+            }
+
+            public void onFault(MessageContext msgContext) {
+                error[0] = new Exception("Unexpected fault");
+            }
+
+            public void onError(Exception e) {
+                error[0] = e;
+            }
+
+            public void onComplete() {
+                latch.countDown();
+            }
+        });
+
+        Runnable heldResponse = heldResponses.poll(10, TimeUnit.SECONDS);
+        assertNotNull("The request was not received", heldResponse);
+        // The invocation worker returns as soon as the request has been submitted, so no
+        // thread of the pool waits for the response
+        long deadline = System.currentTimeMillis() + 10000;
+        while (threadPool.running.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, threadPool.running.get());
+        assertEquals(1, latch.getCount());
+
+        heldResponse.run();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        if (error[0] != null) {
+            throw error[0];
+        }
+        assertNotNull(response[0]);
+        checkResponse(response[0]);
+        assertEquals(2, requestVersions.poll().getMajor());
+        serviceClient.cleanup();
+    }
+}
@@ -560,8 +560,10 @@ public class AxisServlet extends HttpServlet {
         // TODO - This action need be changed according to current HTTPClient.
         String clientVersion = getHTTPClientVersion();
         if (clientVersion != null
-                && HTTPTransportConstants.HTTP_CLIENT_4_X_VERSION.equals(clientVersion)) {
+                && (HTTPTransportConstants.HTTP_CLIENT_4_X_VERSION.equals(clientVersion)
+                        || HTTPTransportConstants.HTTP_CLIENT_5_X_VERSION.equals(clientVersion))) {
             // TODO - Handle for HTTPClient 4
+            // The HttpClient 5 based sender closes its client when the transport is stopped
         } else {
             try {
                 Class.forName("org.apache.commons.httpclient.MultiThreadedHttpConnectionManager").getMethod("shutdownAll").invoke(null);
@@ -112,6 +112,32 @@ public abstract class HTTPSender {
         // execute the HtttpMethodBase - a connection manager can be given for
         // handle multiple
 
+        Request request = prepareRequest(msgContext, url, soapActionString);
+        try {
+            request.execute();
+            processResponse(msgContext, request);
+        } catch (IOException e) {
+            log.info("Unable to send to url[" + url + "]", e);
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+    /**
+     * Create the request for the given message and set up its headers, authentication and
+     * timeouts.
+     *
+     * @param msgContext
+     *            The MessageContext of the request message
+     * @param url
+     *            The target URL
+     * @param soapActionString
+     *            The SOAP action
+     * @return the request, ready to be executed
+     * @throws AxisFault
+     *            Thrown in case an exception occurs
+     */
+    protected Request prepareRequest(MessageContext msgContext, URL url, String soapActionString)
+            throws AxisFault {
         String httpMethod =
                 (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD);
         if (httpMethod == null) {
@@ -188,81 +214,90 @@ public abstract class HTTPSender {
         }
 
         setTimeouts(msgContext, request);
+        return request;
+    }
 
+    /**
+     * Process the response of an executed request: check the status code, copy the response
+     * headers to the message context and make the response content available as the
+     * {@link MessageContext#TRANSPORT_IN} property of the operation context.
+     *
+     * @param msgContext
+     *            The MessageContext of the request message
+     * @param request
+     *            The executed request
+     * @throws IOException
+     *            Thrown if the response is not valid or cannot be read
+     */
+    protected void processResponse(MessageContext msgContext, Request request) throws IOException {
+        boolean cleanup = true;
         try {
-            request.execute();
-            boolean cleanup = true;
-            try {
-                int statusCode = request.getStatusCode();
-                log.trace("Handling response - " + statusCode);
-                boolean processResponse;
-                boolean fault;
-                if (statusCode == HttpStatus.SC_ACCEPTED) {
-                    processResponse = false;
-                    fault = false;
-                } else if (statusCode >= 200 && statusCode < 300) {
-                    processResponse = true;
-                    fault = false;
-                } else if (statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR
-                           || statusCode == HttpStatus.SC_BAD_REQUEST) {
-                    processResponse = true;
-                    fault = true;
-                } else {
-                    throw new AxisFault(Messages.getMessage("transportError", String.valueOf(statusCode),
-                                                            request.getStatusText()));
-                }
-                obtainHTTPHeaderInformation(request, msgContext);
-                if (processResponse) {
-                    OperationContext opContext = msgContext.getOperationContext();
-                    MessageContext inMessageContext = opContext == null ? null
-                            : opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
-                    if (opContext != null) {
-                        InputStream in = request.getResponseContent();
-                        if (in != null) {
-                            String contentEncoding = request.getResponseHeader(HTTPConstants.HEADER_CONTENT_ENCODING);
-                            if (contentEncoding != null) {
-                                if (contentEncoding.equalsIgnoreCase(HTTPConstants.COMPRESSION_GZIP)) {
-                                    in = new GZIPInputStream(in);
-                                    // If the content-encoding is identity we can basically ignore
-                                    // it.
-                                } else if (!"identity".equalsIgnoreCase(contentEncoding)) {
-                                    throw new AxisFault("HTTP :" + "unsupported content-encoding of '"
-                                                        + contentEncoding + "' found");
-                                }
-                            }
-                            opContext.setProperty(MessageContext.TRANSPORT_IN, in);
-                            // This implements the behavior of the HTTPClient 3.x based transport in
-                            // Axis2 1.7: if AUTO_RELEASE_CONNECTION is enabled, we set the input stream
-                            // in the message context, but we nevertheless release the connection.
-                            // It is unclear in which situation this would actually be the right thing
-                            // to do.
-                            if (msgContext.isPropertyTrue(HTTPConstants.AUTO_RELEASE_CONNECTION)) {
-                                log.debug("AUTO_RELEASE_CONNECTION enabled; are you sure that you really want that?");
-                            } else {
-                                cleanup = false;
+            int statusCode = request.getStatusCode();
+            log.trace("Handling response - " + statusCode);
+            boolean processResponse;
+            boolean fault;
+            if (statusCode == HttpStatus.SC_ACCEPTED) {
+                processResponse = false;
+                fault = false;
+            } else if (statusCode >= 200 && statusCode < 300) {
+                processResponse = true;
+                fault = false;
+            } else if (statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR
+                       || statusCode == HttpStatus.SC_BAD_REQUEST) {
+                processResponse = true;
+                fault = true;
+            } else {
+                throw new AxisFault(Messages.getMessage("transportError", String.valueOf(statusCode),
+                                                        request.getStatusText()));
+            }
+            obtainHTTPHeaderInformation(request, msgContext);
+            if (processResponse) {
+                OperationContext opContext = msgContext.getOperationContext();
+                MessageContext inMessageContext = opContext == null ? null
+                        : opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+                if (opContext != null) {
+                    InputStream in = request.getResponseContent();
+                    if (in != null) {
+                        String contentEncoding = request.getResponseHeader(HTTPConstants.HEADER_CONTENT_ENCODING);
+                        if (contentEncoding != null) {
+                            if (contentEncoding.equalsIgnoreCase(HTTPConstants.COMPRESSION_GZIP)) {
+                                in = new GZIPInputStream(in);
+                                // If the content-encoding is identity we can basically ignore
+                                // it.
+                            } else if (!"identity".equalsIgnoreCase(contentEncoding)) {
+                                throw new AxisFault("HTTP :" + "unsupported content-encoding of '"
+                                                    + contentEncoding + "' found");
                             }
                         }
-                    }
-                    if (fault) {
-                        if (inMessageContext != null) {
-                            inMessageContext.setProcessingFault(true);
-                        }
-                        if (Utils.isClientThreadNonBlockingPropertySet(msgContext)) {
-                            throw new AxisFault(Messages.
-                                    getMessage("transportError",
-                                               String.valueOf(statusCode),
-                                               request.getStatusText()));
+                        opContext.setProperty(MessageContext.TRANSPORT_IN, in);
+                        // This implements the behavior of the HTTPClient 3.x based transport in
+                        // Axis2 1.7: if AUTO_RELEASE_CONNECTION is enabled, we set the input stream
+                        // in the message context, but we nevertheless release the connection.
+                        // It is unclear in which situation this would actually be the right thing
+                        // to do.
+                        if (msgContext.isPropertyTrue(HTTPConstants.AUTO_RELEASE_CONNECTION)) {
+                            log.debug("AUTO_RELEASE_CONNECTION enabled; are you sure that you really want that?");
+                        } else {
+                            cleanup = false;
                         }
                     }
                 }
-            } finally {
-                if (cleanup) {
-                    request.releaseConnection();
+                if (fault) {
+                    if (inMessageContext != null) {
+                        inMessageContext.setProcessingFault(true);
+                    }
+                    if (Utils.isClientThreadNonBlockingPropertySet(msgContext)) {
+                        throw new AxisFault(Messages.
+                                getMessage("transportError",
+                                           String.valueOf(statusCode),
+                                           request.getStatusText()));
+                    }
                 }
             }
-        } catch (IOException e) {
-            log.info("Unable to send to url[" + url + "]", e);
-            throw AxisFault.makeFault(e);
+        } finally {
+            if (cleanup) {
+                request.releaseConnection();
+            }
         }
     }   
 
@@ -42,6 +42,18 @@ public class HTTPTransportConstants {
     public static final String HTTP_CLIENT_VERSION = "http.client.version"; 
     public static final String HTTP_CLIENT_3_X_VERSION = "http.client.version.3x";
     public static final String HTTP_CLIENT_4_X_VERSION = "http.client.version.4x";  
+    public static final String HTTP_CLIENT_5_X_VERSION = "http.client.version.5x";
+
+    //Connection pool and protocol settings of the HttpClient 4.x and 5.x based transport senders
+    public static final String MAX_TOTAL_CONNECTIONS = "MaxTotalConnections";
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "MaxConnectionsPerRoute";
+    public static final String MAX_CONNECTIONS_PER_HOST = "MaxConnectionsPerHost";
+    public static final String IDLE_CONNECTION_TIMEOUT = "IdleConnectionTimeout";
+    public static final String VALIDATE_AFTER_INACTIVITY = "ValidateAfterInactivity";
+    public static final String IO_THREAD_COUNT = "IOThreadCount";
+    public static final String HTTP_VERSION_POLICY = "HttpVersionPolicy";
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 200;
     
     public static final String ANONYMOUS = "anonymous";
     public static final String PROXY_HOST_NAME = "proxy_host";
@@ -60,8 +60,11 @@ public class ListingAgent extends AbstractAgent {
             "listServices.jsp";
     private static final String LIST_FAULTY_SERVICES_JSP_NAME = "listFaultyService.jsp";
 
+    private final ServiceMetadataCache metadataCache = new ServiceMetadataCache();
+
     public ListingAgent(ConfigurationContext aConfigContext) {
         super(aConfigContext);
+        aConfigContext.getAxisConfiguration().addObservers(metadataCache);
     }
 
     public void handle(HttpServletRequest httpServletRequest,
@@ -277,13 +280,25 @@ public class ListingAgent extends AbstractAgent {
     }
 
     private void handleXSDRequest(HttpServletRequest req, HttpServletResponse res,
-                                  AxisService axisService) throws IOException {
+                                  final AxisService axisService) throws IOException {
         if (!canExposeServiceMetadata(axisService)){
             res.sendError(HttpServletResponse.SC_FORBIDDEN);
             return;
         }
-        res.setContentType("text/xml");
-        int ret = axisService.printXSD(res.getOutputStream(), getParamtereIgnoreCase(req ,"xsd"));
+        final String xsd = getParamtereIgnoreCase(req ,"xsd");
+        int ret;
+        if (metadataCache.isEnabled(axisService)
+            && axisService.getParameter("SchemaSupplier") == null) {
+            ret = metadataCache.send(req, res, axisService, "xsd:" + xsd, "text/xml",
+                    new ServiceMetadataCache.Renderer() {
+                        public int render(OutputStream out) throws IOException {
+                            return axisService.printXSD(out, xsd);
+                        }
+                    });
+        } else {
+            res.setContentType("text/xml");
+            ret = axisService.printXSD(res.getOutputStream(), xsd);
+        }
         if (ret == 0) {
             //multiple schemas are present and the user specified
             //no name - in this case we cannot possibly pump a schema
@@ -297,16 +312,30 @@ public class ListingAgent extends AbstractAgent {
     private void handleWSDLRequest(HttpServletRequest req,
                                    HttpServletResponse res,
                                    String url,
-                                   AxisService axisService) throws IOException {
+                                   final AxisService axisService) throws IOException {
         if (!canExposeServiceMetadata(axisService)){
             res.sendError(HttpServletResponse.SC_FORBIDDEN);
             return;
         }
-        OutputStream out = res.getOutputStream();
-        res.setContentType("text/xml");
-        String ip = extractHost(url);
-        String wsdlName = getParamtereIgnoreCase(req , "wsdl");
+        final String ip = extractHost(url);
+        final String wsdlName = getParamtereIgnoreCase(req , "wsdl");
+
+        if (metadataCache.isEnabled(axisService)) {
+            metadataCache.send(req, res, axisService, "wsdl:" + wsdlName + "@" + ip, "text/xml",
+                    new ServiceMetadataCache.Renderer() {
+                        public int render(OutputStream out) throws IOException {
+                            printWSDL(out, axisService, wsdlName, ip);
+                            return 1;
+                        }
+                    });
+        } else {
+            res.setContentType("text/xml");
+            printWSDL(res.getOutputStream(), axisService, wsdlName, ip);
+        }
+    }
 
+    private void printWSDL(OutputStream out, AxisService axisService, String wsdlName, String ip)
+            throws IOException {
         if (wsdlName != null && wsdlName.length()>0) {
             axisService.printUserWSDL(out, wsdlName, ip);
         } else {
@@ -317,16 +346,26 @@ public class ListingAgent extends AbstractAgent {
     private void handleWSDL2Request(HttpServletRequest req,
                                     HttpServletResponse res,
                                     String url,
-                                    AxisService axisService) throws IOException {
+                                    final AxisService axisService) throws IOException {
         if (!canExposeServiceMetadata(axisService)){
             res.sendError(HttpServletResponse.SC_FORBIDDEN);
             return;
         }
-        res.setContentType("text/xml");
-        String ip = extractHost(url);
-        String wsdlName = getParamtereIgnoreCase(req , "wsdl2");
-
-        int ret = axisService.printWSDL2(res.getOutputStream(), ip, wsdlName);
+        final String ip = extractHost(url);
+        final String wsdlName = getParamtereIgnoreCase(req , "wsdl2");
+
+        int ret;
+        if (metadataCache.isEnabled(axisService)) {
+            ret = metadataCache.send(req, res, axisService, "wsdl2:" + wsdlName + "@" + ip,
+                    "text/xml", new ServiceMetadataCache.Renderer() {
+                        public int render(OutputStream out) throws IOException {
+                            return axisService.printWSDL2(out, ip, wsdlName);
+                        }
+                    });
+        } else {
+            res.setContentType("text/xml");
+            ret = axisService.printWSDL2(res.getOutputStream(), ip, wsdlName);
+        }
         if (ret == 0) {
             res.sendRedirect("");
         } else if (ret == -1) {
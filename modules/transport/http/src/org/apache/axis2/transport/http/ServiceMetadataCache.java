@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.AxisBinding;
+import org.apache.axis2.description.AxisDescription;
+import org.apache.axis2.description.AxisEndpoint;
+import org.apache.axis2.description.AxisModule;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.AxisEvent;
+import org.apache.axis2.engine.AxisObserver;
+import org.apache.axis2.util.JavaUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the WSDL and schema documents rendered for the <code>?wsdl</code>,
+ * <code>?wsdl2</code> and <code>?xsd</code> requests of {@link ListingAgent}.
+ * <p/>
+ * Documents are cached per service, under a key made up of the requested document and the host
+ * the request was directed at (which determines the endpoint addresses in the document).  They
+ * are kept as encoded bytes together with an ETag, so that repeated requests are answered without
+ * rendering anything, and requests carrying a matching <code>If-None-Match</code> header get a
+ * 304 response.  If compression is enabled, a gzipped copy is created on the first request which
+ * accepts it.
+ * <p/>
+ * The documents of a service are dropped when the service is redeployed, removed or when a module
+ * is engaged or disengaged, and when a policy attached to the service, its operations, messages
+ * or bindings changes.
+ * <p/>
+ * Caching is enabled with the <code>cacheServiceMetadata</code> parameter and compression with
+ * the <code>compressServiceMetadata</code> parameter, either globally in axis2.xml or per
+ * service in services.xml.
+ */
+public class ServiceMetadataCache implements AxisObserver {
+
+    public static final String CACHE_SERVICE_METADATA = "cacheServiceMetadata";
+    public static final String COMPRESS_SERVICE_METADATA = "compressServiceMetadata";
+
+    /**
+     * The maximum number of documents cached per service.  The host name is part of the key and
+     * comes from the request, so the number of keys has to be bounded.
+     */
+    static final int MAX_DOCUMENTS_PER_SERVICE = 64;
+
+    /**
+     * Renders a document of a service.
+     */
+    public interface Renderer {
+        /**
+         * @param out the stream to write the document to
+         * @return 1 if the document was written; any other value is returned to the caller as is
+         *         and nothing is cached
+         * @throws IOException if the document cannot be rendered
+         */
+        int render(OutputStream out) throws IOException;
+    }
+
+    static final class Document {
+        private final byte[] content;
+        private final String etag;
+        private volatile byte[] compressed;
+
+        Document(byte[] content) {
+            this.content = content;
+            this.etag = createETag(content);
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        String getCompressedETag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        byte[] getCompressed() throws IOException {
+            byte[] result = compressed;
+            if (result == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+                GZIPOutputStream gzip = new GZIPOutputStream(out);
+                gzip.write(content);
+                gzip.close();
+                result = out.toByteArray();
+                compressed = result;
+            }
+            return result;
+        }
+    }
+
+    private static final class ServiceDocuments {
+        final AxisService service;
+        final long policyStamp;
+        final Map<String, Document> documents = new ConcurrentHashMap<String, Document>();
+
+        ServiceDocuments(AxisService service, long policyStamp) {
+            this.service = service;
+            this.policyStamp = policyStamp;
+        }
+    }
+
+    private final Map<String, ServiceDocuments> services =
+            new ConcurrentHashMap<String, ServiceDocuments>();
+
+    /**
+     * @param service the service
+     * @return true if the documents of the given service are to be cached
+     */
+    public boolean isEnabled(AxisService service) {
+        return isTrue(service, CACHE_SERVICE_METADATA);
+    }
+
+    private static boolean isTrue(AxisService service, String name) {
+        Parameter parameter = service.getParameter(name);
+        return parameter != null && JavaUtils.isTrueExplicitly(parameter.getValue());
+    }
+
+    /**
+     * Send a document of a service, rendering it only if it is not cached yet.
+     *
+     * @param req         the request
+     * @param res         the response
+     * @param service     the service
+     * @param key         identifies the document within the service, including the host
+     * @param contentType the content type of the document
+     * @param renderer    renders the document if it is not cached
+     * @return the value returned by the renderer, or 1 if the document was cached; nothing is
+     *         sent unless this is 1
+     * @throws IOException if the document cannot be rendered or sent
+     */
+    public int send(HttpServletRequest req, HttpServletResponse res, AxisService service,
+                    String key, String contentType, Renderer renderer) throws IOException {
+        Document document = getDocument(service, key);
+        if (document == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int ret = renderer.render(out);
+            if (ret != 1) {
+                return ret;
+            }
+            document = new Document(out.toByteArray());
+            putDocument(service, key, document);
+        }
+
+        boolean compress = isTrue(service, COMPRESS_SERVICE_METADATA);
+        boolean gzip = compress && acceptsGzip(req.getHeader("Accept-Encoding"));
+        String etag = gzip ? document.getCompressedETag() : document.getETag();
+        res.setContentType(contentType);
+        res.setHeader("ETag", etag);
+        if (compress) {
+            res.setHeader("Vary", "Accept-Encoding");
+        }
+        if (matches(req.getHeader("If-None-Match"), document)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return 1;
+        }
+        byte[] content;
+        if (gzip) {
+            content = document.getCompressed();
+            res.setHeader("Content-Encoding", "gzip");
+        } else {
+            content = document.getContent();
+        }
+        res.setContentLength(content.length);
+        OutputStream out = res.getOutputStream();
+        out.write(content);
+        out.flush();
+        return 1;
+    }
+
+    Document getDocument(AxisService service, String key) {
+        ServiceDocuments entry = services.get(service.getName());
+        if (entry == null) {
+            return null;
+        }
+        if (entry.service != service || entry.policyStamp != getPolicyStamp(service)) {
+            services.remove(service.getName());
+            return null;
+        }
+        return entry.documents.get(key);
+    }
+
+    void putDocument(AxisService service, String key, Document document) {
+        long policyStamp = getPolicyStamp(service);
+        ServiceDocuments entry = services.get(service.getName());
+        if (entry == null || entry.service != service || entry.policyStamp != policyStamp) {
+            entry = new ServiceDocuments(service, policyStamp);
+            services.put(service.getName(), entry);
+        }
+        if (entry.documents.size() >= MAX_DOCUMENTS_PER_SERVICE) {
+            entry.documents.clear();
+        }
+        entry.documents.put(key, document);
+    }
+
+    /**
+     * Drop the cached documents of a service.
+     *
+     * @param serviceName the name of the service
+     */
+    public void invalidate(String serviceName) {
+        services.remove(serviceName);
+    }
+
+    /**
+     * Drop all cached documents.
+     */
+    public void invalidateAll() {
+        services.clear();
+    }
+
+    /**
+     * Get the time of the latest policy change of a service and of the descriptions below it.
+     */
+    static long getPolicyStamp(AxisService service) {
+        long stamp = getPolicyStamp(service, 0);
+        for (Iterator<AxisEndpoint> i = service.getEndpoints().values().iterator(); i.hasNext();) {
+            AxisBinding binding = i.next().getBinding();
+            if (binding != null) {
+                stamp = getPolicyStamp(binding, stamp);
+            }
+        }
+        return stamp;
+    }
+
+    private static long getPolicyStamp(AxisDescription description, long stamp) {
+        long updated = description.getPolicySubject().getLastUpdatedTime().getTime();
+        if (updated > stamp) {
+            stamp = updated;
+        }
+        for (Iterator<? extends AxisDescription> i = description.getChildren(); i.hasNext();) {
+            stamp = getPolicyStamp(i.next(), stamp);
+        }
+        return stamp;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        String[] codings = acceptEncoding.split(",");
+        for (int i = 0; i < codings.length; i++) {
+            String[] parts = codings[i].split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int j = 1; j < parts.length; j++) {
+                String param = parts[j].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Float.parseFloat(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static boolean matches(String ifNoneMatch, Document document) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String[] tags = ifNoneMatch.split(",");
+        for (int i = 0; i < tags.length; i++) {
+            String tag = tags[i].trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(document.getETag())
+                || tag.equals(document.getCompressedETag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String createETag(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest(content);
+        StringBuilder etag = new StringBuilder(hash.length * 2 + 2);
+        etag.append('"');
+        for (int i = 0; i < hash.length; i++) {
+            int b = hash[i] & 0xff;
+            if (b < 0x10) {
+                etag.append('0');
+            }
+            etag.append(Integer.toHexString(b));
+        }
+        etag.append('"');
+        return etag.toString();
+    }
+
+    public void init(AxisConfiguration axisConfig) {
+        // Nothing to do
+    }
+
+    public void serviceUpdate(AxisEvent event, AxisService service) {
+        if (event.getEventType() != AxisEvent.SERVICE_START
+            && event.getEventType() != AxisEvent.SERVICE_STOP) {
+            invalidate(service.getName());
+        }
+    }
+
+    public void serviceGroupUpdate(AxisEvent event, AxisServiceGroup serviceGroup) {
+        for (Iterator<AxisService> i = serviceGroup.getServices(); i.hasNext();) {
+            invalidate(i.next().getName());
+        }
+    }
+
+    public void moduleUpdate(AxisEvent event, AxisModule module) {
+        if (event.getEventType() == AxisEvent.MODULE_ENGAGED
+            || event.getEventType() == AxisEvent.MODULE_DISENGAGED) {
+            AxisDescription description = event.getAxisDescription();
+            while (description != null && !(description instanceof AxisService)) {
+                description = description.getParent();
+            }
+            if (description != null) {
+                invalidate(((AxisService)description).getName());
+            } else {
+                // Engaged globally or on a service group
+                invalidateAll();
+            }
+        }
+    }
+
+    public void addParameter(Parameter param) throws AxisFault {
+        // Nothing to do
+    }
+
+    public void removeParameter(Parameter param) throws AxisFault {
+        // Nothing to do
+    }
+
+    public void deserializeParameters(OMElement parameterElement) throws AxisFault {
+        // Nothing to do
+    }
+
+    public Parameter getParameter(String name) {
+        return null;
+    }
+
+    public ArrayList<Parameter> getParameters() {
+        return null;
+    }
+
+    public boolean isParameterLocked(String parameterName) {
+        return false;
+    }
+}
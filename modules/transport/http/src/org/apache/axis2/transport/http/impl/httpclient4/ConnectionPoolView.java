@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient4;
+
+import java.util.concurrent.TimeUnit;
+
+public class ConnectionPoolView implements ConnectionPoolViewMBean {
+
+    private final MonitoredConnectionManager connManager;
+
+    public ConnectionPoolView(MonitoredConnectionManager connManager) {
+        this.connManager = connManager;
+    }
+
+    public int getMaxTotal() {
+        return connManager.getMaxTotal();
+    }
+
+    public int getDefaultMaxPerRoute() {
+        return connManager.getDefaultMaxPerRoute();
+    }
+
+    public int getLeased() {
+        return connManager.getTotalStats().getLeased();
+    }
+
+    public int getPending() {
+        return connManager.getTotalStats().getPending();
+    }
+
+    public int getAvailable() {
+        return connManager.getTotalStats().getAvailable();
+    }
+
+    public String[] getRouteStatistics() {
+        return connManager.getRouteStatistics();
+    }
+
+    public long getLeaseCount() {
+        return connManager.getLeaseCount();
+    }
+
+    public long getLeaseTimeoutCount() {
+        return connManager.getLeaseTimeoutCount();
+    }
+
+    public double getAverageLeaseWaitTime() {
+        return connManager.getAverageLeaseWaitTime();
+    }
+
+    public double getMaxLeaseWaitTime() {
+        return connManager.getMaxLeaseWaitTime();
+    }
+
+    public long getLastResetTime() {
+        return connManager.getLastResetTime();
+    }
+
+    public void resetStatistics() {
+        connManager.resetStatistics();
+    }
+
+    public void closeIdleConnections(long idleTimeMillis) {
+        connManager.closeIdleConnections(idleTimeMillis, TimeUnit.MILLISECONDS);
+    }
+}
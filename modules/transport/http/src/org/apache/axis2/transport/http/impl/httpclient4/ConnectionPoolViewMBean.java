@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient4;
+
+/**
+ * Management interface of the connection pool used by the HttpClient 4 based transport sender.
+ * Wait times are in milliseconds.
+ */
+public interface ConnectionPoolViewMBean {
+
+    // JMX Attributes
+    public int getMaxTotal();
+    public int getDefaultMaxPerRoute();
+    public int getLeased();
+    public int getPending();
+    public int getAvailable();
+    public String[] getRouteStatistics();
+    public long getLeaseCount();
+    public long getLeaseTimeoutCount();
+    public double getAverageLeaseWaitTime();
+    public double getMaxLeaseWaitTime();
+    public long getLastResetTime();
+
+    // JMX Operations
+    public void resetStatistics();
+    public void closeIdleConnections(long idleTimeMillis);
+}
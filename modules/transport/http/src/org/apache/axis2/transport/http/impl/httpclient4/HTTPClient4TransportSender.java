@@ -26,6 +26,7 @@ import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.transport.http.AbstractHTTPTransportSender;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.transport.http.HTTPSender;
@@ -40,6 +41,52 @@ public class HTTPClient4TransportSender extends AbstractHTTPTransportSender {
 
     private static final Log log = LogFactory.getLog(HTTPClient4TransportSender.class);
 
+    /**
+     * The property of the configuration context counting the started senders that share the
+     * connection manager created by {@link HTTPSenderImpl}.
+     */
+    private static final String SENDER_COUNT =
+            HTTPClient4TransportSender.class.getName() + ".senderCount";
+
+    private ConfigurationContext configurationContext;
+
+    @Override
+    public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+            throws AxisFault {
+        super.init(confContext, transportOut);
+        if (configurationContext == null) {
+            synchronized (confContext) {
+                Integer count = (Integer) confContext.getProperty(SENDER_COUNT);
+                confContext.setProperty(SENDER_COUNT, count == null ? 1 : count + 1);
+            }
+            this.configurationContext = confContext;
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (configurationContext != null) {
+            synchronized (configurationContext) {
+                Integer count = (Integer) configurationContext.getProperty(SENDER_COUNT);
+                if (count != null && count > 1) {
+                    configurationContext.setProperty(SENDER_COUNT, count - 1);
+                } else {
+                    configurationContext.removeProperty(SENDER_COUNT);
+                    // The connection manager created by HTTPSenderImpl is shared by all
+                    // HttpClient 4 based senders, so only the last one to stop closes it
+                    Object connManager = configurationContext.getProperty(
+                            HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+                    if (connManager instanceof MonitoredConnectionManager) {
+                        configurationContext.removeProperty(
+                                HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+                        ((MonitoredConnectionManager) connManager).shutdown();
+                    }
+                }
+            }
+            configurationContext = null;
+        }
+    }
+
     @Override
     public void cleanup(MessageContext msgContext) throws AxisFault {
         log.trace("cleanup() releasing connection");
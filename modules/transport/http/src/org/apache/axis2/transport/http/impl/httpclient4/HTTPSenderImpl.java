@@ -25,6 +25,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.transport.http.AxisRequestEntity;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.transport.http.HTTPSender;
+import org.apache.axis2.transport.http.HTTPTransportConstants;
 import org.apache.axis2.transport.http.Request;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,7 +37,6 @@ import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContexts;
 
 import java.net.URL;
@@ -50,10 +50,30 @@ public class HTTPSenderImpl extends HTTPSender {
     @Override
     protected Request createRequest(MessageContext msgContext, String methodName, URL url,
             AxisRequestEntity requestEntity) throws AxisFault {
-        return new RequestImpl(getHttpClient(msgContext), msgContext, methodName, url, requestEntity);
+        HttpClient httpClient = getHttpClient(msgContext);
+        Object maxPerRoute = msgContext.getProperty(HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE);
+        if (maxPerRoute != null) {
+            // Only change the limits of a connection manager supplied by the caller; the one
+            // stored in the configuration context is shared by every client
+            Object connManager = msgContext.getProperty(
+                    HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+            if (connManager instanceof MonitoredConnectionManager) {
+                try {
+                    ((MonitoredConnectionManager) connManager).setMaxPerRoute(url,
+                            Integer.parseInt(maxPerRoute.toString()));
+                } catch (NumberFormatException ex) {
+                    throw new AxisFault("Property " + HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE
+                            + " must be a number");
+                }
+            } else if (log.isDebugEnabled()) {
+                log.debug("Ignoring property " + HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE
+                        + ": no MonitoredConnectionManager was set on the message context");
+            }
+        }
+        return new RequestImpl(httpClient, msgContext, methodName, url, requestEntity);
     }
 
-    private HttpClient getHttpClient(MessageContext msgContext) {
+    private HttpClient getHttpClient(MessageContext msgContext) throws AxisFault {
         ConfigurationContext configContext = msgContext.getConfigurationContext();
 
         HttpClient httpClient = (HttpClient) msgContext
@@ -103,9 +123,11 @@ public class HTTPSenderImpl extends HTTPSender {
                                 .register("https", new SSLConnectionSocketFactory(sslContext))
                                 .build();
 
-                        connManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-                        ((PoolingHttpClientConnectionManager)connManager).setMaxTotal(200);
-                        ((PoolingHttpClientConnectionManager)connManager).setDefaultMaxPerRoute(200);
+                        MonitoredConnectionManager monitoredConnManager =
+                                new MonitoredConnectionManager(socketFactoryRegistry);
+                        monitoredConnManager.configure(msgContext.getTransportOut());
+                        monitoredConnManager.registerMBean("HTTPSender-" + configContext.hashCode());
+                        connManager = monitoredConnManager;
                         configContext.setProperty(
                                 HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER, connManager);
                     }
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient4;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.transport.http.HTTPTransportConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * The connection manager created by {@link HTTPSenderImpl} when no connection manager has been
+ * supplied by the application. It is configured from the parameters of the transport sender in
+ * <tt>axis2.xml</tt>:
+ * <pre>
+ * &lt;parameter name="MaxTotalConnections"&gt;200&lt;/parameter&gt;
+ * &lt;parameter name="MaxConnectionsPerRoute"&gt;200&lt;/parameter&gt;
+ * &lt;parameter name="MaxConnectionsPerHost"&gt;backend1:8080=50, https://backend2=20&lt;/parameter&gt;
+ * &lt;parameter name="IdleConnectionTimeout"&gt;60000&lt;/parameter&gt;
+ * &lt;parameter name="ValidateAfterInactivity"&gt;2000&lt;/parameter&gt;
+ * </pre>
+ * When the caller supplies its own manager through the
+ * {@link org.apache.axis2.transport.http.HTTPConstants#MULTITHREAD_HTTP_CONNECTION_MANAGER}
+ * property in the Options, the limit for the route of a request can also be changed by setting
+ * the {@link HTTPTransportConstants#MAX_CONNECTIONS_PER_ROUTE} property. The property is
+ * ignored for the manager shared through the configuration context. Per host limits only apply
+ * to direct (non proxied) routes.
+ * <p>
+ * The manager measures the time spent waiting for a connection and exposes the pool
+ * statistics through the {@link ConnectionPoolViewMBean} management bean.
+ */
+public class MonitoredConnectionManager extends PoolingHttpClientConnectionManager {
+    private static final Log log = LogFactory.getLog(MonitoredConnectionManager.class);
+
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong leaseTimeoutCount = new AtomicLong();
+    private final AtomicLong totalLeaseWaitTime = new AtomicLong();
+    private final AtomicLong maxLeaseWaitTime = new AtomicLong();
+    private volatile long lastResetTime = System.currentTimeMillis();
+
+    private IdleConnectionEvictor evictor;
+    private MBeanServer mbs;
+    private ObjectName mbeanName;
+
+    public MonitoredConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry) {
+        super(socketFactoryRegistry);
+        setMaxTotal(HTTPTransportConstants.DEFAULT_MAX_TOTAL_CONNECTIONS);
+        setDefaultMaxPerRoute(HTTPTransportConstants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    /**
+     * Apply the pool settings of the given transport sender.
+     *
+     * @param transportOut the transport sender description; may be null
+     * @throws AxisFault if a parameter is invalid
+     */
+    public void configure(TransportOutDescription transportOut) throws AxisFault {
+        if (transportOut == null) {
+            return;
+        }
+        int maxTotal = getIntParameter(transportOut, HTTPTransportConstants.MAX_TOTAL_CONNECTIONS);
+        if (maxTotal > 0) {
+            setMaxTotal(maxTotal);
+        }
+        int maxPerRoute = getIntParameter(transportOut,
+                HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE);
+        if (maxPerRoute > 0) {
+            setDefaultMaxPerRoute(maxPerRoute);
+        }
+        Parameter maxPerHost = transportOut.getParameter(
+                HTTPTransportConstants.MAX_CONNECTIONS_PER_HOST);
+        if (maxPerHost != null) {
+            setMaxPerHost(((String) maxPerHost.getValue()).trim());
+        }
+        int validateAfterInactivity = getIntParameter(transportOut,
+                HTTPTransportConstants.VALIDATE_AFTER_INACTIVITY);
+        if (validateAfterInactivity >= 0) {
+            setValidateAfterInactivity(validateAfterInactivity);
+        }
+        int idleTimeout = getIntParameter(transportOut,
+                HTTPTransportConstants.IDLE_CONNECTION_TIMEOUT);
+        if (idleTimeout > 0 && evictor == null) {
+            // Check a few times per timeout period, so that idle connections are closed in time
+            evictor = new IdleConnectionEvictor(this, Math.max(idleTimeout / 4, 1000),
+                    TimeUnit.MILLISECONDS, idleTimeout, TimeUnit.MILLISECONDS);
+            evictor.start();
+        }
+    }
+
+    private static int getIntParameter(TransportOutDescription transportOut, String name)
+            throws AxisFault {
+        Parameter param = transportOut.getParameter(name);
+        if (param == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(((String) param.getValue()).trim());
+        } catch (NumberFormatException ex) {
+            throw new AxisFault("Parameter " + name + " must be a number");
+        }
+    }
+
+    /**
+     * Set the per route limits for a list of hosts. The list contains comma separated
+     * <tt>[scheme://]host[:port]=max</tt> entries; without a scheme the limit applies to both
+     * HTTP and HTTPS.
+     *
+     * @param spec the list of host limits
+     * @throws AxisFault if the list can't be parsed
+     */
+    public void setMaxPerHost(String spec) throws AxisFault {
+        StringTokenizer tokenizer = new StringTokenizer(spec, ",");
+        while (tokenizer.hasMoreTokens()) {
+            String entry = tokenizer.nextToken().trim();
+            if (entry.length() == 0) {
+                continue;
+            }
+            int idx = entry.lastIndexOf('=');
+            if (idx <= 0) {
+                throw new AxisFault("Invalid " + HTTPTransportConstants.MAX_CONNECTIONS_PER_HOST
+                        + " entry '" + entry + "'");
+            }
+            String host = entry.substring(0, idx).trim();
+            int max;
+            try {
+                max = Integer.parseInt(entry.substring(idx + 1).trim());
+            } catch (NumberFormatException ex) {
+                throw new AxisFault("Invalid " + HTTPTransportConstants.MAX_CONNECTIONS_PER_HOST
+                        + " entry '" + entry + "'");
+            }
+            String[] schemes;
+            int schemeIdx = host.indexOf("://");
+            if (schemeIdx > 0) {
+                schemes = new String[] { host.substring(0, schemeIdx) };
+                host = host.substring(schemeIdx + 3);
+            } else {
+                schemes = new String[] { HTTPTransportConstants.PROTOCOL_HTTP,
+                        HTTPTransportConstants.PROTOCOL_HTTPS };
+            }
+            int port = -1;
+            int portIdx = host.lastIndexOf(':');
+            if (portIdx > 0) {
+                try {
+                    port = Integer.parseInt(host.substring(portIdx + 1));
+                } catch (NumberFormatException ex) {
+                    throw new AxisFault("Invalid " + HTTPTransportConstants.MAX_CONNECTIONS_PER_HOST
+                            + " entry '" + entry + "'");
+                }
+                host = host.substring(0, portIdx);
+            }
+            for (String scheme : schemes) {
+                setMaxPerRoute(getRoute(scheme, host, port), max);
+            }
+        }
+    }
+
+    /**
+     * Set the limit for the direct route to the given URL, unless it is already in effect.
+     *
+     * @param url the target URL
+     * @param max the maximum number of connections
+     */
+    public void setMaxPerRoute(URL url, int max) {
+        HttpRoute route = getRoute(url.getProtocol(), url.getHost(), url.getPort());
+        if (getMaxPerRoute(route) != max) {
+            setMaxPerRoute(route, max);
+        }
+    }
+
+    /**
+     * Build the direct route HttpClient uses for the given target.
+     */
+    static HttpRoute getRoute(String scheme, String host, int port) {
+        if (port == -1) {
+            if (HTTPTransportConstants.PROTOCOL_HTTP.equalsIgnoreCase(scheme)) {
+                port = 80;
+            } else if (HTTPTransportConstants.PROTOCOL_HTTPS.equalsIgnoreCase(scheme)) {
+                port = 443;
+            }
+        }
+        return new HttpRoute(new HttpHost(host, port, scheme), null,
+                HTTPTransportConstants.PROTOCOL_HTTPS.equalsIgnoreCase(scheme));
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit tunit)
+                    throws InterruptedException, ExecutionException,
+                    ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, tunit);
+                } catch (ConnectionPoolTimeoutException ex) {
+                    leaseTimeoutCount.incrementAndGet();
+                    throw ex;
+                } finally {
+                    recordLease(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    private void recordLease(long waitTime) {
+        leaseCount.incrementAndGet();
+        totalLeaseWaitTime.addAndGet(waitTime);
+        long max;
+        while (waitTime > (max = maxLeaseWaitTime.get())) {
+            if (maxLeaseWaitTime.compareAndSet(max, waitTime)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the number of connection requests since the last reset
+     */
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * @return the number of connection requests that timed out since the last reset
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.get();
+    }
+
+    /**
+     * @return the average time, in milliseconds, a request waited for a connection
+     */
+    public double getAverageLeaseWaitTime() {
+        long count = leaseCount.get();
+        return count == 0 ? 0 : totalLeaseWaitTime.get() / (count * 1000000.0);
+    }
+
+    /**
+     * @return the longest time, in milliseconds, a request waited for a connection
+     */
+    public double getMaxLeaseWaitTime() {
+        return maxLeaseWaitTime.get() / 1000000.0;
+    }
+
+    public long getLastResetTime() {
+        return lastResetTime;
+    }
+
+    public void resetStatistics() {
+        leaseCount.set(0);
+        leaseTimeoutCount.set(0);
+        totalLeaseWaitTime.set(0);
+        maxLeaseWaitTime.set(0);
+        lastResetTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @return one line of statistics per route currently known to the pool
+     */
+    public String[] getRouteStatistics() {
+        Set<HttpRoute> routes = getRoutes();
+        List<String> result = new ArrayList<String>(routes.size());
+        for (HttpRoute route : routes) {
+            PoolStats stats = getStats(route);
+            result.add(route + " leased=" + stats.getLeased() + " pending=" + stats.getPending()
+                    + " available=" + stats.getAvailable() + " max=" + stats.getMax());
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Register the {@link ConnectionPoolViewMBean} of this manager. A failure to register the
+     * MBean is logged but doesn't prevent the pool from being used.
+     *
+     * @param name the name distinguishing this pool
+     */
+    public synchronized void registerMBean(String name) {
+        if (mbeanName != null) {
+            return;
+        }
+        String jmxAgentName = System.getProperty("jmx.agent.name");
+        if (jmxAgentName == null || "".equals(jmxAgentName)) {
+            jmxAgentName = "org.apache.axis2";
+        }
+        String mbeanNameString = jmxAgentName + ":Type=ConnectionPool,Name=" + name;
+        try {
+            mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = ObjectName.getInstance(mbeanNameString);
+            mbs.registerMBean(new ConnectionPoolView(this), objectName);
+            mbeanName = objectName;
+        } catch (Exception e) {
+            log.warn("Error registering a MBean with objectname ' " + mbeanNameString +
+                    " ' for JMX management", e);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (evictor != null) {
+                evictor.shutdown();
+                evictor = null;
+            }
+            if (mbeanName != null) {
+                try {
+                    mbs.unregisterMBean(mbeanName);
+                } catch (Exception e) {
+                    log.warn("Error un-registering a MBean with objectname ' " + mbeanName +
+                            " ' for JMX management", e);
+                }
+                mbeanName = null;
+            }
+        }
+        super.shutdown();
+    }
+}
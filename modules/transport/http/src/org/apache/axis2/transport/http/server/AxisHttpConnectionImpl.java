@@ -38,11 +38,14 @@ import org.apache.http.impl.io.ChunkedOutputStream;
 import org.apache.http.impl.io.ContentLengthInputStream;
 import org.apache.http.impl.io.ContentLengthOutputStream;
 import org.apache.http.impl.io.HttpRequestParser;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.io.HttpResponseWriter;
 import org.apache.http.impl.io.IdentityInputStream;
 import org.apache.http.impl.io.IdentityOutputStream;
+import org.apache.http.impl.io.SessionInputBufferImpl;
 import org.apache.http.impl.io.SocketInputBuffer;
 import org.apache.http.impl.io.SocketOutputBuffer;
+import org.apache.http.io.BufferInfo;
 import org.apache.http.io.HttpMessageParser;
 import org.apache.http.io.HttpMessageWriter;
 import org.apache.http.io.SessionInputBuffer;
@@ -50,9 +53,11 @@ import org.apache.http.io.SessionOutputBuffer;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketException;
@@ -69,11 +74,27 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
     private final HttpMessageWriter responseWriter;
     private final ContentLengthStrategy contentLenStrategy;
 
+    private final ByteArrayInputStream head;
+
     private OutputStream out = null;
     private InputStream in = null;
     
     public AxisHttpConnectionImpl(final Socket socket, final HttpParams params) 
             throws IOException {
+        this(socket, null, params);
+    }
+
+    /**
+     * Create a connection for a socket from which the head of the next request has
+     * already been read, e.g. by a {@link SelectingConnectionListener}.
+     *
+     * @param socket the socket, in blocking mode
+     * @param head the bytes already read from the socket, or <code>null</code>
+     * @param params the HTTP parameters
+     * @throws IOException if the socket can't be configured
+     */
+    public AxisHttpConnectionImpl(final Socket socket, final byte[] head,
+            final HttpParams params) throws IOException {
         super();
         if (socket == null) {
             throw new IllegalArgumentException("Socket may not be null"); 
@@ -92,7 +113,16 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         int buffersize = HttpConnectionParams.getSocketBufferSize(params);
         this.socket = socket;
         this.outbuffer = new SocketOutputBuffer(socket, buffersize, params); 
-        this.inbuffer = new SocketInputBuffer(socket, buffersize, params); 
+        if (head == null) {
+            this.head = null;
+            this.inbuffer = new SocketInputBuffer(socket, buffersize, params); 
+        } else {
+            this.head = new ByteArrayInputStream(head);
+            SessionInputBufferImpl buffer = new SessionInputBufferImpl(
+                    new HttpTransportMetricsImpl(), buffersize);
+            buffer.bind(new SequenceInputStream(this.head, socket.getInputStream()));
+            this.inbuffer = buffer;
+        }
         this.contentLenStrategy = new StrictContentLengthStrategy();
         this.requestParser = new HttpRequestParser(
                 this.inbuffer, null, new DefaultHttpRequestFactory(), params);
@@ -126,6 +156,26 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         }
     }
 
+    /**
+     * Check whether bytes of a further request have already been read from the socket,
+     * i.e. whether the next request can be received without waiting for the network.
+     *
+     * @return <code>true</code> if there is buffered input
+     */
+    public boolean hasBufferedData() {
+        if (this.head != null && this.head.available() > 0) {
+            return true;
+        }
+        return this.inbuffer instanceof BufferInfo && ((BufferInfo) this.inbuffer).length() > 0;
+    }
+
+    /**
+     * @return the underlying socket
+     */
+    protected Socket getSocket() {
+        return this.socket;
+    }
+
     public void shutdown() throws IOException {
         Socket tmpsocket = this.socket;
         if (tmpsocket != null) {
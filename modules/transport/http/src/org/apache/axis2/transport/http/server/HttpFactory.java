@@ -26,6 +26,7 @@ import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.engine.ListenerManager;
 import org.apache.axis2.transport.http.HTTPWorkerFactory;
+import org.apache.axis2.util.threadpool.ExecutorProvider;
 import org.apache.http.ConnectionReuseStrategy;
 import org.apache.http.HttpResponseFactory;
 import org.apache.http.impl.DefaultConnectionReuseStrategy;
@@ -100,6 +101,16 @@ public class HttpFactory {
      */
     public static final String PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT = "threadKeepAliveTimeUnit";
 
+    /**
+     * Name of axis2.xml nonBlockingListener parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_NON_BLOCKING_LISTENER = "nonBlockingListener";
+
+    /**
+     * Name of axis2.xml selectorThreadCount parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_SELECTOR_THREAD_COUNT = "selectorThreadCount";
+
     private ConfigurationContext configurationContext;
     private TransportInDescription httpConfiguration;
     private int port;
@@ -111,6 +122,8 @@ public class HttpFactory {
     private int requestMaxThreadPoolSize;
     private long threadKeepAliveTime;
     private TimeUnit threadKeepAliveTimeUnit;
+    private boolean nonBlockingListener;
+    private int selectorThreadCount;
 
     private WorkerFactory requestWorkerFactory = null;
 
@@ -130,6 +143,8 @@ public class HttpFactory {
         threadKeepAliveTime = getLongParam(PARAMETER_THREAD_KEEP_ALIVE_TIME, 180L);
         threadKeepAliveTimeUnit =
                 getTimeUnitParam(PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT, TimeUnit.SECONDS);
+        nonBlockingListener = getBooleanParam(PARAMETER_NON_BLOCKING_LISTENER, false);
+        selectorThreadCount = getIntParam(PARAMETER_SELECTOR_THREAD_COUNT, 2);
     }
 
     /**
@@ -236,6 +251,14 @@ public class HttpFactory {
             int port,
             final HttpConnectionManager manager, 
             final HttpParams params) throws IOException {
+        if (nonBlockingListener) {
+            return new SelectingConnectionListener(
+                    port,
+                    manager,
+                    new DefaultConnectionListenerFailureHandler(),
+                    params,
+                    selectorThreadCount);
+        }
         return new DefaultConnectionListener(
                 port, 
                 manager, 
@@ -272,6 +295,12 @@ public class HttpFactory {
      * Create the executor use the manage request processing threads
      */
     public ExecutorService newRequestExecutor(int port) {
+        ExecutorProvider executorProvider = configurationContext.getExecutorProvider();
+        if (executorProvider != null) {
+            return executorProvider.createExecutor("HttpConnection-" + port,
+                    requestCoreThreadPoolSize, requestMaxThreadPoolSize,
+                    threadKeepAliveTime, threadKeepAliveTimeUnit);
+        }
         return new ThreadPoolExecutor(requestCoreThreadPoolSize, requestMaxThreadPoolSize,
                                       threadKeepAliveTime, threadKeepAliveTimeUnit,
                                       newRequestBlockingQueue(),
@@ -466,6 +495,39 @@ public class HttpFactory {
         this.threadKeepAliveTime = threadKeepAliveTime;
     }
 
+    /**
+     * Getter for nonBlockingListener
+     *
+     * @return true if idle connections are watched by selector threads instead of blocking a
+     *         request processing thread each (default false)
+     */
+    public boolean isNonBlockingListener() {
+        return nonBlockingListener;
+    }
+
+    /**
+     * Setter for nonBlockingListener
+     */
+    public void setNonBlockingListener(boolean nonBlockingListener) {
+        this.nonBlockingListener = nonBlockingListener;
+    }
+
+    /**
+     * Getter for selectorThreadCount
+     *
+     * @return the number of selector threads used when nonBlockingListener is set (default 2)
+     */
+    public int getSelectorThreadCount() {
+        return selectorThreadCount;
+    }
+
+    /**
+     * Setter for selectorThreadCount
+     */
+    public void setSelectorThreadCount(int selectorThreadCount) {
+        this.selectorThreadCount = selectorThreadCount;
+    }
+
     /**
      * Getter for threadKeepAliveTimeUnit
      * return the time unit for threadKeepAliveTime (default SECONDS)
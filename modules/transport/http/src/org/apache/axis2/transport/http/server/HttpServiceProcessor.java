@@ -77,9 +77,16 @@ public class HttpServiceProcessor implements IOProcessor {
     public void run() {
         LOG.debug("New connection thread");
         HttpContext context = new BasicHttpContext(null);
+        boolean released = false;
         try {
             while (! Thread.interrupted() && ! isDestroyed() && this.conn.isOpen()) {
                 this.httpservice.handleRequest(this.conn, context);
+                // Don't block on an idle keep-alive connection if its listener can watch it
+                if (this.conn instanceof ReleasableHttpConnection && this.conn.isOpen()
+                        && ((ReleasableHttpConnection) this.conn).release()) {
+                    released = true;
+                    break;
+                }
             }
         } catch (ConnectionClosedException ex) {
             LOG.debug("Client closed connection");
@@ -96,7 +103,13 @@ public class HttpServiceProcessor implements IOProcessor {
                 LOG.warn("HTTP protocol error: " + ex.getMessage());
             }
         } finally {
-            destroy();
+            if (released) {
+                // The connection now belongs to the listener again; just mark this
+                // processor as done
+                this.terminated.set(true);
+            } else {
+                destroy();
+            }
             if (this.callback == null) {
                 throw new NullPointerException("The callback object can't be null");
             }
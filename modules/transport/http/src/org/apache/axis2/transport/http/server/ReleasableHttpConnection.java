@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+/**
+ * An {@link AxisHttpConnection} that can be handed back to the listener that accepted it
+ * while it is idle between two requests, so that no processing thread has to stay blocked
+ * on a keep-alive connection.
+ */
+public interface ReleasableHttpConnection extends AxisHttpConnection {
+
+    /**
+     * Hand the connection back to its listener, unless the next request has already been
+     * (partly) read, in which case it should be processed right away.
+     *
+     * @return <code>true</code> if the connection was handed back and must no longer be used
+     *         by the caller
+     */
+    boolean release();
+
+}
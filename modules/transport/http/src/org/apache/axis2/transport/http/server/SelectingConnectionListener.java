@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Connection listener that keeps idle connections on a small number of selector threads
+ * instead of blocking a request processing thread on each of them.
+ * <p>
+ * Accepted connections are registered with one of the selectors. As soon as the complete
+ * head of a request has been read from a connection, the connection is switched to
+ * blocking mode and handed to the {@link HttpConnectionManager}, which processes the
+ * request as usual. When the response has been sent and the connection is kept alive,
+ * it is given back to its selector (see {@link ReleasableHttpConnection}). Connections
+ * that stay idle for longer than the socket timeout are closed.
+ */
+public class SelectingConnectionListener implements ConnectionListener {
+
+    private static Log LOG = LogFactory.getLog(SelectingConnectionListener.class);
+
+    /** Initial size of the buffer used to read a request head */
+    private static final int INITIAL_HEAD_BUFFER_SIZE = 1024;
+
+    /** Maximum size of a request head */
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    /** Interval at which the selectors look for idle connections */
+    private static final long SELECT_TIMEOUT = 1000; // ms
+
+    private volatile boolean destroyed = false;
+
+    private final int port;
+    private final HttpConnectionManager connmanager;
+    private final ConnectionListenerFailureHandler failureHandler;
+    private final HttpParams params;
+    private final int selectorCount;
+
+    private ServerSocketChannel serverChannel = null;
+    private SelectorLoop[] selectorLoops = null;
+    private int nextSelectorLoop = 0;
+
+    public SelectingConnectionListener(
+            int port,
+            final HttpConnectionManager connmanager,
+            final ConnectionListenerFailureHandler failureHandler,
+            final HttpParams params,
+            int selectorCount) throws IOException {
+        super();
+        if (connmanager == null) {
+            throw new IllegalArgumentException("Connection manager may not be null");
+        }
+        if (failureHandler == null) {
+            throw new IllegalArgumentException("Failure handler may not be null");
+        }
+        if (params == null) {
+            throw new IllegalArgumentException("HTTP parameters may not be null");
+        }
+        if (selectorCount < 1) {
+            throw new IllegalArgumentException("At least one selector thread is required");
+        }
+        this.port = port;
+        this.connmanager = connmanager;
+        this.failureHandler = failureHandler;
+        this.params = params;
+        this.selectorCount = selectorCount;
+    }
+
+    public void run() {
+        try {
+            while (!Thread.interrupted()) {
+                try {
+                    if (serverChannel == null || !serverChannel.isOpen()) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info("Listening on port " + port + " with " + selectorCount +
+                                    " selector thread(s)");
+                        }
+                        synchronized (this) {
+                            if (selectorLoops == null) {
+                                startSelectorLoops();
+                            }
+                            serverChannel = ServerSocketChannel.open();
+                            serverChannel.socket().setReuseAddress(true);
+                            serverChannel.socket().bind(new InetSocketAddress(port));
+                            notifyAll();
+                        }
+                    }
+                    LOG.debug("Waiting for incoming HTTP connection");
+                    SocketChannel channel = this.serverChannel.accept();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Incoming HTTP connection from " +
+                                channel.socket().getRemoteSocketAddress());
+                    }
+                    channel.configureBlocking(false);
+                    selectorLoops[nextSelectorLoop++ % selectorLoops.length].register(channel);
+                } catch (ClosedByInterruptException ie) {
+                    break;
+                } catch (java.io.InterruptedIOException ie) {
+                    break;
+                } catch (Throwable ex) {
+                    if (Thread.interrupted() || destroyed) {
+                        break;
+                    }
+                    if (!failureHandler.failed(this, ex)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            destroy();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void startSelectorLoops() throws IOException {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(
+                new ThreadGroup("Selector thread group"), "HttpSelector-" + port);
+        SelectorLoop[] loops = new SelectorLoop[selectorCount];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new SelectorLoop(Selector.open());
+            threadFactory.newThread(loops[i]).start();
+        }
+        selectorLoops = loops;
+    }
+
+    /**
+     * Switch a connection for which a complete request head has been read to blocking mode
+     * and hand it to the connection manager.
+     */
+    private void dispatch(SocketChannel channel, RequestHead head, SelectorLoop loop) {
+        SelectedConnection conn;
+        try {
+            channel.configureBlocking(true);
+            conn = new SelectedConnection(channel, head.toByteArray(), this.params, loop);
+        } catch (IOException ex) {
+            LOG.debug("I/O error preparing connection: " + ex.getMessage());
+            closeQuietly(channel);
+            return;
+        }
+        try {
+            this.connmanager.process(conn);
+        } catch (RejectedExecutionException e) {
+            try {
+                conn.sendResponse(new DefaultHttpResponseFactory().newHttpResponse(
+                        HttpVersion.HTTP_1_0, HttpStatus.SC_SERVICE_UNAVAILABLE,
+                        new BasicHttpContext(null)));
+                conn.close();
+            } catch (Exception ex) {
+                LOG.debug("Error rejecting connection: " + ex.getMessage());
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            LOG.debug("I/O error closing connection: " + ex.getMessage());
+        }
+    }
+
+    public synchronized void awaitSocketOpen() throws InterruptedException {
+        while (serverChannel == null && !destroyed) {
+            wait();
+        }
+    }
+
+    public synchronized int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public synchronized void close() throws IOException {
+        if (this.serverChannel != null) {
+            this.serverChannel.close();
+            this.serverChannel = null;
+        }
+    }
+
+    public synchronized void destroy() {
+        this.destroyed = true;
+        try {
+            close();
+        } catch (IOException ex) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("I/O error closing listener", ex);
+            }
+        }
+        if (selectorLoops != null) {
+            for (int i = 0; i < selectorLoops.length; i++) {
+                selectorLoops[i].wakeup();
+            }
+        }
+    }
+
+    public synchronized boolean isDestroyed() {
+        return this.destroyed;
+    }
+
+    /**
+     * The bytes read so far from an idle connection.
+     */
+    private static class RequestHead {
+        private ByteBuffer buffer;
+        private int scanned;
+        private long lastActivity = System.currentTimeMillis();
+
+        /**
+         * Read the available bytes from the channel.
+         *
+         * @return false if the connection has been closed by the peer
+         */
+        boolean read(SocketChannel channel) throws IOException {
+            if (buffer == null) {
+                // Only allocated once data arrives, so idle connections don't hold a buffer
+                buffer = ByteBuffer.allocate(INITIAL_HEAD_BUFFER_SIZE);
+            } else if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            lastActivity = System.currentTimeMillis();
+            return channel.read(buffer) >= 0;
+        }
+
+        /**
+         * @return true if the buffer contains the empty line terminating a request head
+         */
+        boolean isComplete() {
+            int limit = buffer.position();
+            for (int i = Math.max(scanned, 1); i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    if (buffer.get(i - 1) == '\n'
+                            || (i >= 3 && buffer.get(i - 1) == '\r' && buffer.get(i - 2) == '\n')) {
+                        return true;
+                    }
+                }
+            }
+            scanned = limit;
+            return false;
+        }
+
+        boolean isFull() {
+            return !buffer.hasRemaining() && buffer.capacity() >= MAX_HEAD_SIZE;
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * A selector thread watching idle connections.
+     */
+    private class SelectorLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<SocketChannel>();
+
+        SelectorLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Add a connection, which must be in non-blocking mode, to this selector. May be
+         * called from any thread.
+         */
+        void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+        void wakeup() {
+            selector.wakeup();
+        }
+
+        public void run() {
+            List<SelectionKey> ready = new ArrayList<SelectionKey>();
+            long lastSweep = System.currentTimeMillis();
+            try {
+                while (!destroyed) {
+                    selector.select(SELECT_TIMEOUT);
+                    registerPending();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (key.isValid() && key.isReadable() && readHead(key)) {
+                            key.cancel();
+                            ready.add(key);
+                        }
+                    }
+
+                    if (!ready.isEmpty()) {
+                        // Deregister the cancelled keys, otherwise the channels can't be
+                        // switched back to blocking mode
+                        selector.selectNow();
+                        for (SelectionKey key : ready) {
+                            dispatch((SocketChannel) key.channel(),
+                                    (RequestHead) key.attachment(), this);
+                        }
+                        ready.clear();
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (now - lastSweep >= SELECT_TIMEOUT) {
+                        closeIdleConnections(now);
+                        lastSweep = now;
+                    }
+                }
+            } catch (ClosedSelectorException ex) {
+                // Shutting down
+            } catch (IOException ex) {
+                if (!destroyed) {
+                    LOG.error("I/O error in selector loop", ex);
+                }
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = registrations.poll()) != null) {
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new RequestHead());
+                } catch (ClosedChannelException ex) {
+                    // Closed in the meantime
+                }
+            }
+        }
+
+        /**
+         * @return true if the complete request head has been read
+         */
+        private boolean readHead(SelectionKey key) {
+            SocketChannel channel = (SocketChannel) key.channel();
+            RequestHead head = (RequestHead) key.attachment();
+            try {
+                if (!head.read(channel)) {
+                    LOG.debug("Client closed connection");
+                    key.cancel();
+                    closeQuietly(channel);
+                    return false;
+                }
+            } catch (IOException ex) {
+                LOG.debug(ex.getMessage());
+                key.cancel();
+                closeQuietly(channel);
+                return false;
+            }
+            if (head.isComplete()) {
+                return true;
+            }
+            if (head.isFull()) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Request head from " + channel.socket().getRemoteSocketAddress() +
+                            " exceeds " + MAX_HEAD_SIZE + " bytes; closing connection");
+                }
+                key.cancel();
+                closeQuietly(channel);
+            }
+            return false;
+        }
+
+        private void closeIdleConnections(long now) {
+            int timeout = HttpConnectionParams.getSoTimeout(params);
+            if (timeout <= 0) {
+                return;
+            }
+            for (SelectionKey key : selector.keys()) {
+                RequestHead head = (RequestHead) key.attachment();
+                if (key.isValid() && now - head.lastActivity > timeout) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Closing idle connection from " +
+                                ((SocketChannel) key.channel()).socket().getRemoteSocketAddress());
+                    }
+                    key.cancel();
+                    closeQuietly((SocketChannel) key.channel());
+                }
+            }
+        }
+
+        private void closeAll() {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly((SocketChannel) key.channel());
+                }
+            } catch (ClosedSelectorException ex) {
+                // Nothing left to close
+            }
+            SocketChannel channel;
+            while ((channel = registrations.poll()) != null) {
+                closeQuietly(channel);
+            }
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                LOG.debug("I/O error closing selector: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A connection that is given back to its selector when it becomes idle.
+     */
+    private class SelectedConnection extends AxisHttpConnectionImpl
+            implements ReleasableHttpConnection {
+        private final SocketChannel channel;
+        private final SelectorLoop loop;
+
+        SelectedConnection(SocketChannel channel, byte[] head, HttpParams params,
+                SelectorLoop loop) throws IOException {
+            super(channel.socket(), head, params);
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        public boolean release() {
+            if (destroyed || !isOpen() || hasBufferedData()) {
+                return false;
+            }
+            try {
+                channel.configureBlocking(false);
+            } catch (IOException ex) {
+                LOG.debug("Unable to release connection: " + ex.getMessage());
+                return false;
+            }
+            loop.register(channel);
+            return true;
+        }
+    }
+
+}
@@ -98,7 +98,7 @@ public class SimpleHttpServer {
     }
 
     public void start() {
-        DefaultConnectionListener listener = (DefaultConnectionListener)this.listener;
+        ConnectionListener listener = (ConnectionListener)this.listener;
         this.listenerExecutor.execute(listener);
         try {
             listener.awaitSocketOpen();
@@ -20,10 +20,17 @@
 package org.apache.axis2.transport.http;
 
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.transport.TransportSender;
 import org.apache.axis2.transport.http.impl.httpclient4.HTTPClient4TransportSender;
+import org.apache.axis2.transport.http.impl.httpclient4.MonitoredConnectionManager;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 
 
 public class HTTPClient4TransportSenderTest extends CommonsHTTPTransportSenderTest{
@@ -43,4 +50,27 @@ public class HTTPClient4TransportSenderTest extends CommonsHTTPTransportSenderTe
         sender.cleanup(msgContext);
         assertNull("HttpMethod should be null", msgContext.getProperty(HTTPConstants.HTTP_METHOD));
     }
+
+    public void testSharedConnectionManagerClosedByLastSender() throws Exception {
+        ConfigurationContext configContext =
+                ConfigurationContextFactory.createEmptyConfigurationContext();
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        TransportSender sender1 = getTransportSender();
+        TransportSender sender2 = getTransportSender();
+        sender1.init(configContext, transportOut);
+        sender2.init(configContext, transportOut);
+        MonitoredConnectionManager connManager = new MonitoredConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .build());
+        configContext.setProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER, connManager);
+
+        sender1.stop();
+        // Stopping a sender twice doesn't release the manager for the other one
+        sender1.stop();
+        assertSame(connManager,
+                configContext.getProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER));
+        sender2.stop();
+        assertNull(configContext.getProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER));
+    }
 }
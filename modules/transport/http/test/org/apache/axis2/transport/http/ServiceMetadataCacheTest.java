@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import junit.framework.TestCase;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.AxisEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+public class ServiceMetadataCacheTest extends TestCase {
+
+    private ServiceMetadataCache cache;
+    private AxisService service;
+
+    protected void setUp() throws Exception {
+        cache = new ServiceMetadataCache();
+        service = new AxisService("test_service");
+        AxisConfiguration axisConfiguration = new AxisConfiguration();
+        axisConfiguration.addService(service);
+    }
+
+    private ServiceMetadataCache.Document createDocument(String content) throws Exception {
+        return new ServiceMetadataCache.Document(content.getBytes("UTF-8"));
+    }
+
+    public void testDocumentCachedPerKey() throws Exception {
+        ServiceMetadataCache.Document document = createDocument("<definitions/>");
+        cache.putDocument(service, "wsdl:null@localhost", document);
+        assertSame(document, cache.getDocument(service, "wsdl:null@localhost"));
+        assertNull(cache.getDocument(service, "wsdl:null@example.org"));
+    }
+
+    public void testRedeployedServiceNotServedFromCache() throws Exception {
+        cache.putDocument(service, "wsdl:null@localhost", createDocument("<definitions/>"));
+        AxisService redeployed = new AxisService("test_service");
+        assertNull(cache.getDocument(redeployed, "wsdl:null@localhost"));
+    }
+
+    public void testPolicyChangeInvalidates() throws Exception {
+        service.getPolicySubject().setLastUpdatedTime(new Date(1000));
+        cache.putDocument(service, "wsdl:null@localhost", createDocument("<definitions/>"));
+        assertNotNull(cache.getDocument(service, "wsdl:null@localhost"));
+
+        service.getPolicySubject().setLastUpdatedTime(new Date(2000));
+        assertNull(cache.getDocument(service, "wsdl:null@localhost"));
+    }
+
+    public void testServiceEventsInvalidate() throws Exception {
+        cache.putDocument(service, "xsd:null", createDocument("<schema/>"));
+        cache.serviceUpdate(new AxisEvent(AxisEvent.SERVICE_STOP, service), service);
+        assertNotNull(cache.getDocument(service, "xsd:null"));
+        cache.serviceUpdate(new AxisEvent(AxisEvent.SERVICE_REMOVE, service), service);
+        assertNull(cache.getDocument(service, "xsd:null"));
+
+        cache.putDocument(service, "xsd:null", createDocument("<schema/>"));
+        AxisServiceGroup group = service.getAxisServiceGroup();
+        cache.serviceGroupUpdate(new AxisEvent(AxisEvent.SERVICE_DEPLOY, group), group);
+        assertNull(cache.getDocument(service, "xsd:null"));
+
+        cache.putDocument(service, "xsd:null", createDocument("<schema/>"));
+        cache.moduleUpdate(new AxisEvent(AxisEvent.MODULE_ENGAGED, service), null);
+        assertNull(cache.getDocument(service, "xsd:null"));
+    }
+
+    public void testNumberOfDocumentsBounded() throws Exception {
+        for (int i = 0; i < ServiceMetadataCache.MAX_DOCUMENTS_PER_SERVICE; i++) {
+            cache.putDocument(service, "wsdl:null@host" + i, createDocument("<definitions/>"));
+        }
+        assertNotNull(cache.getDocument(service, "wsdl:null@host0"));
+        cache.putDocument(service, "wsdl:null@other", createDocument("<definitions/>"));
+        assertNull(cache.getDocument(service, "wsdl:null@host0"));
+        assertNotNull(cache.getDocument(service, "wsdl:null@other"));
+    }
+
+    public void testETag() throws Exception {
+        ServiceMetadataCache.Document document = createDocument("<definitions/>");
+        String etag = document.getETag();
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(34, etag.length());
+        assertEquals(etag, createDocument("<definitions/>").getETag());
+        assertFalse(etag.equals(createDocument("<definitions></definitions>").getETag()));
+
+        assertTrue(ServiceMetadataCache.matches(etag, document));
+        assertTrue(ServiceMetadataCache.matches("\"x\", W/" + etag, document));
+        assertTrue(ServiceMetadataCache.matches(document.getCompressedETag(), document));
+        assertTrue(ServiceMetadataCache.matches("*", document));
+        assertFalse(ServiceMetadataCache.matches("\"x\"", document));
+        assertFalse(ServiceMetadataCache.matches(null, document));
+    }
+
+    public void testCompressed() throws Exception {
+        ServiceMetadataCache.Document document = createDocument("<definitions/>");
+        byte[] compressed = document.getCompressed();
+        assertSame(compressed, document.getCompressed());
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            out.write(b);
+        }
+        assertEquals("<definitions/>", out.toString("UTF-8"));
+    }
+
+    public void testAcceptsGzip() {
+        assertTrue(ServiceMetadataCache.acceptsGzip("gzip"));
+        assertTrue(ServiceMetadataCache.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertFalse(ServiceMetadataCache.acceptsGzip("gzip;q=0"));
+        assertFalse(ServiceMetadataCache.acceptsGzip("deflate"));
+        assertFalse(ServiceMetadataCache.acceptsGzip(null));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient4;
+
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.HTTPTransportConstants;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+
+public class HTTPSenderImplTest extends TestCase {
+    private ConfigurationContext configContext;
+    private MonitoredConnectionManager connManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        connManager = new MonitoredConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .build());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        connManager.shutdown();
+    }
+
+    private MessageContext createMessageContext() {
+        MessageContext msgContext = new MessageContext();
+        msgContext.setConfigurationContext(configContext);
+        msgContext.setProperty(HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE, "4");
+        return msgContext;
+    }
+
+    public void testMaxPerRouteIgnoredForSharedManager() throws Exception {
+        configContext.setProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER, connManager);
+        new HTTPSenderImpl().createRequest(createMessageContext(), "POST",
+                new URL("http://backend/service"), null);
+        assertEquals(HTTPTransportConstants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+                connManager.getMaxPerRoute(
+                        MonitoredConnectionManager.getRoute("http", "backend", 80)));
+    }
+
+    public void testMaxPerRouteAppliedToCallerManager() throws Exception {
+        MessageContext msgContext = createMessageContext();
+        msgContext.setProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER, connManager);
+        new HTTPSenderImpl().createRequest(msgContext, "POST",
+                new URL("http://backend/service"), null);
+        assertEquals(4, connManager.getMaxPerRoute(
+                MonitoredConnectionManager.getRoute("http", "backend", 80)));
+    }
+}
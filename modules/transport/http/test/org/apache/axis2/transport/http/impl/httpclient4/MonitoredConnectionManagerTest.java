@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.http.impl.httpclient4;
+
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.transport.http.HTTPTransportConstants;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+
+public class MonitoredConnectionManagerTest extends TestCase {
+    private MonitoredConnectionManager connManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .build();
+        connManager = new MonitoredConnectionManager(registry);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        connManager.shutdown();
+    }
+
+    public void testDefaults() throws Exception {
+        connManager.configure(new TransportOutDescription("http"));
+        assertEquals(HTTPTransportConstants.DEFAULT_MAX_TOTAL_CONNECTIONS, connManager.getMaxTotal());
+        assertEquals(HTTPTransportConstants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+                connManager.getDefaultMaxPerRoute());
+    }
+
+    public void testConfigure() throws Exception {
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        transportOut.addParameter(new Parameter(HTTPTransportConstants.MAX_TOTAL_CONNECTIONS, "50"));
+        transportOut.addParameter(new Parameter(HTTPTransportConstants.MAX_CONNECTIONS_PER_ROUTE, "10"));
+        transportOut.addParameter(new Parameter(HTTPTransportConstants.MAX_CONNECTIONS_PER_HOST,
+                "backend:8080=3, https://secure=7"));
+        transportOut.addParameter(new Parameter(HTTPTransportConstants.VALIDATE_AFTER_INACTIVITY, "1000"));
+        transportOut.addParameter(new Parameter(HTTPTransportConstants.IDLE_CONNECTION_TIMEOUT, "60000"));
+        connManager.configure(transportOut);
+
+        assertEquals(50, connManager.getMaxTotal());
+        assertEquals(10, connManager.getDefaultMaxPerRoute());
+        assertEquals(1000, connManager.getValidateAfterInactivity());
+        assertEquals(3, connManager.getMaxPerRoute(
+                MonitoredConnectionManager.getRoute("http", "backend", 8080)));
+        assertEquals(3, connManager.getMaxPerRoute(
+                MonitoredConnectionManager.getRoute("https", "backend", 8080)));
+        assertEquals(7, connManager.getMaxPerRoute(
+                MonitoredConnectionManager.getRoute("https", "secure", -1)));
+        assertEquals(10, connManager.getMaxPerRoute(
+                MonitoredConnectionManager.getRoute("http", "secure", -1)));
+    }
+
+    public void testInvalidHostEntry() {
+        try {
+            connManager.setMaxPerHost("backend:8080");
+            fail("Expected AxisFault");
+        } catch (AxisFault ex) {
+            // Expected
+        }
+    }
+
+    public void testSetMaxPerRouteFromURL() throws Exception {
+        connManager.setMaxPerRoute(new URL("http://backend/service"), 4);
+        assertEquals(4, connManager.getMaxPerRoute(
+                MonitoredConnectionManager.getRoute("http", "backend", 80)));
+    }
+
+    public void testStatistics() {
+        assertEquals(0, connManager.getLeaseCount());
+        assertEquals(0.0, connManager.getAverageLeaseWaitTime());
+        assertEquals(0, connManager.getRouteStatistics().length);
+        ConnectionPoolView view = new ConnectionPoolView(connManager);
+        assertEquals(0, view.getLeased());
+        assertEquals(connManager.getMaxTotal(), view.getMaxTotal());
+    }
+}
@@ -26,11 +26,17 @@ import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MessageProducer;
+import javax.jms.Queue;
 import javax.jms.Session;
+import javax.jms.Topic;
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import java.util.Hashtable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Encapsulate a JMS Connection factory definition within an Axis2.xml
@@ -39,7 +45,8 @@ import java.util.Hashtable;
  * level parameters to be defined, and re-used by each service that binds to it
  *
  * When used for sending messages out, the JMSConnectionFactory'ies are able to cache
- * a Connection, Session or Producer
+ * a Connection, Session or Producer, to pool Sessions on the shared Connection, and to
+ * share a reply consumer per reply Destination
  */
 public class JMSConnectionFactory {
 
@@ -64,6 +71,13 @@ public class JMSConnectionFactory {
     private Destination sharedDestination = null;
     /** The shared JMS connection for this JMS connection factory */
     private int cacheLevel = JMSConstants.CACHE_CONNECTION;
+    /** The maximum number of idle pooled Sessions, or 0 if Sessions are not pooled */
+    private int sessionPoolSize = 0;
+    /** The idle pooled Sessions */
+    private BlockingQueue<Session> idleSessions = null;
+    /** The shared reply consumers, by reply Destination name */
+    private final ConcurrentMap<String, JMSReplyListener> replyListeners =
+        new ConcurrentHashMap<String, JMSReplyListener>();
 
     /**
      * Digest a JMS CF definition from an axis2.xml 'Parameter' and construct
@@ -86,6 +100,7 @@ public class JMSConnectionFactory {
         }
 
         digestCacheLevel();
+        digestSessionPoolSize();
         try {
             context = new InitialContext(parameters);
             conFactory = JMSUtils.lookup(context, ConnectionFactory.class,
@@ -129,10 +144,40 @@ public class JMSConnectionFactory {
         }
     }
     
+    /**
+     * Digest the session pool size if specified
+     */
+    private void digestSessionPoolSize() {
+        String val = parameters.get(JMSConstants.PARAM_SESSION_POOL_SIZE);
+        if (val != null) {
+            try {
+                sessionPoolSize = Integer.parseInt(val.trim());
+            } catch (NumberFormatException e) {
+                throw new AxisJMSException("Invalid session pool size : " + val +
+                    " for JMS CF : " + name);
+            }
+            if (sessionPoolSize > 0) {
+                idleSessions = new LinkedBlockingQueue<Session>(sessionPoolSize);
+            }
+        }
+    }
+
     /**
      * Close all connections, sessions etc.. and stop this connection factory
      */
     public synchronized void stop() {
+        for (JMSReplyListener replyListener : replyListeners.values()) {
+            replyListener.close();
+        }
+        replyListeners.clear();
+
+        if (idleSessions != null) {
+            Session session;
+            while ((session = idleSessions.poll()) != null) {
+                closeSession(session);
+            }
+        }
+
         if (sharedConnection != null) {
             try {
             	sharedConnection.close();
@@ -223,6 +268,23 @@ public class JMSConnectionFactory {
         throw new AxisJMSException(msg, e);
     }
 
+    /**
+     * Are Sessions pooled by this JMS CF? See {@link JMSConstants#PARAM_SESSION_POOL_SIZE}
+     * @return true if Sessions obtained from this JMS CF must be released to the pool
+     */
+    public boolean isSessionPooled() {
+        return sessionPoolSize > 0;
+    }
+
+    /**
+     * Should responses be received by a shared reply consumer?
+     * See {@link JMSConstants#PARAM_SHARED_REPLY_CONSUMER}
+     * @return true if a shared reply consumer should be used
+     */
+    public boolean isSharedReplyConsumer() {
+        return Boolean.valueOf(parameters.get(JMSConstants.PARAM_SHARED_REPLY_CONSUMER));
+    }
+
     /**
      * Should the JMS 1.1 API be used? - defaults to yes
      * @return true, if JMS 1.1 api should  be used
@@ -342,7 +404,7 @@ public class JMSConnectionFactory {
      * @return new or shared Connection from this JMS CF
      */
     public Connection getConnection() {
-        if (cacheLevel > JMSConstants.CACHE_NONE) {
+        if (cacheLevel > JMSConstants.CACHE_NONE || sessionPoolSize > 0) {
             return getSharedConnection();
         } else {
             return createConnection();
@@ -355,7 +417,9 @@ public class JMSConnectionFactory {
      * @return new or shared Session from this JMS CF
      */
     public Session getSession(Connection connection) {
-        if (cacheLevel > JMSConstants.CACHE_CONNECTION) {
+        if (sessionPoolSize > 0) {
+            return borrowSession();
+        } else if (cacheLevel > JMSConstants.CACHE_CONNECTION) {
             return getSharedSession();
         } else {
             return createSession((connection == null ? getConnection() : connection));
@@ -371,7 +435,8 @@ public class JMSConnectionFactory {
      */
     public MessageProducer getMessageProducer(
         Connection connection, Session session, Destination destination) {
-        if (cacheLevel > JMSConstants.CACHE_SESSION) {
+        // the shared producer is bound to the shared Session, which is not used when pooling
+        if (cacheLevel > JMSConstants.CACHE_SESSION && sessionPoolSize == 0) {
             return getSharedProducer();
         } else {
             return createProducer((session == null ? getSession(connection) : session), destination);
@@ -419,4 +484,75 @@ public class JMSConnectionFactory {
         }
         return sharedProducer;
     }
+
+    /**
+     * Get an idle pooled Session, or create a new one on the shared Connection
+     * @return a Session to be returned with {@link #releaseSession(Session)}
+     */
+    private Session borrowSession() {
+        Session session = idleSessions.poll();
+        if (session == null) {
+            session = createSession(getSharedConnection());
+        }
+        return session;
+    }
+
+    /**
+     * Return a Session obtained from {@link #getSession(Connection)} to the pool. The Session
+     * is closed if the pool is full
+     * @param session the Session to release
+     */
+    public void releaseSession(Session session) {
+        if (idleSessions == null || !idleSessions.offer(session)) {
+            closeSession(session);
+        }
+    }
+
+    private void closeSession(Session session) {
+        try {
+            session.close();
+        } catch (JMSException e) {
+            log.warn("Error closing pooled JMS Session of connection factory : " + name, e);
+        }
+    }
+
+    /**
+     * Get the shared reply consumer for the given reply Destination, creating it on the shared
+     * Connection if necessary
+     * @param replyDestination the reply Destination
+     * @return the shared reply consumer
+     */
+    public JMSReplyListener getReplyListener(Destination replyDestination) {
+        String key = getDestinationKey(replyDestination);
+        JMSReplyListener replyListener = replyListeners.get(key);
+        if (replyListener == null) {
+            synchronized (this) {
+                replyListener = replyListeners.get(key);
+                if (replyListener == null) {
+                    try {
+                        replyListener = new JMSReplyListener(getSharedConnection(),
+                            replyDestination, isJmsSpec11(), isQueue());
+                    } catch (JMSException e) {
+                        handleException("Error creating a reply consumer on : " +
+                            replyDestination + " for JMS CF : " + name, e);
+                    }
+                    replyListeners.put(key, replyListener);
+                }
+            }
+        }
+        return replyListener;
+    }
+
+    private String getDestinationKey(Destination destination) {
+        try {
+            if (destination instanceof Queue) {
+                return "queue:" + ((Queue) destination).getQueueName();
+            } else if (destination instanceof Topic) {
+                return "topic:" + ((Topic) destination).getTopicName();
+            }
+        } catch (JMSException e) {
+            log.debug("Unable to read the name of destination : " + destination, e);
+        }
+        return destination.toString();
+    }
 }
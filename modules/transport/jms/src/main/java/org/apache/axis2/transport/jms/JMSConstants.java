@@ -92,6 +92,19 @@ public class JMSConstants {
      * also see {@link DESTINATION_TYPE_QUEUE}, {@link DESTINATION_TYPE_TOPIC}
      */
     public static final String PARAM_REPLY_DEST_TYPE = "transport.jms.ReplyDestinationType";
+    /**
+     * The connection factory Parameter name indicating the maximum number of idle Sessions
+     * kept for reuse by senders. If set to a positive number, each send borrows a Session from
+     * the pool of the shared Connection instead of sharing (and locking) a single Session.
+     */
+    public static final String PARAM_SESSION_POOL_SIZE = "transport.jms.SessionPoolSize";
+    /**
+     * The connection factory Parameter name indicating whether responses to requests sent to
+     * the {@link PARAM_REPLY_DESTINATION} should be received by a single long lived consumer
+     * per reply destination, and matched to the waiting requests by JMS correlation ID -
+     * "true" or "false"
+     */
+    public static final String PARAM_SHARED_REPLY_CONSUMER = "transport.jms.SharedReplyConsumer";
     /**
      * The Parameter name of an Axis2 service, indicating the JMS connection
      * factory which should be used to listen for messages for it. This is
@@ -50,6 +50,8 @@ public class JMSMessageSender {
     private boolean jmsSpec11 = true;
     /** Are we sending to a Queue ? */
     private Boolean isQueue = null;
+    /** The JMS CF the Session was borrowed from, if it pools Sessions */
+    private JMSConnectionFactory sessionPool = null;
 
     /**
      * This is a low-end method to support the one-time sends using JMS 1.0.2b
@@ -85,6 +87,9 @@ public class JMSMessageSender {
         this.jmsSpec11   = jmsConnectionFactory.isJmsSpec11();
         this.connection  = jmsConnectionFactory.getConnection();
         this.session     = jmsConnectionFactory.getSession(connection);
+        if (jmsConnectionFactory.isSessionPooled()) {
+            this.sessionPool = jmsConnectionFactory;
+        }
         this.destination =
             jmsConnectionFactory.getSharedDestination() == null ?
                 jmsConnectionFactory.getDestination(JMSUtils.getDestination(targetAddress),
@@ -222,10 +227,11 @@ public class JMSMessageSender {
     }
 
     /**
-     * Close non-shared producer, session and connection if any
+     * Close non-shared producer, session and connection if any, and return a pooled
+     * session to its pool
      */
     public void close() {
-        if (producer != null && cacheLevel < JMSConstants.CACHE_PRODUCER) {
+        if (producer != null && (cacheLevel < JMSConstants.CACHE_PRODUCER || sessionPool != null)) {
             try {
                 producer.close();
             } catch (JMSException e) {
@@ -235,7 +241,11 @@ public class JMSMessageSender {
             }
         }
 
-        if (session != null && cacheLevel < JMSConstants.CACHE_SESSION) {
+        if (session != null && sessionPool != null) {
+            sessionPool.releaseSession(session);
+            session = null;
+
+        } else if (session != null && cacheLevel < JMSConstants.CACHE_SESSION) {
             try {
                 session.close();
             } catch (JMSException e) {
@@ -245,7 +255,7 @@ public class JMSMessageSender {
             }
         }
 
-        if (connection != null && cacheLevel < JMSConstants.CACHE_CONNECTION) {
+        if (connection != null && cacheLevel < JMSConstants.CACHE_CONNECTION && sessionPool == null) {
             try {
                 connection.close();
             } catch (JMSException e) {
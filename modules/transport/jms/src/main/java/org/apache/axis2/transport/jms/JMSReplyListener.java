@@ -0,0 +1,233 @@
+/*
+* Copyright 2004,2005 The Apache Software Foundation.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package org.apache.axis2.transport.jms;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long lived consumer on a reply destination, shared by all the requests sent through a
+ * JMS connection factory that expect their response on that destination. Responses are
+ * delivered asynchronously by the JMS provider and handed to the {@link ReplyHandler}
+ * registered for their JMS correlation ID; responses nobody is waiting for (any more) are
+ * discarded.
+ * <p>
+ * The reply destination may be shared with other nodes, so the consumer only selects the
+ * responses whose correlation ID starts with a prefix unique to this listener. Requests must
+ * therefore carry a correlation ID obtained from {@link #newCorrelationId()}; responses to
+ * any other request are left on the destination for whoever is waiting for them.
+ */
+public class JMSReplyListener implements MessageListener {
+
+    private static final Log log = LogFactory.getLog(JMSReplyListener.class);
+
+    /**
+     * Receives the response to a request, or the notification that it did not arrive in time.
+     * The methods are called on a JMS provider or timer thread, and should hand off any
+     * lengthy processing.
+     */
+    public interface ReplyHandler {
+        void onReply(Message message);
+
+        void onTimeout();
+    }
+
+    private static class PendingReply {
+        final ReplyHandler handler;
+        volatile ScheduledFuture<?> timeoutTask;
+
+        PendingReply(ReplyHandler handler) {
+            this.handler = handler;
+        }
+    }
+
+    private final Destination replyDestination;
+    private final String correlationIdPrefix =
+        "axis2-" + UUID.randomUUID().toString() + "-";
+    private final AtomicLong correlationIdCounter = new AtomicLong();
+    private final ConcurrentMap<String, PendingReply> pendingReplies =
+            new ConcurrentHashMap<String, PendingReply>();
+    private final ScheduledExecutorService timer;
+    private final Session session;
+    private final MessageConsumer consumer;
+
+    /**
+     * Start consuming the reply destination
+     *
+     * @param connection the (shared) Connection to consume from; it is started if necessary
+     * @param replyDestination the reply destination
+     * @param jmsSpec11 true if the JMS 1.1 API should be used
+     * @param isQueue TRUE for a Queue, FALSE for a Topic and NULL for a generic Destination
+     * @throws JMSException if the consumer could not be created
+     */
+    public JMSReplyListener(Connection connection, Destination replyDestination,
+        boolean jmsSpec11, Boolean isQueue) throws JMSException {
+
+        this.replyDestination = replyDestination;
+        this.session = JMSUtils.createSession(
+            connection, false, Session.AUTO_ACKNOWLEDGE, jmsSpec11, isQueue);
+        // The prefix only contains letters, digits and '-', so it needs no escaping
+        this.consumer = JMSUtils.createConsumer(session, replyDestination,
+            "JMSCorrelationID LIKE '" + correlationIdPrefix + "%'");
+        consumer.setMessageListener(this);
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "JMSReplyListener-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+
+        connection.start();  // multiple calls are safely ignored
+        if (log.isDebugEnabled()) {
+            log.debug("Started shared reply consumer on destination : " + replyDestination);
+        }
+    }
+
+    /**
+     * @return a new JMS correlation ID for a request whose response is to be received by this
+     *         listener
+     */
+    public String newCorrelationId() {
+        return correlationIdPrefix + correlationIdCounter.incrementAndGet();
+    }
+
+    /**
+     * Register interest in the response with the given correlation ID. This must be done
+     * before the request is sent.
+     *
+     * @param correlationId the JMS correlation ID the response will carry, as returned by
+     *                      {@link #newCorrelationId()}
+     * @param handler the handler to notify
+     * @param timeout the number of milliseconds after which {@link ReplyHandler#onTimeout()}
+     *                is called, or 0 if the caller takes care of the timeout and calls
+     *                {@link #cancel(String)}
+     */
+    public void register(final String correlationId, ReplyHandler handler, long timeout) {
+        if (!correlationId.startsWith(correlationIdPrefix)) {
+            throw new AxisJMSException("The JMS correlation ID : " + correlationId +
+                " was not issued by the reply consumer on : " + replyDestination);
+        }
+        final PendingReply pendingReply = new PendingReply(handler);
+        if (pendingReplies.putIfAbsent(correlationId, pendingReply) != null) {
+            throw new AxisJMSException("A request with JMS correlation ID : " + correlationId +
+                " is already waiting for a response on : " + replyDestination);
+        }
+        if (timeout > 0) {
+            pendingReply.timeoutTask = timer.schedule(new Runnable() {
+                public void run() {
+                    if (pendingReplies.remove(correlationId, pendingReply)) {
+                        pendingReply.handler.onTimeout();
+                    }
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop waiting for the response with the given correlation ID
+     *
+     * @param correlationId the JMS correlation ID
+     * @return true if the response was still expected
+     */
+    public boolean cancel(String correlationId) {
+        PendingReply pendingReply = pendingReplies.remove(correlationId);
+        if (pendingReply == null) {
+            return false;
+        }
+        cancelTimeout(pendingReply);
+        return true;
+    }
+
+    /**
+     * @return the number of requests waiting for a response
+     */
+    public int getPendingReplyCount() {
+        return pendingReplies.size();
+    }
+
+    public void onMessage(Message message) {
+        String correlationId;
+        try {
+            correlationId = message.getJMSCorrelationID();
+        } catch (JMSException e) {
+            log.warn("Error reading the JMS correlation ID of a response on : " +
+                replyDestination, e);
+            return;
+        }
+
+        PendingReply pendingReply = correlationId == null ? null :
+            pendingReplies.remove(correlationId);
+        if (pendingReply == null) {
+            log.warn("Discarding response with JMS correlation ID : " + correlationId +
+                " received on : " + replyDestination + " as no request is waiting for it");
+            return;
+        }
+        cancelTimeout(pendingReply);
+        pendingReply.handler.onReply(message);
+    }
+
+    private void cancelTimeout(PendingReply pendingReply) {
+        ScheduledFuture<?> timeoutTask = pendingReply.timeoutTask;
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+        }
+    }
+
+    /**
+     * Close the consumer. Requests still waiting for a response are timed out.
+     */
+    public void close() {
+        try {
+            consumer.close();
+        } catch (JMSException e) {
+            log.warn("Error closing the reply consumer on : " + replyDestination, e);
+        }
+        try {
+            session.close();
+        } catch (JMSException e) {
+            log.warn("Error closing the reply session on : " + replyDestination, e);
+        }
+        timer.shutdownNow();
+        for (String correlationId : pendingReplies.keySet()) {
+            PendingReply pendingReply = pendingReplies.remove(correlationId);
+            if (pendingReply != null) {
+                pendingReply.handler.onTimeout();
+            }
+        }
+    }
+}
@@ -25,8 +25,10 @@ import org.apache.axis2.Constants;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.transport.AsyncTransportSender;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.transport.OutTransportInfo;
+import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.transport.base.*;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.transport.jms.iowrappers.BytesMessageOutputStream;
@@ -39,11 +41,19 @@ import java.io.OutputStream;
 import java.io.StringWriter;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The TransportSender for JMS
+ *
+ * If the connection factory used enables the shared reply consumer (see
+ * {@link JMSConstants#PARAM_SHARED_REPLY_CONSUMER}), responses are received by a
+ * {@link JMSReplyListener} instead of a consumer per request, and non blocking invocations
+ * don't keep a thread waiting for the response.
  */
-public class JMSSender extends AbstractTransportSender implements ManagementSupport {
+public class JMSSender extends AbstractTransportSender
+        implements ManagementSupport, AsyncTransportSender {
 
     public static final String TRANSPORT_NAME = Constants.TRANSPORT_JMS;
 
@@ -149,19 +159,27 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
         }
 
         // need to synchronize as Sessions are not thread safe
+        SynchronousReply syncReply;
         synchronized (messageSender.getSession()) {
             try {
-                sendOverJMS(msgCtx, messageSender, contentTypeProperty, jmsConnectionFactory, jmsOut);
+                syncReply = sendOverJMS(
+                    msgCtx, messageSender, contentTypeProperty, jmsConnectionFactory, jmsOut);
             } finally {
                 messageSender.close();
             }
         }
+
+        // a response from the shared reply consumer doesn't need the session
+        if (syncReply != null) {
+            waitForSharedReply(msgCtx, syncReply, contentTypeProperty);
+        }
     }
 
     /**
      * Perform actual sending of the JMS message
+     * @return the response to wait for from a shared reply consumer, or null
      */
-    private void sendOverJMS(MessageContext msgCtx, JMSMessageSender messageSender,
+    private SynchronousReply sendOverJMS(MessageContext msgCtx, JMSMessageSender messageSender,
         String contentTypeProperty, JMSConnectionFactory jmsConnectionFactory,
         JMSOutTransportInfo jmsOut) throws AxisFault {
         
@@ -177,6 +195,7 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
         // should we wait for a synchronous response on this same thread?
         boolean waitForResponse = waitForSynchronousResponse(msgCtx);
         Destination replyDestination = jmsOut.getReplyDestination();
+        JMSReplyListener replyListener = null;
 
         // if this is a synchronous out-in, prepare to listen on the response destination
         if (waitForResponse) {
@@ -199,10 +218,21 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
                     replyDestination = jmsOut.getReplyDestination(replyDestName);
                 }
             }
+            // a shared consumer can only be used on a well known reply destination
+            // and only if the caller did not choose the correlation ID of the request
+            if (replyDestination != null && jmsConnectionFactory != null &&
+                jmsConnectionFactory.isSharedReplyConsumer() && !hasCorrelationId(message)) {
+                replyListener = jmsConnectionFactory.getReplyListener(replyDestination);
+            }
             replyDestination = JMSUtils.setReplyDestination(
                 replyDestination, messageSender.getSession(), message);
         }
 
+        if (replyListener != null) {
+            return sendWithSharedReplyConsumer(msgCtx, messageSender, message, replyListener,
+                replyDestination, contentTypeProperty);
+        }
+
         try {
             messageSender.send(message, msgCtx);
             metrics.incrementMessagesSent(msgCtx);
@@ -213,7 +243,9 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
         }
 
         try {
-            metrics.incrementBytesSent(msgCtx, JMSUtils.getMessageSize(message));
+            long messageSize = JMSUtils.getMessageSize(message);
+            metrics.incrementBytesSent(msgCtx, messageSize);
+            metrics.notifySentMessageSize(msgCtx, messageSize);
         } catch (JMSException e) {
             log.warn("Error reading JMS message size to update transport metrics", e);
         }
@@ -244,6 +276,105 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
                 msgCtx, correlationId, contentTypeProperty);
             // TODO ********************************************************************************
         }
+        return null;
+    }
+
+    private static boolean hasCorrelationId(Message message) {
+        try {
+            String correlationId = message.getJMSCorrelationID();
+            return correlationId != null && correlationId.length() > 0;
+        } catch (JMSException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Send a request whose response will be received by the given shared reply consumer.
+     * If the caller passed a {@link AsyncTransportSender.ResponseCallback}, the response is
+     * processed and the caller notified on a worker thread
+     * @return the response to wait for, or null if the caller will be called back
+     */
+    private SynchronousReply sendWithSharedReplyConsumer(MessageContext msgCtx,
+            JMSMessageSender messageSender,
+            Message message, JMSReplyListener replyListener, Destination replyDestination,
+            String contentTypeProperty) throws AxisFault {
+
+        // the correlation ID must be known before the message is sent, and must be one the
+        // shared consumer selects
+        String correlationId = replyListener.newCorrelationId();
+        try {
+            message.setJMSCorrelationID(correlationId);
+        } catch (JMSException e) {
+            handleException("Error setting the JMS correlation ID of the request", e);
+        }
+
+        long timeout = getReplyTimeout(msgCtx);
+        ResponseCallback callback = (ResponseCallback) msgCtx.getProperty(RESPONSE_CALLBACK);
+        SynchronousReply syncReply = null;
+        if (callback != null) {
+            // from here on the callback is ours; failures to send are still reported by throwing
+            msgCtx.removeProperty(RESPONSE_CALLBACK);
+            replyListener.register(correlationId, new AsynchronousReply(msgCtx, callback,
+                contentTypeProperty, replyDestination, correlationId, timeout), timeout);
+        } else {
+            syncReply = new SynchronousReply(
+                replyListener, replyDestination, correlationId, timeout);
+            replyListener.register(correlationId, syncReply, 0);
+        }
+
+        boolean sent = false;
+        try {
+            messageSender.send(message, msgCtx);
+            metrics.incrementMessagesSent(msgCtx);
+            sent = true;
+
+        } catch (AxisJMSException e) {
+            metrics.incrementFaultsSending();
+            handleException("Error sending JMS message", e);
+
+        } finally {
+            if (!sent) {
+                replyListener.cancel(correlationId);
+            }
+        }
+
+        try {
+            long messageSize = JMSUtils.getMessageSize(message);
+            metrics.incrementBytesSent(msgCtx, messageSize);
+            metrics.notifySentMessageSize(msgCtx, messageSize);
+        } catch (JMSException e) {
+            log.warn("Error reading JMS message size to update transport metrics", e);
+        }
+
+        return syncReply;
+    }
+
+    /**
+     * Wait for the response to be received by the shared reply consumer, and process it
+     */
+    private void waitForSharedReply(MessageContext msgCtx, SynchronousReply syncReply,
+            String contentTypeProperty) throws AxisFault {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Waiting for a maximum of " + syncReply.timeout +
+                "ms for a response message to destination : " + syncReply.replyDestination +
+                " with JMS correlation ID : " + syncReply.correlationId);
+        }
+        Message reply = syncReply.await();
+        processReply(msgCtx, reply, contentTypeProperty, syncReply.timeout,
+            syncReply.replyDestination, syncReply.correlationId);
+    }
+
+    /**
+     * Get the number of milliseconds to wait for a response
+     */
+    private long getReplyTimeout(MessageContext msgCtx) {
+        long timeout = JMSConstants.DEFAULT_JMS_TIMEOUT;
+        String waitReply = (String) msgCtx.getProperty(JMSConstants.JMS_WAIT_REPLY);
+        if (waitReply != null) {
+            timeout = Long.valueOf(waitReply).longValue();
+        }
+        return timeout;
     }
 
     /**
@@ -261,17 +392,13 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
             MessageContext msgCtx, String correlationId,
             String contentTypeProperty) throws AxisFault {
 
+        MessageConsumer consumer = null;
         try {
-            MessageConsumer consumer;
             consumer = JMSUtils.createConsumer(session, replyDestination,
                 "JMSCorrelationID = '" + correlationId + "'");
 
             // how long are we willing to wait for the sync response
-            long timeout = JMSConstants.DEFAULT_JMS_TIMEOUT;
-            String waitReply = (String) msgCtx.getProperty(JMSConstants.JMS_WAIT_REPLY);
-            if (waitReply != null) {
-                timeout = Long.valueOf(waitReply).longValue();
-            }
+            long timeout = getReplyTimeout(msgCtx);
 
             if (log.isDebugEnabled()) {
                 log.debug("Waiting for a maximum of " + timeout +
@@ -280,37 +407,60 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
             }
 
             Message reply = consumer.receive(timeout);
+            processReply(msgCtx, reply, contentTypeProperty, timeout, replyDestination,
+                correlationId);
 
-            if (reply != null) {
-
-                // update transport level metrics
-                metrics.incrementMessagesReceived();                
+        } catch (JMSException e) {
+            metrics.incrementFaultsReceiving();
+            handleException("Error creating a consumer, or receiving a synchronous reply " +
+                "for outgoing MessageContext ID : " + msgCtx.getMessageID() +
+                " and reply Destination : " + replyDestination, e);
+        } finally {
+            // The session may be returned to a pool, so the consumer must not outlive the call
+            if (consumer != null) {
                 try {
-                    metrics.incrementBytesReceived(JMSUtils.getMessageSize(reply));
+                    consumer.close();
                 } catch (JMSException e) {
-                    log.warn("Error reading JMS message size to update transport metrics", e);
+                    log.error("Error closing JMS MessageConsumer after receiving the reply", e);
                 }
+            }
+        }
+    }
 
-                try {
-                    processSyncResponse(msgCtx, reply, contentTypeProperty);
-                    metrics.incrementMessagesReceived();
-                } catch (AxisFault e) {
-                    metrics.incrementFaultsReceiving();
-                    throw e;
-                }
+    /**
+     * Process the response received for an outgoing message, if any
+     * @param msgCtx the outgoing message for which we are expecting the response
+     * @param reply the response, or null if it didn't arrive within the timeout
+     * @throws AxisFault on error
+     */
+    private void processReply(MessageContext msgCtx, Message reply, String contentTypeProperty,
+            long timeout, Destination replyDestination, String correlationId) throws AxisFault {
 
-            } else {
-                log.warn("Did not receive a JMS response within " +
-                    timeout + " ms to destination : " + replyDestination +
-                    " with JMS correlation ID : " + correlationId);
-                metrics.incrementTimeoutsReceiving();
+        if (reply != null) {
+
+            // update transport level metrics
+            metrics.incrementMessagesReceived();                
+            try {
+                long messageSize = JMSUtils.getMessageSize(reply);
+                metrics.incrementBytesReceived(messageSize);
+                metrics.notifyReceivedMessageSize(messageSize);
+            } catch (JMSException e) {
+                log.warn("Error reading JMS message size to update transport metrics", e);
             }
 
-        } catch (JMSException e) {
-            metrics.incrementFaultsReceiving();
-            handleException("Error creating a consumer, or receiving a synchronous reply " +
-                "for outgoing MessageContext ID : " + msgCtx.getMessageID() +
-                " and reply Destination : " + replyDestination, e);
+            try {
+                processSyncResponse(msgCtx, reply, contentTypeProperty);
+                metrics.incrementMessagesReceived();
+            } catch (AxisFault e) {
+                metrics.incrementFaultsReceiving();
+                throw e;
+            }
+
+        } else {
+            log.warn("Did not receive a JMS response within " +
+                timeout + " ms to destination : " + replyDestination +
+                " with JMS correlation ID : " + correlationId);
+            metrics.incrementTimeoutsReceiving();
         }
     }
 
@@ -505,4 +655,101 @@ public class JMSSender extends AbstractTransportSender implements ManagementSupp
     private String getProperty(MessageContext mc, String key) {
         return (String) mc.getProperty(key);
     }
+
+    /**
+     * Hands the response received by a shared reply consumer to the thread waiting for it
+     */
+    private static class SynchronousReply implements JMSReplyListener.ReplyHandler {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Message reply;
+        final JMSReplyListener replyListener;
+        final Destination replyDestination;
+        final String correlationId;
+        final long timeout;
+
+        SynchronousReply(JMSReplyListener replyListener, Destination replyDestination,
+                String correlationId, long timeout) {
+            this.replyListener = replyListener;
+            this.replyDestination = replyDestination;
+            this.correlationId = correlationId;
+            this.timeout = timeout;
+        }
+
+        public void onReply(Message message) {
+            reply = message;
+            latch.countDown();
+        }
+
+        public void onTimeout() {
+            latch.countDown();
+        }
+
+        Message await() throws AxisFault {
+            try {
+                if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                    replyListener.cancel(correlationId);
+                }
+            } catch (InterruptedException e) {
+                replyListener.cancel(correlationId);
+                Thread.currentThread().interrupt();
+                throw AxisFault.makeFault(e);
+            }
+            return reply;
+        }
+    }
+
+    /**
+     * Processes the response received by a shared reply consumer and notifies the caller
+     */
+    private class AsynchronousReply implements JMSReplyListener.ReplyHandler {
+        private final MessageContext msgCtx;
+        private final ResponseCallback callback;
+        private final String contentTypeProperty;
+        private final Destination replyDestination;
+        private final String correlationId;
+        private final long timeout;
+
+        AsynchronousReply(MessageContext msgCtx, ResponseCallback callback,
+                String contentTypeProperty, Destination replyDestination, String correlationId,
+                long timeout) {
+            this.msgCtx = msgCtx;
+            this.callback = callback;
+            this.contentTypeProperty = contentTypeProperty;
+            this.replyDestination = replyDestination;
+            this.correlationId = correlationId;
+            this.timeout = timeout;
+        }
+
+        public void onReply(final Message message) {
+            // Don't run the in flow on the thread of the JMS provider
+            dispatch(new Runnable() {
+                public void run() {
+                    try {
+                        processReply(msgCtx, message, contentTypeProperty, timeout,
+                            replyDestination, correlationId);
+                    } catch (AxisFault e) {
+                        callback.onError(e);
+                        return;
+                    }
+                    callback.onResponse(msgCtx);
+                }
+            });
+        }
+
+        public void onTimeout() {
+            metrics.incrementTimeoutsReceiving();
+            dispatch(new Runnable() {
+                public void run() {
+                    callback.onError(new AxisFault("Did not receive a JMS response within " +
+                        timeout + " ms to destination : " + replyDestination +
+                        " with JMS correlation ID : " + correlationId));
+                }
+            });
+        }
+
+        private void dispatch(Runnable task) {
+            TransportUtils.dispatchResponse(
+                msgCtx.getConfigurationContext().getThreadPool(), task);
+        }
+    }
 }
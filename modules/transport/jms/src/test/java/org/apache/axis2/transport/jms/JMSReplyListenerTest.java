@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axis2.transport.jms;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.store.memory.MemoryPersistenceAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JMSReplyListenerTest {
+    private static class RecordingHandler implements JMSReplyListener.ReplyHandler {
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+
+        public void onReply(Message message) {
+            events.add(message);
+        }
+
+        public void onTimeout() {
+            events.add("timeout");
+        }
+
+        Object next() throws InterruptedException {
+            return events.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private BrokerService broker;
+    private Connection connection;
+    private Queue replyQueue;
+    private JMSReplyListener replyListener;
+
+    @Before
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("replytest");
+        broker.setDataDirectory("target/activemq-data");
+        broker.setPersistenceAdapter(new MemoryPersistenceAdapter());
+        broker.setUseJmx(false);
+        broker.start();
+        connection = new ActiveMQConnectionFactory("vm://replytest").createConnection();
+        replyQueue = new ActiveMQQueue("replies");
+        replyListener = new JMSReplyListener(connection, replyQueue, true, Boolean.TRUE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        replyListener.close();
+        connection.close();
+        broker.stop();
+    }
+
+    private void sendReply(String correlationId, String text) throws Exception {
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        try {
+            MessageProducer producer = session.createProducer(replyQueue);
+            TextMessage message = session.createTextMessage(text);
+            message.setJMSCorrelationID(correlationId);
+            producer.send(message);
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testCorrelation() throws Exception {
+        RecordingHandler first = new RecordingHandler();
+        RecordingHandler second = new RecordingHandler();
+        String firstId = replyListener.newCorrelationId();
+        String secondId = replyListener.newCorrelationId();
+        replyListener.register(firstId, first, 0);
+        replyListener.register(secondId, second, 0);
+        assertThat(replyListener.getPendingReplyCount()).isEqualTo(2);
+
+        sendReply(replyListener.newCorrelationId(), "discarded");
+        sendReply(secondId, "reply 2");
+        sendReply(firstId, "reply 1");
+
+        assertThat(((TextMessage) second.next()).getText()).isEqualTo("reply 2");
+        assertThat(((TextMessage) first.next()).getText()).isEqualTo("reply 1");
+        assertThat(replyListener.getPendingReplyCount()).isEqualTo(0);
+        assertThat(first.events).isEmpty();
+        assertThat(second.events).isEmpty();
+    }
+
+    @Test
+    public void testForeignReplyNotConsumed() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        String correlationId = replyListener.newCorrelationId();
+        replyListener.register(correlationId, handler, 0);
+
+        // A reply to a request sent by another node sharing the same reply queue
+        sendReply("foreign", "not ours");
+        sendReply(correlationId, "ours");
+        assertThat(((TextMessage) handler.next()).getText()).isEqualTo("ours");
+
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        try {
+            connection.start();
+            MessageConsumer consumer = session.createConsumer(replyQueue);
+            TextMessage message = (TextMessage) consumer.receive(10000);
+            assertThat(message).isNotNull();
+            assertThat(message.getText()).isEqualTo("not ours");
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test(expected=AxisJMSException.class)
+    public void testRegisterForeignCorrelationId() throws Exception {
+        replyListener.register("foreign", new RecordingHandler(), 0);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        String correlationId = replyListener.newCorrelationId();
+        replyListener.register(correlationId, handler, 100);
+        assertThat(handler.next()).isEqualTo("timeout");
+        assertThat(replyListener.getPendingReplyCount()).isEqualTo(0);
+
+        // A response arriving after the timeout is discarded
+        sendReply(correlationId, "too late");
+        assertThat(handler.events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        String correlationId = replyListener.newCorrelationId();
+        replyListener.register(correlationId, handler, 100);
+        assertThat(replyListener.cancel(correlationId)).isTrue();
+        assertThat(replyListener.cancel(correlationId)).isFalse();
+        assertThat(handler.events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+}
@@ -47,6 +47,18 @@ public class MailConstants {
     public static final int    DEFAULT_MAX_RETRY_COUNT    = 3;
     public static final long   DEFAULT_RECONNECT_TIMEOUT = 30000;
 
+    /**
+     * Key for the parameter enabling push mode. In push mode the connection to the IMAP store
+     * is kept open between checks, and new mail is waited for with IMAP IDLE if the server
+     * supports it. Only applies to the imap and imaps protocols.
+     */
+    public static final String TRANSPORT_MAIL_PUSH = "transport.mail.Push";
+
+    /** Key for the number of messages whose headers and flags are fetched per request */
+    public static final String TRANSPORT_MAIL_FETCH_BATCH_SIZE = "transport.mail.FetchBatchSize";
+
+    public static final int    DEFAULT_FETCH_BATCH_SIZE = 100;
+
     public static final String TRANSPORT_MAIL_ADDRESS  = "transport.mail.Address";
     
     public static final String TRANSPORT_MAIL_DEBUG = "transport.mail.Debug";
@@ -56,6 +56,11 @@ import java.lang.reflect.Method;
  * and can be configured to be optionally moved to a different folder, if the server supports it
  * (e.g. with imap). When checking for new mail, the transport ignores messages already flaged as
  * SEEN and DELETED
+ * <p>
+ * The headers, flags and content type of new messages are fetched in batches; message bodies are
+ * only downloaded when the message is processed. In push mode (IMAP only) the connection to the
+ * store is kept open, and instead of waiting for the next poll the transport waits for new mail
+ * using IMAP IDLE, if the server supports it.
  */
 
 public class MailTransportListener extends AbstractPollingTransportListener<PollTableEntry>
@@ -100,6 +105,13 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
         Store store = null;
         Folder folder = null;
         boolean mailProcessingStarted = false;
+        PersistentMailbox mailbox = entry.getMailbox();
+
+        if (mailbox != null && mailbox.isConnected()) {
+            store = mailbox.getStore();
+            folder = mailbox.getFolder();
+            connected = true;
+        }
 
         while (!connected) {
             try {
@@ -129,6 +141,9 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
                     if (folder == null) {
                         folder = store.getDefaultFolder();
                     }
+                    if (mailbox != null) {
+                        mailbox.setConnection(store, folder);
+                    }
                 }
 
             } catch (Exception e) {
@@ -156,22 +171,32 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
             Runnable onCompletion = new MailCheckCompletionTask(folder, store, emailAddress, entry);
 
             try {
-                if (log.isDebugEnabled()) {
-                    log.debug("Connecting to folder : " + folder.getName() +
-                        " of email account : " + emailAddress);
+                if (!folder.isOpen()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Connecting to folder : " + folder.getName() +
+                            " of email account : " + emailAddress);
+                    }
+                    folder.open(Folder.READ_WRITE);
                 }
 
-                folder.open(Folder.READ_WRITE);
-                int total = folder.getMessageCount();
-                Message[] messages = folder.getMessages();
+                Message[] messages =
+                    mailbox != null ? mailbox.getNewMessages() : folder.getMessages();
+                int total = messages.length;
 
                 if (log.isDebugEnabled()) {
                     log.debug(messages.length + " messgaes in folder : " + folder);
                 }
 
+                FetchProfile fetchProfile = createFetchProfile(folder);
+                int batchSize = entry.getFetchBatchSize();
+
                 latch = new CountDownLatch(total);
                 for (int i = 0; i < total; i++) {
 
+                    if (i % batchSize == 0) {
+                        fetch(folder, messages, i, Math.min(total, i + batchSize), fetchProfile);
+                    }
+
                     try {
                         String[] status = messages[i].getHeader("Status");
                         if (status != null && status.length == 1 && status[0].equals("RO")) {
@@ -216,6 +241,10 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
                 }
 
             } catch (MessagingException me) {
+                if (mailbox != null) {
+                    // start over with a new connection
+                    mailbox.close();
+                }
                 processFailure("Error checking mail for account : " +
                     emailAddress + " :: " + me.getMessage(), me, entry);
             }
@@ -225,6 +254,80 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
         }
     }
 
+    /**
+     * Create the FetchProfile used to load what is needed to decide whether a message should
+     * be processed, and to build its transport headers, without downloading the message body.
+     *
+     * @param folder the mail folder
+     * @return the fetch profile
+     */
+    private FetchProfile createFetchProfile(Folder folder) {
+        FetchProfile fetchProfile = new FetchProfile();
+        fetchProfile.add(FetchProfile.Item.ENVELOPE);
+        fetchProfile.add(FetchProfile.Item.FLAGS);
+        fetchProfile.add(FetchProfile.Item.CONTENT_INFO);
+        fetchProfile.add("Status");
+        if (folder instanceof UIDFolder) {
+            fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+        }
+        return fetchProfile;
+    }
+
+    /**
+     * Prefetch a batch of messages with a single request. Failures are not fatal, as the
+     * message data is then loaded on demand.
+     */
+    private void fetch(Folder folder, Message[] messages, int from, int to,
+                       FetchProfile fetchProfile) {
+        Message[] batch = new Message[to - from];
+        System.arraycopy(messages, from, batch, 0, batch.length);
+        try {
+            folder.fetch(batch, fetchProfile);
+        } catch (MessagingException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to prefetch " + batch.length + " messages from folder : " +
+                    folder + " :: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Wait for new mail on the connection kept open in push mode, and check the mail as soon
+     * as the server reports a change. This blocks a worker thread for as long as the account
+     * is idle. If the server does not support IMAP IDLE, the next check is scheduled after the
+     * poll interval as usual, reusing the open connection.
+     *
+     * @param entry   the poll table entry of the account
+     * @param mailbox the connection of the account
+     */
+    private void waitForMail(final PollTableEntry entry, final PersistentMailbox mailbox) {
+        workerPool.execute(new Runnable() {
+            public void run() {
+                boolean idle = false;
+                try {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Waiting for new mail for : " + entry.getEmailAddress());
+                    }
+                    idle = mailbox.idle();
+                } catch (Exception e) {
+                    if (!mailbox.isStopped()) {
+                        log.warn("Error waiting for new mail for account : " +
+                            entry.getEmailAddress() + " :: " + e.getMessage());
+                    }
+                    mailbox.close();
+                }
+                if (mailbox.isStopped()) {
+                    return;
+                }
+                if (idle && state == BaseConstants.STARTED) {
+                    poll(entry);
+                } else {
+                    onPollCompletion(entry);
+                }
+            }
+        });
+    }
+
     /**
      * Invoke the actual message processor in the current thread or another worker thread
      * @param entry PolltableEntry
@@ -390,6 +493,25 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
                 log.debug("Executing onCompletion task for the mail download of : " + emailAddress);
             }
 
+            PersistentMailbox mailbox = entry.getMailbox();
+            if (mailbox != null && !mailbox.isStopped()) {
+                // keep the connection, but remove the processed mail
+                try {
+                    folder.expunge();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Deleted mail expunged, waiting for new mail");
+                    }
+                    waitForMail(entry, mailbox);
+                    return;
+                } catch (MessagingException e) {
+                    log.warn("Error expunging mail folder : " +
+                        folder + " for account : " + emailAddress + " :: "+ e.getMessage());
+                    mailbox.close();
+                }
+                onPollCompletion(entry);
+                return;
+            }
+
             if (folder != null) {
                 try {
                     folder.close(true /** expunge messages flagged as DELETED*/);
@@ -542,17 +664,23 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
             MimeMessage mimeMessage = (MimeMessage) message;
             if (mimeMessage.getContent() instanceof Multipart) {
                 Multipart mp = (Multipart) mimeMessage.getContent();
+                long messageSize = 0;
                 for (int i=0; i<mp.getCount(); i++) {
                     MimeBodyPart mbp = (MimeBodyPart) mp.getBodyPart(i);
                     int size = mbp.getSize();
                     if (size != -1) {
                         metrics.incrementBytesReceived(size);
+                        messageSize += size;
                     }
                 }
+                if (messageSize > 0) {
+                    metrics.notifyReceivedMessageSize(messageSize);
+                }
             } else {
                 int size = mimeMessage.getSize();
                 if (size != -1) {
                     metrics.incrementBytesReceived(size);
+                    metrics.notifyReceivedMessageSize(size);
                 }
             }
         }
@@ -712,6 +840,14 @@ public class MailTransportListener extends AbstractPollingTransportListener<Poll
         }
     }
 
+    @Override
+    protected void stopEndpoint(PollTableEntry endpoint) {
+        super.stopEndpoint(endpoint);
+        if (endpoint.getMailbox() != null) {
+            endpoint.getMailbox().stop();
+        }
+    }
+
     @Override
     protected PollTableEntry createEndpoint() {
         return new PollTableEntry(log);
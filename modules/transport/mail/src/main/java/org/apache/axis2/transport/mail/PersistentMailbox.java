@@ -0,0 +1,168 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Store;
+import javax.mail.UIDFolder;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+
+/**
+ * The mail store connection kept open by a {@link PollTableEntry} in push mode.
+ * <p>
+ * Between two mail checks the folder stays open, and {@link #idle()} waits for new mail using
+ * IMAP IDLE. When the folder supports UIDs, a check only returns the messages which arrived
+ * after the previous check, so messages which are left in the folder (e.g. because they are
+ * marked as SEEN) are not fetched again and again.
+ */
+class PersistentMailbox {
+
+    private Store store;
+    private Folder folder;
+    /** UIDVALIDITY of the folder when {@link #lastUID} was recorded */
+    private long uidValidity = -1;
+    /** The highest UID returned by {@link #getNewMessages()} */
+    private long lastUID;
+    private volatile boolean stopped;
+
+    /**
+     * @return true if the store is still connected and the folder is still open
+     */
+    public synchronized boolean isConnected() {
+        return store != null && store.isConnected() && folder != null && folder.isOpen();
+    }
+
+    /**
+     * Keep the given store and folder for the next mail checks. Any previous connection is
+     * closed.
+     *
+     * @param store  the connected store
+     * @param folder the folder to check, which need not be open yet
+     */
+    public synchronized void setConnection(Store store, Folder folder) {
+        close();
+        this.store = store;
+        this.folder = folder;
+    }
+
+    public synchronized Store getStore() {
+        return store;
+    }
+
+    public synchronized Folder getFolder() {
+        return folder;
+    }
+
+    /**
+     * Get the messages which arrived since the last call. If the folder does not support UIDs,
+     * all the messages in the folder are returned.
+     *
+     * @return the new messages, in the order of their message numbers
+     * @throws MessagingException on error
+     */
+    public synchronized Message[] getNewMessages() throws MessagingException {
+        if (!(folder instanceof UIDFolder)) {
+            return folder.getMessages();
+        }
+        UIDFolder uidFolder = (UIDFolder) folder;
+        long validity = uidFolder.getUIDValidity();
+        if (validity != uidValidity) {
+            uidValidity = validity;
+            lastUID = 0;
+        }
+        // The range n:* always includes the last message, even if its UID is below n
+        Message[] messages = uidFolder.getMessagesByUID(lastUID + 1, UIDFolder.LASTUID);
+        List<Message> newMessages = new ArrayList<Message>(messages.length);
+        long highestUID = lastUID;
+        for (Message message : messages) {
+            if (message == null) {
+                continue;
+            }
+            long uid = uidFolder.getUID(message);
+            if (uid > lastUID) {
+                newMessages.add(message);
+                highestUID = Math.max(highestUID, uid);
+            }
+        }
+        lastUID = highestUID;
+        return newMessages.toArray(new Message[newMessages.size()]);
+    }
+
+    /**
+     * Wait until the server reports a change to the folder, e.g. because new mail has arrived.
+     *
+     * @return false if the server does not support IMAP IDLE; the caller should then fall back
+     *         to polling
+     * @throws MessagingException if the connection failed while waiting
+     */
+    public boolean idle() throws MessagingException {
+        Folder folder;
+        synchronized (this) {
+            if (!(store instanceof IMAPStore) || !(this.folder instanceof IMAPFolder)
+                    || !((IMAPStore) store).hasCapability("IDLE")) {
+                return false;
+            }
+            folder = this.folder;
+        }
+        // Not synchronized, so that stop() can close the folder, which ends the IDLE command
+        ((IMAPFolder) folder).idle(true);
+        return true;
+    }
+
+    /**
+     * Close the folder and the store. Messages flagged as DELETED are expunged. The next mail
+     * check opens a new connection and fetches all the messages in the folder again.
+     */
+    public synchronized void close() {
+        if (folder != null && folder.isOpen()) {
+            try {
+                folder.close(true);
+            } catch (MessagingException ignore) {}
+        }
+        if (store != null) {
+            try {
+                store.close();
+            } catch (MessagingException ignore) {}
+        }
+        store = null;
+        folder = null;
+        uidValidity = -1;
+        lastUID = 0;
+    }
+
+    /**
+     * Close the connection for good, as the endpoint is being stopped.
+     */
+    public void stop() {
+        stopped = true;
+        close();
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+}
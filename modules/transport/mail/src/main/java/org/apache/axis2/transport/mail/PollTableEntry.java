@@ -94,6 +94,11 @@ public class PollTableEntry extends AbstractPollTableEntry {
     private int maxRetryCount;
     private long reconnectTimeout;
 
+    /** number of messages whose headers and flags are fetched per request */
+    private int fetchBatchSize = MailConstants.DEFAULT_FETCH_BATCH_SIZE;
+    /** the connection kept open between mail checks in push mode, or null */
+    private PersistentMailbox mailbox;
+
     public PollTableEntry(Log log) {
         this.log = log;
     }
@@ -148,6 +153,19 @@ public class PollTableEntry extends AbstractPollTableEntry {
       return reconnectTimeout;
     }
 
+    public int getFetchBatchSize() {
+        return fetchBatchSize;
+    }
+
+    /**
+     * Get the connection kept open between mail checks.
+     *
+     * @return the connection, or null if push mode is not enabled for this endpoint
+     */
+    public PersistentMailbox getMailbox() {
+        return mailbox;
+    }
+
     public String getFolder() {
         return folder;
     }
@@ -311,6 +329,32 @@ public class PollTableEntry extends AbstractPollTableEntry {
                 reconnectTimeout = Integer.parseInt(strReconnectTimeout) * 1000;
             }
 
+            String strFetchBatchSize = ParamUtils.getOptionalParam(
+                paramIncl, MailConstants.TRANSPORT_MAIL_FETCH_BATCH_SIZE);
+            if (strFetchBatchSize != null) {
+                fetchBatchSize = Integer.parseInt(strFetchBatchSize);
+                if (fetchBatchSize <= 0) {
+                    throw new AxisFault("Invalid value specified by '" +
+                        MailConstants.TRANSPORT_MAIL_FETCH_BATCH_SIZE + "' parameter :: " +
+                        strFetchBatchSize);
+                }
+            }
+
+            String push = ParamUtils.getOptionalParam(paramIncl, MailConstants.TRANSPORT_MAIL_PUSH);
+            if (Boolean.parseBoolean(push)) {
+                if (protocol != null && protocol.startsWith(MailConstants.MAIL_IMAP)) {
+                    mailbox = new PersistentMailbox();
+                    // A single connection is used, so the checks cannot overlap
+                    setConcurrentPollingAllowed(false);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Push mode enabled for : " + address);
+                    }
+                } else {
+                    log.warn("Push mode requires IMAP, polling " + protocol +
+                        " account : " + address + " instead");
+                }
+            }
+
             return super.loadConfiguration(paramIncl);
         }
     }
@@ -28,6 +28,9 @@ import java.util.Map;
 
 import javax.mail.Flags;
 
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.ParameterInclude;
 import org.apache.axis2.transport.testkit.name.Key;
 import org.apache.axis2.transport.testkit.name.Name;
 import org.apache.axis2.transport.testkit.tests.Setup;
@@ -48,6 +51,7 @@ import com.icegreen.greenmail.util.ServerSetup;
 @Name("greenmail")
 public class GreenMailTestEnvironment extends MailTestEnvironment {
     private final String protocol;
+    private final boolean push;
     private @Transient PortAllocator portAllocator;
     private @Transient ServerSetup smtpServerSetup;
     private @Transient ServerSetup storeServerSetup;
@@ -58,7 +62,12 @@ public class GreenMailTestEnvironment extends MailTestEnvironment {
     private @Transient List<Account> unallocatedAccounts;
 
     public GreenMailTestEnvironment(String protocol) {
+        this(protocol, false);
+    }
+
+    public GreenMailTestEnvironment(String protocol, boolean push) {
         this.protocol = protocol;
+        this.push = push;
     }
 
     @Setup @SuppressWarnings("unused")
@@ -90,6 +99,20 @@ public class GreenMailTestEnvironment extends MailTestEnvironment {
         return protocol;
     }
     
+    @Key("mode")
+    public String getMode() {
+        return push ? "push" : null;
+    }
+
+    @Override
+    public void setupPoll(ParameterInclude params, Account account) throws AxisFault {
+        super.setupPoll(params, account);
+        if (push) {
+            params.addParameter(new Parameter(MailConstants.TRANSPORT_MAIL_PUSH, "true"));
+            params.addParameter(new Parameter(MailConstants.TRANSPORT_MAIL_FETCH_BATCH_SIZE, "2"));
+        }
+    }
+
     @Override
     public Account allocateAccount() throws Exception {
         if (unallocatedAccounts.isEmpty()) {
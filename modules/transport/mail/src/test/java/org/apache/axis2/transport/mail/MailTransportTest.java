@@ -47,6 +47,7 @@ public class MailTransportTest extends TestCase {
         
         builder.addEnvironment(new GreenMailTestEnvironment("pop3"), MailMessageContextValidator.INSTANCE);
         builder.addEnvironment(new GreenMailTestEnvironment("imap"), MailMessageContextValidator.INSTANCE);
+        builder.addEnvironment(new GreenMailTestEnvironment("imap", true), MailMessageContextValidator.INSTANCE);
         
         MailChannel channel = new MailChannel();
         
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps framed TCP connections open for reuse, per target host and port. A connection is used
+ * by one request at a time: it is taken from the pool before the request is written and put
+ * back once the response has been read.
+ * <p>
+ * Idle connections are reused most recently used first, and are discarded once they have been
+ * idle for longer than the idle timeout, which should be shorter than the idle timeout of the
+ * servers to avoid reusing connections the server is about to close. An idle connection is also
+ * checked before it is reused, and discarded if the server has closed it in the meantime.
+ */
+public class TCPConnectionPool {
+
+    private static final Log log = LogFactory.getLog(TCPConnectionPool.class);
+
+    private final int maxIdlePerTarget;
+    private final long idleTimeout;
+    private final ConcurrentMap<String, Deque<Connection>> idleConnections =
+            new ConcurrentHashMap<String, Deque<Connection>>();
+    private volatile boolean shutdown;
+
+    /**
+     * @param maxIdlePerTarget the maximum number of idle connections kept per target
+     * @param idleTimeout      the time in milliseconds after which an idle connection is
+     *                         discarded
+     */
+    public TCPConnectionPool(int maxIdlePerTarget, long idleTimeout) {
+        this.maxIdlePerTarget = maxIdlePerTarget;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Get an idle connection to the given target, or open a new one.
+     *
+     * @param host    the target host
+     * @param port    the target port
+     * @param timeout the socket timeout in milliseconds, or -1 for no timeout
+     * @return the connection
+     * @throws IOException if a new connection could not be opened
+     */
+    public Connection getConnection(String host, int port, int timeout) throws IOException {
+        String target = host + ":" + port;
+        Deque<Connection> idle = idleConnections.get(target);
+        if (idle != null) {
+            long now = System.currentTimeMillis();
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (now - connection.lastUsed < idleTimeout && !connection.isStale()) {
+                    connection.reused = true;
+                    connection.socket.setSoTimeout(timeout == -1 ? 0 : timeout);
+                    return connection;
+                }
+                connection.close();
+            }
+        }
+
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            if (timeout != -1) {
+                socket.setSoTimeout(timeout);
+            }
+            socket.connect(new InetSocketAddress(host, port));
+            return new Connection(target, socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a connection after a successful exchange, so that it can be reused. Connections
+     * which failed must be {@link Connection#close() closed} instead.
+     *
+     * @param connection the connection
+     */
+    public void release(Connection connection) {
+        long now = System.currentTimeMillis();
+        connection.lastUsed = now;
+        Deque<Connection> idle = idleConnections.get(connection.target);
+        if (idle == null) {
+            Deque<Connection> newIdle = new ConcurrentLinkedDeque<Connection>();
+            idle = idleConnections.putIfAbsent(connection.target, newIdle);
+            if (idle == null) {
+                idle = newIdle;
+            }
+        }
+
+        // Drop the connections which have been idle for too long
+        Connection oldest;
+        while ((oldest = idle.peekLast()) != null && now - oldest.lastUsed >= idleTimeout) {
+            if (idle.removeLastOccurrence(oldest)) {
+                oldest.close();
+            }
+        }
+
+        if (shutdown || idle.size() >= maxIdlePerTarget) {
+            connection.close();
+        } else {
+            idle.offerFirst(connection);
+        }
+    }
+
+    /**
+     * @return the number of idle connections currently kept
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (Deque<Connection> idle : idleConnections.values()) {
+            count += idle.size();
+        }
+        return count;
+    }
+
+    /**
+     * Close all the idle connections. Connections released afterwards are closed as well.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Deque<Connection> idle : idleConnections.values()) {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * A connection to a target, with buffered streams for reading and writing frames.
+     */
+    public static class Connection {
+        private final String target;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+        private boolean reused;
+        private volatile long lastUsed;
+
+        Connection(String target, Socket socket) throws IOException {
+            this.target = target;
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        public DataInputStream getInputStream() {
+            return in;
+        }
+
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        /**
+         * @return true if the connection was taken from the pool rather than newly opened
+         */
+        public boolean isReused() {
+            return reused;
+        }
+
+        /**
+         * Check whether the server closed the connection while it was idle. The server never
+         * sends anything on an idle connection, so any data or the end of the stream means that
+         * the connection can't be used anymore. The check waits up to one millisecond.
+         *
+         * @return true if the connection must not be reused
+         */
+        boolean isStale() {
+            if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+                return true;
+            }
+            try {
+                if (in.available() > 0) {
+                    return true;
+                }
+                int soTimeout = socket.getSoTimeout();
+                socket.setSoTimeout(1);
+                try {
+                    in.read();
+                    return true;
+                } catch (SocketTimeoutException e) {
+                    return false;
+                } finally {
+                    socket.setSoTimeout(soTimeout);
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.error("Error while closing a TCP socket", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Serves a framed TCP connection accepted by the blocking {@link TCPServer}. The messages of
+ * the connection are read and processed one after the other, until the client closes the
+ * connection or the connection has been idle for longer than the idle timeout of the endpoint.
+ */
+public class TCPConnectionWorker implements Runnable, TCPFrameWriter {
+
+    private static final Log log = LogFactory.getLog(TCPConnectionWorker.class);
+
+    private final TCPEndpoint endpoint;
+    private final Socket socket;
+    private OutputStream out;
+
+    public TCPConnectionWorker(TCPEndpoint endpoint, Socket socket) {
+        this.endpoint = endpoint;
+        this.socket = socket;
+    }
+
+    public void run() {
+        try {
+            socket.setSoTimeout(endpoint.getIdleTimeout());
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            out = new BufferedOutputStream(socket.getOutputStream());
+
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    break;
+                }
+                int length = in.readInt();
+                TCPFraming.validateHeader(type, length, endpoint.getMaxFrameSize());
+                if (type == TCPFraming.RESPONSE) {
+                    throw new IOException("Unexpected TCP frame type : " + type);
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                new TCPFrameWorker(endpoint, (byte) type, payload, this).run();
+            }
+        } catch (SocketTimeoutException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Closing idle TCP connection from " + socket.getRemoteSocketAddress());
+            }
+        } catch (IOException e) {
+            log.debug("Error while reading from a TCP connection", e);
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.error("Error while closing a TCP socket", e);
+            }
+        }
+    }
+
+    public synchronized void writeFrame(byte type, byte[] payload) throws IOException {
+        TCPFraming.writeFrame(out, type, payload);
+    }
+}
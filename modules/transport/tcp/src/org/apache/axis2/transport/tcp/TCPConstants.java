@@ -30,4 +30,38 @@ public class TCPConstants {
     public static final String TCP_DEFAULT_CONTENT_TYPE = "text/xml";
 
     public static final String TCP_OUTPUT_SOCKET = "transport.tcp.outputSocket";
+
+    /**
+     * Endpoint parameter enabling framed connections. Each message is prefixed with its type
+     * and length (see {@link TCPFraming}), so that a connection can be kept open and reused
+     * for further messages. Clients select framing with the <code>framed=true</code> query
+     * parameter of the endpoint URL.
+     */
+    public static final String PARAM_FRAMED = "transport.tcp.framed";
+    /**
+     * Endpoint parameter selecting the NIO based server, which handles all the connections
+     * of the endpoint with a single selector thread. Implies {@link #PARAM_FRAMED}.
+     */
+    public static final String PARAM_NIO = "transport.tcp.nio";
+    /** Time in milliseconds after which an idle framed connection is closed by the server */
+    public static final String PARAM_IDLE_TIMEOUT = "transport.tcp.idleTimeout";
+    /**
+     * The largest frame accepted, in bytes. Set on an endpoint, it limits the requests the
+     * server reads; set on the sender, it limits the responses the client reads.
+     */
+    public static final String PARAM_MAX_FRAME_SIZE = "transport.tcp.maxFrameSize";
+    /** Sender parameter: the maximum number of idle connections kept per target */
+    public static final String PARAM_MAX_IDLE_CONNECTIONS = "transport.tcp.maxIdleConnections";
+    /**
+     * Sender parameter: time in milliseconds after which an idle connection is no longer reused.
+     * Should be lower than the idle timeout of the servers.
+     */
+    public static final String PARAM_IDLE_CONNECTION_TIMEOUT = "transport.tcp.idleConnectionTimeout";
+
+    public static final int TCP_DEFAULT_IDLE_TIMEOUT = 60000;
+    public static final int TCP_DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    public static final int TCP_DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+    public static final int TCP_DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000;
+
+    public static final String URL_PARAM_FRAMED = "framed";
 }
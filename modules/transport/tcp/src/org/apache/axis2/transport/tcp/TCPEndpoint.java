@@ -36,6 +36,10 @@ public class TCPEndpoint extends ProtocolEndpoint {
     private int port = -1;
     private int backlog = TCPConstants.TCP_DEFAULT_BACKLOG;
     private String contentType;
+    private boolean framed;
+    private boolean nio;
+    private int idleTimeout = TCPConstants.TCP_DEFAULT_IDLE_TIMEOUT;
+    private int maxFrameSize = TCPConstants.TCP_DEFAULT_MAX_FRAME_SIZE;
 
     public TCPEndpoint() {
 
@@ -63,6 +67,22 @@ public class TCPEndpoint extends ProtocolEndpoint {
         return contentType;
     }
 
+    public boolean isFramed() {
+        return framed;
+    }
+
+    public boolean isNio() {
+        return nio;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
     public boolean loadConfiguration(ParameterInclude params) throws AxisFault {
         port = ParamUtils.getOptionalParamInt(params, TCPConstants.PARAM_PORT, -1);
         if (port == -1) {
@@ -77,6 +97,13 @@ public class TCPEndpoint extends ProtocolEndpoint {
         host = ParamUtils.getOptionalParam(params, TCPConstants.PARAM_HOST);
         backlog = ParamUtils.getOptionalParamInt(params, TCPConstants.PARAM_BACKLOG,
                 TCPConstants.TCP_DEFAULT_BACKLOG);
+
+        nio = ParamUtils.getOptionalParamBoolean(params, TCPConstants.PARAM_NIO, false);
+        framed = nio || ParamUtils.getOptionalParamBoolean(params, TCPConstants.PARAM_FRAMED, false);
+        idleTimeout = ParamUtils.getOptionalParamInt(params, TCPConstants.PARAM_IDLE_TIMEOUT,
+                TCPConstants.TCP_DEFAULT_IDLE_TIMEOUT);
+        maxFrameSize = ParamUtils.getOptionalParamInt(params, TCPConstants.PARAM_MAX_FRAME_SIZE,
+                TCPConstants.TCP_DEFAULT_MAX_FRAME_SIZE);
         return true;
     }
 
@@ -97,8 +124,15 @@ public class TCPEndpoint extends ProtocolEndpoint {
                 (context.endsWith("/") ? "" : "/") +
                 (getService() == null ? service.getName() : getServiceName());
 
+        String query = "";
         if (!contentType.equals(TCPConstants.TCP_DEFAULT_CONTENT_TYPE)) {
-            url += "?contentType=" + contentType;
+            query += "&contentType=" + contentType;
+        }
+        if (framed) {
+            query += "&" + TCPConstants.URL_PARAM_FRAMED + "=true";
+        }
+        if (query.length() > 0) {
+            url += "?" + query.substring(1);
         }
 
         return new EndpointReference[] { new EndpointReference(url) };
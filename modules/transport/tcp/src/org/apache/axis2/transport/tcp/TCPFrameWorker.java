@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.engine.AxisEngine;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Processes a single message received on a framed TCP connection. Unlike {@link TCPWorker},
+ * the connection is left open, and a REQUEST frame is always answered with a RESPONSE frame,
+ * which is empty if the message did not produce a response.
+ */
+public class TCPFrameWorker implements Runnable {
+
+    private static final Log log = LogFactory.getLog(TCPFrameWorker.class);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TCPEndpoint endpoint;
+    private final byte type;
+    private final byte[] payload;
+    private final TCPFrameWriter frameWriter;
+
+    public TCPFrameWorker(TCPEndpoint endpoint, byte type, byte[] payload,
+                          TCPFrameWriter frameWriter) {
+        this.endpoint = endpoint;
+        this.type = type;
+        this.payload = payload;
+        this.frameWriter = frameWriter;
+    }
+
+    public void run() {
+
+        MessageContext msgContext = null;
+        TCPOutTransportInfo outInfo = new TCPOutTransportInfo();
+        outInfo.setContentType(endpoint.getContentType());
+        outInfo.setFrameWriter(frameWriter);
+        outInfo.setOneWay(type == TCPFraming.ONE_WAY);
+
+        try {
+            msgContext = endpoint.createMessageContext();
+            msgContext.setIncomingTransportName(Constants.TRANSPORT_TCP);
+            msgContext.setProperty(Constants.OUT_TRANSPORT_INFO, outInfo);
+
+            SOAPEnvelope envelope = TransportUtils.createSOAPMessage(msgContext,
+                    new ByteArrayInputStream(payload), endpoint.getContentType());
+            msgContext.setEnvelope(envelope);
+
+            AxisEngine.receive(msgContext);
+
+        } catch (Exception e) {
+            sendFault(msgContext, e);
+        }
+
+        if (type == TCPFraming.REQUEST && !outInfo.isResponseSent()) {
+            try {
+                frameWriter.writeFrame(TCPFraming.RESPONSE, EMPTY);
+            } catch (IOException e) {
+                log.error("Error while sending an empty TCP response", e);
+            }
+        }
+    }
+
+    private void sendFault(MessageContext msgContext, Exception fault) {
+        log.error("Error while processing TCP request through the Axis2 engine", fault);
+        try {
+            if (msgContext != null) {
+                MessageContext faultContext =
+                        MessageContextBuilder.createFaultMessageContext(msgContext, fault);
+
+                AxisEngine.sendFault(faultContext);
+            }
+        } catch (Exception e) {
+            log.error("Error while sending the fault response", e);
+        }
+    }
+}
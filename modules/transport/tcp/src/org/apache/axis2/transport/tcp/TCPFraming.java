@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The frame format used by framed TCP connections. Each frame consists of a type byte,
+ * the length of the payload as a 4 byte big endian integer and the payload itself.
+ * <p>
+ * A client sends one {@link #REQUEST} or {@link #ONE_WAY} frame at a time. The server answers
+ * every REQUEST frame with exactly one {@link #RESPONSE} frame, which is empty if the request
+ * did not produce a response, and never answers ONE_WAY frames. Since there is at most one
+ * outstanding request per connection, no correlation is required, and the connection can be
+ * reused as soon as the response frame has been read.
+ */
+public final class TCPFraming {
+
+    /** A request the client waits for a response to */
+    public static final byte REQUEST = 1;
+    /** A message for which the client does not expect a response */
+    public static final byte ONE_WAY = 2;
+    /** The response to a REQUEST frame */
+    public static final byte RESPONSE = 3;
+
+    public static final int HEADER_LENGTH = 5;
+
+    private TCPFraming() {
+    }
+
+    /**
+     * Write a complete frame and flush the stream.
+     *
+     * @param out     the stream to write to
+     * @param type    the frame type
+     * @param payload the payload
+     * @throws IOException on error
+     */
+    public static void writeFrame(OutputStream out, byte type, byte[] payload) throws IOException {
+        out.write(createHeader(type, payload.length));
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * @param type   the frame type
+     * @param length the length of the payload
+     * @return the header of the frame
+     */
+    public static byte[] createHeader(byte type, int length) {
+        return new byte[] {
+            type,
+            (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length
+        };
+    }
+
+    /**
+     * Check the type and length read from a frame header.
+     *
+     * @param type         the frame type
+     * @param length       the payload length
+     * @param maxFrameSize the largest acceptable payload length
+     * @throws IOException if the frame is not valid
+     */
+    public static void validateHeader(int type, int length, int maxFrameSize) throws IOException {
+        if (type != REQUEST && type != ONE_WAY && type != RESPONSE) {
+            throw new IOException("Invalid TCP frame type : " + type);
+        }
+        if (length < 0 || length > maxFrameSize) {
+            throw new IOException("Invalid TCP frame length : " + length);
+        }
+    }
+
+    /**
+     * Read the payload of a frame of the expected type.
+     *
+     * @param in           the stream to read from
+     * @param expectedType the type of frame expected
+     * @param maxFrameSize the largest acceptable payload length
+     * @return the payload
+     * @throws EOFException if the stream ends before the start of the frame
+     * @throws IOException  if the frame is not valid or the stream ends within the frame
+     */
+    public static byte[] readFrame(DataInputStream in, byte expectedType,
+                                   int maxFrameSize) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            throw new EOFException("Connection closed by peer");
+        }
+        try {
+            int length = in.readInt();
+            validateHeader(type, length, maxFrameSize);
+            if (type != expectedType) {
+                throw new IOException("Unexpected TCP frame type : " + type);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            return payload;
+        } catch (EOFException e) {
+            // Only an EOF before the frame is reported as such
+            IOException ioe = new IOException("Truncated TCP frame");
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+}
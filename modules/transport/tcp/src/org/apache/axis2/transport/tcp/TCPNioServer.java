@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import org.apache.axis2.transport.base.threads.WorkerPool;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A TCP server for framed connections which uses a single selector thread to accept
+ * connections and to read and write frames, instead of a blocking thread per connection.
+ * Complete request frames are processed by the worker pool of the listener.
+ * <p>
+ * The frames of a connection are processed in order: while a frame is being processed no more
+ * data is read from its connection, so a client which keeps sending requests without reading
+ * the responses is slowed down by TCP flow control.
+ */
+public class TCPNioServer extends TCPServer {
+
+    private static final Log log = LogFactory.getLog(TCPNioServer.class);
+
+    /** The longest time the selector waits before checking for idle connections */
+    private static final long SELECT_TIMEOUT = 1000;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private CountDownLatch stopped;
+
+    /** Connections whose interest set must be updated by the selector thread */
+    private final Queue<Connection> pendingUpdates = new ConcurrentLinkedQueue<Connection>();
+    /** The open connections; only accessed by the selector thread */
+    private final Set<Connection> connections = new HashSet<Connection>();
+
+    public TCPNioServer(TCPEndpoint endpoint, WorkerPool workerPool) {
+        super(endpoint, workerPool);
+    }
+
+    public void startServer() throws IOException {
+        TCPEndpoint endpoint = getEndpoint();
+        InetSocketAddress address;
+        if (endpoint.getHost() != null) {
+            address = new InetSocketAddress(InetAddress.getByName(endpoint.getHost()),
+                    endpoint.getPort());
+        } else {
+            address = new InetSocketAddress(endpoint.getPort());
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.configureBlocking(false);
+            serverChannel.socket().bind(address, endpoint.getBacklog());
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        running = true;
+        stopped = new CountDownLatch(1);
+        endpoint.getListener().getConfigurationContext().getThreadPool().execute(this);
+        log.info("TCP NIO server started on port : " + endpoint.getPort());
+    }
+
+    public void stopServer() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            // the selector thread closes the channels on its way out
+            stopped.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("TCP NIO server stopped on port : " + getEndpoint().getPort());
+    }
+
+    public void run() {
+        try {
+            while (running) {
+                selector.select(SELECT_TIMEOUT);
+
+                Connection connection;
+                while ((connection = pendingUpdates.poll()) != null) {
+                    connection.updateInterest();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.attachment() instanceof Connection) {
+                        handle(key, (Connection) key.attachment());
+                    }
+                }
+
+                closeIdleConnections();
+            }
+        } catch (IOException e) {
+            log.error("Error in the TCP NIO server on port : " + getEndpoint().getPort(), e);
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            connections.clear();
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                log.error("Error while closing the TCP NIO server", e);
+            }
+            stopped.countDown();
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.add(connection);
+        } catch (IOException e) {
+            log.error("Error while accepting a TCP connection", e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignore) {}
+            }
+        }
+    }
+
+    private void handle(SelectionKey key, Connection connection) {
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+        } catch (CancelledKeyException e) {
+            connection.close();
+        } catch (IOException e) {
+            log.debug("Error on a TCP connection, closing it", e);
+            connection.close();
+        }
+    }
+
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        int idleTimeout = getEndpoint().getIdleTimeout();
+        for (Iterator<Connection> it = connections.iterator(); it.hasNext(); ) {
+            Connection connection = it.next();
+            if (connection.closed) {
+                it.remove();
+            } else if (connection.isIdle() && now - connection.lastActivity > idleTimeout) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Closing idle TCP connection from " +
+                            connection.channel.socket().getRemoteSocketAddress());
+                }
+                connection.close();
+                it.remove();
+            }
+        }
+    }
+
+    private class Connection implements TCPFrameWriter {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ByteBuffer header = ByteBuffer.allocate(TCPFraming.HEADER_LENGTH);
+        private byte type;
+        private ByteBuffer body;
+        private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+        /** Set while a frame of this connection is being processed by a worker */
+        private volatile boolean busy;
+        private volatile boolean closed;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        boolean isIdle() {
+            return !busy && body == null && header.position() == 0 && writeQueue.isEmpty();
+        }
+
+        /**
+         * Read as much of the next frame as is available, and hand it to a worker once complete.
+         */
+        void read() throws IOException {
+            lastActivity = System.currentTimeMillis();
+            while (!busy) {
+                if (body == null) {
+                    if (channel.read(header) < 0) {
+                        close();
+                        return;
+                    }
+                    if (header.hasRemaining()) {
+                        return;
+                    }
+                    header.flip();
+                    type = header.get();
+                    int length = header.getInt();
+                    header.clear();
+                    TCPFraming.validateHeader(type, length, getEndpoint().getMaxFrameSize());
+                    if (type == TCPFraming.RESPONSE) {
+                        throw new IOException("Unexpected TCP frame type : " + type);
+                    }
+                    body = ByteBuffer.allocate(length);
+                }
+                if (body.hasRemaining() && channel.read(body) < 0) {
+                    close();
+                    return;
+                }
+                if (body.hasRemaining()) {
+                    return;
+                }
+                dispatch(type, body.array());
+                body = null;
+            }
+        }
+
+        private void dispatch(final byte frameType, final byte[] payload) {
+            busy = true;
+            updateInterest();
+            getWorkerPool().execute(new Runnable() {
+                public void run() {
+                    try {
+                        new TCPFrameWorker(getEndpoint(), frameType, payload, Connection.this).run();
+                    } finally {
+                        lastActivity = System.currentTimeMillis();
+                        busy = false;
+                        requestUpdate();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Write queued frames until the socket buffer is full.
+         */
+        void write() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                writeQueue.poll();
+            }
+            lastActivity = System.currentTimeMillis();
+            updateInterest();
+        }
+
+        public void writeFrame(byte type, byte[] payload) throws IOException {
+            if (closed) {
+                throw new IOException("TCP connection closed");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(TCPFraming.HEADER_LENGTH + payload.length);
+            buffer.put(TCPFraming.createHeader(type, payload.length));
+            buffer.put(payload);
+            buffer.flip();
+            writeQueue.add(buffer);
+            requestUpdate();
+        }
+
+        private void requestUpdate() {
+            pendingUpdates.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Update the interest set of the connection; only called by the selector thread.
+         */
+        void updateInterest() {
+            if (closed || !key.isValid()) {
+                return;
+            }
+            int ops = 0;
+            if (!busy) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (!writeQueue.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        void close() {
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Error while closing a TCP socket", e);
+            }
+        }
+    }
+}
@@ -28,6 +28,9 @@ public class TCPOutTransportInfo implements OutTransportInfo {
 
     private Socket socket;
     private String contentType;
+    private TCPFrameWriter frameWriter;
+    private boolean oneWay;
+    private volatile boolean responseSent;
 
     public Socket getSocket() {
         return socket;
@@ -44,4 +47,38 @@ public class TCPOutTransportInfo implements OutTransportInfo {
     public String getContentType() {
         return contentType;
     }
+
+    /**
+     * @return the writer for the response frame if the request was received on a framed
+     *         connection, or null
+     */
+    public TCPFrameWriter getFrameWriter() {
+        return frameWriter;
+    }
+
+    public void setFrameWriter(TCPFrameWriter frameWriter) {
+        this.frameWriter = frameWriter;
+    }
+
+    /**
+     * @return true if the request was a one way frame, i.e. the client does not read a response
+     */
+    public boolean isOneWay() {
+        return oneWay;
+    }
+
+    public void setOneWay(boolean oneWay) {
+        this.oneWay = oneWay;
+    }
+
+    /**
+     * @return true if the response frame has been written
+     */
+    public boolean isResponseSent() {
+        return responseSent;
+    }
+
+    public void setResponseSent(boolean responseSent) {
+        this.responseSent = responseSent;
+    }
 }
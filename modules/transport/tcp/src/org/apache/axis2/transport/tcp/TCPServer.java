@@ -43,6 +43,14 @@ public class TCPServer implements Runnable {
         this.workerPool = workerPool;
     }
 
+    protected TCPEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    protected WorkerPool getWorkerPool() {
+        return workerPool;
+    }
+
     public void run() {
         while (started) {
             Socket socket = null;
@@ -57,7 +65,11 @@ public class TCPServer implements Runnable {
             }
 
             if (socket != null) {
-                workerPool.execute(new TCPWorker(endpoint, socket));
+                if (endpoint.isFramed()) {
+                    workerPool.execute(new TCPConnectionWorker(endpoint, socket));
+                } else {
+                    workerPool.execute(new TCPWorker(endpoint, socket));
+                }
             }
         }
     }
@@ -21,7 +21,9 @@
 package org.apache.axis2.transport.tcp;
 
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.description.OutInAxisOperation;
+import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.transport.OutTransportInfo;
@@ -29,15 +31,19 @@ import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.transport.base.AbstractTransportSender;
 import org.apache.axis2.transport.base.BaseUtils;
+import org.apache.axis2.transport.base.ParamUtils;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.om.OMOutputFormat;
 import org.apache.axis2.util.MessageProcessorSelector;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.net.SocketException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
@@ -45,6 +51,32 @@ import java.util.HashMap;
 
 public class TCPTransportSender extends AbstractTransportSender {
 
+    private TCPConnectionPool connectionPool = new TCPConnectionPool(
+            TCPConstants.TCP_DEFAULT_MAX_IDLE_CONNECTIONS,
+            TCPConstants.TCP_DEFAULT_IDLE_CONNECTION_TIMEOUT);
+    private int maxFrameSize = TCPConstants.TCP_DEFAULT_MAX_FRAME_SIZE;
+
+    @Override
+    public void init(ConfigurationContext cfgCtx, TransportOutDescription transportOut)
+            throws AxisFault {
+        super.init(cfgCtx, transportOut);
+        connectionPool = new TCPConnectionPool(
+                ParamUtils.getOptionalParamInt(transportOut,
+                        TCPConstants.PARAM_MAX_IDLE_CONNECTIONS,
+                        TCPConstants.TCP_DEFAULT_MAX_IDLE_CONNECTIONS),
+                ParamUtils.getOptionalParamInt(transportOut,
+                        TCPConstants.PARAM_IDLE_CONNECTION_TIMEOUT,
+                        TCPConstants.TCP_DEFAULT_IDLE_CONNECTION_TIMEOUT));
+        maxFrameSize = ParamUtils.getOptionalParamInt(transportOut,
+                TCPConstants.PARAM_MAX_FRAME_SIZE, TCPConstants.TCP_DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        connectionPool.shutdown();
+    }
+
     public void sendMessage(MessageContext msgContext, String targetEPR,
                             OutTransportInfo outTransportInfo) throws AxisFault {
 
@@ -54,6 +86,14 @@ public class TCPTransportSender extends AbstractTransportSender {
             if (params.containsKey("timeout")) {
                 timeout = Integer.parseInt(params.get("timeout"));
             }
+            if (Boolean.parseBoolean(params.get(TCPConstants.URL_PARAM_FRAMED))) {
+                String contentType = params.get("contentType");
+                if (contentType == null) {
+                    contentType = TCPConstants.TCP_DEFAULT_CONTENT_TYPE;
+                }
+                sendFramed(msgContext, targetEPR, timeout, contentType);
+                return;
+            }
             Socket socket = openTCPConnection(targetEPR, timeout);
             msgContext.setProperty(TCPConstants.TCP_OUTPUT_SOCKET, socket);
 
@@ -73,6 +113,10 @@ public class TCPTransportSender extends AbstractTransportSender {
 
         } else if (outTransportInfo != null && (outTransportInfo instanceof TCPOutTransportInfo)) {
             TCPOutTransportInfo outInfo = (TCPOutTransportInfo) outTransportInfo;
+            if (outInfo.getFrameWriter() != null) {
+                sendFramedResponse(msgContext, outInfo);
+                return;
+            }
             try {
                 writeOut(msgContext, outInfo.getSocket(), outInfo.getContentType());
             } catch (IOException e) {
@@ -83,12 +127,95 @@ public class TCPTransportSender extends AbstractTransportSender {
         }
     }
 
-    private void writeOut(MessageContext msgContext, Socket socket,
-                          String contentType) throws IOException {
+    /**
+     * Send a request over a pooled, framed connection and process the response, if any.
+     * A request is only retried, once and on a new connection, if writing it to a connection
+     * taken from the pool failed, as the server may have closed the idle connection. Once a
+     * frame has been written completely it is never sent again, as the server may already be
+     * processing it. The pool discards the idle connections the server has closed before they
+     * are reused, so that a one way message is not written to a dead connection.
+     */
+    private void sendFramed(MessageContext msgContext, String targetEPR, int timeout,
+                            String contentType) throws AxisFault {
+        URI tcpUrl;
+        byte[] payload;
+        try {
+            tcpUrl = new URI(targetEPR);
+            payload = getBytes(msgContext, contentType);
+        } catch (Exception e) {
+            handleException("Error while preparing a TCP request to : " + targetEPR, e);
+            return;
+        }
+        boolean replyExpected = !msgContext.getOptions().isUseSeparateListener() &&
+                !msgContext.isServerSide() && isReplyExpected(msgContext);
+
+        byte[] response = null;
+        for (int attempt = 0; ; attempt++) {
+            TCPConnectionPool.Connection connection = null;
+            try {
+                connection = connectionPool.getConnection(tcpUrl.getHost(), tcpUrl.getPort(), timeout);
+            } catch (IOException e) {
+                handleException("Error while opening TCP connection to : " + targetEPR, e);
+            }
+            boolean written = false;
+            try {
+                TCPFraming.writeFrame(connection.getOutputStream(),
+                        replyExpected ? TCPFraming.REQUEST : TCPFraming.ONE_WAY, payload);
+                written = true;
+                if (replyExpected) {
+                    response = TCPFraming.readFrame(connection.getInputStream(),
+                            TCPFraming.RESPONSE, maxFrameSize);
+                }
+                connectionPool.release(connection);
+                break;
+            } catch (IOException e) {
+                connection.close();
+                if (!written && attempt == 0 && connection.isReused() &&
+                        e instanceof SocketException) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Pooled TCP connection to " + targetEPR +
+                                " was closed, retrying on a new connection");
+                    }
+                    continue;
+                }
+                handleException(written ? "Error while receiving a TCP response"
+                        : "Error while sending a TCP request", e);
+            }
+        }
+
+        // An empty response means that the request did not produce any
+        if (response != null && response.length > 0) {
+            processResponse(msgContext, new ByteArrayInputStream(response), contentType);
+        }
+    }
+
+    private void sendFramedResponse(MessageContext msgContext,
+                                    TCPOutTransportInfo outInfo) throws AxisFault {
+        if (outInfo.isOneWay() || outInfo.isResponseSent()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Discarding TCP response, as the client does not expect one");
+            }
+            return;
+        }
+        try {
+            outInfo.getFrameWriter().writeFrame(TCPFraming.RESPONSE,
+                    getBytes(msgContext, outInfo.getContentType()));
+            outInfo.setResponseSent(true);
+        } catch (IOException e) {
+            handleException("Error while sending a TCP response", e);
+        }
+    }
+
+    private byte[] getBytes(MessageContext msgContext, String contentType) throws AxisFault {
         MessageFormatter messageFormatter = MessageProcessorSelector.getMessageFormatter(msgContext);
         OMOutputFormat format = BaseUtils.getOMOutputFormat(msgContext);
         format.setContentType(contentType);
-        byte[] payload = messageFormatter.getBytes(msgContext, format);
+        return messageFormatter.getBytes(msgContext, format);
+    }
+
+    private void writeOut(MessageContext msgContext, Socket socket,
+                          String contentType) throws IOException {
+        byte[] payload = getBytes(msgContext, contentType);
         OutputStream out = socket.getOutputStream();
         out.write(payload);
         out.flush();
@@ -105,15 +232,28 @@ public class TCPTransportSender extends AbstractTransportSender {
     private void waitForReply(MessageContext msgContext, Socket socket,
                               String contentType) throws AxisFault {
 
-        if (!(msgContext.getAxisOperation() instanceof OutInAxisOperation) &&
-                msgContext.getProperty(org.apache.axis2.Constants.PIGGYBACK_MESSAGE) == null) {
+        if (!isReplyExpected(msgContext)) {
             return;
         }
 
+        try {
+            processResponse(msgContext, socket.getInputStream(), contentType);
+        } catch (IOException e) {
+            handleException("Error while processing response", e);
+        }
+    }
+
+    private boolean isReplyExpected(MessageContext msgContext) {
+        return msgContext.getAxisOperation() instanceof OutInAxisOperation ||
+                msgContext.getProperty(org.apache.axis2.Constants.PIGGYBACK_MESSAGE) != null;
+    }
+
+    private void processResponse(MessageContext msgContext, InputStream in,
+                                 String contentType) throws AxisFault {
         try {
             MessageContext responseMsgCtx = createResponseMessageContext(msgContext);
             SOAPEnvelope envelope = TransportUtils.createSOAPMessage(msgContext,
-                        socket.getInputStream(), contentType);
+                        in, contentType);
             responseMsgCtx.setEnvelope(envelope);
             AxisEngine.receive(responseMsgCtx);
         } catch (Exception e) {
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TCPConnectionPoolTest extends TestCase {
+
+    private ServerSocket serverSocket;
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    protected void setUp() throws Exception {
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread() {
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        accepted.incrementAndGet();
+                        new Thread() {
+                            public void run() {
+                                echo(socket);
+                            }
+                        }.start();
+                    }
+                } catch (IOException e) {
+                    // Server socket closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    protected void tearDown() throws Exception {
+        serverSocket.close();
+    }
+
+    /**
+     * Answer every REQUEST frame with a RESPONSE frame carrying the same payload. The connection
+     * is closed after a request with the payload "close" has been answered.
+     */
+    private static void echo(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                int type = in.read();
+                if (type == -1) {
+                    break;
+                }
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                if (type == TCPFraming.REQUEST) {
+                    TCPFraming.writeFrame(out, TCPFraming.RESPONSE, payload);
+                }
+                if (new String(payload, "UTF-8").equals("close")) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // Connection closed
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignore) {}
+        }
+    }
+
+    private byte[] exchange(TCPConnectionPool.Connection connection, String message)
+            throws IOException {
+        TCPFraming.writeFrame(connection.getOutputStream(), TCPFraming.REQUEST,
+                message.getBytes("UTF-8"));
+        return TCPFraming.readFrame(connection.getInputStream(), TCPFraming.RESPONSE, 1024);
+    }
+
+    public void testFrameHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TCPFraming.writeFrame(out, TCPFraming.ONE_WAY, new byte[300]);
+        byte[] frame = out.toByteArray();
+        assertEquals(TCPFraming.HEADER_LENGTH + 300, frame.length);
+        assertTrue(Arrays.equals(new byte[] { TCPFraming.ONE_WAY, 0, 0, 1, 44 },
+                Arrays.copyOf(frame, TCPFraming.HEADER_LENGTH)));
+
+        try {
+            TCPFraming.validateHeader(TCPFraming.REQUEST, 2048, 1024);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+        try {
+            TCPFraming.validateHeader(42, 10, 1024);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testReadFrameAtEndOfStream() throws Exception {
+        try {
+            TCPFraming.readFrame(new DataInputStream(new ByteArrayInputStream(new byte[0])),
+                    TCPFraming.RESPONSE, 1024);
+            fail("Expected EOFException");
+        } catch (EOFException e) {
+            // Expected
+        }
+        try {
+            TCPFraming.readFrame(new DataInputStream(new ByteArrayInputStream(
+                    new byte[] { TCPFraming.RESPONSE, 0, 0, 0, 10, 1, 2 })),
+                    TCPFraming.RESPONSE, 1024);
+            fail("Expected IOException");
+        } catch (EOFException e) {
+            fail("A truncated frame must not be reported as end of stream");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testConnectionReused() throws Exception {
+        TCPConnectionPool pool = new TCPConnectionPool(2, 60000);
+        int port = serverSocket.getLocalPort();
+
+        TCPConnectionPool.Connection connection = pool.getConnection("127.0.0.1", port, 5000);
+        assertFalse(connection.isReused());
+        assertEquals("first", new String(exchange(connection, "first"), "UTF-8"));
+        pool.release(connection);
+        assertEquals(1, pool.getIdleCount());
+
+        TCPConnectionPool.Connection reused = pool.getConnection("127.0.0.1", port, 5000);
+        assertSame(connection, reused);
+        assertTrue(reused.isReused());
+        assertEquals("second", new String(exchange(reused, "second"), "UTF-8"));
+        pool.release(reused);
+
+        assertEquals(1, accepted.get());
+        pool.shutdown();
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    public void testMaxIdleConnections() throws Exception {
+        TCPConnectionPool pool = new TCPConnectionPool(2, 60000);
+        int port = serverSocket.getLocalPort();
+        TCPConnectionPool.Connection[] connections = new TCPConnectionPool.Connection[3];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = pool.getConnection("127.0.0.1", port, 5000);
+        }
+        for (TCPConnectionPool.Connection connection : connections) {
+            exchange(connection, "ping");
+            pool.release(connection);
+        }
+        assertEquals(2, pool.getIdleCount());
+        pool.shutdown();
+    }
+
+    public void testIdleTimeout() throws Exception {
+        TCPConnectionPool pool = new TCPConnectionPool(2, 50);
+        int port = serverSocket.getLocalPort();
+        TCPConnectionPool.Connection connection = pool.getConnection("127.0.0.1", port, 5000);
+        exchange(connection, "ping");
+        pool.release(connection);
+        Thread.sleep(200);
+
+        TCPConnectionPool.Connection fresh = pool.getConnection("127.0.0.1", port, 5000);
+        assertNotSame(connection, fresh);
+        assertFalse(fresh.isReused());
+        assertEquals("pong", new String(exchange(fresh, "pong"), "UTF-8"));
+        pool.release(fresh);
+        pool.shutdown();
+    }
+
+    public void testStaleConnectionDiscarded() throws Exception {
+        TCPConnectionPool pool = new TCPConnectionPool(2, 60000);
+        int port = serverSocket.getLocalPort();
+        TCPConnectionPool.Connection connection = pool.getConnection("127.0.0.1", port, 5000);
+        exchange(connection, "close");
+        pool.release(connection);
+        assertEquals(1, pool.getIdleCount());
+        // Let the FIN of the server arrive
+        Thread.sleep(200);
+
+        TCPConnectionPool.Connection fresh = pool.getConnection("127.0.0.1", port, 5000);
+        assertNotSame(connection, fresh);
+        assertFalse(fresh.isReused());
+        assertEquals("ping", new String(exchange(fresh, "ping"), "UTF-8"));
+        pool.release(fresh);
+
+        // A live idle connection passes the check
+        TCPConnectionPool.Connection reused = pool.getConnection("127.0.0.1", port, 5000);
+        assertSame(fresh, reused);
+        assertEquals("pong", new String(exchange(reused, "pong"), "UTF-8"));
+        pool.release(reused);
+        assertEquals(2, accepted.get());
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.tcp;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOnlyAxisOperation;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.util.Utils;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips over framed connections, against both the blocking server and the NIO server.
+ * The services are deployed with their own framed endpoint, next to the plain endpoint
+ * configured for the transport.
+ */
+public class TCPFramedEchoTest extends TestCase {
+    private static final int FRAMED_PORT = UtilsTCPServer.TESTING_PORT + 2;
+    private static final int NIO_PORT = UtilsTCPServer.TESTING_PORT + 3;
+
+    private static final QName ECHO_OPERATION = new QName("echoOMElement");
+    private static final QName NOTIFY_OPERATION = new QName("notify");
+
+    private final BlockingQueue<String> notifications = new LinkedBlockingQueue<String>();
+
+    private ConfigurationContext configContext;
+
+    protected void setUp() throws Exception {
+        UtilsTCPServer.start();
+        deployService("FramedEchoService", TCPConstants.PARAM_FRAMED, FRAMED_PORT);
+        deployService("NioEchoService", TCPConstants.PARAM_NIO, NIO_PORT);
+        configContext = UtilsTCPServer.createClientConfigurationContext();
+    }
+
+    protected void tearDown() throws Exception {
+        UtilsTCPServer.stop();
+        configContext.getListenerManager().destroy();
+    }
+
+    private void deployService(String name, String modeParam, int port) throws AxisFault {
+        AxisService service = Utils.createSimpleService(new QName(name), Echo.class.getName(),
+                ECHO_OPERATION);
+        AxisOperation notifyOperation = new InOnlyAxisOperation(NOTIFY_OPERATION);
+        notifyOperation.setMessageReceiver(new MessageReceiver() {
+            public void receive(MessageContext msgContext) throws AxisFault {
+                OMElement payload = msgContext.getEnvelope().getBody().getFirstElement();
+                notifications.add(payload.getFirstElement().getText());
+            }
+        });
+        service.addOperation(notifyOperation);
+        service.mapActionToOperation(getAction(NOTIFY_OPERATION), notifyOperation);
+        service.addParameter(TCPConstants.PARAM_PORT, String.valueOf(port));
+        service.addParameter(modeParam, "true");
+        UtilsTCPServer.deployService(service);
+    }
+
+    private static String getAction(QName operation) {
+        return Constants.AXIS2_NAMESPACE_URI + "/" + operation.getLocalPart();
+    }
+
+    private ServiceClient createClient(String serviceName, int port, QName operation)
+            throws AxisFault {
+        Options options = new Options();
+        options.setTo(new EndpointReference("tcp://127.0.0.1:" + port + "/axis2/services/"
+                + serviceName + "?" + TCPConstants.URL_PARAM_FRAMED + "=true"));
+        options.setTransportInProtocol(Constants.TRANSPORT_TCP);
+        options.setAction(getAction(operation));
+        ServiceClient client = new ServiceClient(configContext, null);
+        client.setOptions(options);
+        return client;
+    }
+
+    private static OMElement createPayload(String localName, String text) {
+        OMFactory fac = OMAbstractFactory.getOMFactory();
+        OMNamespace omNs = fac.createOMNamespace("http://localhost/my", "my");
+        OMElement method = fac.createOMElement(localName, omNs);
+        OMElement value = fac.createOMElement("myValue", omNs);
+        value.setText(text);
+        method.addChild(value);
+        return method;
+    }
+
+    private void checkEcho(String serviceName, int port) throws Exception {
+        ServiceClient client = createClient(serviceName, port, ECHO_OPERATION);
+        // Several requests, so that pooled connections are reused
+        for (int i = 0; i < 3; i++) {
+            String text = "Isaac Asimov, The Foundation Trilogy " + i;
+            OMElement result = client.sendReceive(createPayload("echoOMElement", text));
+            assertEquals("echoOMElementResponse", result.getLocalName());
+            assertEquals(text, result.getFirstElement().getText());
+        }
+        client.cleanup();
+    }
+
+    private void checkOneWay(String serviceName, int port) throws Exception {
+        ServiceClient client = createClient(serviceName, port, NOTIFY_OPERATION);
+        client.fireAndForget(createPayload("notify", "one way"));
+        assertEquals("one way", notifications.poll(10, TimeUnit.SECONDS));
+        client.cleanup();
+    }
+
+    private void checkEmptyResponse(String serviceName, int port) throws Exception {
+        ServiceClient client = createClient(serviceName, port, NOTIFY_OPERATION);
+        // A robust in-only request waits for a response frame, which is empty as the
+        // operation does not produce a response. The server only sends it once the message
+        // has been processed.
+        client.sendRobust(createPayload("notify", "robust"));
+        assertEquals("robust", notifications.poll());
+        // The connection can still be used after the empty response
+        client.sendRobust(createPayload("notify", "robust again"));
+        assertEquals("robust again", notifications.poll());
+        client.cleanup();
+    }
+
+    public void testEcho() throws Exception {
+        checkEcho("FramedEchoService", FRAMED_PORT);
+    }
+
+    public void testOneWay() throws Exception {
+        checkOneWay("FramedEchoService", FRAMED_PORT);
+    }
+
+    public void testEmptyResponse() throws Exception {
+        checkEmptyResponse("FramedEchoService", FRAMED_PORT);
+    }
+
+    public void testNioEcho() throws Exception {
+        checkEcho("NioEchoService", NIO_PORT);
+    }
+
+    public void testNioOneWay() throws Exception {
+        checkOneWay("NioEchoService", NIO_PORT);
+    }
+
+    public void testNioEmptyResponse() throws Exception {
+        checkEmptyResponse("NioEchoService", NIO_PORT);
+    }
+
+    public void testResponseLargerThanMaxFrameSize() throws Exception {
+        TransportOutDescription transportOut =
+                configContext.getAxisConfiguration().getTransportOut(Constants.TRANSPORT_TCP);
+        transportOut.getSender().stop();
+        transportOut.addParameter(new Parameter(TCPConstants.PARAM_MAX_FRAME_SIZE, "64"));
+        transportOut.getSender().init(configContext, transportOut);
+
+        ServiceClient client = createClient("NioEchoService", NIO_PORT, ECHO_OPERATION);
+        try {
+            client.sendReceive(createPayload("echoOMElement", "Isaac Asimov"));
+            fail("Expected AxisFault");
+        } catch (AxisFault e) {
+            // Expected: the response is larger than 64 bytes
+        }
+        client.cleanup();
+    }
+}